@@ -154,6 +154,8 @@ public class AppConfiguration implements Configuration {
     private Boolean sessionIdRequestParameterEnabled = false; // #1195
     private Boolean changeSessionIdOnAuthentication = true;
     private Boolean sessionIdPersistInCache = false;
+    private Boolean sessionIdWriteBehindEnabled = false;
+    private int sessionIdWriteBehindWindowInMillis = 5000;
     /**
      * SessionId will be expired after sessionIdLifetime seconds
      */
@@ -218,6 +220,12 @@ public class AppConfiguration implements Configuration {
     private Boolean disableU2fEndpoint = false;
 
     private Boolean useLocalCache = false;
+    private Boolean tokenNearCacheEnabled = false;
+    private int tokenNearCacheSize = 10000;
+    private int tokenNearCacheLifetimeInSeconds = 30;
+    private String cacheInvalidationChannelType = "loopback";
+    private int cacheInvalidationIntervalInSeconds = 5;
+    private int clientCacheLifetimeInSeconds = 60;
     private Boolean fapiCompatibility = false;
     private Boolean forceIdTokenHintPrecense = false;
     private Boolean forceOfflineAccessScopeToEnableRefreshToken = true;
@@ -257,10 +265,51 @@ public class AppConfiguration implements Configuration {
     private CIBAEndUserNotificationConfig cibaEndUserNotificationConfig;
     private int backchannelRequestsProcessorJobIntervalSec;
     private int backchannelRequestsProcessorJobChunkSize;
+    private int backchannelCallbackThreadPoolSize = 10;
+    private int backchannelCallbackQueueSize = 1000;
+    private int backchannelCallbackMaxConcurrencyPerClient = 4;
+    private int backchannelCallbackQueueTimeoutInSeconds = 5;
     private int cibaGrantLifeExtraTimeSec;
     private int cibaMaxExpirationTimeAllowedSec;
     private Boolean cibaEnabled;
 
+    private int httpClientMaxConnections = 200;
+    private int httpClientMaxConnectionsPerRoute = 20;
+    private int httpClientConnectTimeoutInMillis = 10000;
+    private int httpClientSocketTimeoutInMillis = 30000;
+    private int httpClientKeepAliveInSeconds = 60;
+    private int httpClientAsyncThreadPoolSize = 20;
+    private int httpClientAsyncQueueSize = 1000;
+
+    private Boolean jwksCacheEnabled = true;
+    private int jwksCacheDefaultLifetimeInSeconds = 300;
+    private int jwksCacheMaxLifetimeInSeconds = 3600;
+    private int jwksCacheStaleIfErrorInSeconds = 600;
+    private int jwksCacheMinRefetchIntervalInSeconds = 10;
+
+    private Boolean userCacheEnabled = true;
+    private int userCacheLifetimeInSeconds = 5;
+    private int userCacheMaxEntries = 10000;
+
+    private Boolean statRollupEnabled = true;
+    private int statResponseCacheLifetimeInSeconds = 60;
+
+    private int tokenIndexBucketSizeInSeconds = 3600;
+
+    private int cacheBulkGetThreadPoolSize = 20;
+
+    private Boolean backchannelLogoutAsync = false;
+    private int backchannelLogoutTimeoutInSeconds = 10;
+    private int backchannelLogoutMaxConcurrencyPerHost = 4;
+    private int backchannelLogoutQueueSize = 1000;
+
+    private Boolean clientSecretCacheEnabled = true;
+    private int clientSecretCacheLifetimeInSeconds = 3600;
+    private int authenticationFilterCacheLifetimeInSeconds = 60;
+
+    private Boolean requestObjectCacheEnabled = true;
+    private int requestObjectCacheLifetimeInSeconds = 3600;
+
     public Boolean getSubjectIdentifierBasedOnWholeUriBackwardCompatibility() {
         return subjectIdentifierBasedOnWholeUriBackwardCompatibility;
     }
@@ -2086,4 +2135,362 @@ public class AppConfiguration implements Configuration {
     public void setRequestUriHashVerificationEnabled(Boolean requestUriHashVerificationEnabled) {
         this.requestUriHashVerificationEnabled = requestUriHashVerificationEnabled;
     }
-}
\ No newline at end of file
+
+    public Boolean getTokenNearCacheEnabled() {
+        if (tokenNearCacheEnabled == null) tokenNearCacheEnabled = false;
+        return tokenNearCacheEnabled;
+    }
+
+    public void setTokenNearCacheEnabled(Boolean tokenNearCacheEnabled) {
+        this.tokenNearCacheEnabled = tokenNearCacheEnabled;
+    }
+
+    public int getTokenNearCacheSize() {
+        if (tokenNearCacheSize <= 0) tokenNearCacheSize = 10000;
+        return tokenNearCacheSize;
+    }
+
+    public void setTokenNearCacheSize(int tokenNearCacheSize) {
+        this.tokenNearCacheSize = tokenNearCacheSize;
+    }
+
+    public int getTokenNearCacheLifetimeInSeconds() {
+        if (tokenNearCacheLifetimeInSeconds <= 0) tokenNearCacheLifetimeInSeconds = 30;
+        return tokenNearCacheLifetimeInSeconds;
+    }
+
+    public void setTokenNearCacheLifetimeInSeconds(int tokenNearCacheLifetimeInSeconds) {
+        this.tokenNearCacheLifetimeInSeconds = tokenNearCacheLifetimeInSeconds;
+    }
+
+    public String getCacheInvalidationChannelType() {
+        return cacheInvalidationChannelType;
+    }
+
+    public void setCacheInvalidationChannelType(String cacheInvalidationChannelType) {
+        this.cacheInvalidationChannelType = cacheInvalidationChannelType;
+    }
+
+    public int getCacheInvalidationIntervalInSeconds() {
+        return cacheInvalidationIntervalInSeconds;
+    }
+
+    public void setCacheInvalidationIntervalInSeconds(int cacheInvalidationIntervalInSeconds) {
+        this.cacheInvalidationIntervalInSeconds = cacheInvalidationIntervalInSeconds;
+    }
+
+    public int getClientCacheLifetimeInSeconds() {
+        if (clientCacheLifetimeInSeconds <= 0) clientCacheLifetimeInSeconds = 60;
+        return clientCacheLifetimeInSeconds;
+    }
+
+    public void setClientCacheLifetimeInSeconds(int clientCacheLifetimeInSeconds) {
+        this.clientCacheLifetimeInSeconds = clientCacheLifetimeInSeconds;
+    }
+
+    public Boolean getSessionIdWriteBehindEnabled() {
+        if (sessionIdWriteBehindEnabled == null) sessionIdWriteBehindEnabled = false;
+        return sessionIdWriteBehindEnabled;
+    }
+
+    public void setSessionIdWriteBehindEnabled(Boolean sessionIdWriteBehindEnabled) {
+        this.sessionIdWriteBehindEnabled = sessionIdWriteBehindEnabled;
+    }
+
+    public int getSessionIdWriteBehindWindowInMillis() {
+        if (sessionIdWriteBehindWindowInMillis <= 0) sessionIdWriteBehindWindowInMillis = 5000;
+        return sessionIdWriteBehindWindowInMillis;
+    }
+
+    public void setSessionIdWriteBehindWindowInMillis(int sessionIdWriteBehindWindowInMillis) {
+        this.sessionIdWriteBehindWindowInMillis = sessionIdWriteBehindWindowInMillis;
+    }
+
+    public int getBackchannelCallbackThreadPoolSize() {
+        if (backchannelCallbackThreadPoolSize <= 0) backchannelCallbackThreadPoolSize = 10;
+        return backchannelCallbackThreadPoolSize;
+    }
+
+    public void setBackchannelCallbackThreadPoolSize(int backchannelCallbackThreadPoolSize) {
+        this.backchannelCallbackThreadPoolSize = backchannelCallbackThreadPoolSize;
+    }
+
+    public int getBackchannelCallbackQueueSize() {
+        if (backchannelCallbackQueueSize <= 0) backchannelCallbackQueueSize = 1000;
+        return backchannelCallbackQueueSize;
+    }
+
+    public void setBackchannelCallbackQueueSize(int backchannelCallbackQueueSize) {
+        this.backchannelCallbackQueueSize = backchannelCallbackQueueSize;
+    }
+
+    public int getBackchannelCallbackMaxConcurrencyPerClient() {
+        if (backchannelCallbackMaxConcurrencyPerClient <= 0) backchannelCallbackMaxConcurrencyPerClient = 4;
+        return backchannelCallbackMaxConcurrencyPerClient;
+    }
+
+    public void setBackchannelCallbackMaxConcurrencyPerClient(int backchannelCallbackMaxConcurrencyPerClient) {
+        this.backchannelCallbackMaxConcurrencyPerClient = backchannelCallbackMaxConcurrencyPerClient;
+    }
+
+    public int getBackchannelCallbackQueueTimeoutInSeconds() {
+        if (backchannelCallbackQueueTimeoutInSeconds <= 0) backchannelCallbackQueueTimeoutInSeconds = 5;
+        return backchannelCallbackQueueTimeoutInSeconds;
+    }
+
+    public void setBackchannelCallbackQueueTimeoutInSeconds(int backchannelCallbackQueueTimeoutInSeconds) {
+        this.backchannelCallbackQueueTimeoutInSeconds = backchannelCallbackQueueTimeoutInSeconds;
+    }
+
+    public int getHttpClientMaxConnections() {
+        if (httpClientMaxConnections <= 0) httpClientMaxConnections = 200;
+        return httpClientMaxConnections;
+    }
+
+    public void setHttpClientMaxConnections(int httpClientMaxConnections) {
+        this.httpClientMaxConnections = httpClientMaxConnections;
+    }
+
+    public int getHttpClientMaxConnectionsPerRoute() {
+        if (httpClientMaxConnectionsPerRoute <= 0) httpClientMaxConnectionsPerRoute = 20;
+        return httpClientMaxConnectionsPerRoute;
+    }
+
+    public void setHttpClientMaxConnectionsPerRoute(int httpClientMaxConnectionsPerRoute) {
+        this.httpClientMaxConnectionsPerRoute = httpClientMaxConnectionsPerRoute;
+    }
+
+    public int getHttpClientConnectTimeoutInMillis() {
+        if (httpClientConnectTimeoutInMillis <= 0) httpClientConnectTimeoutInMillis = 10000;
+        return httpClientConnectTimeoutInMillis;
+    }
+
+    public void setHttpClientConnectTimeoutInMillis(int httpClientConnectTimeoutInMillis) {
+        this.httpClientConnectTimeoutInMillis = httpClientConnectTimeoutInMillis;
+    }
+
+    public int getHttpClientSocketTimeoutInMillis() {
+        if (httpClientSocketTimeoutInMillis <= 0) httpClientSocketTimeoutInMillis = 30000;
+        return httpClientSocketTimeoutInMillis;
+    }
+
+    public void setHttpClientSocketTimeoutInMillis(int httpClientSocketTimeoutInMillis) {
+        this.httpClientSocketTimeoutInMillis = httpClientSocketTimeoutInMillis;
+    }
+
+    public int getHttpClientKeepAliveInSeconds() {
+        if (httpClientKeepAliveInSeconds <= 0) httpClientKeepAliveInSeconds = 60;
+        return httpClientKeepAliveInSeconds;
+    }
+
+    public void setHttpClientKeepAliveInSeconds(int httpClientKeepAliveInSeconds) {
+        this.httpClientKeepAliveInSeconds = httpClientKeepAliveInSeconds;
+    }
+
+    public int getHttpClientAsyncThreadPoolSize() {
+        if (httpClientAsyncThreadPoolSize <= 0) httpClientAsyncThreadPoolSize = 20;
+        return httpClientAsyncThreadPoolSize;
+    }
+
+    public void setHttpClientAsyncThreadPoolSize(int httpClientAsyncThreadPoolSize) {
+        this.httpClientAsyncThreadPoolSize = httpClientAsyncThreadPoolSize;
+    }
+
+    public int getHttpClientAsyncQueueSize() {
+        if (httpClientAsyncQueueSize <= 0) httpClientAsyncQueueSize = 1000;
+        return httpClientAsyncQueueSize;
+    }
+
+    public void setHttpClientAsyncQueueSize(int httpClientAsyncQueueSize) {
+        this.httpClientAsyncQueueSize = httpClientAsyncQueueSize;
+    }
+
+    public Boolean getJwksCacheEnabled() {
+        if (jwksCacheEnabled == null) jwksCacheEnabled = true;
+        return jwksCacheEnabled;
+    }
+
+    public void setJwksCacheEnabled(Boolean jwksCacheEnabled) {
+        this.jwksCacheEnabled = jwksCacheEnabled;
+    }
+
+    public int getJwksCacheDefaultLifetimeInSeconds() {
+        if (jwksCacheDefaultLifetimeInSeconds <= 0) jwksCacheDefaultLifetimeInSeconds = 300;
+        return jwksCacheDefaultLifetimeInSeconds;
+    }
+
+    public void setJwksCacheDefaultLifetimeInSeconds(int jwksCacheDefaultLifetimeInSeconds) {
+        this.jwksCacheDefaultLifetimeInSeconds = jwksCacheDefaultLifetimeInSeconds;
+    }
+
+    public int getJwksCacheMaxLifetimeInSeconds() {
+        if (jwksCacheMaxLifetimeInSeconds <= 0) jwksCacheMaxLifetimeInSeconds = 3600;
+        return jwksCacheMaxLifetimeInSeconds;
+    }
+
+    public void setJwksCacheMaxLifetimeInSeconds(int jwksCacheMaxLifetimeInSeconds) {
+        this.jwksCacheMaxLifetimeInSeconds = jwksCacheMaxLifetimeInSeconds;
+    }
+
+    public int getJwksCacheStaleIfErrorInSeconds() {
+        if (jwksCacheStaleIfErrorInSeconds < 0) jwksCacheStaleIfErrorInSeconds = 600;
+        return jwksCacheStaleIfErrorInSeconds;
+    }
+
+    public void setJwksCacheStaleIfErrorInSeconds(int jwksCacheStaleIfErrorInSeconds) {
+        this.jwksCacheStaleIfErrorInSeconds = jwksCacheStaleIfErrorInSeconds;
+    }
+
+    public int getJwksCacheMinRefetchIntervalInSeconds() {
+        if (jwksCacheMinRefetchIntervalInSeconds < 0) jwksCacheMinRefetchIntervalInSeconds = 10;
+        return jwksCacheMinRefetchIntervalInSeconds;
+    }
+
+    public void setJwksCacheMinRefetchIntervalInSeconds(int jwksCacheMinRefetchIntervalInSeconds) {
+        this.jwksCacheMinRefetchIntervalInSeconds = jwksCacheMinRefetchIntervalInSeconds;
+    }
+
+    public Boolean getUserCacheEnabled() {
+        if (userCacheEnabled == null) userCacheEnabled = true;
+        return userCacheEnabled;
+    }
+
+    public void setUserCacheEnabled(Boolean userCacheEnabled) {
+        this.userCacheEnabled = userCacheEnabled;
+    }
+
+    public int getUserCacheLifetimeInSeconds() {
+        if (userCacheLifetimeInSeconds <= 0) userCacheLifetimeInSeconds = 5;
+        return userCacheLifetimeInSeconds;
+    }
+
+    public void setUserCacheLifetimeInSeconds(int userCacheLifetimeInSeconds) {
+        this.userCacheLifetimeInSeconds = userCacheLifetimeInSeconds;
+    }
+
+    public int getUserCacheMaxEntries() {
+        if (userCacheMaxEntries <= 0) userCacheMaxEntries = 10000;
+        return userCacheMaxEntries;
+    }
+
+    public void setUserCacheMaxEntries(int userCacheMaxEntries) {
+        this.userCacheMaxEntries = userCacheMaxEntries;
+    }
+
+    public Boolean getStatRollupEnabled() {
+        if (statRollupEnabled == null) statRollupEnabled = true;
+        return statRollupEnabled;
+    }
+
+    public void setStatRollupEnabled(Boolean statRollupEnabled) {
+        this.statRollupEnabled = statRollupEnabled;
+    }
+
+    public int getStatResponseCacheLifetimeInSeconds() {
+        if (statResponseCacheLifetimeInSeconds < 0) statResponseCacheLifetimeInSeconds = 60;
+        return statResponseCacheLifetimeInSeconds;
+    }
+
+    public void setStatResponseCacheLifetimeInSeconds(int statResponseCacheLifetimeInSeconds) {
+        this.statResponseCacheLifetimeInSeconds = statResponseCacheLifetimeInSeconds;
+    }
+
+    public int getTokenIndexBucketSizeInSeconds() {
+        if (tokenIndexBucketSizeInSeconds <= 0) tokenIndexBucketSizeInSeconds = 3600;
+        return tokenIndexBucketSizeInSeconds;
+    }
+
+    public void setTokenIndexBucketSizeInSeconds(int tokenIndexBucketSizeInSeconds) {
+        this.tokenIndexBucketSizeInSeconds = tokenIndexBucketSizeInSeconds;
+    }
+
+    public int getCacheBulkGetThreadPoolSize() {
+        if (cacheBulkGetThreadPoolSize <= 0) cacheBulkGetThreadPoolSize = 20;
+        return cacheBulkGetThreadPoolSize;
+    }
+
+    public void setCacheBulkGetThreadPoolSize(int cacheBulkGetThreadPoolSize) {
+        this.cacheBulkGetThreadPoolSize = cacheBulkGetThreadPoolSize;
+    }
+
+    public Boolean getBackchannelLogoutAsync() {
+        if (backchannelLogoutAsync == null) backchannelLogoutAsync = false;
+        return backchannelLogoutAsync;
+    }
+
+    public void setBackchannelLogoutAsync(Boolean backchannelLogoutAsync) {
+        this.backchannelLogoutAsync = backchannelLogoutAsync;
+    }
+
+    public int getBackchannelLogoutTimeoutInSeconds() {
+        if (backchannelLogoutTimeoutInSeconds <= 0) backchannelLogoutTimeoutInSeconds = 10;
+        return backchannelLogoutTimeoutInSeconds;
+    }
+
+    public void setBackchannelLogoutTimeoutInSeconds(int backchannelLogoutTimeoutInSeconds) {
+        this.backchannelLogoutTimeoutInSeconds = backchannelLogoutTimeoutInSeconds;
+    }
+
+    public int getBackchannelLogoutMaxConcurrencyPerHost() {
+        if (backchannelLogoutMaxConcurrencyPerHost <= 0) backchannelLogoutMaxConcurrencyPerHost = 4;
+        return backchannelLogoutMaxConcurrencyPerHost;
+    }
+
+    public void setBackchannelLogoutMaxConcurrencyPerHost(int backchannelLogoutMaxConcurrencyPerHost) {
+        this.backchannelLogoutMaxConcurrencyPerHost = backchannelLogoutMaxConcurrencyPerHost;
+    }
+
+    public int getBackchannelLogoutQueueSize() {
+        if (backchannelLogoutQueueSize <= 0) backchannelLogoutQueueSize = 1000;
+        return backchannelLogoutQueueSize;
+    }
+
+    public void setBackchannelLogoutQueueSize(int backchannelLogoutQueueSize) {
+        this.backchannelLogoutQueueSize = backchannelLogoutQueueSize;
+    }
+
+    public Boolean getClientSecretCacheEnabled() {
+        if (clientSecretCacheEnabled == null) clientSecretCacheEnabled = true;
+        return clientSecretCacheEnabled;
+    }
+
+    public void setClientSecretCacheEnabled(Boolean clientSecretCacheEnabled) {
+        this.clientSecretCacheEnabled = clientSecretCacheEnabled;
+    }
+
+    public int getClientSecretCacheLifetimeInSeconds() {
+        if (clientSecretCacheLifetimeInSeconds <= 0) clientSecretCacheLifetimeInSeconds = 3600;
+        return clientSecretCacheLifetimeInSeconds;
+    }
+
+    public void setClientSecretCacheLifetimeInSeconds(int clientSecretCacheLifetimeInSeconds) {
+        this.clientSecretCacheLifetimeInSeconds = clientSecretCacheLifetimeInSeconds;
+    }
+
+    public int getAuthenticationFilterCacheLifetimeInSeconds() {
+        if (authenticationFilterCacheLifetimeInSeconds <= 0) authenticationFilterCacheLifetimeInSeconds = 60;
+        return authenticationFilterCacheLifetimeInSeconds;
+    }
+
+    public void setAuthenticationFilterCacheLifetimeInSeconds(int authenticationFilterCacheLifetimeInSeconds) {
+        this.authenticationFilterCacheLifetimeInSeconds = authenticationFilterCacheLifetimeInSeconds;
+    }
+
+    public Boolean getRequestObjectCacheEnabled() {
+        if (requestObjectCacheEnabled == null) requestObjectCacheEnabled = true;
+        return requestObjectCacheEnabled;
+    }
+
+    public void setRequestObjectCacheEnabled(Boolean requestObjectCacheEnabled) {
+        this.requestObjectCacheEnabled = requestObjectCacheEnabled;
+    }
+
+    public int getRequestObjectCacheLifetimeInSeconds() {
+        if (requestObjectCacheLifetimeInSeconds <= 0) requestObjectCacheLifetimeInSeconds = 3600;
+        return requestObjectCacheLifetimeInSeconds;
+    }
+
+    public void setRequestObjectCacheLifetimeInSeconds(int requestObjectCacheLifetimeInSeconds) {
+        this.requestObjectCacheLifetimeInSeconds = requestObjectCacheLifetimeInSeconds;
+    }
+}
@@ -65,6 +65,12 @@ public abstract class AbstractCryptoProvider {
 
     public abstract PrivateKey getPrivateKey(String keyId) throws Exception;
 
+    /**
+     * Drops keys and crypto instances cached by provider (e.g. after keys rotation).
+     */
+    public void clearKeyCache() {
+    }
+
     public String getKeyId(JSONWebKeySet jsonWebKeySet, Algorithm algorithm, Use use) throws Exception {
         if (algorithm == null || AlgorithmFamily.HMAC.equals(algorithm.getFamily())) {
             return null;
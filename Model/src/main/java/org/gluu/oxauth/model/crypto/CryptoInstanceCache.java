@@ -0,0 +1,136 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.model.crypto;
+
+import javax.crypto.Mac;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of {@link Signature} and {@link Mac} instances keyed by algorithm (and provider).
+ * <p>
+ * {@code Signature.getInstance}/{@code Mac.getInstance} perform provider lookup on every call, which is noticeable
+ * when JWT is signed or verified per request. Instances are not thread-safe, thus instance is taken from the pool for
+ * the duration of one operation and returned after it, at most {@link #MAX_POOLED_INSTANCES} idle instances are kept
+ * per key. Pool is not bound to threads, so nothing is left in container worker threads after redeploy.
+ * Signature is re-initialized only if key is changed since previous use (after {@code sign()}/{@code verify()}
+ * instance is reset to initialized state, so it can be reused with the same key). Instance which failed with
+ * exception is discarded.
+ * <p>
+ * {@link #invalidateAll()} drops pooled instances (and references to keys they are initialized with), it is called
+ * on key rotation.
+ */
+public final class CryptoInstanceCache {
+
+    public static final int MAX_POOLED_INSTANCES = 64;
+
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    private static final ConcurrentMap<String, BlockingQueue<SignatureEntry>> SIGNATURES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, BlockingQueue<MacEntry>> MACS = new ConcurrentHashMap<>();
+
+    private CryptoInstanceCache() {
+    }
+
+    public static byte[] sign(String algorithm, String provider, PrivateKey privateKey, byte[] data) throws GeneralSecurityException {
+        final String cacheKey = algorithm + "|" + provider + "|sign";
+        SignatureEntry entry = borrow(SIGNATURES, cacheKey);
+        if (entry == null) {
+            entry = new SignatureEntry(Signature.getInstance(algorithm, provider));
+        }
+        if (entry.key != privateKey) {
+            entry.key = null;
+            entry.signature.initSign(privateKey);
+            entry.key = privateKey;
+        }
+        entry.signature.update(data);
+        final byte[] result = entry.signature.sign();
+        release(SIGNATURES, cacheKey, entry); // not reached on failure, so failed instance is discarded
+        return result;
+    }
+
+    public static boolean verify(String algorithm, String provider, PublicKey publicKey, byte[] data, byte[] signature) throws GeneralSecurityException {
+        final String cacheKey = algorithm + "|" + provider + "|verify";
+        SignatureEntry entry = borrow(SIGNATURES, cacheKey);
+        if (entry == null) {
+            entry = new SignatureEntry(Signature.getInstance(algorithm, provider));
+        }
+        if (entry.key != publicKey) {
+            entry.key = null;
+            entry.signature.initVerify(publicKey);
+            entry.key = publicKey;
+        }
+        entry.signature.update(data);
+        final boolean result = entry.signature.verify(signature);
+        release(SIGNATURES, cacheKey, entry);
+        return result;
+    }
+
+    /**
+     * Mac is always initialized with given key, only instance is reused (shared secrets are not kept by the cache).
+     */
+    public static byte[] mac(String algorithm, Key key, byte[] data) throws GeneralSecurityException {
+        MacEntry entry = borrow(MACS, algorithm);
+        if (entry == null) {
+            entry = new MacEntry(Mac.getInstance(algorithm));
+        }
+        entry.mac.init(key);
+        final byte[] result = entry.mac.doFinal(data);
+        release(MACS, algorithm, entry);
+        return result;
+    }
+
+    /**
+     * Drops pooled instances. Instances which are in use at the moment are dropped when they are returned.
+     */
+    public static void invalidateAll() {
+        GENERATION.incrementAndGet();
+        SIGNATURES.clear();
+        MACS.clear();
+    }
+
+    private static <T extends PooledEntry> T borrow(ConcurrentMap<String, BlockingQueue<T>> pool, String cacheKey) {
+        final BlockingQueue<T> queue = pool.get(cacheKey);
+        return queue != null ? queue.poll() : null;
+    }
+
+    private static <T extends PooledEntry> void release(ConcurrentMap<String, BlockingQueue<T>> pool, String cacheKey, T entry) {
+        if (entry.generation != GENERATION.get()) {
+            return;
+        }
+        pool.computeIfAbsent(cacheKey, k -> new ArrayBlockingQueue<>(MAX_POOLED_INSTANCES)).offer(entry);
+    }
+
+    private static class PooledEntry {
+        final long generation = GENERATION.get();
+    }
+
+    private static class SignatureEntry extends PooledEntry {
+        private final Signature signature;
+        private Key key;
+
+        private SignatureEntry(Signature signature) {
+            this.signature = signature;
+        }
+    }
+
+    private static class MacEntry extends PooledEntry {
+        private final Mac mac;
+
+        private MacEntry(Mac mac) {
+            this.mac = mac;
+        }
+    }
+}
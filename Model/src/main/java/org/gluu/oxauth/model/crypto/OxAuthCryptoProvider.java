@@ -34,7 +34,6 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.File;
@@ -53,6 +52,7 @@ import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPublicKey;
 import java.security.spec.ECGenParameterSpec;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static org.gluu.oxauth.model.jwk.JWKParameter.*;
@@ -73,6 +73,10 @@ public class OxAuthCryptoProvider extends AbstractCryptoProvider {
     private final boolean rejectNoneAlg;
     private final KeySelectionStrategy keySelectionStrategy;
 
+    // decoded keys by alias, keyStore.getKey() decrypts private key on each call
+    private final Map<String, PrivateKey> privateKeyCache = new ConcurrentHashMap<>();
+    private final Map<String, PublicKey> publicKeyCache = new ConcurrentHashMap<>();
+
     public OxAuthCryptoProvider() throws Exception {
         this(null, null, null);
     }
@@ -115,6 +119,7 @@ public class OxAuthCryptoProvider extends AbstractCryptoProvider {
         try(InputStream is = new FileInputStream(keyStoreFile)) {
             keyStore = KeyStore.getInstance("JKS");
             keyStore.load(is, keyStoreSecret.toCharArray());
+            clearKeyCache();
             LOG.debug("Loaded keys from JKS.");
             LOG.trace("Loaded keys:"+ getKeys());
         } catch (Exception e) {
@@ -177,6 +182,7 @@ public class OxAuthCryptoProvider extends AbstractCryptoProvider {
         final String oldAliasByAlgorithm = getAliasByAlgorithmForDeletion(algorithm, alias, use);
         if (StringUtils.isNotBlank(oldAliasByAlgorithm)) {
             keyStore.deleteEntry(oldAliasByAlgorithm);
+            evictKey(oldAliasByAlgorithm);
             LOG.trace("New key: " + alias + ", deleted key: " + oldAliasByAlgorithm);
         }
 
@@ -246,9 +252,7 @@ public class OxAuthCryptoProvider extends AbstractCryptoProvider {
             return "";
         } else if (AlgorithmFamily.HMAC.equals(signatureAlgorithm.getFamily())) {
             SecretKey secretKey = new SecretKeySpec(sharedSecret.getBytes(Util.UTF8_STRING_ENCODING), signatureAlgorithm.getAlgorithm());
-            Mac mac = Mac.getInstance(signatureAlgorithm.getAlgorithm());
-            mac.init(secretKey);
-            byte[] sig = mac.doFinal(signingInput.getBytes());
+            byte[] sig = CryptoInstanceCache.mac(signatureAlgorithm.getAlgorithm(), secretKey, signingInput.getBytes());
             return Base64Util.base64urlencode(sig);
         } else { // EC or RSA
             PrivateKey privateKey = getPrivateKey(alias);
@@ -260,11 +264,7 @@ public class OxAuthCryptoProvider extends AbstractCryptoProvider {
                 throw new RuntimeException(error);
             }
 
-            Signature signer = Signature.getInstance(signatureAlgorithm.getAlgorithm(), "BC");
-            signer.initSign(privateKey);
-            signer.update(signingInput.getBytes());
-
-            byte[] signature = signer.sign();
+            byte[] signature = CryptoInstanceCache.sign(signatureAlgorithm.getAlgorithm(), "BC", privateKey, signingInput.getBytes());
             if (AlgorithmFamily.EC.equals(signatureAlgorithm.getFamily())) {
             	int signatureLenght = ECDSA.getSignatureByteArrayLength(JWSAlgorithm.parse(signatureAlgorithm.getName()));
                 signature = ECDSA.transcodeSignatureToConcat(signature, signatureLenght);
@@ -305,15 +305,12 @@ public class OxAuthCryptoProvider extends AbstractCryptoProvider {
                 	signatureDer = ECDSA.transcodeSignatureToDER(signatureDer);
                 }
 
-                Signature verifier = Signature.getInstance(signatureAlgorithm.getAlgorithm(), "BC");
-                verifier.initVerify(publicKey);
-                verifier.update(signingInput.getBytes());
                 try {
-                	return verifier.verify(signatureDer);
+                	return CryptoInstanceCache.verify(signatureAlgorithm.getAlgorithm(), "BC", publicKey, signingInput.getBytes(), signatureDer);
                 } catch (SignatureException e) {
                 	// Fall back to old format
                 	// TODO: remove in Gluu 5.0
-                	return verifier.verify(signature);
+                	return CryptoInstanceCache.verify(signatureAlgorithm.getAlgorithm(), "BC", publicKey, signingInput.getBytes(), signature);
                 }
             } catch (Exception e) {
                 LOG.error(e.getMessage(), e);
@@ -334,6 +331,7 @@ public class OxAuthCryptoProvider extends AbstractCryptoProvider {
     @Override
     public boolean deleteKey(String alias) throws Exception {
         keyStore.deleteEntry(alias);
+        evictKey(alias);
         FileOutputStream stream = new FileOutputStream(keyStoreFile);
         keyStore.store(stream, keyStoreSecret.toCharArray());
         return true;
@@ -347,11 +345,15 @@ public class OxAuthCryptoProvider extends AbstractCryptoProvider {
                 return null;
             }
 
-            java.security.cert.Certificate certificate = keyStore.getCertificate(alias);
-            if (certificate == null) {
-                return null;
+            publicKey = publicKeyCache.get(alias);
+            if (publicKey == null) {
+                java.security.cert.Certificate certificate = keyStore.getCertificate(alias);
+                if (certificate == null) {
+                    return null;
+                }
+                publicKey = certificate.getPublicKey();
+                publicKeyCache.put(alias, publicKey);
             }
-            publicKey = certificate.getPublicKey();
 
             checkKeyExpiration(alias);
         } catch (KeyStoreException e) {
@@ -410,11 +412,15 @@ public class OxAuthCryptoProvider extends AbstractCryptoProvider {
             return null;
         }
 
-        Key key = keyStore.getKey(alias, keyStoreSecret.toCharArray());
-        if (key == null) {
-            return null;
+        PrivateKey privateKey = privateKeyCache.get(alias);
+        if (privateKey == null) {
+            Key key = keyStore.getKey(alias, keyStoreSecret.toCharArray());
+            if (key == null) {
+                return null;
+            }
+            privateKey = (PrivateKey) key;
+            privateKeyCache.put(alias, privateKey);
         }
-        PrivateKey privateKey = (PrivateKey) key;
 
         checkKeyExpiration(alias);
 
@@ -498,4 +504,17 @@ public class OxAuthCryptoProvider extends AbstractCryptoProvider {
         return keyStore;
     }
 
+    @Override
+    public void clearKeyCache() {
+        privateKeyCache.clear();
+        publicKeyCache.clear();
+        CryptoInstanceCache.invalidateAll();
+    }
+
+    private void evictKey(String alias) {
+        privateKeyCache.remove(alias);
+        publicKeyCache.remove(alias);
+        CryptoInstanceCache.invalidateAll();
+    }
+
 }
\ No newline at end of file
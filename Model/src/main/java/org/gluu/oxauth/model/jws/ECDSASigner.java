@@ -14,6 +14,7 @@ import org.bouncycastle.jce.spec.ECPrivateKeySpec;
 import org.bouncycastle.jce.spec.ECPublicKeySpec;
 import org.bouncycastle.math.ec.ECPoint;
 import org.gluu.oxauth.model.crypto.Certificate;
+import org.gluu.oxauth.model.crypto.CryptoInstanceCache;
 import org.gluu.oxauth.model.crypto.signature.AlgorithmFamily;
 import org.gluu.oxauth.model.crypto.signature.ECDSAPrivateKey;
 import org.gluu.oxauth.model.crypto.signature.ECDSAPublicKey;
@@ -34,6 +35,9 @@ public class ECDSASigner extends AbstractJwsSigner {
     private ECDSAPrivateKey ecdsaPrivateKey;
     private ECDSAPublicKey ecdsaPublicKey;
 
+    private PrivateKey privateKey;
+    private PublicKey publicKey;
+
     public ECDSASigner(SignatureAlgorithm signatureAlgorithm, ECDSAPrivateKey ecdsaPrivateKey) {
         super(signatureAlgorithm);
         this.ecdsaPrivateKey = ecdsaPrivateKey;
@@ -62,17 +66,16 @@ public class ECDSASigner extends AbstractJwsSigner {
         }
 
         try {
-            ECParameterSpec ecSpec = ECNamedCurveTable.getParameterSpec(getSignatureAlgorithm().getCurve().getName());
-            ECPrivateKeySpec privateKeySpec = new ECPrivateKeySpec(ecdsaPrivateKey.getD(), ecSpec);
-
-            KeyFactory keyFactory = KeyFactory.getInstance("ECDSA", "BC");
-            PrivateKey privateKey = keyFactory.generatePrivate(privateKeySpec);
+            if (privateKey == null) {
+                ECParameterSpec ecSpec = ECNamedCurveTable.getParameterSpec(getSignatureAlgorithm().getCurve().getName());
+                ECPrivateKeySpec privateKeySpec = new ECPrivateKeySpec(ecdsaPrivateKey.getD(), ecSpec);
 
-            Signature signer = Signature.getInstance(getSignatureAlgorithm().getAlgorithm(), "BC");
-            signer.initSign(privateKey);
-            signer.update(signingInput.getBytes(Util.UTF8_STRING_ENCODING));
+                KeyFactory keyFactory = KeyFactory.getInstance("ECDSA", "BC");
+                privateKey = keyFactory.generatePrivate(privateKeySpec);
+            }
 
-            byte[] signature = signer.sign();
+            byte[] signature = CryptoInstanceCache.sign(getSignatureAlgorithm().getAlgorithm(), "BC", privateKey,
+                    signingInput.getBytes(Util.UTF8_STRING_ENCODING));
             if (AlgorithmFamily.EC.equals(getSignatureAlgorithm().getFamily())) {
             	int signatureLenght = ECDSA.getSignatureByteArrayLength(JWSAlgorithm.parse(getSignatureAlgorithm().getName()));
                 signature = ECDSA.transcodeSignatureToConcat(signature, signatureLenght);
@@ -132,18 +135,17 @@ public class ECDSASigner extends AbstractJwsSigner {
             }
             byte[] sigInBytes = signingInput.getBytes(Util.UTF8_STRING_ENCODING);
 
-            ECParameterSpec ecSpec = ECNamedCurveTable.getParameterSpec(curve);
-            ECPoint pointQ = ecSpec.getCurve().createPoint(ecdsaPublicKey.getX(), ecdsaPublicKey.getY());
+            if (publicKey == null) {
+                ECParameterSpec ecSpec = ECNamedCurveTable.getParameterSpec(curve);
+                ECPoint pointQ = ecSpec.getCurve().createPoint(ecdsaPublicKey.getX(), ecdsaPublicKey.getY());
 
-            ECPublicKeySpec publicKeySpec = new ECPublicKeySpec(pointQ, ecSpec);
+                ECPublicKeySpec publicKeySpec = new ECPublicKeySpec(pointQ, ecSpec);
 
-            KeyFactory keyFactory = KeyFactory.getInstance("ECDSA", "BC");
-            PublicKey publicKey = keyFactory.generatePublic(publicKeySpec);
+                KeyFactory keyFactory = KeyFactory.getInstance("ECDSA", "BC");
+                publicKey = keyFactory.generatePublic(publicKeySpec);
+            }
 
-            Signature sig = Signature.getInstance(algorithm, "BC");
-            sig.initVerify(publicKey);
-            sig.update(sigInBytes);
-            return sig.verify(sigBytes);
+            return CryptoInstanceCache.verify(algorithm, "BC", publicKey, sigInBytes, sigBytes);
         } catch (InvalidKeySpecException e) {
             throw new SignatureException(e);
         } catch (InvalidKeyException e) {
@@ -6,10 +6,10 @@
 
 package org.gluu.oxauth.model.jws;
 
-import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 
+import org.gluu.oxauth.model.crypto.CryptoInstanceCache;
 import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
 import org.gluu.oxauth.model.util.Base64Util;
 import org.gluu.oxauth.model.util.StringUtils;
@@ -62,9 +62,7 @@ public class HMACSigner extends AbstractJwsSigner {
 
         try {
             SecretKey secretKey = new SecretKeySpec(sharedSecret.getBytes(Util.UTF8_STRING_ENCODING), algorithm);
-            Mac mac = Mac.getInstance(algorithm);
-            mac.init(secretKey);
-            byte[] sig = mac.doFinal(signingInput.getBytes(Util.UTF8_STRING_ENCODING));
+            byte[] sig = CryptoInstanceCache.mac(algorithm, secretKey, signingInput.getBytes(Util.UTF8_STRING_ENCODING));
             return Base64Util.base64urlencode(sig);
         } catch (NoSuchAlgorithmException e) {
             throw new SignatureException(e);
@@ -11,6 +11,7 @@ import java.security.spec.RSAPrivateKeySpec;
 import java.security.spec.RSAPublicKeySpec;
 
 import org.gluu.oxauth.model.crypto.Certificate;
+import org.gluu.oxauth.model.crypto.CryptoInstanceCache;
 import org.gluu.oxauth.model.crypto.signature.RSAPrivateKey;
 import org.gluu.oxauth.model.crypto.signature.RSAPublicKey;
 import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
@@ -26,6 +27,9 @@ public class RSASigner extends AbstractJwsSigner {
     private RSAPrivateKey rsaPrivateKey;
     private RSAPublicKey rsaPublicKey;
 
+    private PrivateKey privateKey;
+    private PublicKey publicKey;
+
     public RSASigner(SignatureAlgorithm signatureAlgorithm, RSAPrivateKey rsaPrivateKey) {
         super(signatureAlgorithm);
         this.rsaPrivateKey = rsaPrivateKey;
@@ -54,18 +58,18 @@ public class RSASigner extends AbstractJwsSigner {
         }
 
         try {
-            RSAPrivateKeySpec rsaPrivateKeySpec = new RSAPrivateKeySpec(
-                    rsaPrivateKey.getModulus(),
-                    rsaPrivateKey.getPrivateExponent());
-
-            KeyFactory keyFactory = KeyFactory.getInstance("RSA", "BC");
-            PrivateKey privateKey = keyFactory.generatePrivate(rsaPrivateKeySpec);
-
-            Signature signature = Signature.getInstance(getSignatureAlgorithm().getAlgorithm(), "BC");
-            signature.initSign(privateKey);
-            signature.update(signingInput.getBytes(Util.UTF8_STRING_ENCODING));
-
-            return Base64Util.base64urlencode(signature.sign());
+            if (privateKey == null) {
+                RSAPrivateKeySpec rsaPrivateKeySpec = new RSAPrivateKeySpec(
+                        rsaPrivateKey.getModulus(),
+                        rsaPrivateKey.getPrivateExponent());
+
+                KeyFactory keyFactory = KeyFactory.getInstance("RSA", "BC");
+                privateKey = keyFactory.generatePrivate(rsaPrivateKeySpec);
+            }
+
+            byte[] signature = CryptoInstanceCache.sign(getSignatureAlgorithm().getAlgorithm(), "BC", privateKey,
+                    signingInput.getBytes(Util.UTF8_STRING_ENCODING));
+            return Base64Util.base64urlencode(signature);
         } catch (Exception e) {
             throw new SignatureException(e);
         }
@@ -87,18 +91,16 @@ public class RSASigner extends AbstractJwsSigner {
             byte[] sigBytes = Base64Util.base64urldecode(signature);
             byte[] sigInBytes = signingInput.getBytes(Util.UTF8_STRING_ENCODING);
 
-            RSAPublicKeySpec rsaPublicKeySpec = new RSAPublicKeySpec(
-                    rsaPublicKey.getModulus(),
-                    rsaPublicKey.getPublicExponent());
-
-            KeyFactory keyFactory = KeyFactory.getInstance("RSA", "BC");
-            PublicKey publicKey = keyFactory.generatePublic(rsaPublicKeySpec);
+            if (publicKey == null) {
+                RSAPublicKeySpec rsaPublicKeySpec = new RSAPublicKeySpec(
+                        rsaPublicKey.getModulus(),
+                        rsaPublicKey.getPublicExponent());
 
-            Signature sign = Signature.getInstance(getSignatureAlgorithm().getAlgorithm(), "BC");
-            sign.initVerify(publicKey);
-            sign.update(sigInBytes);
+                KeyFactory keyFactory = KeyFactory.getInstance("RSA", "BC");
+                publicKey = keyFactory.generatePublic(rsaPublicKeySpec);
+            }
 
-            return sign.verify(sigBytes);
+            return CryptoInstanceCache.verify(getSignatureAlgorithm().getAlgorithm(), "BC", publicKey, sigInBytes, sigBytes);
         } catch (Exception e) {
             throw new SignatureException(e);
         }
@@ -13,6 +13,9 @@ import javax.script.ScriptException;
 import java.io.InputStream;
 
 /**
+ * JsonLogic evaluated by json_logic.js in shared script engine. Kept as reference implementation,
+ * rules are evaluated by {@link JsonLogicEvaluator}.
+ *
  * @author yuriyz
  */
 public class JsonLogic {
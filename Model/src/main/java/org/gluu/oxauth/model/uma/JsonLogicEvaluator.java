@@ -0,0 +1,75 @@
+package org.gluu.oxauth.model.uma;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.gluu.oxauth.model.util.Util;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Evaluates JsonLogic rules without script engine. Rules are compiled once into {@link JsonLogicRule}
+ * and cached by rule text.
+ */
+public class JsonLogicEvaluator {
+
+    private static final int MAX_CACHED_RULES = 1000;
+
+    private static final ConcurrentMap<String, JsonLogicRule> RULES = new ConcurrentHashMap<>();
+
+    private JsonLogicEvaluator() {
+    }
+
+    /**
+     * @param rule rule as json
+     * @return compiled rule
+     * @throws IllegalArgumentException if rule is not valid json
+     */
+    public static JsonLogicRule compile(String rule) {
+        JsonLogicRule compiled = RULES.get(rule);
+        if (compiled != null) {
+            return compiled;
+        }
+
+        compiled = JsonLogicRule.compile(readTree(rule));
+        if (RULES.size() >= MAX_CACHED_RULES) {
+            RULES.clear();
+        }
+        RULES.putIfAbsent(rule, compiled);
+        return compiled;
+    }
+
+    public static boolean apply(String rule) {
+        return Boolean.TRUE.equals(applyObject(rule, null));
+    }
+
+    /**
+     * @param rule rule as json
+     * @param data data (JsonNode, Map, Collection or primitive)
+     * @return true if rule evaluates to boolean true
+     */
+    public static boolean apply(String rule, Object data) {
+        return Boolean.TRUE.equals(applyObject(rule, data));
+    }
+
+    /**
+     * @param rule rule as json
+     * @param data data as json
+     * @return true if rule evaluates to boolean true
+     */
+    public static boolean applyJson(String rule, String data) {
+        return Boolean.TRUE.equals(applyObject(rule, readTree(data)));
+    }
+
+    public static Object applyObject(String rule, Object data) {
+        return compile(rule).apply(data);
+    }
+
+    private static JsonNode readTree(String json) {
+        try {
+            return Util.createJsonMapper().readTree(json);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to parse json: " + json, e);
+        }
+    }
+}
@@ -0,0 +1,710 @@
+package org.gluu.oxauth.model.uma;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JsonLogic rule compiled into evaluation tree.
+ * <p>
+ * Semantics follow json_logic.js evaluated by {@link JsonLogic}, including JavaScript type coercion of operands.
+ * Values are represented as null, Boolean, Double (all numbers), String, List (arrays) and Map (objects).
+ * Compiled rule is immutable and can be evaluated concurrently.
+ */
+public final class JsonLogicRule {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JsonLogicRule.class);
+
+    private static final Object UNDEFINED = new Object();
+
+    private static final Pattern DECIMAL = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+    private static final Pattern HEX = Pattern.compile("0[xX][0-9a-fA-F]+");
+    private static final Pattern FLOAT_PREFIX = Pattern.compile("^[+-]?(Infinity|(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?)");
+
+    private static final Map<String, Operation> OPERATIONS = new HashMap<>();
+
+    static {
+        OPERATIONS.put("==", (values, data) -> looseEquals(arg(values, 0), arg(values, 1)));
+        OPERATIONS.put("===", (values, data) -> strictEquals(arg(values, 0), arg(values, 1)));
+        OPERATIONS.put("!=", (values, data) -> !looseEquals(arg(values, 0), arg(values, 1)));
+        OPERATIONS.put("!==", (values, data) -> !strictEquals(arg(values, 0), arg(values, 1)));
+        OPERATIONS.put(">", (values, data) -> lessThan(arg(values, 1), arg(values, 0)));
+        OPERATIONS.put(">=", (values, data) -> lessOrEqual(arg(values, 1), arg(values, 0)));
+        OPERATIONS.put("<", (values, data) -> values.size() < 3 ? lessThan(arg(values, 0), arg(values, 1))
+                : lessThan(values.get(0), values.get(1)) && lessThan(values.get(1), values.get(2)));
+        OPERATIONS.put("<=", (values, data) -> values.size() < 3 ? lessOrEqual(arg(values, 0), arg(values, 1))
+                : lessOrEqual(values.get(0), values.get(1)) && lessOrEqual(values.get(1), values.get(2)));
+        OPERATIONS.put("!!", (values, data) -> truthy(arg(values, 0)));
+        OPERATIONS.put("!", (values, data) -> !truthy(arg(values, 0)));
+        OPERATIONS.put("%", (values, data) -> toNumber(arg(values, 0)) % toNumber(arg(values, 1)));
+        OPERATIONS.put("log", (values, data) -> {
+            LOG.debug("JsonLogic log: {}", toJsString(arg(values, 0)));
+            return arg(values, 0);
+        });
+        OPERATIONS.put("in", (values, data) -> in(arg(values, 0), arg(values, 1)));
+        OPERATIONS.put("cat", (values, data) -> join(values, ""));
+        OPERATIONS.put("substr", JsonLogicRule::substr);
+        OPERATIONS.put("+", (values, data) -> {
+            double result = 0;
+            for (Object value : values) {
+                result += parseFloat(value);
+            }
+            return result;
+        });
+        OPERATIONS.put("*", (values, data) -> {
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("Reduce of empty array with no initial value");
+            }
+            Object result = values.get(0);
+            for (int i = 1; i < values.size(); i++) {
+                result = parseFloat(result) * parseFloat(values.get(i));
+            }
+            return result;
+        });
+        OPERATIONS.put("-", (values, data) -> values.size() < 2 ? -toNumber(arg(values, 0))
+                : toNumber(values.get(0)) - toNumber(values.get(1)));
+        OPERATIONS.put("/", (values, data) -> toNumber(arg(values, 0)) / toNumber(arg(values, 1)));
+        OPERATIONS.put("min", (values, data) -> {
+            double result = Double.POSITIVE_INFINITY;
+            for (Object value : values) {
+                result = Math.min(result, toNumber(value));
+            }
+            return result;
+        });
+        OPERATIONS.put("max", (values, data) -> {
+            double result = Double.NEGATIVE_INFINITY;
+            for (Object value : values) {
+                result = Math.max(result, toNumber(value));
+            }
+            return result;
+        });
+        OPERATIONS.put("merge", (values, data) -> {
+            List<Object> result = new ArrayList<>();
+            for (Object value : values) {
+                if (value instanceof List) {
+                    result.addAll((List<?>) value);
+                } else {
+                    result.add(value);
+                }
+            }
+            return result;
+        });
+        OPERATIONS.put("var", JsonLogicRule::var);
+        OPERATIONS.put("missing", JsonLogicRule::missing);
+        OPERATIONS.put("missing_some", (values, data) -> {
+            final Object options = arg(values, 1);
+            final List<?> missing = missing(Collections.singletonList(options), data);
+            final int optionsCount = options instanceof List ? ((List<?>) options).size() : 0;
+            if (lessOrEqual(arg(values, 0), (double) (optionsCount - missing.size()))) {
+                return new ArrayList<>();
+            }
+            return missing;
+        });
+    }
+
+    private final Node root;
+
+    private JsonLogicRule(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @param rule JsonLogic rule
+     * @return compiled rule
+     */
+    public static JsonLogicRule compile(JsonNode rule) {
+        return new JsonLogicRule(compileNode(rule));
+    }
+
+    /**
+     * @param data data (JsonNode, Map, Collection or primitive), may be null
+     * @return result of rule
+     * @throws IllegalArgumentException if rule uses unknown operation
+     */
+    public Object apply(Object data) {
+        return root.evaluate(toValue(data));
+    }
+
+    private static Node compileNode(JsonNode json) {
+        if (json == null || json.isNull() || json.isMissingNode()) {
+            return data -> null;
+        }
+        if (json.isArray()) {
+            final List<Node> items = new ArrayList<>();
+            for (JsonNode item : json) {
+                items.add(compileNode(item));
+            }
+            return data -> {
+                List<Object> result = new ArrayList<>(items.size());
+                for (Node item : items) {
+                    result.add(item.evaluate(data));
+                }
+                return result;
+            };
+        }
+        if (json.isObject() && json.size() == 1) {
+            return compileOperation(json);
+        }
+
+        final Object literal = toValue(json);
+        return data -> literal;
+    }
+
+    private static Node compileOperation(JsonNode json) {
+        final String op = json.fieldNames().next();
+        final JsonNode rawValues = json.get(op);
+
+        final List<JsonNode> raw = new ArrayList<>();
+        if (rawValues.isArray()) {
+            rawValues.forEach(raw::add);
+        } else {
+            raw.add(rawValues);
+        }
+
+        final List<Node> args = new ArrayList<>(raw.size());
+        for (JsonNode value : raw) {
+            args.add(compileNode(value));
+        }
+        final Node first = node(args, 0);
+        final Node second = node(args, 1);
+
+        switch (op) {
+            case "if":
+            case "?:":
+                return data -> {
+                    data = scope(data);
+                    int i = 0;
+                    for (; i < args.size() - 1; i += 2) {
+                        if (truthy(args.get(i).evaluate(data))) {
+                            return args.get(i + 1).evaluate(data);
+                        }
+                    }
+                    return args.size() == i + 1 ? args.get(i).evaluate(data) : null;
+                };
+            case "and":
+                return data -> {
+                    data = scope(data);
+                    Object current = null;
+                    for (Node arg : args) {
+                        current = arg.evaluate(data);
+                        if (!truthy(current)) {
+                            return current;
+                        }
+                    }
+                    return current;
+                };
+            case "or":
+                return data -> {
+                    data = scope(data);
+                    Object current = null;
+                    for (Node arg : args) {
+                        current = arg.evaluate(data);
+                        if (truthy(current)) {
+                            return current;
+                        }
+                    }
+                    return current;
+                };
+            case "filter":
+                return data -> filter(first.evaluate(scope(data)), second);
+            case "map":
+                return data -> {
+                    final Object scoped = first.evaluate(scope(data));
+                    final List<Object> result = new ArrayList<>();
+                    if (scoped instanceof List) {
+                        for (Object datum : (List<?>) scoped) {
+                            result.add(second.evaluate(scope(datum)));
+                        }
+                    }
+                    return result;
+                };
+            case "reduce":
+                final Object initial = raw.size() > 2 ? toValue(raw.get(2)) : null;
+                return data -> {
+                    final Object scoped = first.evaluate(scope(data));
+                    if (!(scoped instanceof List)) {
+                        return initial;
+                    }
+                    Object accumulator = initial;
+                    for (Object current : (List<?>) scoped) {
+                        Map<String, Object> context = new HashMap<>();
+                        context.put("current", current);
+                        context.put("accumulator", accumulator);
+                        accumulator = second.evaluate(context);
+                    }
+                    return accumulator;
+                };
+            case "all":
+                return data -> {
+                    final Object scoped = first.evaluate(scope(data));
+                    if (!(scoped instanceof List) || ((List<?>) scoped).isEmpty()) {
+                        return false;
+                    }
+                    for (Object datum : (List<?>) scoped) {
+                        if (!truthy(second.evaluate(scope(datum)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                };
+            case "none":
+                return data -> filter(first.evaluate(scope(data)), second).isEmpty();
+            case "some":
+                return data -> !filter(first.evaluate(scope(data)), second).isEmpty();
+            default:
+                final Operation operation = OPERATIONS.get(op);
+                if (operation == null) {
+                    return data -> {
+                        throw new IllegalArgumentException("Unrecognized operation " + op);
+                    };
+                }
+                return data -> {
+                    data = scope(data);
+                    List<Object> values = new ArrayList<>(args.size());
+                    for (Node arg : args) {
+                        values.add(arg.evaluate(data));
+                    }
+                    return operation.apply(values, data);
+                };
+        }
+    }
+
+    private static Node node(List<Node> args, int index) {
+        return index < args.size() ? args.get(index) : data -> null;
+    }
+
+    private static List<Object> filter(Object scoped, Node logic) {
+        final List<Object> result = new ArrayList<>();
+        if (scoped instanceof List) {
+            for (Object datum : (List<?>) scoped) {
+                if (truthy(logic.evaluate(scope(datum)))) {
+                    result.add(datum);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Same as "data || {}" of json_logic.js (JavaScript truthiness, empty array is kept).
+     */
+    private static Object scope(Object data) {
+        if (data == null || Boolean.FALSE.equals(data) || "".equals(data)
+                || (data instanceof Double && (((Double) data) == 0 || ((Double) data).isNaN()))) {
+            return new HashMap<String, Object>();
+        }
+        return data;
+    }
+
+    private static Object arg(List<Object> values, int index) {
+        return index < values.size() ? values.get(index) : null;
+    }
+
+    private static Object var(List<Object> values, Object data) {
+        final Object key = arg(values, 0);
+        final Object notFound = arg(values, 1);
+        if (key == null || "".equals(key)) {
+            return data;
+        }
+
+        Object current = data;
+        for (String property : toJsString(key).split("\\.", -1)) {
+            if (current == null) {
+                return notFound;
+            }
+            current = property(current, property);
+            if (current == UNDEFINED) {
+                return notFound;
+            }
+        }
+        return current;
+    }
+
+    private static Object property(Object object, String property) {
+        if (object instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) object;
+            return map.containsKey(property) ? map.get(property) : UNDEFINED;
+        }
+        if (object instanceof List) {
+            final List<?> list = (List<?>) object;
+            if ("length".equals(property)) {
+                return (double) list.size();
+            }
+            final int index = arrayIndex(property);
+            return index >= 0 && index < list.size() ? list.get(index) : UNDEFINED;
+        }
+        if (object instanceof String) {
+            final String string = (String) object;
+            if ("length".equals(property)) {
+                return (double) string.length();
+            }
+            final int index = arrayIndex(property);
+            return index >= 0 && index < string.length() ? String.valueOf(string.charAt(index)) : UNDEFINED;
+        }
+        return UNDEFINED;
+    }
+
+    private static int arrayIndex(String property) {
+        if (property.isEmpty() || property.length() > 9 || (property.length() > 1 && property.charAt(0) == '0')) {
+            return -1;
+        }
+        for (int i = 0; i < property.length(); i++) {
+            if (!Character.isDigit(property.charAt(i))) {
+                return -1;
+            }
+        }
+        return Integer.parseInt(property);
+    }
+
+    private static List<Object> missing(List<Object> values, Object data) {
+        final List<?> keys = values.size() > 0 && values.get(0) instanceof List ? (List<?>) values.get(0) : values;
+        final List<Object> missing = new ArrayList<>();
+        for (Object key : keys) {
+            final Object value = var(Collections.singletonList(key), scope(data));
+            if (value == null || "".equals(value)) {
+                missing.add(key);
+            }
+        }
+        return missing;
+    }
+
+    private static Object in(Object a, Object b) {
+        if (b instanceof String) {
+            return ((String) b).contains(toJsString(a));
+        }
+        if (b instanceof List) {
+            for (Object item : (List<?>) b) {
+                if (strictEquals(a, item)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Object substr(List<Object> values, Object data) {
+        final String source = toJsString(arg(values, 0));
+        final int start = toInteger(arg(values, 1));
+        if (values.size() > 2 && values.get(2) != null && lessThan(values.get(2), 0d)) {
+            final String temp = substr(source, start, null);
+            return substr(temp, 0, (double) temp.length() + toNumber(values.get(2)));
+        }
+        return substr(source, start, values.size() > 2 ? toNumber(values.get(2)) : null);
+    }
+
+    /**
+     * String.prototype.substr
+     */
+    private static String substr(String source, int start, Double length) {
+        final int size = source.length();
+        int from = start < 0 ? Math.max(size + start, 0) : Math.min(start, size);
+        int count = length == null ? size - from : (int) Math.min(Math.max(toInteger(length), 0), size - from);
+        return count <= 0 ? "" : source.substring(from, from + count);
+    }
+
+    private static boolean truthy(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Double) {
+            final double d = (Double) value;
+            return d != 0 && !Double.isNaN(d);
+        }
+        if (value instanceof String) {
+            return !((String) value).isEmpty();
+        }
+        if (value instanceof List) {
+            return !((List<?>) value).isEmpty();
+        }
+        return true;
+    }
+
+    private static boolean looseEquals(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a instanceof Double && b instanceof Double) {
+            return ((Double) a).doubleValue() == (Double) b;
+        }
+        if (a instanceof String && b instanceof String) {
+            return a.equals(b);
+        }
+        if (a instanceof Boolean && b instanceof Boolean) {
+            return a.equals(b);
+        }
+        if (a instanceof Boolean) {
+            return looseEquals(toNumber(a), b);
+        }
+        if (b instanceof Boolean) {
+            return looseEquals(a, toNumber(b));
+        }
+        if (a instanceof Double && b instanceof String) {
+            return (Double) a == toNumber(b);
+        }
+        if (a instanceof String && b instanceof Double) {
+            return toNumber(a) == (Double) b;
+        }
+        final boolean aObject = a instanceof List || a instanceof Map;
+        final boolean bObject = b instanceof List || b instanceof Map;
+        if (aObject && bObject) {
+            return a == b;
+        }
+        if (aObject) {
+            return looseEquals(toJsString(a), b);
+        }
+        if (bObject) {
+            return looseEquals(a, toJsString(b));
+        }
+        return false;
+    }
+
+    private static boolean strictEquals(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a instanceof Double && b instanceof Double) {
+            return ((Double) a).doubleValue() == (Double) b;
+        }
+        if (a instanceof String || a instanceof Boolean) {
+            return a.equals(b);
+        }
+        return a == b;
+    }
+
+    private static boolean lessThan(Object a, Object b) {
+        final Object x = toPrimitive(a);
+        final Object y = toPrimitive(b);
+        if (x instanceof String && y instanceof String) {
+            return ((String) x).compareTo((String) y) < 0;
+        }
+        return toNumber(x) < toNumber(y);
+    }
+
+    private static boolean lessOrEqual(Object a, Object b) {
+        final Object x = toPrimitive(a);
+        final Object y = toPrimitive(b);
+        if (x instanceof String && y instanceof String) {
+            return ((String) x).compareTo((String) y) <= 0;
+        }
+        return toNumber(x) <= toNumber(y);
+    }
+
+    private static Object toPrimitive(Object value) {
+        return value instanceof List || value instanceof Map ? toJsString(value) : value;
+    }
+
+    private static int toInteger(Object value) {
+        final double d = toNumber(value);
+        if (Double.isNaN(d)) {
+            return 0;
+        }
+        return (int) Math.max(Math.min(d, Integer.MAX_VALUE), Integer.MIN_VALUE);
+    }
+
+    /**
+     * JavaScript Number(value)
+     */
+    private static double toNumber(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        if (value instanceof Map) {
+            return Double.NaN;
+        }
+
+        final String string = toJsString(value).trim();
+        if (string.isEmpty()) {
+            return 0;
+        }
+        if (string.equals("Infinity") || string.equals("+Infinity")) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (string.equals("-Infinity")) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        if (HEX.matcher(string).matches()) {
+            return new BigInteger(string.substring(2), 16).doubleValue();
+        }
+        if (DECIMAL.matcher(string).matches()) {
+            return Double.parseDouble(string);
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * JavaScript parseFloat(value)
+     */
+    private static double parseFloat(Object value) {
+        final Matcher matcher = FLOAT_PREFIX.matcher(toJsString(value).trim());
+        if (!matcher.find()) {
+            return Double.NaN;
+        }
+        final String number = matcher.group();
+        if (number.endsWith("Infinity")) {
+            return number.startsWith("-") ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        return Double.parseDouble(number);
+    }
+
+    /**
+     * JavaScript String(value)
+     */
+    private static String toJsString(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Double) {
+            return numberToString((Double) value);
+        }
+        if (value instanceof List) {
+            return join((List<?>) value, ",");
+        }
+        if (value instanceof Map) {
+            return "[object Object]";
+        }
+        return value.toString();
+    }
+
+    /**
+     * Array.prototype.join (null elements are joined as empty strings)
+     */
+    private static String join(List<?> values, String separator) {
+        final StringBuilder result = new StringBuilder();
+        for (Iterator<?> it = values.iterator(); it.hasNext(); ) {
+            final Object value = it.next();
+            if (value != null) {
+                result.append(toJsString(value));
+            }
+            if (it.hasNext()) {
+                result.append(separator);
+            }
+        }
+        return result.toString();
+    }
+
+    private static String numberToString(double d) {
+        if (Double.isNaN(d)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(d)) {
+            return d > 0 ? "Infinity" : "-Infinity";
+        }
+        if (d == 0) {
+            return "0";
+        }
+        final double abs = Math.abs(d);
+        if (abs >= 1e-6 && abs < 1e21) {
+            if (d == Math.rint(d) && abs < 1e15) {
+                return Long.toString((long) d);
+            }
+            return new BigDecimal(Double.toString(d)).stripTrailingZeros().toPlainString();
+        }
+
+        final String java = Double.toString(d); // e.g. 1.0E-7
+        final int exponentIndex = java.indexOf('E');
+        String mantissa = java.substring(0, exponentIndex);
+        if (mantissa.endsWith(".0")) {
+            mantissa = mantissa.substring(0, mantissa.length() - 2);
+        }
+        final String exponent = java.substring(exponentIndex + 1);
+        return mantissa + "e" + (exponent.startsWith("-") ? exponent : "+" + exponent);
+    }
+
+    private static Object toValue(Object value) {
+        if (value == null || value instanceof Boolean || value instanceof String || value instanceof Double) {
+            return value;
+        }
+        if (value instanceof JsonNode) {
+            return toValue((JsonNode) value);
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Character) {
+            return value.toString();
+        }
+        if (value instanceof Collection) {
+            final List<Object> result = new ArrayList<>();
+            for (Object item : (Collection<?>) value) {
+                result.add(toValue(item));
+            }
+            return result;
+        }
+        if (value instanceof Object[]) {
+            final List<Object> result = new ArrayList<>();
+            for (Object item : (Object[]) value) {
+                result.add(toValue(item));
+            }
+            return result;
+        }
+        if (value instanceof Map) {
+            final Map<String, Object> result = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                result.put(String.valueOf(entry.getKey()), toValue(entry.getValue()));
+            }
+            return result;
+        }
+        return value.toString();
+    }
+
+    private static Object toValue(JsonNode json) {
+        if (json == null || json.isNull() || json.isMissingNode()) {
+            return null;
+        }
+        if (json.isBoolean()) {
+            return json.booleanValue();
+        }
+        if (json.isNumber()) {
+            return json.doubleValue();
+        }
+        if (json.isTextual()) {
+            return json.textValue();
+        }
+        if (json.isArray()) {
+            final List<Object> result = new ArrayList<>(json.size());
+            for (JsonNode item : json) {
+                result.add(toValue(item));
+            }
+            return result;
+        }
+        if (json.isObject()) {
+            final Map<String, Object> result = new LinkedHashMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = json.fields(); it.hasNext(); ) {
+                final Map.Entry<String, JsonNode> field = it.next();
+                result.put(field.getKey(), toValue(field.getValue()));
+            }
+            return result;
+        }
+        return json.asText();
+    }
+
+    private interface Node {
+        Object evaluate(Object data);
+    }
+
+    private interface Operation {
+        Object apply(List<Object> values, Object data);
+    }
+}
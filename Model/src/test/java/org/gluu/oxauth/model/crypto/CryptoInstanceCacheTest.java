@@ -0,0 +1,109 @@
+package org.gluu.oxauth.model.crypto;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class CryptoInstanceCacheTest {
+
+    private static final byte[] DATA = "header.payload".getBytes(StandardCharsets.UTF_8);
+
+    @BeforeClass
+    public void setUp() {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    @Test
+    public void sign_withReusedInstance_shouldProduceVerifiableSignatures() throws Exception {
+        KeyPair keyPair = rsaKeyPair();
+
+        byte[] first = CryptoInstanceCache.sign("SHA256WITHRSA", "BC", keyPair.getPrivate(), DATA);
+        byte[] second = CryptoInstanceCache.sign("SHA256WITHRSA", "BC", keyPair.getPrivate(), DATA);
+
+        assertEquals(first, second); // RSA PKCS#1 v1.5 is deterministic
+        assertTrue(CryptoInstanceCache.verify("SHA256WITHRSA", "BC", keyPair.getPublic(), DATA, first));
+        assertTrue(CryptoInstanceCache.verify("SHA256WITHRSA", "BC", keyPair.getPublic(), DATA, second));
+    }
+
+    @Test
+    public void verify_withChangedKey_shouldReinitializeInstance() throws Exception {
+        KeyPair keyPair1 = rsaKeyPair();
+        KeyPair keyPair2 = rsaKeyPair();
+
+        byte[] signature = CryptoInstanceCache.sign("SHA256WITHRSA", "BC", keyPair1.getPrivate(), DATA);
+
+        assertTrue(CryptoInstanceCache.verify("SHA256WITHRSA", "BC", keyPair1.getPublic(), DATA, signature));
+        assertFalse(CryptoInstanceCache.verify("SHA256WITHRSA", "BC", keyPair2.getPublic(), DATA, signature));
+        assertTrue(CryptoInstanceCache.verify("SHA256WITHRSA", "BC", keyPair1.getPublic(), DATA, signature));
+    }
+
+    @Test
+    public void sign_afterInvalidateAll_shouldStillWork() throws Exception {
+        KeyPair keyPair = rsaKeyPair();
+
+        byte[] first = CryptoInstanceCache.sign("SHA256WITHRSA", "BC", keyPair.getPrivate(), DATA);
+        CryptoInstanceCache.invalidateAll();
+        byte[] second = CryptoInstanceCache.sign("SHA256WITHRSA", "BC", keyPair.getPrivate(), DATA);
+
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void mac_shouldMatchFreshInstance() throws Exception {
+        SecretKeySpec key1 = new SecretKeySpec("secret1".getBytes(StandardCharsets.UTF_8), "HMACSHA256");
+        SecretKeySpec key2 = new SecretKeySpec("secret2".getBytes(StandardCharsets.UTF_8), "HMACSHA256");
+
+        assertEquals(CryptoInstanceCache.mac("HMACSHA256", key1, DATA), freshMac(key1));
+        assertEquals(CryptoInstanceCache.mac("HMACSHA256", key2, DATA), freshMac(key2));
+        assertEquals(CryptoInstanceCache.mac("HMACSHA256", key1, DATA), freshMac(key1));
+    }
+
+    @Test
+    public void sign_fromSeveralThreads_shouldNotShareInstances() throws Exception {
+        final KeyPair keyPair = rsaKeyPair();
+        final byte[] expected = CryptoInstanceCache.sign("SHA256WITHRSA", "BC", keyPair.getPrivate(), DATA);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> CryptoInstanceCache.sign("SHA256WITHRSA", "BC", keyPair.getPrivate(), DATA)));
+            }
+            for (Future<byte[]> future : futures) {
+                assertEquals(future.get(), expected);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] freshMac(SecretKeySpec key) throws Exception {
+        Mac mac = Mac.getInstance("HMACSHA256");
+        mac.init(key);
+        return mac.doFinal(DATA);
+    }
+
+    private static KeyPair rsaKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA", "BC");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+}
@@ -0,0 +1,174 @@
+package org.gluu.oxauth.model.uma;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.script.ScriptException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.*;
+
+/**
+ * Conformance of {@link JsonLogicRule} with json_logic.js evaluated by {@link JsonLogic}.
+ */
+public class JsonLogicRuleTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String UMA_RULE = "{\"and\": [{\"or\": [{\"var\": 0}, {\"var\": 1}]}, {\"var\": 2}]}";
+
+    @DataProvider(name = "rules")
+    public Object[][] rules() {
+        return new Object[][]{
+                {"{\"==\": [1, 1]}", "null"},
+                {"{\"==\": [1, \"1\"]}", "null"},
+                {"{\"==\": [0, false]}", "null"},
+                {"{\"==\": [null, 0]}", "null"},
+                {"{\"==\": [[1], 1]}", "null"},
+                {"{\"===\": [1, \"1\"]}", "null"},
+                {"{\"!=\": [1, \"2\"]}", "null"},
+                {"{\"!==\": [1, 1]}", "null"},
+                {"{\">\": [\"11\", \"2\"]}", "null"},
+                {"{\">\": [11, \"2\"]}", "null"},
+                {"{\">=\": [1, null]}", "null"},
+                {"{\"<\": [1, 2, 3]}", "null"},
+                {"{\"<\": [1, \"a\"]}", "null"},
+                {"{\"<=\": [1, 1, 0]}", "null"},
+                {"{\"!!\": [[]]}", "null"},
+                {"{\"!!\": [\"0\"]}", "null"},
+                {"{\"!\": [0]}", "null"},
+                {"{\"%\": [7, 3]}", "null"},
+                {"{\"+\": [1, \"2\", 3.5]}", "null"},
+                {"{\"+\": [\"3abc\"]}", "null"},
+                {"{\"*\": [\"2\"]}", "null"},
+                {"{\"*\": [2, \"3\", 0.5]}", "null"},
+                {"{\"-\": [5]}", "null"},
+                {"{\"-\": [5, \"2\"]}", "null"},
+                {"{\"/\": [1, 4]}", "null"},
+                {"{\"min\": [3, 1, \"2\"]}", "null"},
+                {"{\"max\": [3, 1, 2]}", "null"},
+                {"{\"cat\": [\"a\", 1, null, true, [1, 2]]}", "null"},
+                {"{\"substr\": [\"jsonlogic\", -5]}", "null"},
+                {"{\"substr\": [\"jsonlogic\", 1, -2]}", "null"},
+                {"{\"substr\": [\"jsonlogic\", 4, 5]}", "null"},
+                {"{\"in\": [\"Spring\", \"Springfield\"]}", "null"},
+                {"{\"in\": [1, [\"1\", 2]]}", "null"},
+                {"{\"in\": [2, [\"1\", 2]]}", "null"},
+                {"{\"merge\": [[1, 2], 3, [[4]]]}", "null"},
+                {"{\"var\": \"a.b\"}", "{\"a\": {\"b\": 5}}"},
+                {"{\"var\": [\"x\", \"def\"]}", "{}"},
+                {"{\"var\": \"\"}", "[1]"},
+                {"{\"var\": 1}", "[5, 6]"},
+                {"{\"var\": \"a.0\"}", "{\"a\": [\"x\"]}"},
+                {"{\"missing\": [\"a\", \"b\"]}", "{\"a\": 1}"},
+                {"{\"missing\": {\"merge\": [\"a\", \"c\"]}}", "{\"a\": 1}"},
+                {"{\"missing_some\": [1, [\"a\", \"b\"]]}", "{\"a\": 1}"},
+                {"{\"missing_some\": [2, [\"a\", \"b\"]]}", "{\"a\": 1}"},
+                {"{\"if\": [false, 1, {\"var\": \"x\"}, 2, 3]}", "{\"x\": 0}"},
+                {"{\"if\": [true, \"yes\"]}", "null"},
+                {"{\"?:\": [[], 1, 2]}", "null"},
+                {"{\"and\": [true, \"a\", 3]}", "null"},
+                {"{\"and\": [true, \"\", 3]}", "null"},
+                {"{\"or\": [false, 0, \"a\"]}", "null"},
+                {"{\"filter\": [[1, 2, 3], {\">\": [{\"var\": \"\"}, 1]}]}", "null"},
+                {"{\"map\": [{\"var\": \"a\"}, {\"*\": [{\"var\": \"\"}, 2]}]}", "{\"a\": [1, 2]}"},
+                {"{\"reduce\": [[1, 2, 3], {\"+\": [{\"var\": \"current\"}, {\"var\": \"accumulator\"}]}, 0]}", "null"},
+                {"{\"all\": [[], true]}", "null"},
+                {"{\"all\": [[1, 2], {\">\": [{\"var\": \"\"}, 0]}]}", "null"},
+                {"{\"some\": [[1, 2], {\"==\": [{\"var\": \"\"}, 2]}]}", "null"},
+                {"{\"none\": [[1, 2], {\"==\": [{\"var\": \"\"}, 3]}]}", "null"},
+                {"[{\"var\": 0}, 1, \"a\"]", "[true]"},
+                {UMA_RULE, "[true, true, true]"},
+                {UMA_RULE, "[false, true, true]"},
+                {UMA_RULE, "[false, false, true]"},
+                {UMA_RULE, "[true, true, false]"},
+        };
+    }
+
+    @Test(dataProvider = "rules")
+    public void apply_shouldMatchJavaScriptImplementation(String rule, String data) throws Exception {
+        final Object expected = JsonLogic.eval("JSON.stringify(jsonLogic.apply(" + rule + ", " + data + "));");
+        final Object actual = JsonLogicRule.compile(MAPPER.readTree(rule)).apply(MAPPER.readTree(data));
+
+        assertEquals(stringify(actual), expected, "rule: " + rule + ", data: " + data);
+    }
+
+    @Test
+    public void apply_umaRule_shouldMatchNashornBackedApply() throws ScriptException {
+        for (String data : Arrays.asList("[true, true, true]", "[true, false, true]", "[false, false, false]", "[true, true, false]")) {
+            assertEquals(JsonLogicEvaluator.applyJson(UMA_RULE, data), JsonLogic.apply(UMA_RULE, data));
+        }
+        assertTrue(JsonLogicEvaluator.apply(UMA_RULE, Arrays.asList(true, false, true)));
+        assertTrue(JsonLogicEvaluator.apply("{\"==\": [1, 1]}"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void apply_unknownOperation_shouldFail() {
+        JsonLogicEvaluator.apply("{\"unknown\": [1]}");
+    }
+
+    @Test
+    public void compile_sameRule_shouldBeCached() {
+        assertSame(JsonLogicEvaluator.compile(UMA_RULE), JsonLogicEvaluator.compile(UMA_RULE));
+    }
+
+    @Test
+    public void apply_concurrently_shouldReturnSameResults() throws Exception {
+        final JsonLogicRule rule = JsonLogicEvaluator.compile(UMA_RULE);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                final boolean last = i % 2 == 0;
+                results.add(executor.submit((Callable<Boolean>) () -> Boolean.TRUE.equals(rule.apply(Arrays.asList(true, false, last))) == last));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * JSON.stringify of value
+     */
+    private static String stringify(Object value) throws Exception {
+        if (value instanceof Double) {
+            final double d = (Double) value;
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                return "null";
+            }
+            return d == Math.rint(d) ? Long.toString((long) d) : Double.toString(d);
+        }
+        if (value instanceof List) {
+            StringBuilder result = new StringBuilder("[");
+            for (Object item : (List<?>) value) {
+                if (result.length() > 1) {
+                    result.append(',');
+                }
+                result.append(stringify(item));
+            }
+            return result.append(']').toString();
+        }
+        if (value instanceof Map) {
+            StringBuilder result = new StringBuilder("{");
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (result.length() > 1) {
+                    result.append(',');
+                }
+                result.append(MAPPER.writeValueAsString(entry.getKey())).append(':').append(stringify(entry.getValue()));
+            }
+            return result.append('}').toString();
+        }
+        return MAPPER.writeValueAsString(value);
+    }
+}
@@ -16,7 +16,7 @@ from org.gluu.oxauth.util import ServerUtil
 from org.gluu.oxauth.service.common import EncryptionService
 from java.util import Arrays
 from org.gluu.oxauth.cert.fingerprint import FingerprintHelper
-from org.gluu.oxauth.cert.validation import GenericCertificateVerifier, PathCertificateVerifier, OCSPCertificateVerifier, CRLCertificateVerifier
+from org.gluu.oxauth.cert.validation import GenericCertificateVerifier, PathCertificateVerifier, OCSPCertificateVerifier, CRLCertificateVerifier, CrlCache, OcspResponseCache
 from org.gluu.oxauth.cert.validation.model import ValidationStatus
 from org.gluu.oxauth.util import CertUtil
 from org.gluu.oxauth.model.util import CertUtils
@@ -59,12 +59,18 @@ class PersonAuthentication(PersonAuthenticationType):
             crl_max_response_size = StringHelper.toInteger(configurationAttributes.get("crl_max_response_size").getValue2(), crl_max_response_size)
             print "Cert. Initialization. CRL max response size is '%d'" % crl_max_response_size
 
+        crl_cache_size = self.getIntegerProperty(configurationAttributes, "crl_cache_size", CrlCache.DEFAULT_MAX_SIZE)
+        crl_cache_lifetime = self.getIntegerProperty(configurationAttributes, "crl_cache_lifetime_in_seconds", CrlCache.DEFAULT_LIFETIME_IN_SECONDS)
+        ocsp_cache_size = self.getIntegerProperty(configurationAttributes, "ocsp_cache_size", OcspResponseCache.DEFAULT_MAX_SIZE)
+        ocsp_cache_lifetime = self.getIntegerProperty(configurationAttributes, "ocsp_cache_lifetime_in_seconds", OcspResponseCache.DEFAULT_LIFETIME_IN_SECONDS)
+        print "Cert. Initialization. CRL cache size: '%d', lifetime: '%d'. OCSP cache size: '%d', lifetime: '%d'" % (crl_cache_size, crl_cache_lifetime, ocsp_cache_size, ocsp_cache_lifetime)
+
         # Define array to order methods correctly
         self.validator_types = [ 'generic', 'path', 'ocsp', 'crl']
         self.validators = { 'generic' : [GenericCertificateVerifier(), False],
                             'path' : [PathCertificateVerifier(False), False],
-                            'ocsp' : [OCSPCertificateVerifier(), False],
-                            'crl' : [CRLCertificateVerifier(crl_max_response_size), False] }
+                            'ocsp' : [OCSPCertificateVerifier(ocsp_cache_size, ocsp_cache_lifetime), False],
+                            'crl' : [CRLCertificateVerifier(crl_max_response_size, crl_cache_size, crl_cache_lifetime), False] }
 
         for type in self.validator_types:
             validator_param_name = "use_%s_validator" % type
@@ -87,6 +93,8 @@ class PersonAuthentication(PersonAuthenticationType):
     def destroy(self, configurationAttributes):
         print "Cert. Destroy"
 
+        print "Cert. Destroy. OCSP cache stats: '%s', CRL cache stats: '%s'" % (self.validators['ocsp'][0].getStats(), self.validators['crl'][0].getStats())
+
         for type in self.validator_types:
             self.validators[type][0].destroy()
 
@@ -94,6 +102,12 @@ class PersonAuthentication(PersonAuthenticationType):
 
         return True
 
+    def getIntegerProperty(self, configurationAttributes, name, default_value):
+        if configurationAttributes.containsKey(name):
+            return StringHelper.toInteger(configurationAttributes.get(name).getValue2(), default_value)
+
+        return default_value
+
     def getApiVersion(self):
         return 11
 
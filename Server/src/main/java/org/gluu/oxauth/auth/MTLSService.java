@@ -15,8 +15,8 @@ import org.gluu.oxauth.model.jwk.JSONWebKeySet;
 import org.gluu.oxauth.model.registration.Client;
 import org.gluu.oxauth.model.token.TokenErrorResponseType;
 import org.gluu.oxauth.model.util.CertUtils;
-import org.gluu.oxauth.model.util.JwtUtil;
 import org.gluu.oxauth.service.SessionIdService;
+import org.gluu.oxauth.service.net.JwksCacheService;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 
@@ -50,6 +50,9 @@ public class MTLSService {
     @Inject
     private AbstractCryptoProvider cryptoProvider;
 
+    @Inject
+    private JwksCacheService jwksCacheService;
+
     @Inject
     private ErrorResponseFactory errorResponseFactory;
 
@@ -97,7 +100,7 @@ public class MTLSService {
             final byte[] encodedKey = publicKey.getEncoded();
 
             JSONObject jsonWebKeys = Strings.isNullOrEmpty(client.getJwks())
-                    ? JwtUtil.getJSONWebKeys(client.getJwksUri())
+                    ? jwksCacheService.getJSONWebKeys(client.getJwksUri())
                     : new JSONObject(client.getJwks());
 
             if (jsonWebKeys == null) {
@@ -31,9 +31,7 @@ import javax.inject.Named;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.WebApplicationException;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.logging.log4j.util.Strings;
@@ -82,6 +80,7 @@ import org.gluu.oxauth.service.external.ExternalAuthenticationService;
 import org.gluu.oxauth.service.external.ExternalConsentGatheringService;
 import org.gluu.oxauth.service.external.ExternalPostAuthnService;
 import org.gluu.oxauth.service.external.context.ExternalPostAuthnContext;
+import org.gluu.oxauth.service.net.HttpService;
 import org.gluu.oxauth.util.ServerUtil;
 import org.gluu.persist.exception.EntryPersistenceException;
 import org.gluu.util.StringHelper;
@@ -180,6 +179,9 @@ public class AuthorizeAction {
     @Inject
     private AuthorizeRestWebServiceValidator authorizeRestWebServiceValidator;
 
+    @Inject
+    private HttpService httpService;
+
     // OAuth 2.0 request parameters
     private String scope;
     private String responseType;
@@ -497,26 +499,16 @@ public class AuthorizeAction {
                 String reqUriHash = reqUri.getFragment();
                 String reqUriWithoutFragment = reqUri.getScheme() + ":" + reqUri.getSchemeSpecificPart();
 
-                javax.ws.rs.client.Client clientRequest = ClientBuilder.newClient();
-                try {
-	        	    Response clientResponse = clientRequest.target(reqUriWithoutFragment).request().buildGet().invoke();
-	        	    clientRequest.close();
-	
-	                int status = clientResponse.getStatus();
-	                if (status == 200) {
-	                    String entity = clientResponse.readEntity(String.class);
-	
-	                    if (StringUtils.isBlank(reqUriHash)) {
-	                        requestJwt = entity;
-	                    } else {
-	                        String hash = Base64Util.base64urlencode(JwtUtil.getMessageDigestSHA256(entity));
-	                        if (StringUtils.equals(reqUriHash, hash)) {
-	                            requestJwt = entity;
-	                        }
-	                    }
-	                }
-                } finally {
-                	clientRequest.close();
+                String entity = httpService.executeGetContent(reqUriWithoutFragment);
+                if (entity != null) {
+                    if (StringUtils.isBlank(reqUriHash)) {
+                        requestJwt = entity;
+                    } else {
+                        String hash = Base64Util.base64urlencode(JwtUtil.getMessageDigestSHA256(entity));
+                        if (StringUtils.equals(reqUriHash, hash)) {
+                            requestJwt = entity;
+                        }
+                    }
                 }
             } catch (Exception e) {
                 log.error(e.getMessage(), e);
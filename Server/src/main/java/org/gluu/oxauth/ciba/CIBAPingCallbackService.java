@@ -10,6 +10,7 @@ import org.gluu.oxauth.client.ciba.ping.PingCallbackClient;
 import org.gluu.oxauth.client.ciba.ping.PingCallbackRequest;
 import org.gluu.oxauth.client.ciba.ping.PingCallbackResponse;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.service.net.HttpService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,6 +30,9 @@ public class CIBAPingCallbackService {
     @Inject
     private AppConfiguration appConfiguration;
 
+    @Inject
+    private HttpService httpService;
+
     public void pingCallback(String authReqId, String clientNotificationEndpoint, String clientNotificationToken) {
         PingCallbackRequest pingCallbackRequest = new PingCallbackRequest();
 
@@ -36,6 +40,7 @@ public class CIBAPingCallbackService {
         pingCallbackRequest.setAuthReqId(authReqId);
 
         PingCallbackClient pingCallbackClient = new PingCallbackClient(clientNotificationEndpoint, appConfiguration.getFapiCompatibility());
+        pingCallbackClient.setExecutor(httpService.getPooledClientEngine()); // replaced by MTLS executor if FAPI is enabled
         pingCallbackClient.setRequest(pingCallbackRequest);
         PingCallbackResponse pingCallbackResponse = pingCallbackClient.exec();
 
@@ -10,10 +10,12 @@ import org.gluu.oxauth.client.ciba.push.PushErrorClient;
 import org.gluu.oxauth.client.ciba.push.PushErrorRequest;
 import org.gluu.oxauth.client.ciba.push.PushErrorResponse;
 import org.gluu.oxauth.model.ciba.PushErrorResponseType;
+import org.gluu.oxauth.service.net.HttpService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
 /**
  * @author Javier Rojas Blum
@@ -24,6 +26,9 @@ public class CIBAPushErrorService {
 
     private final static Logger log = LoggerFactory.getLogger(CIBAPushErrorService.class);
 
+    @Inject
+    private HttpService httpService;
+
     public void pushError(String authReqId, String clientNotificationEndpoint, String clientNotificationToken,
                           PushErrorResponseType error, String errorDescription) {
         PushErrorRequest pushErrorRequest = new PushErrorRequest();
@@ -34,6 +39,7 @@ public class CIBAPushErrorService {
         pushErrorRequest.setErrorDescription(errorDescription);
 
         PushErrorClient pushErrorClient = new PushErrorClient(clientNotificationEndpoint);
+        pushErrorClient.setExecutor(httpService.getPooledClientEngine());
         pushErrorClient.setRequest(pushErrorRequest);
         PushErrorResponse pushErrorResponse = pushErrorClient.exec();
 
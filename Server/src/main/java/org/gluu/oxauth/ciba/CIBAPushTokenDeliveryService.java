@@ -10,10 +10,12 @@ import org.gluu.oxauth.client.ciba.push.PushTokenDeliveryClient;
 import org.gluu.oxauth.client.ciba.push.PushTokenDeliveryRequest;
 import org.gluu.oxauth.client.ciba.push.PushTokenDeliveryResponse;
 import org.gluu.oxauth.model.common.TokenType;
+import org.gluu.oxauth.service.net.HttpService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
 /**
  * @author Javier Rojas Blum
@@ -24,6 +26,9 @@ public class CIBAPushTokenDeliveryService {
 
     private final static Logger log = LoggerFactory.getLogger(CIBAPushTokenDeliveryService.class);
 
+    @Inject
+    private HttpService httpService;
+
     public void pushTokenDelivery(String authReqId, String clientNotificationEndpoint, String clientNotificationToken,
                                   String accessToken, String refreshToken, String idToken, Integer expiresIn) {
         PushTokenDeliveryRequest pushTokenDeliveryRequest = new PushTokenDeliveryRequest();
@@ -37,6 +42,7 @@ public class CIBAPushTokenDeliveryService {
         pushTokenDeliveryRequest.setIdToken(idToken);
 
         PushTokenDeliveryClient pushTokenDeliveryClient = new PushTokenDeliveryClient(clientNotificationEndpoint);
+        pushTokenDeliveryClient.setExecutor(httpService.getPooledClientEngine());
         pushTokenDeliveryClient.setRequest(pushTokenDeliveryRequest);
         PushTokenDeliveryResponse pushTokenDeliveryResponse = pushTokenDeliveryClient.exec();
 
@@ -13,6 +13,7 @@ import org.gluu.oxauth.model.common.SubjectType;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.crypto.signature.AsymmetricSignatureAlgorithm;
 import org.gluu.oxauth.model.util.Util;
+import org.gluu.oxauth.service.net.HttpService;
 import org.json.JSONArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,8 +22,6 @@ import javax.enterprise.context.ApplicationScoped;
 
 import javax.inject.Inject;
 import javax.ws.rs.HttpMethod;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.core.Response;
 
 import java.util.List;
 
@@ -41,6 +40,9 @@ public class CIBARegisterParamsValidatorService {
     @Inject
     private AppConfiguration appConfiguration;
 
+    @Inject
+    private HttpService httpService;
+
     public boolean validateParams(
             BackchannelTokenDeliveryMode backchannelTokenDeliveryMode, String backchannelClientNotificationEndpoint,
             AsymmetricSignatureAlgorithm backchannelAuthenticationRequestSigningAlg, Boolean backchannelUserCodeParameter,
@@ -84,19 +86,9 @@ public class CIBARegisterParamsValidatorService {
                 }
 
                 if (Strings.isNotBlank(sectorIdentifierUri)) {
-					javax.ws.rs.client.Client clientRequest = ClientBuilder.newClient();
-					String entity = null;
-					try {
-						Response clientResponse = clientRequest.target(sectorIdentifierUri).request().buildGet().invoke();
-	                    int status = clientResponse.getStatus();
-	
-	                    if (status != 200) {
-	                        return false;
-	                    }
-	
-	                    entity = clientResponse.readEntity(String.class);
-					} finally {
-						clientRequest.close();
+                    String entity = httpService.executeGetContent(sectorIdentifierUri);
+                    if (entity == null) {
+                        return false;
                     }
 
 					JSONArray sectorIdentifierJsonArray = new JSONArray(entity);
@@ -13,19 +13,23 @@ import org.gluu.oxauth.claims.Audience;
 import org.gluu.oxauth.model.authorize.AuthorizeErrorResponseType;
 import org.gluu.oxauth.model.common.AbstractToken;
 import org.gluu.oxauth.model.common.AccessToken;
-import org.gluu.oxauth.model.common.AuthorizationGrant;
 import org.gluu.oxauth.model.common.AuthorizationGrantList;
+import org.gluu.oxauth.model.common.AuthorizationGrantType;
 import org.gluu.oxauth.model.common.IntrospectionResponse;
+import org.gluu.oxauth.model.common.LazyAuthorizationGrant;
 import org.gluu.oxauth.model.common.TokenType;
 import org.gluu.oxauth.model.config.WebKeysConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.error.ErrorResponseFactory;
 import org.gluu.oxauth.model.jwt.Jwt;
+import org.gluu.oxauth.model.registration.Client;
 import org.gluu.oxauth.model.token.JwtSigner;
 import org.gluu.oxauth.model.uma.UmaScopeType;
 import org.gluu.oxauth.model.util.Util;
 import org.gluu.oxauth.service.AttributeService;
 import org.gluu.oxauth.service.ClientService;
+import org.gluu.oxauth.service.SectorIdentifierService;
+import org.gluu.oxauth.service.UserService;
 import org.gluu.oxauth.service.external.ExternalIntrospectionService;
 import org.gluu.oxauth.service.external.context.ExternalIntrospectionContext;
 import org.gluu.oxauth.service.token.TokenService;
@@ -62,7 +66,7 @@ import java.util.Iterator;
 @Path("/introspection")
 public class IntrospectionWebService {
 
-    private static final Pair<AuthorizationGrant, Boolean> EMPTY = new Pair<>(null, false);
+    private static final Pair<LazyAuthorizationGrant, Boolean> EMPTY = new Pair<>(null, false);
 
     @Inject
     private Logger log;
@@ -82,6 +86,10 @@ public class IntrospectionWebService {
     private AttributeService attributeService;
     @Inject
     private WebKeysConfiguration webKeysConfiguration;
+    @Inject
+    private SectorIdentifierService sectorIdentifierService;
+    @Inject
+    private UserService userService;
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
@@ -106,7 +114,7 @@ public class IntrospectionWebService {
         return introspect(p_authorization, p_token, tokenTypeHint, responseAsJwt, httpRequest, httpResponse);
     }
 
-    private AuthorizationGrant validateAuthorization(String p_authorization, String p_token) throws UnsupportedEncodingException {
+    private LazyAuthorizationGrant validateAuthorization(String p_authorization, String p_token) throws UnsupportedEncodingException {
         final boolean skipAuthorization = ServerUtil.isTrue(appConfiguration.getIntrospectionSkipAuthorization());
         log.trace("skipAuthorization: {}", skipAuthorization);
         if (skipAuthorization) {
@@ -118,8 +126,8 @@ public class IntrospectionWebService {
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST).type(MediaType.APPLICATION_JSON_TYPE).entity(errorResponseFactory.errorAsJson(AuthorizeErrorResponseType.INVALID_REQUEST, "")).build());
         }
 
-        final Pair<AuthorizationGrant, Boolean> pair = getAuthorizationGrant(p_authorization, p_token);
-        final AuthorizationGrant authorizationGrant = pair.getFirst();
+        final Pair<LazyAuthorizationGrant, Boolean> pair = getAuthorizationGrant(p_authorization, p_token);
+        final LazyAuthorizationGrant authorizationGrant = pair.getFirst();
         if (authorizationGrant == null) {
             log.error("Authorization grant is null.");
             throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED).type(MediaType.APPLICATION_JSON_TYPE).entity(errorResponseFactory.errorAsJson(AuthorizeErrorResponseType.ACCESS_DENIED, "Authorization grant is null.")).build());
@@ -145,7 +153,7 @@ public class IntrospectionWebService {
         try {
             log.trace("Introspect token, authorization: {}, token to introspect: {}, tokenTypeHint: {}", p_authorization, p_token, tokenTypeHint);
 
-            AuthorizationGrant authorizationGrant = validateAuthorization(p_authorization, p_token);
+            LazyAuthorizationGrant authorizationGrant = validateAuthorization(p_authorization, p_token);
 
             if (StringUtils.isBlank(p_token)) {
                 log.trace("Bad request: Token is blank.");
@@ -154,7 +162,8 @@ public class IntrospectionWebService {
 
             final IntrospectionResponse response = new IntrospectionResponse(false);
 
-            final AuthorizationGrant grantOfIntrospectionToken = authorizationGrantList.getAuthorizationGrantByAccessToken(p_token);
+            // user is loaded (through node cache) for sub, full grant is loaded only if script asks for it
+            final LazyAuthorizationGrant grantOfIntrospectionToken = authorizationGrantList.getLazyAuthorizationGrantByAccessToken(p_token);
 
             AbstractToken tokenToIntrospect = null;
             if (grantOfIntrospectionToken != null) {
@@ -166,7 +175,7 @@ public class IntrospectionWebService {
                 response.setAcrValues(grantOfIntrospectionToken.getAcrValues());
                 response.setScope(grantOfIntrospectionToken.getScopes() != null ? grantOfIntrospectionToken.getScopes() : Lists.newArrayList()); // #433
                 response.setClientId(grantOfIntrospectionToken.getClientId());
-                response.setSub(grantOfIntrospectionToken.getSub());
+                response.setSub(getSub(grantOfIntrospectionToken));
                 response.setUsername(grantOfIntrospectionToken.getUserId());
                 response.setIssuer(appConfiguration.getIssuer());
                 response.setAudience(grantOfIntrospectionToken.getClientId());
@@ -181,7 +190,7 @@ public class IntrospectionWebService {
             JSONObject responseAsJsonObject = createResponseAsJsonObject(response, tokenToIntrospect);
 
             ExternalIntrospectionContext context = new ExternalIntrospectionContext(authorizationGrant, httpRequest, httpResponse, appConfiguration, attributeService);
-            context.setGrantOfIntrospectionToken(grantOfIntrospectionToken);
+            context.setLazyGrantOfIntrospectionToken(grantOfIntrospectionToken);
             if (externalIntrospectionService.executeExternalModifyResponse(responseAsJsonObject, context)) {
                 log.trace("Successfully run extenal introspection scripts.");
             } else {
@@ -209,7 +218,18 @@ public class IntrospectionWebService {
         }
     }
 
-    private String createResponseAsJwt(JSONObject response, AuthorizationGrant grant) throws Exception {
+    private String getSub(LazyAuthorizationGrant grant) {
+        final Client client = grant.getClient();
+        if (client == null || StringUtils.isBlank(grant.getUserId())) {
+            return "";
+        }
+
+        // user is loaded even if sub is uid, so token of removed user still gets blank sub
+        final boolean isCibaGrant = AuthorizationGrantType.CIBA == AuthorizationGrantType.fromString(grant.getTokenLdap().getGrantType());
+        return sectorIdentifierService.getSub(client, userService.getCachedUser(grant.getUserId()), isCibaGrant);
+    }
+
+    private String createResponseAsJwt(JSONObject response, LazyAuthorizationGrant grant) throws Exception {
         final JwtSigner jwtSigner = JwtSigner.newJwtSigner(appConfiguration, webKeysConfiguration, grant.getClient());
         final Jwt jwt = jwtSigner.newJwt();
         Audience.setAudience(jwt.getClaims(), grant.getClient());
@@ -245,10 +265,10 @@ public class IntrospectionWebService {
      * @return we return pair of authorization grant or otherwise true - if it's basic client authentication or false if it is not
      * @throws UnsupportedEncodingException when encoding is not supported
      */
-    private Pair<AuthorizationGrant, Boolean> getAuthorizationGrant(String authorization, String accessToken) throws UnsupportedEncodingException {
-        AuthorizationGrant grant = tokenService.getBearerAuthorizationGrant(authorization);
+    private Pair<LazyAuthorizationGrant, Boolean> getAuthorizationGrant(String authorization, String accessToken) throws UnsupportedEncodingException {
+        final String authorizationAccessToken = tokenService.getBearerToken(authorization);
+        LazyAuthorizationGrant grant = StringUtils.isNotBlank(authorizationAccessToken) ? authorizationGrantList.getLazyAuthorizationGrantByAccessToken(authorizationAccessToken) : null;
         if (grant != null) {
-            final String authorizationAccessToken = tokenService.getBearerToken(authorization);
             final AbstractToken accessTokenObject = grant.getAccessToken(authorizationAccessToken);
             if (accessTokenObject != null && accessTokenObject.isValid()) {
                 return new Pair<>(grant, false);
@@ -258,7 +278,7 @@ public class IntrospectionWebService {
             }
         }
 
-        grant = tokenService.getBasicAuthorizationGrant(authorization);
+        grant = LazyAuthorizationGrant.of(tokenService.getBasicAuthorizationGrant(authorization));
         if (grant != null) {
             return new Pair<>(grant, false);
         }
@@ -274,8 +294,8 @@ public class IntrospectionWebService {
                 String clientId = URLDecoder.decode(token.substring(0, delim), Util.UTF8_STRING_ENCODING);
                 String password = URLDecoder.decode(token.substring(delim + 1), Util.UTF8_STRING_ENCODING);
                 if (clientService.authenticate(clientId, password)) {
-                    grant = authorizationGrantList.getAuthorizationGrantByAccessToken(accessToken);
-                    if (grant != null && !grant.getClientId().equals(clientId)) {
+                    grant = authorizationGrantList.getLazyAuthorizationGrantByAccessToken(accessToken);
+                    if (grant != null && !clientId.equals(grant.getClientId())) {
                         log.trace("Failed to match grant object clientId and client id provided during authentication.");
                         return EMPTY;
                     }
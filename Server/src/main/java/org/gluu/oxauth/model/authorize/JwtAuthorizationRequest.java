@@ -15,8 +15,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.ws.rs.WebApplicationException;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.core.Response;
 
 import org.apache.commons.lang.StringUtils;
 import org.gluu.oxauth.model.common.Display;
@@ -38,6 +36,8 @@ import org.gluu.oxauth.model.util.JwtUtil;
 import org.gluu.oxauth.model.util.Util;
 import org.gluu.oxauth.service.ClientService;
 import org.gluu.oxauth.service.RedirectUriResponse;
+import org.gluu.oxauth.service.net.HttpService;
+import org.gluu.oxauth.service.net.JwksCacheService;
 import org.gluu.service.cdi.util.CdiUtil;
 import org.jetbrains.annotations.Nullable;
 import org.json.JSONArray;
@@ -296,7 +296,7 @@ public class JwtAuthorizationRequest {
         ClientService clientService = CdiUtil.bean(ClientService.class);
         String sharedSecret = clientService.decryptSecret(client.getClientSecret());
         JSONObject jwks = Strings.isNullOrEmpty(client.getJwks()) ?
-                JwtUtil.getJSONWebKeys(client.getJwksUri()) :
+                CdiUtil.bean(JwksCacheService.class).getJSONWebKeys(client.getJwksUri(), keyId) :
                 new JSONObject(client.getJwks());
         return cryptoProvider.verifySignature(signingInput, signature, keyId, jwks, sharedSecret, signatureAlgorithm);
     }
@@ -430,24 +430,14 @@ public class JwtAuthorizationRequest {
             String reqUriHash = reqUri.getFragment();
             String reqUriWithoutFragment = reqUri.getScheme() + ":" + reqUri.getSchemeSpecificPart();
 
-            javax.ws.rs.client.Client clientRequest = ClientBuilder.newClient();
-            String request = null;
-            try {
-	            Response clientResponse = clientRequest.target(reqUriWithoutFragment).request().buildGet().invoke();
-	            int status = clientResponse.getStatus();
-	
-	            if (status == 200) {
-	                request = clientResponse.readEntity(String.class);
-	
-	                if (StringUtils.isBlank(reqUriHash) || !appConfiguration.getRequestUriHashVerificationEnabled()) {
-	                    validRequestUri = true;
-	                } else {
-	                    String hash = Base64Util.base64urlencode(JwtUtil.getMessageDigestSHA256(request));
-	                    validRequestUri = StringUtils.equals(reqUriHash, hash);
-	                }
-	            }
-            } finally {
-            	clientRequest.close();
+            String request = CdiUtil.bean(HttpService.class).executeGetContent(reqUriWithoutFragment);
+            if (request != null) {
+                if (StringUtils.isBlank(reqUriHash) || !appConfiguration.getRequestUriHashVerificationEnabled()) {
+                    validRequestUri = true;
+                } else {
+                    String hash = Base64Util.base64urlencode(JwtUtil.getMessageDigestSHA256(request));
+                    validRequestUri = StringUtils.equals(reqUriHash, hash);
+                }
             }
 
             if (!validRequestUri && redirectUriResponse != null) {
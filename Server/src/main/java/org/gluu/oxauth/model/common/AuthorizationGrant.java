@@ -28,6 +28,7 @@ import org.gluu.oxauth.service.*;
 import org.gluu.oxauth.service.external.ExternalIntrospectionService;
 import org.gluu.oxauth.service.external.context.ExternalIntrospectionContext;
 import org.gluu.oxauth.service.stat.StatService;
+import org.gluu.oxauth.service.token.TokenWriteBatch;
 import org.gluu.oxauth.util.TokenHashUtil;
 import org.gluu.service.CacheService;
 import org.json.JSONObject;
@@ -77,9 +78,15 @@ public abstract class AuthorizationGrant extends AbstractAuthorizationGrant {
 	@Inject
 	private MetricService metricService;
 
+    @Inject
+    private JwtAuthorizationRequestCache jwtAuthorizationRequestCache;
+
 	@Inject
     private StatService statService;
 
+    @Inject
+    private TokenWriteBatch tokenWriteBatch;
+
     private boolean isCachedWithNoPersistence = false;
 
     public AuthorizationGrant() {
@@ -155,6 +162,9 @@ public abstract class AuthorizationGrant extends AbstractAuthorizationGrant {
                     grantService.mergeSilently(t);
                 }
             }
+            for (TokenLdap t : tokenWriteBatch.getPending(grantId)) {
+                initTokenFromGrant(t); // not written yet, it is persisted with current grant state
+            }
         }
     }
 
@@ -174,6 +184,7 @@ public abstract class AuthorizationGrant extends AbstractAuthorizationGrant {
         final JwtAuthorizationRequest jwtRequest = getJwtAuthorizationRequest();
         if (jwtRequest != null && StringUtils.isNotBlank(jwtRequest.getEncodedJwt())) {
             token.setJwtRequest(jwtRequest.getEncodedJwt());
+            jwtAuthorizationRequestCache.put(jwtRequest, getClient());
         }
     }
 
@@ -240,7 +251,7 @@ public abstract class AuthorizationGrant extends AbstractAuthorizationGrant {
     private void runIntrospectionScriptAndInjectValuesIntoJwt(Jwt jwt, ExecutionContext executionContext) {
         JSONObject responseAsJsonObject = new JSONObject();
 
-        ExternalIntrospectionContext context = new ExternalIntrospectionContext(this, executionContext.getHttpRequest(), executionContext.getHttpResponse(), appConfiguration, attributeService);
+        ExternalIntrospectionContext context = new ExternalIntrospectionContext(LazyAuthorizationGrant.of(this), executionContext.getHttpRequest(), executionContext.getHttpResponse(), appConfiguration, attributeService);
         context.setAccessTokenAsJwt(jwt);
         if (externalIntrospectionService.executeExternalModifyResponse(responseAsJsonObject, context)) {
             log.trace("Successfully run external introspection scripts.");
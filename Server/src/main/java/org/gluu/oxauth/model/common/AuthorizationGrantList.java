@@ -8,17 +8,16 @@ package org.gluu.oxauth.model.common;
 
 import org.apache.commons.lang.StringUtils;
 import org.gluu.model.metric.MetricType;
-import org.gluu.oxauth.model.authorize.JwtAuthorizationRequest;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
-import org.gluu.oxauth.model.crypto.AbstractCryptoProvider;
 import org.gluu.oxauth.model.ldap.TokenLdap;
 import org.gluu.oxauth.model.ldap.TokenType;
 import org.gluu.oxauth.model.registration.Client;
 import org.gluu.oxauth.model.util.Util;
 import org.gluu.oxauth.service.ClientService;
 import org.gluu.oxauth.service.GrantService;
+import org.gluu.oxauth.service.JwtAuthorizationRequestCache;
 import org.gluu.oxauth.service.MetricService;
-import org.gluu.oxauth.service.common.UserService;
+import org.gluu.oxauth.service.UserService;
 import org.gluu.oxauth.util.ServerUtil;
 import org.gluu.oxauth.util.TokenHashUtil;
 import org.gluu.service.CacheService;
@@ -63,7 +62,7 @@ public class AuthorizationGrantList implements IAuthorizationGrantList {
     private CacheService cacheService;
 
     @Inject
-    private AbstractCryptoProvider cryptoProvider;
+    private JwtAuthorizationRequestCache jwtAuthorizationRequestCache;
 
 	@Inject
 	private MetricService metricService;
@@ -223,13 +222,33 @@ public class AuthorizationGrantList implements IAuthorizationGrantList {
     }
 
     public AuthorizationGrant getAuthorizationGrantByAccessToken(String accessToken, boolean onlyFromCache) {
-        final TokenLdap tokenLdap = grantService.getGrantByCode(accessToken);
-        if (tokenLdap != null    && (tokenLdap.getTokenTypeEnum() == org.gluu.oxauth.model.ldap.TokenType.ACCESS_TOKEN || tokenLdap.getTokenTypeEnum() == org.gluu.oxauth.model.ldap.TokenType.LONG_LIVED_ACCESS_TOKEN)) {
+        final TokenLdap tokenLdap = getAccessTokenEntry(accessToken);
+        if (tokenLdap != null) {
             return asGrant(tokenLdap);
         }
         return null;
     }
 
+    /**
+     * Returns view of access token which does not load user and does not reconstruct grant until it is requested.
+     * Client is resolved through client service (cached).
+     */
+    public LazyAuthorizationGrant getLazyAuthorizationGrantByAccessToken(String accessToken) {
+        final TokenLdap tokenLdap = getAccessTokenEntry(accessToken);
+        if (tokenLdap == null || AuthorizationGrantType.fromString(tokenLdap.getGrantType()) == null) {
+            return null;
+        }
+        return new LazyAuthorizationGrant(tokenLdap, clientService.getClient(tokenLdap.getClientId()), this::asGrant);
+    }
+
+    private TokenLdap getAccessTokenEntry(String accessToken) {
+        final TokenLdap tokenLdap = grantService.getGrantByCode(accessToken);
+        if (tokenLdap != null && (tokenLdap.getTokenTypeEnum() == TokenType.ACCESS_TOKEN || tokenLdap.getTokenTypeEnum() == TokenType.LONG_LIVED_ACCESS_TOKEN)) {
+            return tokenLdap;
+        }
+        return null;
+    }
+
     @Override
     public AuthorizationGrant getAuthorizationGrantByIdToken(String idToken) {
         if (StringUtils.isBlank(idToken)) {
@@ -246,7 +265,7 @@ public class AuthorizationGrantList implements IAuthorizationGrantList {
         if (tokenLdap != null) {
             final AuthorizationGrantType grantType = AuthorizationGrantType.fromString(tokenLdap.getGrantType());
             if (grantType != null) {
-                final User user = userService.getUser(tokenLdap.getUserId());
+                final User user = userService.getCachedUser(tokenLdap.getUserId());
                 final Client client = clientService.getClient(tokenLdap.getClientId());
                 final Date authenticationTime = tokenLdap.getAuthenticationTime();
                 final String nonce = tokenLdap.getNonce();
@@ -313,7 +332,7 @@ public class AuthorizationGrantList implements IAuthorizationGrantList {
 
                 if (StringUtils.isNotBlank(jwtRequest)) {
                     try {
-                        result.setJwtAuthorizationRequest(new JwtAuthorizationRequest(appConfiguration, cryptoProvider, jwtRequest, client));
+                        result.setJwtAuthorizationRequest(jwtAuthorizationRequestCache.get(jwtRequest, client));
                     } catch (Exception e) {
                         log.trace(e.getMessage(), e);
                     }
@@ -0,0 +1,108 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.model.common;
+
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.model.ldap.TokenLdap;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.model.util.Util;
+import org.gluu.oxauth.util.TokenHashUtil;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Read-only view of access token entry which answers token properties (validity, scopes, client, acr) directly
+ * from TokenLdap. Full authorization grant (user, CDI grant bean, parsed request object) is reconstructed only
+ * when it is requested by {@link #getGrant()}.
+ */
+public class LazyAuthorizationGrant {
+
+    private final TokenLdap tokenLdap;
+    private final Client client;
+    private final Function<TokenLdap, AuthorizationGrant> grantLoader;
+
+    private AuthorizationGrant grant;
+    private boolean grantLoaded;
+
+    public LazyAuthorizationGrant(TokenLdap tokenLdap, Client client, Function<TokenLdap, AuthorizationGrant> grantLoader) {
+        this.tokenLdap = tokenLdap;
+        this.client = client;
+        this.grantLoader = grantLoader;
+    }
+
+    /**
+     * Wraps already reconstructed grant.
+     */
+    public static LazyAuthorizationGrant of(AuthorizationGrant grant) {
+        if (grant == null) {
+            return null;
+        }
+
+        LazyAuthorizationGrant result = new LazyAuthorizationGrant(grant.getTokenLdap(), grant.getClient(), null);
+        result.grant = grant;
+        result.grantLoaded = true;
+        return result;
+    }
+
+    public AuthorizationGrant getGrant() {
+        if (!grantLoaded) {
+            grant = grantLoader != null ? grantLoader.apply(tokenLdap) : null;
+            grantLoaded = true;
+        }
+        return grant;
+    }
+
+    public boolean isGrantLoaded() {
+        return grantLoaded;
+    }
+
+    public TokenLdap getTokenLdap() {
+        return tokenLdap;
+    }
+
+    public Client getClient() {
+        return client;
+    }
+
+    public String getClientId() {
+        return client != null ? client.getClientId() : null;
+    }
+
+    /**
+     * @return user id (uid) stored in token entry, user itself is not loaded
+     */
+    public String getUserId() {
+        return tokenLdap != null ? tokenLdap.getUserId() : null;
+    }
+
+    public String getAcrValues() {
+        return tokenLdap != null ? tokenLdap.getAuthMode() : null;
+    }
+
+    public Set<String> getScopes() {
+        if (grantLoaded && grant != null) {
+            return grant.getScopes();
+        }
+        return tokenLdap != null ? new LinkedHashSet<>(Util.splittedStringAsList(tokenLdap.getScope(), " ")) : new LinkedHashSet<>();
+    }
+
+    public String getScopesAsString() {
+        return StringUtils.join(getScopes(), " ");
+    }
+
+    public AbstractToken getAccessToken(String tokenCode) {
+        if (grantLoaded) {
+            return grant != null ? grant.getAccessToken(tokenCode) : null;
+        }
+        if (tokenLdap == null || tokenCode == null || !TokenHashUtil.hash(tokenCode).equals(tokenLdap.getTokenCode())) {
+            return null;
+        }
+        return new AccessToken(tokenLdap.getTokenCode(), tokenLdap.getCreationDate(), tokenLdap.getExpirationDate());
+    }
+}
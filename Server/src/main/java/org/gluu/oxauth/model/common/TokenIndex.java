@@ -0,0 +1,84 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.model.common;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Part of token index stored in cache: keys (token hashes or keys of other index parts) with their expiration time.
+ *
+ * @see org.gluu.oxauth.service.token.TokenIndexService
+ */
+public class TokenIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private HashMap<String, Long> entries = new HashMap<>();
+
+    public Map<String, Long> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(HashMap<String, Long> entries) {
+        this.entries = entries;
+    }
+
+    public TokenIndex copy() {
+        TokenIndex copy = new TokenIndex();
+        copy.setEntries(new HashMap<>(entries));
+        return copy;
+    }
+
+    public boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    public void put(String key, long expiresAt) {
+        entries.merge(key, expiresAt, Math::max);
+    }
+
+    /**
+     * Removes entries which are expired at given time.
+     */
+    public void prune(long now) {
+        entries.values().removeIf(expiresAt -> expiresAt == null || expiresAt <= now);
+    }
+
+    /**
+     * @return keys which are not expired at given time
+     */
+    public Set<String> getActiveKeys(long now) {
+        Set<String> result = new HashSet<>();
+        for (Map.Entry<String, Long> entry : entries.entrySet()) {
+            if (entry.getValue() != null && entry.getValue() > now) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    public long getMaxExpiration() {
+        long result = 0;
+        for (Long expiresAt : entries.values()) {
+            if (expiresAt != null && expiresAt > result) {
+                result = expiresAt;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenIndex{" +
+                "entries=" + entries +
+                '}';
+    }
+}
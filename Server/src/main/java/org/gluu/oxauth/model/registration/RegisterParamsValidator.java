@@ -15,7 +15,6 @@ import java.util.Set;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.ws.rs.WebApplicationException;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -32,6 +31,7 @@ import org.gluu.oxauth.model.register.RegisterErrorResponseType;
 import org.gluu.oxauth.model.util.Pair;
 import org.gluu.oxauth.model.util.URLPatternList;
 import org.gluu.oxauth.model.util.Util;
+import org.gluu.oxauth.service.net.HttpService;
 import org.gluu.oxauth.util.ServerUtil;
 import org.json.JSONArray;
 import org.slf4j.Logger;
@@ -54,6 +54,9 @@ public class RegisterParamsValidator {
     @Inject
     private ErrorResponseFactory errorResponseFactory;
 
+    @Inject
+    private HttpService httpService;
+
     private static final String HTTP = "http";
     private static final String HTTPS = "https";
     private static final String LOCALHOST = "localhost";
@@ -288,21 +291,11 @@ public class RegisterParamsValidator {
                     valid = false;
                 }
 
-                javax.ws.rs.client.Client clientRequest = ClientBuilder.newClient();
-        		String entity = null;
-        		try {
-        			Response clientResponse = clientRequest.target(sectorIdentifierUrl).request().buildGet().invoke();
-	                int status = clientResponse.getStatus();
-	
-	                if (status == 200) {
-	                    entity = clientResponse.readEntity(String.class);
-	
-	                    JSONArray sectorIdentifierJsonArray = new JSONArray(entity);
-	                    valid = Util.asList(sectorIdentifierJsonArray).containsAll(redirectUris);
-	                }
-        		} finally {
-        			clientRequest.close();
-        		}
+                String entity = httpService.executeGetContent(sectorIdentifierUrl);
+                if (entity != null) {
+                    JSONArray sectorIdentifierJsonArray = new JSONArray(entity);
+                    valid = Util.asList(sectorIdentifierJsonArray).containsAll(redirectUris);
+                }
             } catch (Exception e) {
                 log.debug(e.getMessage(), e);
                 valid = false;
@@ -20,8 +20,8 @@ import org.gluu.oxauth.model.jwt.JwtClaimName;
 import org.gluu.oxauth.model.jwt.JwtHeaderName;
 import org.gluu.oxauth.model.jwt.JwtType;
 import org.gluu.oxauth.model.registration.Client;
-import org.gluu.oxauth.model.util.JwtUtil;
 import org.gluu.oxauth.service.ClientService;
+import org.gluu.oxauth.service.net.JwksCacheService;
 import org.gluu.service.cdi.util.CdiUtil;
 import org.gluu.util.security.StringEncrypter;
 
@@ -107,7 +107,7 @@ public class ClientAssertion {
                                         // Validate the crypto segment
                                         String keyId = jwt.getHeader().getKeyId();
                                         JSONObject jwks = Strings.isNullOrEmpty(client.getJwks()) ?
-                                                JwtUtil.getJSONWebKeys(client.getJwksUri()) :
+                                                CdiUtil.bean(JwksCacheService.class).getJSONWebKeys(client.getJwksUri(), keyId) :
                                                 new JSONObject(client.getJwks());
                                         String sharedSecret = clientService.decryptSecret(client.getClientSecret());
                                         boolean validSignature = cryptoProvider.verifySignature(jwt.getSigningInput(), jwt.getEncodedSignature(),
@@ -21,10 +21,10 @@ import org.gluu.oxauth.model.jwk.Use;
 import org.gluu.oxauth.model.jwt.Jwt;
 import org.gluu.oxauth.model.jwt.JwtType;
 import org.gluu.oxauth.model.registration.Client;
-import org.gluu.oxauth.model.util.JwtUtil;
 import org.gluu.oxauth.service.ClientService;
 import org.gluu.oxauth.service.SectorIdentifierService;
 import org.gluu.oxauth.service.ServerCryptoProvider;
+import org.gluu.oxauth.service.net.JwksCacheService;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 
@@ -53,6 +53,9 @@ public class JwrService {
     @Inject
     private AppConfiguration appConfiguration;
 
+    @Inject
+    private JwksCacheService jwksCacheService;
+
     @Inject
     private WebKeysConfiguration webKeysConfiguration;
 
@@ -95,7 +98,7 @@ public class JwrService {
         final BlockEncryptionAlgorithm encryptionMethod = jwe.getHeader().getEncryptionMethod();
 
         if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA_OAEP || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA1_5) {
-            JSONObject jsonWebKeys = JwtUtil.getJSONWebKeys(client.getJwksUri());
+            JSONObject jsonWebKeys = jwksCacheService.getJSONWebKeys(client.getJwksUri());
             String keyId = new ServerCryptoProvider(cryptoProvider).getKeyId(JSONWebKeySet.fromJSONObject(jsonWebKeys),
                     Algorithm.fromString(keyEncryptionAlgorithm.getName()),
                     Use.ENCRYPTION);
@@ -42,6 +42,7 @@ import org.gluu.oxauth.service.MetricService;
 import org.gluu.oxauth.service.ScopeService;
 import org.gluu.oxauth.service.common.InumService;
 import org.gluu.oxauth.service.external.ExternalDynamicClientRegistrationService;
+import org.gluu.oxauth.service.net.SectorIdentifierCacheService;
 import org.gluu.oxauth.service.token.TokenService;
 import org.gluu.oxauth.util.ServerUtil;
 import org.gluu.persist.model.base.CustomAttribute;
@@ -132,6 +133,9 @@ public class RegisterRestWebServiceImpl implements RegisterRestWebService {
     @Inject
     private AuthorizationGrantList authorizationGrantList;
 
+    @Inject
+    private SectorIdentifierCacheService sectorIdentifierCacheService;
+
     @Override
     public Response requestRegister(String requestParams, HttpServletRequest httpRequest, SecurityContext securityContext) {
         com.codahale.metrics.Timer.Context timerContext = metricService.getTimer(MetricType.DYNAMIC_CLIENT_REGISTRATION_RATE).time();
@@ -747,6 +751,7 @@ public class RegisterRestWebServiceImpl implements RegisterRestWebService {
 
                         final Client client = clientService.getClient(clientId, accessToken);
                         if (client != null) {
+                            final String previousSectorIdentifierUri = client.getSectorIdentifierUri();
                             updateClientFromRequestObject(client, request, true);
 
                             boolean updateClient = true;
@@ -756,6 +761,9 @@ public class RegisterRestWebServiceImpl implements RegisterRestWebService {
 
                             if (updateClient) {
                                 clientService.merge(client);
+                                if (!StringUtils.equals(previousSectorIdentifierUri, client.getSectorIdentifierUri())) {
+                                    sectorIdentifierCacheService.invalidate(previousSectorIdentifierUri);
+                                }
 
                                 oAuth2AuditLog.setScope(clientScopesToString(client));
                                 oAuth2AuditLog.setSuccess(true);
@@ -17,6 +17,7 @@ import org.gluu.oxauth.model.auth.AuthenticationMode;
 import org.gluu.oxauth.model.config.ConfigurationFactory;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.util.SecurityProviderUtility;
+import org.gluu.oxauth.service.cache.CacheInvalidationService;
 import org.gluu.oxauth.service.cdi.event.AuthConfigurationEvent;
 import org.gluu.oxauth.service.cdi.event.ReloadAuthScript;
 import org.gluu.oxauth.service.ciba.CibaRequestsProcessorJob;
@@ -158,6 +159,12 @@ public class AppInitializer {
 	@Inject
     private ExpirationNotificatorTimer expirationNotificatorTimer;
 
+	@Inject
+	private CacheInvalidationService cacheInvalidationService;
+
+	@Inject
+	private SessionWriteBehindService sessionWriteBehindService;
+
 	@Inject
 	private CustomLibrariesLoader customLibrariesLoader;
 
@@ -234,6 +241,8 @@ public class AppInitializer {
 		keyGeneratorTimer.initTimer();
         statTimer.initTimer();
 		expirationNotificatorTimer.initTimer();
+		cacheInvalidationService.initTimer();
+		sessionWriteBehindService.initTimer();
 		initTimer();
 		initCibaRequestsProcessor();
 
@@ -10,6 +10,7 @@ import java.util.Map;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
 import org.apache.commons.lang.StringUtils;
@@ -18,6 +19,7 @@ import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.persist.PersistenceEntryManager;
 import org.gluu.persist.exception.AuthenticationException;
 import org.gluu.persist.exception.operation.SearchException;
+import org.gluu.service.cdi.event.ConfigurationUpdate;
 import org.gluu.util.StringHelper;
 
 /**
@@ -36,7 +38,12 @@ public class AuthenticationFilterService extends BaseAuthFilterService {
 
     @PostConstruct
     public void init() {
-        super.init(appConfiguration.getAuthenticationFilters(), Boolean.TRUE.equals(appConfiguration.getAuthenticationFiltersEnabled()), true);
+        updateConfiguration(appConfiguration);
+    }
+
+    public void updateConfiguration(@Observes @ConfigurationUpdate AppConfiguration appConfiguration) {
+        super.init(appConfiguration.getAuthenticationFilters(), Boolean.TRUE.equals(appConfiguration.getAuthenticationFiltersEnabled()), true,
+                appConfiguration.getAuthenticationFilterCacheLifetimeInSeconds());
     }
 
     public String processAuthenticationFilter(AuthenticationFilterWithParameters authenticationFilterWithParameters, Map<?, ?> attributeValues) throws SearchException {
@@ -7,17 +7,24 @@
 package org.gluu.oxauth.service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.gluu.oxauth.model.configuration.BaseFilter;
 import org.gluu.persist.PersistenceEntryManager;
 import org.gluu.persist.exception.operation.SearchException;
@@ -45,10 +52,12 @@ public abstract class BaseAuthFilterService {
 
     public static final Pattern PARAM_VALUE_PATTERN = Pattern.compile("([\\w]+)[\\s]*\\=[\\*\\s]*(\\{[\\s]*[\\d]+[\\s]*\\})[\\*\\s]*");
 
-    private boolean enabled;
-    private boolean filterAttributes = true;
+    public static final int DEFAULT_ENTRY_DN_CACHE_LIFETIME_IN_SECONDS = 60;
 
-    private List<AuthenticationFilterWithParameters> filterWithParameters;
+    private static final int ENTRY_DN_CACHE_MAX_SIZE = 10000;
+
+    // Replaced as a whole on each init, so concurrent logins never mix old and new configuration
+    private volatile FilterState state = new FilterState(false, true, Collections.<AuthenticationFilterWithParameters>emptyList(), null);
 
     public static class AuthenticationFilterWithParameters {
 
@@ -56,10 +65,99 @@ public abstract class BaseAuthFilterService {
         private List<String> variableNames;
         private List<AuthenticationFilterService.IndexedParameter> indexedVariables;
 
+        // Filter compiled to literal segments and parameter slots between them: segments.size() == slots.size() + 1
+        private Set<String> variableNameSet;
+        private List<String> segments;
+        private List<String> slots;
+        private Map<String, List<String>> paramNamesBySlot;
+
         public AuthenticationFilterWithParameters(BaseFilter authenticationFilter, List<String> variableNames, List<AuthenticationFilterService.IndexedParameter> indexedVariables) {
             this.authenticationFilter = authenticationFilter;
             this.variableNames = variableNames;
             this.indexedVariables = indexedVariables;
+            compile();
+        }
+
+        private void compile() {
+            this.variableNameSet = variableNames != null ? new HashSet<String>(variableNames) : new HashSet<String>();
+            this.segments = new ArrayList<String>();
+            this.slots = new ArrayList<String>();
+            this.paramNamesBySlot = new LinkedHashMap<String, List<String>>();
+
+            final String filter = authenticationFilter != null ? authenticationFilter.getFilter() : null;
+            if (filter == null) {
+                this.segments = null;
+                return;
+            }
+
+            if (indexedVariables != null) {
+                for (IndexedParameter indexedParameter : indexedVariables) {
+                    List<String> paramNames = paramNamesBySlot.get(indexedParameter.getParamIndex());
+                    if (paramNames == null) {
+                        paramNames = new ArrayList<String>();
+                        paramNamesBySlot.put(indexedParameter.getParamIndex(), paramNames);
+                    }
+                    paramNames.add(indexedParameter.getParamName());
+                }
+            }
+
+            int position = 0;
+            while (true) {
+                int next = -1;
+                String nextSlot = null;
+                for (String slot : paramNamesBySlot.keySet()) {
+                    int found = filter.indexOf(slot, position);
+                    if (found >= 0 && (next < 0 || found < next)) {
+                        next = found;
+                        nextSlot = slot;
+                    }
+                }
+                if (next < 0) {
+                    break;
+                }
+
+                segments.add(filter.substring(position, next));
+                slots.add(nextSlot);
+                position = next + nextSlot.length();
+            }
+            segments.add(filter.substring(position));
+        }
+
+        /**
+         * @return value of each parameter slot, null if there is no value for slot
+         */
+        public List<String> getSlotValues(Map<String, String> normalizedAttributeValues) {
+            final String[] values = new String[slots.size()];
+            for (int i = 0; i < values.length; i++) {
+                for (String paramName : paramNamesBySlot.get(slots.get(i))) {
+                    String attributeValue = normalizedAttributeValues.get(paramName);
+                    if (attributeValue != null) {
+                        values[i] = attributeValue;
+                        break;
+                    }
+                }
+            }
+            return Arrays.asList(values);
+        }
+
+        /**
+         * Fills parameter slots, slot without value keeps parameter index as is.
+         */
+        public String buildFilter(List<String> slotValues) {
+            if (segments == null) {
+                return null;
+            }
+
+            final StringBuilder filter = new StringBuilder(segments.get(0));
+            for (int i = 0; i < slots.size(); i++) {
+                final String value = slotValues.get(i);
+                filter.append(value != null ? value : slots.get(i)).append(segments.get(i + 1));
+            }
+            return filter.toString();
+        }
+
+        public boolean isAllowed(Set<String> normalizedAttributeNames) {
+            return normalizedAttributeNames.containsAll(variableNameSet);
         }
 
         public BaseFilter getAuthenticationFilter() {
@@ -68,6 +166,7 @@ public abstract class BaseAuthFilterService {
 
         public void setAuthenticationFilter(BaseFilter authenticationFilter) {
             this.authenticationFilter = authenticationFilter;
+            compile();
         }
 
         public List<String> getVariableNames() {
@@ -76,6 +175,7 @@ public abstract class BaseAuthFilterService {
 
         public void setVariableNames(List<String> variableNames) {
             this.variableNames = variableNames;
+            compile();
         }
 
         public List<AuthenticationFilterService.IndexedParameter> getIndexedVariables() {
@@ -84,6 +184,7 @@ public abstract class BaseAuthFilterService {
 
         public void setIndexedVariables(List<AuthenticationFilterService.IndexedParameter> indexedVariables) {
             this.indexedVariables = indexedVariables;
+            compile();
         }
 
         public String toString() {
@@ -124,16 +225,66 @@ public abstract class BaseAuthFilterService {
         }
     }
 
+    private static class FilterState {
+
+        private final boolean enabled;
+        private final boolean filterAttributes;
+        private final List<AuthenticationFilterWithParameters> filterWithParameters;
+
+        // Resolved entry DN by filter and its parameter values
+        private final Cache<EntryDnCacheKey, String> entryDnCache;
+
+        private FilterState(boolean enabled, boolean filterAttributes, List<AuthenticationFilterWithParameters> filterWithParameters, Cache<EntryDnCacheKey, String> entryDnCache) {
+            this.enabled = enabled;
+            this.filterAttributes = filterAttributes;
+            this.filterWithParameters = filterWithParameters;
+            this.entryDnCache = entryDnCache;
+        }
+    }
+
+    private static class EntryDnCacheKey {
+
+        private final AuthenticationFilterWithParameters filter;
+        private final Class<?> entryClass;
+        private final List<String> slotValues;
+
+        private EntryDnCacheKey(AuthenticationFilterWithParameters filter, Class<?> entryClass, List<String> slotValues) {
+            this.filter = filter;
+            this.entryClass = entryClass;
+            this.slotValues = slotValues;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            EntryDnCacheKey that = (EntryDnCacheKey) o;
+            return filter == that.filter && entryClass == that.entryClass && slotValues.equals(that.slotValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(filter), entryClass, slotValues);
+        }
+    }
+
     public void init(List<? extends BaseFilter> p_filterList, boolean p_enabled, boolean p_filterAttributes) {
-        this.enabled = p_enabled;
-        this.filterWithParameters = prepareAuthenticationFilterWithParameters(p_filterList);
-        this.filterAttributes = p_filterAttributes;
+        init(p_filterList, p_enabled, p_filterAttributes, DEFAULT_ENTRY_DN_CACHE_LIFETIME_IN_SECONDS);
+    }
+
+    public synchronized void init(List<? extends BaseFilter> p_filterList, boolean p_enabled, boolean p_filterAttributes, int p_entryDnCacheLifetimeInSeconds) {
+        final Cache<EntryDnCacheKey, String> entryDnCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(p_entryDnCacheLifetimeInSeconds, TimeUnit.SECONDS)
+                .maximumSize(ENTRY_DN_CACHE_MAX_SIZE)
+                .build();
+        this.state = new FilterState(p_enabled, p_filterAttributes,
+                Collections.unmodifiableList(prepareAuthenticationFilterWithParameters(p_filterList, p_enabled)), entryDnCache);
     }
 
-    private List<AuthenticationFilterWithParameters> prepareAuthenticationFilterWithParameters(List<? extends BaseFilter> p_filterList) {
+    private List<AuthenticationFilterWithParameters> prepareAuthenticationFilterWithParameters(List<? extends BaseFilter> p_filterList, boolean p_enabled) {
         final List<AuthenticationFilterWithParameters> tmpAuthenticationFilterWithParameters = new ArrayList<AuthenticationFilterWithParameters>();
 
-        if (!this.enabled || p_filterList == null) {
+        if (!p_enabled || p_filterList == null) {
             return tmpAuthenticationFilterWithParameters;
         }
 
@@ -175,8 +326,13 @@ public abstract class BaseAuthFilterService {
             normalizedAttributeNames.add(normalizeAttributeName(attributeName.toString()));
         }
 
+        return filterAllowed(normalizedAttributeNames, p_filterList);
+    }
+
+    private static List<AuthenticationFilterWithParameters> filterAllowed(Set<String> normalizedAttributeNames, List<AuthenticationFilterWithParameters> p_filterList) {
+        List<AuthenticationFilterWithParameters> tmpAuthenticationFilterWithParameters = new ArrayList<AuthenticationFilterWithParameters>();
         for (AuthenticationFilterWithParameters autheticationFilterWithParameters : p_filterList) {
-            if (normalizedAttributeNames.containsAll(autheticationFilterWithParameters.getVariableNames())) {
+            if (autheticationFilterWithParameters.isAllowed(normalizedAttributeNames)) {
                 tmpAuthenticationFilterWithParameters.add(autheticationFilterWithParameters);
             }
         }
@@ -208,18 +364,21 @@ public abstract class BaseAuthFilterService {
     }
 
     public static String buildFilter(AuthenticationFilterWithParameters authenticationFilterWithParameters, Map<String, String> p_normalizedAttributeValues) {
-        String filter = authenticationFilterWithParameters.getAuthenticationFilter().getFilter();
-        for (IndexedParameter indexedParameter : authenticationFilterWithParameters.getIndexedVariables()) {
-            String attributeValue = p_normalizedAttributeValues.get(indexedParameter.getParamName());
-            if (attributeValue != null) {
-                filter = filter.replace(indexedParameter.getParamIndex(), attributeValue);
-            }
-        }
-        return filter;
+        return authenticationFilterWithParameters.buildFilter(authenticationFilterWithParameters.getSlotValues(p_normalizedAttributeValues));
     }
 
     public <T> String loadEntryDN(PersistenceEntryManager p_manager, Class<T> entryClass, AuthenticationFilterWithParameters authenticationFilterWithParameters, Map<String, String> normalizedAttributeValues) throws SearchException {
-        final String filter = buildFilter(authenticationFilterWithParameters, normalizedAttributeValues);
+        final List<String> slotValues = authenticationFilterWithParameters.getSlotValues(normalizedAttributeValues);
+        final EntryDnCacheKey cacheKey = new EntryDnCacheKey(authenticationFilterWithParameters, entryClass, slotValues);
+        final Cache<EntryDnCacheKey, String> cache = state.entryDnCache;
+        if (cache != null) {
+            final String cachedDn = cache.getIfPresent(cacheKey);
+            if (cachedDn != null) {
+                return cachedDn;
+            }
+        }
+
+        final String filter = authenticationFilterWithParameters.buildFilter(slotValues);
 
         Filter ldapFilter = ldapFilterConverter.convertRawLdapFilterToFilter(filter).multiValued(false);
         List<T> foundEntries = p_manager.findEntries(authenticationFilterWithParameters.getAuthenticationFilter().getBaseDn(), entryClass, ldapFilter, new String[0]);
@@ -233,7 +392,11 @@ public abstract class BaseAuthFilterService {
             return null;
         }
 
-        return ((BaseEntry) foundEntries.get(0)).getDn();
+        final String dn = ((BaseEntry) foundEntries.get(0)).getDn();
+        if (cache != null && dn != null) {
+            cache.put(cacheKey, dn);
+        }
+        return dn;
     }
 
     public String processAuthenticationFilters(Map<?, ?> attributeValues) throws SearchException {
@@ -241,9 +404,10 @@ public abstract class BaseAuthFilterService {
             return null;
         }
 
-        final List<AuthenticationFilterWithParameters> allowedList = filterAttributes ?
-                getAllowedAuthenticationFilters(attributeValues.keySet(), getFilterWithParameters()) :
-                getFilterWithParameters();
+        final FilterState current = state;
+        final List<AuthenticationFilterWithParameters> allowedList = current.filterAttributes ?
+                getAllowedAuthenticationFilters(attributeValues.keySet(), current.filterWithParameters) :
+                current.filterWithParameters;
 
         for (AuthenticationFilterWithParameters allowed : allowedList) {
             String resultDn = processAuthenticationFilter(allowed, attributeValues);
@@ -258,23 +422,25 @@ public abstract class BaseAuthFilterService {
     public abstract String processAuthenticationFilter(AuthenticationFilterWithParameters p_allowed, Map<?, ?> p_attributeValues) throws SearchException;
 
     public List<AuthenticationFilterWithParameters> getFilterWithParameters() {
-        return filterWithParameters;
+        return state.filterWithParameters;
     }
 
     public boolean isEnabled() {
-        return enabled;
+        return state.enabled;
     }
 
-    public void setEnabled(boolean p_enabled) {
-        enabled = p_enabled;
+    public synchronized void setEnabled(boolean p_enabled) {
+        final FilterState current = state;
+        state = new FilterState(p_enabled, current.filterAttributes, current.filterWithParameters, current.entryDnCache);
     }
 
     public boolean isFilterAttributes() {
-        return filterAttributes;
+        return state.filterAttributes;
     }
 
-    public void setFilterAttributes(boolean p_filterAttributes) {
-        filterAttributes = p_filterAttributes;
+    public synchronized void setFilterAttributes(boolean p_filterAttributes) {
+        final FilterState current = state;
+        state = new FilterState(current.enabled, p_filterAttributes, current.filterWithParameters, current.entryDnCache);
     }
 
     public static String normalizeAttributeName(String attributeName) {
@@ -0,0 +1,140 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.search.filter.Filter;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Loads entries by list of DNs with one search request per parent DN (in batches of {@link #BATCH_SIZE}) instead of
+ * one find request per DN.
+ */
+@ApplicationScoped
+public class BulkEntryService {
+
+    public static final int BATCH_SIZE = 100;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private PersistenceEntryManager ldapEntryManager;
+
+    /**
+     * @param entryClass entry class
+     * @param dns        DNs of entries
+     * @param dnGetter   returns DN of loaded entry
+     * @return map of DN to entry, DNs which are not found are absent in map
+     */
+    public <T> Map<String, T> findByDns(Class<T> entryClass, Collection<String> dns, Function<T, String> dnGetter) {
+        final Map<String, T> result = new HashMap<>();
+        if (dns == null || dns.isEmpty()) {
+            return result;
+        }
+
+        for (Map.Entry<String, Set<String>> group : groupByParentAndRdnAttribute(dns).entrySet()) {
+            for (List<String> batch : Lists.partition(new ArrayList<>(group.getValue()), BATCH_SIZE)) {
+                findBatch(entryClass, batch, dnGetter, result);
+            }
+        }
+        return result;
+    }
+
+    private <T> void findBatch(Class<T> entryClass, List<String> dns, Function<T, String> dnGetter, Map<String, T> result) {
+        if (dns.size() == 1) {
+            findOne(entryClass, dns.get(0), result);
+            return;
+        }
+
+        try {
+            final String parentDn = parentDn(dns.get(0));
+            final String rdnAttribute = rdnAttribute(dns.get(0));
+            final List<Filter> filters = new ArrayList<>();
+            for (String dn : dns) {
+                filters.add(Filter.createEqualityFilter(rdnAttribute, rdnValue(dn)));
+            }
+
+            final Map<String, String> requested = new HashMap<>();
+            for (String dn : dns) {
+                requested.put(normalize(dn), dn);
+            }
+
+            final List<T> entries = ldapEntryManager.findEntries(parentDn, entryClass, Filter.createORFilter(filters.toArray(new Filter[0])));
+            int found = 0;
+            if (entries != null) {
+                for (T entry : entries) {
+                    final String dn = requested.get(normalize(dnGetter.apply(entry)));
+                    if (dn != null) { // skip entries of nested branches which have same rdn value
+                        result.put(dn, entry);
+                        found++;
+                    }
+                }
+            }
+            log.trace("Found {} of {} entries by dn under {}", found, dns.size(), parentDn);
+        } catch (Exception e) {
+            log.error("Failed to find entries by dn with single request, falling back to find one by one.", e);
+            for (String dn : dns) {
+                findOne(entryClass, dn, result);
+            }
+        }
+    }
+
+    private <T> void findOne(Class<T> entryClass, String dn, Map<String, T> result) {
+        try {
+            final T entry = ldapEntryManager.find(entryClass, dn);
+            if (entry != null) {
+                result.put(dn, entry);
+            }
+        } catch (Exception e) {
+            log.trace("Failed to find entry by dn: " + dn, e);
+        }
+    }
+
+    static Map<String, Set<String>> groupByParentAndRdnAttribute(Collection<String> dns) {
+        final Map<String, Set<String>> groups = new LinkedHashMap<>();
+        for (String dn : dns) {
+            if (StringUtils.isBlank(dn) || !dn.contains("=") || !dn.contains(",")) {
+                continue;
+            }
+            // dn with escaped characters is not split, it is loaded by own find request
+            final String groupKey = dn.contains("\\") ? dn : normalize(rdnAttribute(dn)) + "|" + normalize(parentDn(dn));
+            groups.computeIfAbsent(groupKey, k -> new LinkedHashSet<>()).add(dn);
+        }
+        return groups;
+    }
+
+    private static String parentDn(String dn) {
+        return StringUtils.substringAfter(dn, ",").trim();
+    }
+
+    private static String rdnAttribute(String dn) {
+        return StringUtils.substringBefore(dn, "=").trim();
+    }
+
+    private static String rdnValue(String dn) {
+        return StringUtils.substringBetween(dn, "=", ",").trim();
+    }
+
+    private static String normalize(String dn) {
+        return StringUtils.deleteWhitespace(StringUtils.defaultString(dn)).toLowerCase();
+    }
+}
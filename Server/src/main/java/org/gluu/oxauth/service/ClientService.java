@@ -12,7 +12,11 @@ import org.gluu.oxauth.model.config.StaticConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.exception.InvalidClaimException;
 import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.service.cache.CacheInvalidationEvent;
+import org.gluu.oxauth.service.cache.CacheInvalidationService;
+import org.gluu.oxauth.service.cache.CacheRegion;
 import org.gluu.oxauth.service.common.EncryptionService;
+import org.gluu.oxauth.service.net.SectorIdentifierCacheService;
 import org.gluu.persist.PersistenceEntryManager;
 import org.gluu.persist.exception.EntryPersistenceException;
 import org.gluu.persist.model.base.CustomAttribute;
@@ -29,6 +33,7 @@ import org.python.jline.internal.Preconditions;
 import org.slf4j.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import java.util.*;
 
@@ -68,6 +73,18 @@ public class ClientService {
 	@Inject
 	private StaticConfiguration staticConfiguration;
 
+	@Inject
+	private CacheInvalidationService cacheInvalidationService;
+
+	@Inject
+	private GrantService grantService;
+
+	@Inject
+	private VerifiedClientSecretCache verifiedClientSecretCache;
+
+	@Inject
+	private SectorIdentifierCacheService sectorIdentifierCacheService;
+
 	public void persist(Client client) {
 		ldapEntryManager.persist(client);
 	}
@@ -75,6 +92,8 @@ public class ClientService {
 	public void merge(Client client) {
 		ldapEntryManager.merge(client);
 		removeFromCache(client);
+		verifiedClientSecretCache.invalidate(client.getDn());
+		cacheInvalidationService.publish(CacheRegion.CLIENT, client.getDn());
 	}
 
 	/**
@@ -96,8 +115,14 @@ public class ClientService {
 				log.debug("Failed to find client = {}", clientId);
 				return authenticated;
 			}
+			if (verifiedClientSecretCache.isVerified(client, password)) {
+				return true; // verified before, decryption is skipped
+			}
 			String decryptedClientSecret = decryptSecret(client.getClientSecret());
 			authenticated = client != null && decryptedClientSecret != null && decryptedClientSecret.equals(password);
+			if (authenticated) {
+				verifiedClientSecretCache.put(client, password);
+			}
 		} catch (StringEncrypter.EncryptionException e) {
 			log.error(e.getMessage(), e);
 		}
@@ -183,7 +208,7 @@ public class ClientService {
 	public Client getClientByDn(String dn) {
 		BaseCacheService usedCacheService = getCacheService();
 	    try {
-            return usedCacheService.getWithPut(dn, () -> ldapEntryManager.find(Client.class, dn), 60);
+            return usedCacheService.getWithPut(dn, () -> ldapEntryManager.find(Client.class, dn), appConfiguration.getClientCacheLifetimeInSeconds());
         } catch (Exception e) {
 	        log.trace(e.getMessage(), e);
 	        return null;
@@ -237,9 +262,25 @@ public class ClientService {
 	public void remove(Client client) {
 		if (client != null) {
 			removeFromCache(client);
+			verifiedClientSecretCache.invalidate(client.getDn());
 
 			String clientDn = client.getDn();
 			ldapEntryManager.removeRecursively(clientDn, Client.class);
+			grantService.removeAllByClientId(client.getClientId());
+			cacheInvalidationService.publish(CacheRegion.CLIENT, clientDn);
+			sectorIdentifierCacheService.invalidate(client.getSectorIdentifierUri());
+		}
+	}
+
+	public void onCacheInvalidation(@Observes CacheInvalidationEvent event) {
+		if (!event.is(CacheRegion.CLIENT) || !appConfiguration.getUseLocalCache()) {
+			return;
+		}
+
+		if (event.isAll()) {
+			localCacheService.clear();
+		} else {
+			localCacheService.remove(event.getKey());
 		}
 	}
 
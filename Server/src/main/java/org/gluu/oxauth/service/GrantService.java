@@ -6,6 +6,7 @@
 
 package org.gluu.oxauth.service;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
@@ -18,6 +19,12 @@ import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.ldap.TokenLdap;
 import org.gluu.oxauth.model.ldap.TokenType;
 import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.service.cache.BulkCacheService;
+import org.gluu.oxauth.service.cache.CacheInvalidationService;
+import org.gluu.oxauth.service.cache.CacheRegion;
+import org.gluu.oxauth.service.token.TokenIndexService;
+import org.gluu.oxauth.service.token.TokenNearCache;
+import org.gluu.oxauth.service.token.TokenWriteBatch;
 import org.gluu.oxauth.util.TokenHashUtil;
 import org.gluu.persist.PersistenceEntryManager;
 import org.gluu.search.filter.Filter;
@@ -29,6 +36,7 @@ import org.slf4j.Logger;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static org.gluu.oxauth.util.ServerUtil.isTrue;
 
@@ -40,6 +48,8 @@ import static org.gluu.oxauth.util.ServerUtil.isTrue;
 @ApplicationScoped
 public class GrantService {
 
+    private static final int REMOVE_BATCH_SIZE = 100;
+
     @Inject
     private Logger log;
 
@@ -61,6 +71,21 @@ public class GrantService {
     @Inject
     private CacheConfiguration cacheConfiguration;
 
+    @Inject
+    private TokenNearCache tokenNearCache;
+
+    @Inject
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Inject
+    private TokenIndexService tokenIndexService;
+
+    @Inject
+    private BulkCacheService bulkCacheService;
+
+    @Inject
+    private TokenWriteBatch tokenWriteBatch;
+
     public static String generateGrantId() {
         return UUID.randomUUID().toString();
     }
@@ -75,16 +100,26 @@ public class GrantService {
 
     public void merge(TokenLdap p_token) {
         ldapEntryManager.merge(p_token);
+        invalidateNearCache(p_token);
     }
 
     public void mergeSilently(TokenLdap p_token) {
         try {
             ldapEntryManager.merge(p_token);
+            invalidateNearCache(p_token);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
         }
     }
 
+    /**
+     * Evicts token from near cache of this node and publishes eviction to other nodes.
+     */
+    private void invalidateNearCache(TokenLdap token) {
+        tokenNearCache.invalidate(token.getTokenCode());
+        cacheInvalidationService.publish(CacheRegion.TOKEN, token.getTokenCode());
+    }
+
     private boolean shouldPutInCache(TokenType tokenType, boolean isImplicitFlow) {
         if (cacheConfiguration.getCacheProviderType() == CacheProviderType.NATIVE_PERSISTENCE) {
             return false;
@@ -108,42 +143,18 @@ public class GrantService {
     }
 
     public void persist(TokenLdap token) {
-        if (shouldPutInCache(token.getTokenTypeEnum(), token.isImplicitFlow())) {
-            ClientTokens clientTokens = getCacheClientTokens(token.getClientId());
-            clientTokens.getTokenHashes().add(token.getTokenCode());
-
-            int expiration = appConfiguration.getDynamicRegistrationExpirationTime(); // fallback to client's lifetime
-            switch (token.getTokenTypeEnum()) {
-                case ID_TOKEN:
-                    expiration = appConfiguration.getIdTokenLifetime();
-                    break;
-                case REFRESH_TOKEN:
-                    expiration = appConfiguration.getRefreshTokenLifetime();
-                    break;
-                case ACCESS_TOKEN:
-                case LONG_LIVED_ACCESS_TOKEN:
-                    int lifetime = appConfiguration.getAccessTokenLifetime();
-                    Client client = clientService.getClient(token.getClientId());
-                    // oxAuth #830 Client-specific access token expiration
-                    if (client != null && client.getAccessTokenLifetime() != null && client.getAccessTokenLifetime() > 0) {
-                        lifetime = client.getAccessTokenLifetime();
-                    }
-                    expiration = lifetime;
-                    break;
-                case AUTHORIZATION_CODE:
-                    expiration = appConfiguration.getAuthorizationCodeLifetime();
-                    break;
-            }
+        if (tokenWriteBatch.add(token)) {
+            return; // written by persistAll at the end of request
+        }
 
+        if (shouldPutInCache(token.getTokenTypeEnum(), token.isImplicitFlow())) {
+            final int expiration = getCacheExpiration(token);
             token.setIsFromCache(true);
             cacheService.put(expiration, token.getTokenCode(), token);
-            cacheService.put(expiration, clientTokens.cacheKey(), clientTokens);
+            tokenIndexService.add(TokenIndexService.clientKey(token.getClientId()), token.getTokenCode(), expiration);
 
             if (StringUtils.isNotBlank(token.getSessionDn())) {
-                SessionTokens sessionTokens = getCacheSessionTokens(token.getSessionDn());
-                sessionTokens.getTokenHashes().add(token.getTokenCode());
-
-                cacheService.put(expiration, sessionTokens.cacheKey(), sessionTokens);
+                tokenIndexService.add(TokenIndexService.sessionKey(token.getSessionDn()), token.getTokenCode(), expiration);
             }
             return;
         }
@@ -151,6 +162,68 @@ public class GrantService {
         ldapEntryManager.persist(token);
     }
 
+    /**
+     * Writes tokens concurrently, index entries of cached tokens are merged into one append per owner.
+     */
+    public void persistAll(Collection<TokenLdap> tokens) {
+        if (tokens == null || tokens.isEmpty()) {
+            return;
+        }
+
+        final List<Runnable> writes = new ArrayList<>();
+        final Map<String, Map<String, Integer>> indexEntries = new LinkedHashMap<>();
+        for (TokenLdap token : tokens) {
+            if (shouldPutInCache(token.getTokenTypeEnum(), token.isImplicitFlow())) {
+                final int expiration = getCacheExpiration(token);
+                token.setIsFromCache(true);
+                writes.add(() -> cacheService.put(expiration, token.getTokenCode(), token));
+
+                indexEntries.computeIfAbsent(TokenIndexService.clientKey(token.getClientId()), k -> new HashMap<>()).put(token.getTokenCode(), expiration);
+                if (StringUtils.isNotBlank(token.getSessionDn())) {
+                    indexEntries.computeIfAbsent(TokenIndexService.sessionKey(token.getSessionDn()), k -> new HashMap<>()).put(token.getTokenCode(), expiration);
+                }
+            } else {
+                writes.add(() -> ldapEntryManager.persist(token));
+            }
+        }
+        for (Map.Entry<String, Map<String, Integer>> entry : indexEntries.entrySet()) {
+            writes.add(() -> tokenIndexService.addAll(entry.getKey(), entry.getValue()));
+        }
+
+        bulkCacheService.executeAll(writes);
+        log.trace("Persisted {} tokens with {} writes", tokens.size(), writes.size());
+    }
+
+    private int getCacheExpiration(TokenLdap token) {
+        int expiration = appConfiguration.getDynamicRegistrationExpirationTime(); // fallback to client's lifetime
+        switch (token.getTokenTypeEnum()) {
+            case ID_TOKEN:
+                expiration = appConfiguration.getIdTokenLifetime();
+                break;
+            case REFRESH_TOKEN:
+                expiration = appConfiguration.getRefreshTokenLifetime();
+                break;
+            case ACCESS_TOKEN:
+            case LONG_LIVED_ACCESS_TOKEN:
+                int lifetime = appConfiguration.getAccessTokenLifetime();
+                Client client = clientService.getClient(token.getClientId());
+                // oxAuth #830 Client-specific access token expiration
+                if (client != null && client.getAccessTokenLifetime() != null && client.getAccessTokenLifetime() > 0) {
+                    lifetime = client.getAccessTokenLifetime();
+                }
+                expiration = lifetime;
+                break;
+            case AUTHORIZATION_CODE:
+                expiration = appConfiguration.getAuthorizationCodeLifetime();
+                break;
+        }
+        return expiration;
+    }
+
+    /**
+     * @deprecated client tokens are indexed by {@link TokenIndexService}, blob written by previous versions is read until it expires
+     */
+    @Deprecated
     public ClientTokens getCacheClientTokens(String clientId) {
         ClientTokens clientTokens = new ClientTokens(clientId);
         Object o = cacheService.get(clientTokens.cacheKey());
@@ -161,6 +234,10 @@ public class GrantService {
         }
     }
 
+    /**
+     * @deprecated session tokens are indexed by {@link TokenIndexService}, blob written by previous versions is read until it expires
+     */
+    @Deprecated
     public SessionTokens getCacheSessionTokens(String sessionDn) {
         SessionTokens sessionTokens = new SessionTokens(sessionDn);
         Object o = cacheService.get(sessionTokens.cacheKey());
@@ -172,6 +249,7 @@ public class GrantService {
     }
 
     public void remove(TokenLdap p_token) {
+        tokenNearCache.invalidate(p_token.getTokenCode());
         if (p_token.isFromCache()) {
             cacheService.remove(p_token.getTokenCode());
             log.trace("Removed token from cache, code: " + p_token.getTokenCode());
@@ -179,6 +257,7 @@ public class GrantService {
             ldapEntryManager.remove(p_token);
             log.trace("Removed token from LDAP, code: " + p_token.getTokenCode());
         }
+        cacheInvalidationService.publish(CacheRegion.TOKEN, p_token.getTokenCode()); // peers may have near cache enabled
     }
 
     public void removeSilently(TokenLdap token) {
@@ -194,25 +273,94 @@ public class GrantService {
     }
 
     public void remove(List<TokenLdap> p_entries) {
-        if (p_entries != null && !p_entries.isEmpty()) {
-            for (TokenLdap t : p_entries) {
-                try {
-                    remove(t);
-                } catch (Exception e) {
-                    log.error("Failed to remove entry", e);
-                }
+        removeInBatch(p_entries, false);
+    }
+
+    public void removeSilently(List<TokenLdap> p_entries) {
+        removeInBatch(p_entries, true);
+    }
+
+    /**
+     * Removes tokens grouped by backend: cached tokens (and authorization code grants) are removed with one bulk
+     * cache remove, persisted tokens are removed by filter in batches of {@link #REMOVE_BATCH_SIZE} (one persistence
+     * request per batch). As before batching, failure to remove one token is logged and does not stop removal of others.
+     *
+     * @param entries tokens to remove
+     * @param removeCacheGrants whether to remove authorization code grants from cache
+     */
+    private void removeInBatch(List<TokenLdap> entries, boolean removeCacheGrants) {
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+
+        final List<String> cacheKeys = new ArrayList<>();
+        final List<TokenLdap> persisted = new ArrayList<>();
+        int cachedTokens = 0;
+        for (TokenLdap token : entries) {
+            tokenNearCache.invalidate(token.getTokenCode());
+            if (token.isFromCache()) {
+                cacheKeys.add(token.getTokenCode());
+                cachedTokens++;
+            } else if (isInTokenBranch(token)) {
+                persisted.add(token);
+            } else {
+                removeEntrySilently(token);
+            }
+            if (removeCacheGrants && StringUtils.isNotBlank(token.getAuthorizationCode())) {
+                cacheKeys.add(CacheGrant.cacheKey(token.getAuthorizationCode(), token.getGrantId()));
+            }
+        }
+
+        if (!cacheKeys.isEmpty()) {
+            final Stopwatch stopwatch = Stopwatch.createStarted();
+            final int failed = bulkCacheService.removeAll(cacheKeys);
+            log.debug("Removed {} tokens from cache with bulk remove of {} keys (failed: {}), takes: {}ms", cachedTokens, cacheKeys.size(), failed, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        }
+
+        for (List<TokenLdap> batch : Lists.partition(persisted, REMOVE_BATCH_SIZE)) {
+            removeBatchFromPersistence(batch);
+        }
+
+        for (TokenLdap token : entries) {
+            cacheInvalidationService.publish(CacheRegion.TOKEN, token.getTokenCode());
+        }
+    }
+
+    private void removeBatchFromPersistence(List<TokenLdap> batch) {
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        try {
+            final List<Filter> filters = new ArrayList<>();
+            for (TokenLdap token : batch) {
+                filters.add(Filter.createEqualityFilter("tknCde", token.getTokenCode()));
+            }
+            final Filter filter = Filter.createORFilter(filters.toArray(new Filter[0]));
+
+            int removed = ldapEntryManager.remove(tokenBaseDn(), TokenLdap.class, filter, batch.size());
+            log.debug("Removed batch of {} tokens from persistence (requested: {}), takes: {}ms", removed, batch.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        } catch (Exception e) {
+            log.error("Failed to remove batch of tokens by filter, falling back to removal one by one.", e);
+            for (TokenLdap token : batch) {
+                removeEntrySilently(token);
             }
         }
     }
 
-    public void removeSilently(List<TokenLdap> p_entries) {
-        if (p_entries != null && !p_entries.isEmpty()) {
-            for (TokenLdap t : p_entries) {
-                removeSilently(t);
+    private void removeEntrySilently(TokenLdap token) {
+        try {
+            if (token.isFromCache()) {
+                cacheService.remove(token.getTokenCode());
+            } else {
+                ldapEntryManager.remove(token);
             }
+        } catch (Exception e) {
+            log.error("Failed to remove entry", e);
         }
     }
 
+    private boolean isInTokenBranch(TokenLdap token) {
+        return StringUtils.isNotBlank(token.getTokenCode()) && StringUtils.endsWithIgnoreCase(token.getDn(), tokenBaseDn());
+    }
+
     public void remove(AuthorizationGrant p_grant) {
         if (p_grant != null && p_grant.getTokenLdap() != null) {
             try {
@@ -234,12 +382,20 @@ public class GrantService {
     }
 
     public TokenLdap getGrantByCode(String p_code) {
-        Object grant = cacheService.get(TokenHashUtil.hash(p_code));
+        final String hash = TokenHashUtil.hash(p_code);
+        TokenLdap token = tokenNearCache.get(hash);
+        if (token != null) {
+            return token;
+        }
+
+        Object grant = cacheService.get(hash);
         if (grant instanceof TokenLdap) {
-            return (TokenLdap) grant;
+            token = (TokenLdap) grant;
         } else {
-            return load(buildDn(TokenHashUtil.hash(p_code)));
+            token = load(buildDn(hash));
         }
+        tokenNearCache.put(hash, token);
+        return token;
     }
 
     private TokenLdap load(String p_tokenDn) {
@@ -270,6 +426,20 @@ public class GrantService {
         return Collections.emptyList();
     }
 
+    public List<TokenLdap> getGrantsByClientId(String clientId) {
+        List<TokenLdap> grants = new ArrayList<>();
+        try {
+            List<TokenLdap> ldapGrants = ldapEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, Filter.createEqualityFilter("clnId", clientId));
+            if (ldapGrants != null) {
+                grants.addAll(ldapGrants);
+            }
+            grants.addAll(getCacheClientTokensEntries(clientId));
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+        return grants;
+    }
+
     public List<TokenLdap> getGrantsBySessionDn(String sessionDn) {
         List<TokenLdap> grants = new ArrayList<>();
         try {
@@ -288,25 +458,24 @@ public class GrantService {
         if (StringUtils.isBlank(sessionDn)) {
             return Collections.emptyList();
         }
-        return getCacheTokensEntries(getCacheSessionTokens(sessionDn).getTokenHashes());
+        final Set<String> tokenHashes = tokenIndexService.getTokenHashes(TokenIndexService.sessionKey(sessionDn));
+        tokenHashes.addAll(getCacheSessionTokens(sessionDn).getTokenHashes());
+        return getCacheTokensEntries(tokenHashes);
     }
 
     public List<TokenLdap> getCacheClientTokensEntries(String clientId) {
         if (cacheConfiguration.getCacheProviderType() == CacheProviderType.NATIVE_PERSISTENCE) {
             return Collections.emptyList();
         }
-        Object o = cacheService.get(new ClientTokens(clientId).cacheKey());
-        if (o instanceof ClientTokens) {
-            return getCacheTokensEntries(((ClientTokens) o).getTokenHashes());
-        }
-        return Collections.emptyList();
+        final Set<String> tokenHashes = tokenIndexService.getTokenHashes(TokenIndexService.clientKey(clientId));
+        tokenHashes.addAll(getCacheClientTokens(clientId).getTokenHashes());
+        return getCacheTokensEntries(tokenHashes);
     }
 
     public List<TokenLdap> getCacheTokensEntries(Set<String> tokenHashes) {
         List<TokenLdap> tokens = new ArrayList<>();
 
-        for (String tokenHash : tokenHashes) {
-            Object o1 = cacheService.get(tokenHash);
+        for (Object o1 : bulkCacheService.getAll(tokenHashes).values()) {
             if (o1 instanceof TokenLdap) {
                 TokenLdap token = (TokenLdap) o1;
                 token.setIsFromCache(true);
@@ -363,4 +532,11 @@ public class GrantService {
         removeSilently(getGrantsByGrantId(p_grantId));
     }
 
+    public void removeAllByClientId(String clientId) {
+        if (StringUtils.isBlank(clientId)) {
+            return;
+        }
+        removeSilently(getGrantsByClientId(clientId));
+    }
+
 }
\ No newline at end of file
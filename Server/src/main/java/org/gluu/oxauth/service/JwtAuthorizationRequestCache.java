@@ -0,0 +1,134 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.model.authorize.JwtAuthorizationRequest;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.crypto.AbstractCryptoProvider;
+import org.gluu.oxauth.model.exception.InvalidJwtException;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.model.util.Base64Util;
+import org.gluu.oxauth.service.cache.CacheInvalidationEvent;
+import org.gluu.oxauth.service.cache.CacheRegion;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per node cache of parsed and validated request objects (JWT authorization requests).
+ * <p>
+ * Grant reconstructed from persisted token carries request object only for its claims, so request object which was
+ * already validated for client is reused instead of decrypting and verifying signature again. Entry is keyed by client
+ * and hash of raw JWT, thus same request object presented for other client is validated on its own.
+ */
+@ApplicationScoped
+public class JwtAuthorizationRequestCache {
+
+    private static final int MAX_SIZE = 10000;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private AbstractCryptoProvider cryptoProvider;
+
+    private final Cache<String, Entry> entries = CacheBuilder.newBuilder().maximumSize(MAX_SIZE).build();
+
+    /**
+     * @return cached request object or request object parsed and validated for client
+     * @throws InvalidJwtException if request object is not valid for client
+     */
+    public JwtAuthorizationRequest get(String encodedJwt, Client client) throws InvalidJwtException {
+        final String key = key(encodedJwt, client);
+        if (key != null) {
+            final Entry entry = entries.getIfPresent(key);
+            if (entry != null && !isExpired(entry)) {
+                return entry.request;
+            }
+        }
+
+        final JwtAuthorizationRequest request = new JwtAuthorizationRequest(appConfiguration, cryptoProvider, encodedJwt, client);
+        if (key != null) {
+            entries.put(key, new Entry(request, System.currentTimeMillis()));
+        }
+        return request;
+    }
+
+    /**
+     * Remembers request object which was validated for client.
+     */
+    public void put(JwtAuthorizationRequest request, Client client) {
+        if (request == null) {
+            return;
+        }
+
+        final String key = key(request.getEncodedJwt(), client);
+        if (key != null && entries.getIfPresent(key) == null) {
+            entries.put(key, new Entry(request, System.currentTimeMillis()));
+        }
+    }
+
+    public void invalidate(String clientDn) {
+        if (clientDn == null) {
+            return;
+        }
+
+        final String prefix = clientDn + ":";
+        entries.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public void onCacheInvalidation(@Observes CacheInvalidationEvent event) {
+        if (!event.is(CacheRegion.CLIENT)) {
+            return;
+        }
+        if (event.isAll()) {
+            entries.invalidateAll();
+        } else {
+            invalidate(event.getKey());
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        final long lifetime = TimeUnit.SECONDS.toMillis(appConfiguration.getRequestObjectCacheLifetimeInSeconds());
+        return System.currentTimeMillis() - entry.cachedAt >= lifetime;
+    }
+
+    private String key(String encodedJwt, Client client) {
+        if (!appConfiguration.getRequestObjectCacheEnabled() || StringUtils.isBlank(encodedJwt) || client == null || client.getDn() == null) {
+            return null;
+        }
+
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(encodedJwt.getBytes(StandardCharsets.UTF_8));
+            return client.getDn() + ":" + Base64Util.base64urlencode(hash);
+        } catch (Exception e) {
+            log.error("Failed to compute hash of request object.", e);
+            return null;
+        }
+    }
+
+    private static class Entry {
+        private final JwtAuthorizationRequest request;
+        private final long cachedAt;
+
+        private Entry(JwtAuthorizationRequest request, long cachedAt) {
+            this.request = request;
+            this.cachedAt = cachedAt;
+        }
+    }
+}
@@ -105,7 +105,11 @@ public class KeyGeneratorTimer {
 			return;
 		}
 
-		updateKeysImpl();
+		try {
+			updateKeysImpl();
+		} finally {
+			cryptoProvider.clearKeyCache();
+		}
 		this.lastFinishedTime = System.currentTimeMillis();
 	}
 
@@ -3,8 +3,12 @@ package org.gluu.oxauth.service;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.service.cache.CacheInvalidationEvent;
+import org.gluu.oxauth.service.cache.CacheInvalidationService;
+import org.gluu.oxauth.service.cache.CacheRegion;
 import org.gluu.oxauth.service.cdi.event.AuthConfigurationEvent;
 import org.gluu.service.cdi.async.Asynchronous;
+import org.gluu.service.cdi.event.ConfigurationUpdate;
 import org.gluu.service.cdi.event.Scheduled;
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -13,7 +17,6 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Named;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -25,7 +28,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class LocalResponseCache {
 
     public static final int DEFAULT_DISCOVERY_LIFETIME = 60;
-    public static final int DEFAULT_SECTOR_IDENTIFIER_LIFETIME = 1440; // 1 day
 
     private static final String DISCOVERY_CACHE_KEY = "DISCOVERY_CACHE_KEY";
 
@@ -33,17 +35,15 @@ public class LocalResponseCache {
     private AppConfiguration appConfiguration;
     @Inject
     private Logger log;
+    @Inject
+    private CacheInvalidationService cacheInvalidationService;
 
     private final AtomicBoolean rebuilding = new AtomicBoolean(false);
 
     private Cache<String, JSONObject> discoveryCache = CacheBuilder.newBuilder()
             .expireAfterWrite(DEFAULT_DISCOVERY_LIFETIME, TimeUnit.MINUTES).build();
-    private Cache<String, List<String>> sectorIdentifierCache = CacheBuilder.newBuilder()
-            .expireAfterWrite(DEFAULT_SECTOR_IDENTIFIER_LIFETIME, TimeUnit.MINUTES).build();
-
 
     private int currentDiscoveryLifetime = DEFAULT_DISCOVERY_LIFETIME;
-    private int currentSectorIdentifierLifetime = DEFAULT_SECTOR_IDENTIFIER_LIFETIME;
 
     @Asynchronous
     public void reloadConfigurationTimerEvent(@Observes @Scheduled AuthConfigurationEvent authConfigurationEvent) {
@@ -59,29 +59,29 @@ public class LocalResponseCache {
                         .expireAfterWrite(appConfiguration.getDiscoveryCacheLifetimeInMinutes(), TimeUnit.MINUTES).build();
                 log.trace("Re-created discovery cache with lifetime: " + appConfiguration.getDiscoveryCacheLifetimeInMinutes());
             }
-            if (currentSectorIdentifierLifetime != appConfiguration.getSectorIdentifierCacheLifetimeInMinutes()) {
-                currentSectorIdentifierLifetime = appConfiguration.getSectorIdentifierCacheLifetimeInMinutes();
-                sectorIdentifierCache = CacheBuilder.newBuilder()
-                        .expireAfterWrite(appConfiguration.getSectorIdentifierCacheLifetimeInMinutes(), TimeUnit.MINUTES).build();
-                log.trace("Re-created sector identifier cache with lifetime: " + appConfiguration.getSectorIdentifierCacheLifetimeInMinutes());
-            }
         } finally {
             rebuilding.set(false);
         }
 
     }
 
-    public List<String> getSectorRedirectUris(String sectorIdentifierUri) {
-        if (sectorIdentifierCache == null || rebuilding.get())
-            return null;
-        return sectorIdentifierCache.getIfPresent(sectorIdentifierUri);
+    /**
+     * Discovery response is built from configuration, thus it is evicted on this node and on peers which may not
+     * have noticed new configuration revision yet.
+     */
+    public void onConfigurationUpdate(@Observes @ConfigurationUpdate AppConfiguration appConfiguration) {
+        invalidateDiscoveryResponse();
     }
 
-    public void putSectorRedirectUris(String sectorIdentifierUri, List<String> redirectUris) {
-        if (sectorIdentifierCache == null || rebuilding.get())
-            return;
+    public void invalidateDiscoveryResponse() {
+        discoveryCache.invalidateAll();
+        cacheInvalidationService.publishAll(CacheRegion.DISCOVERY);
+    }
 
-        sectorIdentifierCache.put(sectorIdentifierUri, redirectUris);
+    public void onCacheInvalidation(@Observes CacheInvalidationEvent event) {
+        if (event.is(CacheRegion.DISCOVERY)) {
+            discoveryCache.invalidateAll();
+        }
     }
 
     public JSONObject getDiscoveryResponse() {
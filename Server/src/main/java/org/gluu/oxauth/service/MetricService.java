@@ -6,10 +6,13 @@
 
 package org.gluu.oxauth.service;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import org.gluu.model.ApplicationType;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.service.common.ApplicationFactory;
 import org.gluu.oxauth.service.common.ConfigurationService;
+import org.gluu.oxauth.service.net.FetchStats;
 import org.gluu.persist.PersistenceEntryManager;
 import org.gluu.service.metric.inject.ReportMetric;
 import org.gluu.service.net.NetworkService;
@@ -33,6 +36,8 @@ public class MetricService extends org.gluu.service.metric.MetricService {
 
 	private static final long serialVersionUID = 7875838160379126796L;
 
+	private static final String[] FETCH_STATS_GAUGES = { "fetch_count", "error_count", "avg_latency_ms", "max_latency_ms" };
+
 	@Inject
     private Instance<MetricService> instance;
 
@@ -90,4 +95,41 @@ public class MetricService extends org.gluu.service.metric.MetricService {
 		return networkService.getMacAdress();
 	}
 
+	/**
+	 * Publishes fetch statistics as gauges {@code <name>.fetch_count}, {@code <name>.error_count},
+	 * {@code <name>.avg_latency_ms} and {@code <name>.max_latency_ms}. Gauges previously registered
+	 * under the same name are replaced.
+	 */
+	public void registerFetchStats(String name, FetchStats stats) {
+		final MetricRegistry registry = getMetricRegistry();
+		if (registry == null) {
+			return;
+		}
+
+		registerGauge(registry, MetricRegistry.name(name, FETCH_STATS_GAUGES[0]), stats::getFetchCount);
+		registerGauge(registry, MetricRegistry.name(name, FETCH_STATS_GAUGES[1]), stats::getErrorCount);
+		registerGauge(registry, MetricRegistry.name(name, FETCH_STATS_GAUGES[2]), stats::getAverageLatencyMillis);
+		registerGauge(registry, MetricRegistry.name(name, FETCH_STATS_GAUGES[3]), stats::getMaxLatencyMillis);
+	}
+
+	public void removeFetchStats(String name) {
+		final MetricRegistry registry = getMetricRegistry();
+		if (registry == null) {
+			return;
+		}
+
+		for (String gauge : FETCH_STATS_GAUGES) {
+			registry.remove(MetricRegistry.name(name, gauge));
+		}
+	}
+
+	private static void registerGauge(MetricRegistry registry, String name, Gauge<Long> gauge) {
+		registry.remove(name);
+		try {
+			registry.register(name, gauge);
+		} catch (IllegalArgumentException e) {
+			// registered concurrently for the same name
+		}
+	}
+
 }
\ No newline at end of file
@@ -13,8 +13,6 @@ import java.util.Set;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.core.Response;
 
 import org.apache.commons.lang.StringUtils;
 import org.gluu.oxauth.client.QueryStringDecoder;
@@ -24,8 +22,8 @@ import org.gluu.oxauth.model.error.ErrorResponseFactory;
 import org.gluu.oxauth.model.registration.Client;
 import org.gluu.oxauth.model.session.EndSessionErrorResponseType;
 import org.gluu.oxauth.model.util.Util;
+import org.gluu.oxauth.service.net.SectorIdentifierCacheService;
 import org.jetbrains.annotations.NotNull;
-import org.json.JSONArray;
 import org.slf4j.Logger;
 
 import com.google.common.base.Strings;
@@ -52,7 +50,7 @@ public class RedirectionUriService {
     private AppConfiguration appConfiguration;
 
     @Inject
-    private LocalResponseCache localResponseCache;
+    private SectorIdentifierCacheService sectorIdentifierCacheService;
 
     public String validateRedirectionUri(String clientIdentifier, String redirectionUri) {
         Client client = clientService.getClient(clientIdentifier);
@@ -63,38 +61,7 @@ public class RedirectionUriService {
     }
 
     public List<String> getSectorRedirectUris(String sectorIdentiferUri) throws Exception {
-        List<String> result = Lists.newArrayList();
-        if (StringUtils.isBlank(sectorIdentiferUri)) {
-            return result;
-        }
-
-        final List<String> sectorRedirectUris = localResponseCache.getSectorRedirectUris(sectorIdentiferUri);
-        if (sectorRedirectUris != null) {
-            return sectorRedirectUris;
-        }
-
-        javax.ws.rs.client.Client clientRequest = ClientBuilder.newClient();
-		String entity = null;
-		try {
-			Response clientResponse = clientRequest.target(sectorIdentiferUri).request().buildGet().invoke();
-
-	        int status = clientResponse.getStatus();
-	        if (status != 200) {
-	            return result;
-	        }
-
-	        entity = clientResponse.readEntity(String.class);
-		} finally {
-			clientRequest.close();
-		}
-
-		JSONArray sectorIdentifierJsonArray = new JSONArray(entity);
-
-        for (int i = 0; i < sectorIdentifierJsonArray.length(); i++) {
-            result.add(sectorIdentifierJsonArray.getString(i));
-        }
-        localResponseCache.putSectorRedirectUris(sectorIdentiferUri, result);
-        return result;
+        return sectorIdentifierCacheService.getRedirectUris(sectorIdentiferUri);
     }
 
     public String validateRedirectionUri(@NotNull Client client, String redirectionUri) {
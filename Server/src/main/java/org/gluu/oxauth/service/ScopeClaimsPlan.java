@@ -0,0 +1,141 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service;
+
+import org.gluu.model.GluuAttribute;
+import org.gluu.model.attribute.AttributeDataType;
+import org.gluu.oxauth.model.common.User;
+import org.gluu.oxauth.model.exception.InvalidClaimException;
+import org.gluu.oxauth.model.json.JsonApplier;
+import org.gluu.persist.PersistenceEntryManager;
+import org.json.JSONArray;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled projection of scope claims: attribute metadata is resolved once (claim name, ldap name, data type),
+ * so claims of user are produced in single pass without attribute lookups.
+ */
+public class ScopeClaimsPlan {
+
+    private final List<String> claimDns;
+    private final List<ClaimMapping> mappings;
+    private final Set<String> attributeNames;
+    private final long createdAt;
+
+    public ScopeClaimsPlan(List<String> claimDns, List<ClaimMapping> mappings) {
+        this.claimDns = new ArrayList<>(claimDns);
+        this.mappings = Collections.unmodifiableList(new ArrayList<>(mappings));
+        this.createdAt = System.currentTimeMillis();
+
+        Set<String> names = new LinkedHashSet<>();
+        for (ClaimMapping mapping : mappings) {
+            names.add(mapping.getLdapName());
+        }
+        this.attributeNames = Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * @return true if plan was compiled for the same claims and is younger than given lifetime
+     */
+    public boolean isValidFor(List<String> scopeClaims, long lifetimeInMillis) {
+        return claimDns.equals(scopeClaims) && System.currentTimeMillis() - createdAt < lifetimeInMillis;
+    }
+
+    public List<ClaimMapping> getMappings() {
+        return mappings;
+    }
+
+    /**
+     * @return names of user attributes which are read by this plan
+     */
+    public Set<String> getAttributeNames() {
+        return attributeNames;
+    }
+
+    public Map<String, Object> project(User user, PersistenceEntryManager entryManager) throws InvalidClaimException {
+        Map<String, Object> claims = new HashMap<>();
+        for (ClaimMapping mapping : mappings) {
+            final Object attribute = mapping.read(user, entryManager);
+            if (attribute != null) {
+                claims.put(mapping.getClaimName(), attribute instanceof JSONArray ? JsonApplier.getStringList((JSONArray) attribute) : attribute);
+            }
+        }
+        return claims;
+    }
+
+    enum ValueType {
+        UID, UPDATED_AT, CREATED_AT, BOOLEAN, DATE, DEFAULT
+    }
+
+    public static class ClaimMapping {
+
+        private final String claimName;
+        private final String ldapName;
+        private final boolean multiValued;
+        private final ValueType valueType;
+
+        public ClaimMapping(GluuAttribute gluuAttribute) {
+            this.claimName = gluuAttribute.getOxAuthClaimName();
+            this.ldapName = gluuAttribute.getName();
+            this.multiValued = gluuAttribute.getOxMultiValuedAttribute();
+            this.valueType = valueType(ldapName, gluuAttribute.getDataType());
+        }
+
+        private static ValueType valueType(String ldapName, AttributeDataType dataType) {
+            if (ldapName.equals("uid")) {
+                return ValueType.UID;
+            } else if (ldapName.equals("updatedAt")) {
+                return ValueType.UPDATED_AT;
+            } else if (ldapName.equals("createdAt")) {
+                return ValueType.CREATED_AT;
+            } else if (AttributeDataType.BOOLEAN.equals(dataType)) {
+                return ValueType.BOOLEAN;
+            } else if (AttributeDataType.DATE.equals(dataType)) {
+                return ValueType.DATE;
+            }
+            return ValueType.DEFAULT;
+        }
+
+        public String getClaimName() {
+            return claimName;
+        }
+
+        public String getLdapName() {
+            return ldapName;
+        }
+
+        Object read(User user, PersistenceEntryManager entryManager) throws InvalidClaimException {
+            switch (valueType) {
+                case UID:
+                    return user.getUserId();
+                case UPDATED_AT:
+                    return user.getUpdatedAt();
+                case CREATED_AT:
+                    return user.getCreatedAt();
+                case BOOLEAN:
+                    final Object booleanValue = user.getAttribute(ldapName, true, multiValued);
+                    return booleanValue instanceof String ? Boolean.parseBoolean(String.valueOf(booleanValue)) : booleanValue;
+                case DATE:
+                    final Object dateValue = user.getAttribute(ldapName, true, multiValued);
+                    if (dateValue instanceof Date) {
+                        return dateValue;
+                    }
+                    return dateValue != null ? entryManager.decodeTime(user.getDn(), dateValue.toString()) : null;
+                default:
+                    return user.getAttribute(ldapName, true, multiValued);
+            }
+        }
+    }
+}
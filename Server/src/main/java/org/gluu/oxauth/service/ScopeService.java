@@ -9,26 +9,30 @@ package org.gluu.oxauth.service;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang.StringUtils;
 import org.gluu.model.GluuAttribute;
-import org.gluu.model.attribute.AttributeDataType;
 import org.gluu.oxauth.model.common.User;
 import org.gluu.oxauth.model.config.StaticConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.exception.InvalidClaimException;
-import org.gluu.oxauth.model.json.JsonApplier;
+import org.gluu.oxauth.service.cache.CacheInvalidationEvent;
+import org.gluu.oxauth.service.cache.CacheInvalidationService;
+import org.gluu.oxauth.service.cache.CacheRegion;
 import org.gluu.persist.PersistenceEntryManager;
 import org.gluu.search.filter.Filter;
 import org.gluu.service.BaseCacheService;
 import org.gluu.service.CacheService;
 import org.gluu.service.LocalCacheService;
 import org.gluu.util.StringHelper;
-import org.json.JSONArray;
 import org.oxauth.persistence.model.Scope;
 import org.slf4j.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Javier Rojas Blum Date: 07.05.2012
@@ -37,6 +41,9 @@ import java.util.*;
 @ApplicationScoped
 public class ScopeService {
 
+    // same as lifetime of cached scopes and attributes, so plan never outlives metadata it was compiled from
+    private static final long CLAIMS_PLAN_LIFETIME_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
     @Inject
     private Logger log;
 
@@ -58,6 +65,14 @@ public class ScopeService {
     @Inject
     private AttributeService attributeService;
 
+    @Inject
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Inject
+    private LocalResponseCache localResponseCache;
+
+    private final ConcurrentMap<String, ScopeClaimsPlan> claimsPlans = new ConcurrentHashMap<>();
+
     /**
      * returns a list of all scopes
      *
@@ -231,6 +246,20 @@ public class ScopeService {
 
     public void persist(Scope scope) {
         ldapEntryManager.persist(scope);
+        cacheInvalidationService.publish(CacheRegion.SCOPE, scope.getDn());
+        localResponseCache.invalidateDiscoveryResponse(); // scopes and claims supported
+    }
+
+    public void onCacheInvalidation(@Observes CacheInvalidationEvent event) {
+        if (!event.is(CacheRegion.SCOPE)) {
+            return;
+        }
+
+        if (event.isAll()) {
+            claimsPlans.clear();
+        } else {
+            claimsPlans.remove(event.getKey());
+        }
     }
 
     private BaseCacheService getCacheService() {
@@ -242,27 +271,47 @@ public class ScopeService {
     }
 
     public Map<String, Object> getClaims(User user, Scope scope) throws InvalidClaimException {
-        Map<String, Object> claims = new HashMap<>();
-
         if (scope == null) {
             log.trace("Scope is null.");
-            return claims;
+            return new HashMap<>();
         }
 
         final List<String> scopeClaims = scope.getOxAuthClaims();
         if (scopeClaims == null) {
             log.trace("No claims set for scope: {}", scope.getId());
-            return claims;
+            return new HashMap<>();
         }
 
-        fillClaims(claims, scopeClaims, user);
+        return getClaimsPlan(scope).project(user, ldapEntryManager);
+    }
 
-        return claims;
+    /**
+     * Returns compiled claims projection of scope. Plan is kept per scope and recompiled when claims of scope
+     * change, when scope is invalidated or when it gets older than cached attribute metadata.
+     */
+    public ScopeClaimsPlan getClaimsPlan(Scope scope) {
+        final List<String> scopeClaims = scope.getOxAuthClaims() != null ? scope.getOxAuthClaims() : Collections.emptyList();
+        final String key = StringUtils.isNotBlank(scope.getDn()) ? scope.getDn() : scope.getId();
+        if (key == null) {
+            return compileClaimsPlan(scopeClaims);
+        }
+
+        ScopeClaimsPlan plan = claimsPlans.get(key);
+        if (plan == null || !plan.isValidFor(scopeClaims, CLAIMS_PLAN_LIFETIME_MILLIS)) {
+            plan = compileClaimsPlan(scopeClaims);
+            claimsPlans.put(key, plan);
+        }
+        return plan;
     }
 
-    private void fillClaims(Map<String, Object> claims, List<String> scopeClaims, User user) throws InvalidClaimException {
+    private ScopeClaimsPlan compileClaimsPlan(List<String> scopeClaims) {
+        List<ScopeClaimsPlan.ClaimMapping> mappings = new ArrayList<>();
         for (String claimDn : scopeClaims) {
             GluuAttribute gluuAttribute = attributeService.getAttributeByDn(claimDn);
+            if (gluuAttribute == null) {
+                log.error("Failed to get claim because attribute is not found, dn: {}", claimDn);
+                continue;
+            }
 
             String claimName = gluuAttribute.getOxAuthClaimName();
             String ldapName = gluuAttribute.getName();
@@ -276,39 +325,8 @@ public class ScopeService {
                 continue;
             }
 
-            setClaimField(ldapName, claimName, user, gluuAttribute, claims);
-        }
-    }
-
-    private void setClaimField(String ldapName, String claimName, User user, GluuAttribute gluuAttribute,
-                               Map<String, Object> claims) throws InvalidClaimException {
-        Object attribute = null;
-        if (ldapName.equals("uid")) {
-            attribute = user.getUserId();
-        } else if (ldapName.equals("updatedAt")) {
-            attribute = user.getUpdatedAt();
-        } else  if (ldapName.equals("createdAt")) {
-            attribute = user.getCreatedAt();
-        } else if (AttributeDataType.BOOLEAN.equals(gluuAttribute.getDataType())) {
-            final Object value = user.getAttribute(gluuAttribute.getName(), true, gluuAttribute.getOxMultiValuedAttribute());
-            if (value instanceof String) {
-                attribute = Boolean.parseBoolean(String.valueOf(value));
-            } else {
-                attribute = value;
-            }
-        } else if (AttributeDataType.DATE.equals(gluuAttribute.getDataType())) {
-            final Object value = user.getAttribute(gluuAttribute.getName(), true, gluuAttribute.getOxMultiValuedAttribute());
-            if (value instanceof Date) {
-                attribute = value;
-            } else if (value != null) {
-                attribute = ldapEntryManager.decodeTime(user.getDn(), value.toString());
-            }
-        } else {
-            attribute = user.getAttribute(gluuAttribute.getName(), true, gluuAttribute.getOxMultiValuedAttribute());
-        }
-
-        if (attribute != null) {
-            claims.put(claimName, attribute instanceof JSONArray ? JsonApplier.getStringList((JSONArray) attribute) : attribute);
+            mappings.add(new ScopeClaimsPlan.ClaimMapping(gluuAttribute));
         }
+        return new ScopeClaimsPlan(scopeClaims, mappings);
     }
-}
\ No newline at end of file
+}
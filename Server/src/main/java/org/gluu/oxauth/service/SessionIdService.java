@@ -34,7 +34,10 @@ import org.gluu.oxauth.model.util.JwtUtil;
 import org.gluu.oxauth.model.util.Pair;
 import org.gluu.oxauth.model.util.Util;
 import org.gluu.oxauth.security.Identity;
+import org.gluu.oxauth.service.cache.CacheInvalidationService;
+import org.gluu.oxauth.service.cache.CacheRegion;
 import org.gluu.oxauth.service.common.UserService;
+import org.gluu.oxauth.service.expiration.SessionExpirationIndex;
 import org.gluu.oxauth.service.external.ExternalApplicationSessionService;
 import org.gluu.oxauth.service.external.ExternalAuthenticationService;
 import org.gluu.oxauth.service.external.session.SessionEvent;
@@ -112,6 +115,9 @@ public class SessionIdService {
     @Inject
     private UserService userService;
 
+    @Inject
+    private SessionExpirationIndex sessionExpirationIndex;
+
     @Inject
     private PersistenceEntryManager persistenceEntryManager;
 
@@ -133,6 +139,12 @@ public class SessionIdService {
     @Inject
     private StatService statService;
 
+    @Inject
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Inject
+    private SessionWriteBehindService sessionWriteBehindService;
+
     private String buildDn(String sessionId) {
         return String.format("oxId=%s,%s", sessionId, staticConfiguration.getBaseDn().getSessions());
     }
@@ -588,6 +600,8 @@ public class SessionIdService {
                     persistenceEntryManager.persist(sessionId);
                 }
                 localCacheService.put(DEFAULT_LOCAL_CACHE_EXPIRATION, sessionId.getDn(), sessionId);
+                sessionWriteBehindService.remember(sessionId);
+                scheduleExpiration(sessionId);
                 return true;
             }
         } catch (Exception e) {
@@ -646,7 +660,11 @@ public class SessionIdService {
                 }
 
                 if (update) {
-                    mergeWithRetry(sessionId);
+                    if (!forceUpdate && sessionWriteBehindService.isOnlyLastUsedAtChanged(sessionId)) {
+                        deferLastUsedAt(sessionId);
+                    } else {
+                        mergeWithRetry(sessionId);
+                    }
                 }
             }
         } catch (Exception e) {
@@ -707,6 +725,8 @@ public class SessionIdService {
                     persistenceEntryManager.merge(sessionId);
                 }
                 localCacheService.put(DEFAULT_LOCAL_CACHE_EXPIRATION, sessionId.getDn(), sessionId);
+                sessionWriteBehindService.remember(sessionId);
+                scheduleExpiration(sessionId);
                 externalEvent(new SessionEvent(SessionEventType.UPDATED, sessionId));
                 return;
             } catch (EntryPersistenceException ex) {
@@ -729,6 +749,21 @@ public class SessionIdService {
         throw lastException;
     }
 
+    private void scheduleExpiration(SessionId sessionId) {
+        if (appConfiguration.getExpirationNotificatorEnabled() && sessionId.isDeletable()) {
+            sessionExpirationIndex.schedule(sessionId.getDn(), sessionId.getExpirationDate());
+        }
+    }
+
+    /**
+     * Only last used at is changed, thus write is coalesced and flushed later by write-behind buffer.
+     */
+    private void deferLastUsedAt(final SessionId sessionId) {
+        sessionWriteBehindService.deferLastUsedAt(sessionId);
+        localCacheService.put(DEFAULT_LOCAL_CACHE_EXPIRATION, sessionId.getDn(), sessionId);
+        externalEvent(new SessionEvent(SessionEventType.UPDATED, sessionId));
+    }
+
     public void updateSessionIdIfNeeded(SessionId sessionId, boolean modified) {
         updateSessionId(sessionId, true, false, modified);
     }
@@ -787,6 +822,7 @@ public class SessionIdService {
                 sessionId = persistenceEntryManager.find(SessionId.class, dn);
             }
             localCacheService.put(DEFAULT_LOCAL_CACHE_EXPIRATION, sessionId.getDn(), sessionId);
+            sessionWriteBehindService.remember(sessionId);
             return sessionId;
         } catch (Exception e) {
             if (!silently) {
@@ -844,6 +880,9 @@ public class SessionIdService {
                 persistenceEntryManager.remove(sessionId.getDn(), SessionId.class);
             }
             localCacheService.remove(sessionId.getDn());
+            sessionWriteBehindService.cancel(sessionId.getDn());
+            sessionExpirationIndex.unschedule(sessionId.getDn());
+            cacheInvalidationService.publish(CacheRegion.SESSION, sessionId.getDn());
             externalEvent(new SessionEvent(SessionEventType.GONE, sessionId));
             return true;
         } catch (Exception e) {
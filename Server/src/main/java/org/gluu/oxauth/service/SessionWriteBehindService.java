@@ -0,0 +1,277 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.gluu.oxauth.model.common.SessionId;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.service.cache.CacheInvalidationEvent;
+import org.gluu.oxauth.service.cache.CacheRegion;
+import org.gluu.oxauth.service.cdi.event.SessionWriteBehindFlushEvent;
+import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.persist.model.base.CustomAttribute;
+import org.gluu.persist.model.base.CustomEntry;
+import org.gluu.service.CacheService;
+import org.gluu.service.cdi.async.Asynchronous;
+import org.gluu.service.cdi.event.Scheduled;
+import org.gluu.service.timer.event.TimerEvent;
+import org.gluu.service.timer.schedule.TimerSchedule;
+import org.slf4j.Logger;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind buffer for non-critical session updates (last used at).
+ * <p>
+ * Session fingerprint (all persisted attributes except last used at) is remembered on every write. If session is
+ * updated and fingerprint is not changed then only last used at is changed and write is deferred: repeated updates
+ * of the same session are coalesced within window and flushed in batch by timer. Any other change
+ * (e.g. state transition to authenticated/unauthenticated) is written synchronously by SessionIdService and
+ * cancels pending deferred write.
+ * <p>
+ * Sessions in persistence are flushed by writing only last used at attribute, thus changes made by other nodes are
+ * kept. Sessions in cache can be written only as a whole, so flush is skipped if cached session was changed (its
+ * fingerprint differs from the one remembered by this node) and session keeps its remaining lifetime. Cache providers
+ * have no compare-and-set, thus change which lands between read and write of the flush can still be overwritten,
+ * the window is one cache round trip.
+ */
+@ApplicationScoped
+public class SessionWriteBehindService {
+
+    private static final String[] SESSION_OBJECT_CLASSES = new String[]{"oxAuthSessionId"};
+    private static final int FLUSH_BATCH_SIZE = 100;
+    private static final int TICK_INTERVAL = 1; // 1 sec, window shorter than tick is effectively one tick
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private Event<TimerEvent> timerEvent;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private PersistenceEntryManager persistenceEntryManager;
+
+    @Inject
+    private CacheService cacheService;
+
+    private final Map<String, Date> pending = new ConcurrentHashMap<>();
+
+    private final Cache<String, String> fingerprints = CacheBuilder.newBuilder()
+            .maximumSize(100000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    private final AtomicBoolean isActive = new AtomicBoolean(false);
+
+    private volatile long lastFlushTime;
+
+    public boolean isEnabled() {
+        return appConfiguration.getSessionIdWriteBehindEnabled();
+    }
+
+    /**
+     * @return true if only last used at is changed since last write of the session on this node
+     */
+    public boolean isOnlyLastUsedAtChanged(SessionId sessionId) {
+        if (!isEnabled() || sessionId.getDn() == null) {
+            return false;
+        }
+        final String previous = fingerprints.getIfPresent(sessionId.getDn());
+        return previous != null && previous.equals(fingerprint(sessionId));
+    }
+
+    /**
+     * Must be called after each synchronous write of the session and after session is loaded from cache/persistence.
+     */
+    public void remember(SessionId sessionId) {
+        if (!isEnabled() || sessionId.getDn() == null) {
+            return;
+        }
+        pending.remove(sessionId.getDn());
+        fingerprints.put(sessionId.getDn(), fingerprint(sessionId));
+    }
+
+    public void deferLastUsedAt(SessionId sessionId) {
+        pending.merge(sessionId.getDn(), sessionId.getLastUsedAt(), (a, b) -> a.after(b) ? a : b);
+    }
+
+    public void cancel(String dn) {
+        if (dn == null) {
+            return;
+        }
+        pending.remove(dn);
+        fingerprints.invalidate(dn);
+    }
+
+    public void onCacheInvalidation(@Observes CacheInvalidationEvent event) {
+        if (!event.is(CacheRegion.SESSION)) {
+            return;
+        }
+        if (event.isAll()) {
+            pending.clear();
+            fingerprints.invalidateAll();
+        } else {
+            cancel(event.getKey());
+        }
+    }
+
+    @Asynchronous
+    public void initTimer() {
+        log.debug("Initializing Session Write-Behind Timer");
+
+        timerEvent.fire(new TimerEvent(new TimerSchedule(TICK_INTERVAL, TICK_INTERVAL), new SessionWriteBehindFlushEvent(), Scheduled.Literal.INSTANCE));
+    }
+
+    /**
+     * Flushes buffer once window (read on each tick, so it follows configuration reload) elapsed since last flush.
+     */
+    @Asynchronous
+    public void process(@Observes @Scheduled SessionWriteBehindFlushEvent event) {
+        final long now = System.currentTimeMillis();
+        if (now - lastFlushTime < appConfiguration.getSessionIdWriteBehindWindowInMillis()) {
+            return;
+        }
+
+        if (!this.isActive.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            flush();
+            lastFlushTime = now;
+        } catch (Exception ex) {
+            log.error("Failed to flush session write-behind buffer", ex);
+        } finally {
+            this.isActive.set(false);
+        }
+    }
+
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final List<Map.Entry<String, Date>> batch = new ArrayList<>();
+        for (String dn : pending.keySet()) {
+            final Date lastUsedAt = pending.remove(dn);
+            if (lastUsedAt == null) {
+                continue;
+            }
+            batch.add(new AbstractMap.SimpleEntry<>(dn, lastUsedAt));
+
+            if (batch.size() >= FLUSH_BATCH_SIZE) {
+                flushBatch(batch);
+                batch.clear();
+            }
+        }
+        flushBatch(batch);
+    }
+
+    private void flushBatch(List<Map.Entry<String, Date>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final long started = System.currentTimeMillis();
+        for (Map.Entry<String, Date> entry : batch) {
+            try {
+                if (appConfiguration.getSessionIdPersistInCache()) {
+                    flushToCache(entry.getKey(), entry.getValue());
+                } else {
+                    flushToPersistence(entry.getKey(), entry.getValue());
+                }
+            } catch (Exception e) {
+                log.debug("Failed to flush last used at of session " + entry.getKey(), e);
+            }
+        }
+        log.trace("Flushed last used at of {} sessions, takes: {}ms", batch.size(), System.currentTimeMillis() - started);
+    }
+
+    private void flushToCache(String dn, Date lastUsedAt) {
+        final String expectedFingerprint = fingerprints.getIfPresent(dn);
+        if (expectedFingerprint == null) {
+            return; // cancelled meanwhile
+        }
+
+        final Object o = cacheService.get(dn);
+        if (!(o instanceof SessionId)) {
+            return; // removed meanwhile, don't resurrect it
+        }
+        final SessionId current = (SessionId) o;
+        if (current.getLastUsedAt() != null && !current.getLastUsedAt().before(lastUsedAt)) {
+            return;
+        }
+        if (!expectedFingerprint.equals(fingerprint(current))) {
+            log.trace("Session {} was changed by other node, last used at is not flushed.", dn);
+            return;
+        }
+
+        final int ttl = remainingLifetimeInSeconds(current);
+        if (ttl <= 0) {
+            return;
+        }
+        current.setLastUsedAt(lastUsedAt);
+        cacheService.put(ttl, dn, current);
+    }
+
+    private static int remainingLifetimeInSeconds(SessionId sessionId) {
+        if (sessionId.getExpirationDate() == null) {
+            return sessionId.getTtl();
+        }
+        final long remaining = TimeUnit.MILLISECONDS.toSeconds(sessionId.getExpirationDate().getTime() - System.currentTimeMillis());
+        return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+
+    private void flushToPersistence(String dn, Date lastUsedAt) {
+        CustomEntry customEntry = new CustomEntry();
+        customEntry.setDn(dn);
+        customEntry.setCustomObjectClasses(SESSION_OBJECT_CLASSES);
+        customEntry.getCustomAttributes().add(new CustomAttribute("oxLastAccessTime", persistenceEntryManager.encodeTime(dn, lastUsedAt)));
+
+        persistenceEntryManager.merge(customEntry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    private static String fingerprint(SessionId sessionId) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(sessionId.getId()).append('|')
+                .append(sessionId.getOutsideSid()).append('|')
+                .append(sessionId.getUserDn()).append('|')
+                .append(sessionId.getAuthenticationTime() != null ? sessionId.getAuthenticationTime().getTime() : null).append('|')
+                .append(sessionId.getState()).append('|')
+                .append(sessionId.getSessionState()).append('|')
+                .append(sessionId.getPermissionGranted()).append('|')
+                .append(sessionId.getIsJwt()).append('|')
+                .append(sessionId.getJwt()).append('|')
+                .append(new TreeMap<>(sessionId.getPermissionGrantedMap().getPermissionGranted())).append('|')
+                .append(new TreeMap<>(sessionId.getSessionAttributes())).append('|')
+                .append(sessionId.isDeletable());
+        return DigestUtils.sha256Hex(sb.toString());
+    }
+}
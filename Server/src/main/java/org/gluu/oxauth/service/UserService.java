@@ -6,22 +6,43 @@
 
 package org.gluu.oxauth.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import org.apache.commons.lang.SerializationUtils;
 import org.apache.commons.lang.StringUtils;
 import org.gluu.fido2.model.entry.Fido2RegistrationEntry;
+import org.gluu.oxauth.model.common.User;
 import org.gluu.oxauth.model.config.StaticConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.fido.u2f.DeviceRegistration;
 import org.gluu.oxauth.model.fido.u2f.DeviceRegistrationStatus;
+import org.gluu.oxauth.service.cache.CacheInvalidationEvent;
+import org.gluu.oxauth.service.cache.CacheInvalidationService;
+import org.gluu.oxauth.service.cache.CacheRegion;
+import org.gluu.oxauth.service.cdi.event.AuthConfigurationEvent;
 import org.gluu.persist.model.base.CustomEntry;
 import org.gluu.persist.model.base.SimpleBranch;
 import org.gluu.search.filter.Filter;
+import org.gluu.service.cdi.async.Asynchronous;
+import org.gluu.service.cdi.event.Scheduled;
 import org.gluu.service.net.NetworkService;
 import org.gluu.util.StringHelper;
+import org.slf4j.Logger;
 
 /**
  * Provides operations with users.
@@ -34,6 +55,9 @@ public class UserService extends org.gluu.oxauth.service.common.UserService {
 
 	public static final String[] USER_OBJECT_CLASSES = new String[] { "gluuPerson" };
 
+    private static final int DEFAULT_USER_CACHE_MAX_ENTRIES = 10000;
+    private static final int DEFAULT_USER_CACHE_LIFETIME_IN_SECONDS = 5;
+
     @Inject
     private StaticConfiguration staticConfiguration;
 
@@ -43,6 +67,46 @@ public class UserService extends org.gluu.oxauth.service.common.UserService {
     @Inject
     private NetworkService networkService;
 
+    @Inject
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Inject
+    private Logger log;
+
+    private final ConcurrentMap<String, Set<String>> userCacheKeysByDn = new ConcurrentHashMap<>(); // lower case dn to keys in userCache
+
+    private volatile Cache<String, User> userCache = newUserCache(DEFAULT_USER_CACHE_MAX_ENTRIES, DEFAULT_USER_CACHE_LIFETIME_IN_SECONDS);
+
+    private int currentUserCacheMaxEntries = DEFAULT_USER_CACHE_MAX_ENTRIES;
+    private int currentUserCacheLifetime = DEFAULT_USER_CACHE_LIFETIME_IN_SECONDS;
+
+    private Cache<String, User> newUserCache(int maxEntries, int lifetimeInSeconds) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(lifetimeInSeconds, TimeUnit.SECONDS)
+                .removalListener(this::onUserCacheRemoval)
+                .build();
+    }
+
+    private void onUserCacheRemoval(RemovalNotification<String, User> notification) {
+        if (notification.getCause() != RemovalCause.REPLACED && notification.getValue() != null) {
+            unindex(notification.getValue().getDn(), notification.getKey());
+        }
+    }
+
+    @Asynchronous
+    public void reloadUserCacheTimerEvent(@Observes @Scheduled AuthConfigurationEvent authConfigurationEvent) {
+        final int maxEntries = appConfiguration.getUserCacheMaxEntries();
+        final int lifetime = appConfiguration.getUserCacheLifetimeInSeconds();
+        if (currentUserCacheMaxEntries != maxEntries || currentUserCacheLifetime != lifetime) {
+            currentUserCacheMaxEntries = maxEntries;
+            currentUserCacheLifetime = lifetime;
+            userCache = newUserCache(maxEntries, lifetime);
+            userCacheKeysByDn.clear();
+            log.trace("Re-created user cache, max entries: {}, lifetime: {}", maxEntries, lifetime);
+        }
+    }
+
     @Override
 	protected List<String> getPersonCustomObjectClassList() {
 		return appConfiguration.getPersonCustomObjectClassList();
@@ -118,4 +182,121 @@ public class UserService extends org.gluu.oxauth.service.common.UserService {
         return String.format("ou=fido,%s", userBaseDn);
 	}
 
+    /**
+     * Returns user by dn with only given attributes loaded (all attributes if null). Result is cached on this
+     * node for userCacheLifetimeInSeconds, key is dn plus projection. Returned user is a copy and may be modified.
+     */
+    public User getUserByDn(String dn, Collection<String> returnAttributes) {
+        if (StringUtils.isBlank(dn)) {
+            return null;
+        }
+
+        final String[] attributes = toProjection(returnAttributes);
+        return loadCached("dn:" + dn + "|" + projectionKey(attributes), () -> attributes != null ? getUserByDn(dn, attributes) : getUserByDn(dn));
+    }
+
+    /**
+     * Returns user by uid with all attributes, cached on this node for userCacheLifetimeInSeconds.
+     * Returned user is a copy and may be modified.
+     */
+    public User getCachedUser(String userId) {
+        if (StringUtils.isBlank(userId)) {
+            return null;
+        }
+
+        return loadCached("uid:" + StringHelper.toLowerCase(userId) + "|*", () -> getUser(userId));
+    }
+
+    private User loadCached(String key, Supplier<User> loader) {
+        if (!appConfiguration.getUserCacheEnabled()) {
+            return loader.get();
+        }
+
+        final Cache<String, User> cache = userCache;
+        final User cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return copy(cached);
+        }
+
+        final User user = loader.get();
+        if (user == null) {
+            cache.invalidate(key);
+            return null;
+        }
+
+        index(user.getDn(), key);
+        cache.put(key, user);
+        return copy(user);
+    }
+
+    private void index(String dn, String key) {
+        if (dn != null) {
+            userCacheKeysByDn.compute(StringHelper.toLowerCase(dn), (k, keys) -> {
+                final Set<String> result = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                result.add(key);
+                return result;
+            });
+        }
+    }
+
+    private void unindex(String dn, String key) {
+        if (dn != null) {
+            userCacheKeysByDn.computeIfPresent(StringHelper.toLowerCase(dn), (k, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private static String[] toProjection(Collection<String> returnAttributes) {
+        if (returnAttributes == null) {
+            return null;
+        }
+
+        final TreeSet<String> attributes = new TreeSet<>(returnAttributes);
+        attributes.add("uid");
+        attributes.add("inum");
+        return attributes.toArray(new String[0]);
+    }
+
+    private static String projectionKey(String[] attributes) {
+        return attributes != null ? StringUtils.join(attributes, ',') : "*";
+    }
+
+    private static User copy(User user) {
+        return (User) SerializationUtils.clone(user);
+    }
+
+    @Override
+    public User updateUser(User user) {
+        final User result = super.updateUser(user);
+
+        evictUser(user.getDn());
+        cacheInvalidationService.publish(CacheRegion.USER, user.getDn());
+        return result;
+    }
+
+    public void evictUser(String dn) {
+        if (dn != null) {
+            final Set<String> keys = userCacheKeysByDn.remove(StringHelper.toLowerCase(dn));
+            if (keys != null) {
+                userCache.invalidateAll(keys);
+            }
+        }
+    }
+
+    public void onCacheInvalidation(@Observes CacheInvalidationEvent event) {
+        if (!event.is(CacheRegion.USER)) {
+            return;
+        }
+
+        if (event.isAll()) {
+            userCache.invalidateAll();
+            userCacheKeysByDn.clear();
+        } else {
+            evictUser(event.getKey());
+        }
+        log.trace("Evicted cached user, dn: {}", event.getKey());
+    }
+
 }
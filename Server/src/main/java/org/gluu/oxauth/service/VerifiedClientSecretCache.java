@@ -0,0 +1,135 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.service.cache.CacheInvalidationEvent;
+import org.gluu.oxauth.service.cache.CacheRegion;
+import org.slf4j.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per node cache of client secrets which were verified by decryption of stored secret.
+ * <p>
+ * Holds HMAC of presented secret (key is random and never leaves the node) together with encrypted secret it was
+ * verified against, so secret changed on any node makes entry stale even before invalidation arrives. Only successful
+ * authentications are cached, hashes are compared in constant time.
+ */
+@ApplicationScoped
+public class VerifiedClientSecretCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int MAX_SIZE = 10000;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private final Cache<String, Entry> entries = CacheBuilder.newBuilder().maximumSize(MAX_SIZE).build();
+    private final SecretKeySpec key;
+
+    public VerifiedClientSecretCache() {
+        final byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+
+    /**
+     * @return true if presented secret was verified for current secret of client
+     */
+    public boolean isVerified(Client client, String presentedSecret) {
+        if (!appConfiguration.getClientSecretCacheEnabled() || client == null || client.getDn() == null || presentedSecret == null) {
+            return false;
+        }
+
+        final Entry entry = entries.getIfPresent(client.getDn());
+        if (entry == null) {
+            return false;
+        }
+        if (!Objects.equals(entry.encryptedSecret, client.getClientSecret()) || isExpired(entry)) {
+            entries.invalidate(client.getDn());
+            return false;
+        }
+
+        final byte[] hash = hmac(presentedSecret);
+        return hash != null && MessageDigest.isEqual(hash, entry.secretHash);
+    }
+
+    /**
+     * Remembers secret which was verified by decryption of client secret.
+     */
+    public void put(Client client, String verifiedSecret) {
+        if (!appConfiguration.getClientSecretCacheEnabled() || client == null || client.getDn() == null || verifiedSecret == null) {
+            return;
+        }
+
+        final byte[] hash = hmac(verifiedSecret);
+        if (hash != null) {
+            entries.put(client.getDn(), new Entry(hash, client.getClientSecret(), System.currentTimeMillis()));
+        }
+    }
+
+    public void invalidate(String clientDn) {
+        if (clientDn != null) {
+            entries.invalidate(clientDn);
+        }
+    }
+
+    public void onCacheInvalidation(@Observes CacheInvalidationEvent event) {
+        if (!event.is(CacheRegion.CLIENT)) {
+            return;
+        }
+        if (event.isAll()) {
+            entries.invalidateAll();
+        } else {
+            invalidate(event.getKey());
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        final long lifetime = TimeUnit.SECONDS.toMillis(appConfiguration.getClientSecretCacheLifetimeInSeconds());
+        return System.currentTimeMillis() - entry.verifiedAt >= lifetime;
+    }
+
+    private byte[] hmac(String secret) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.error("Failed to compute hash of client secret.", e);
+            return null;
+        }
+    }
+
+    private static class Entry {
+        private final byte[] secretHash;
+        private final String encryptedSecret;
+        private final long verifiedAt;
+
+        private Entry(byte[] secretHash, String encryptedSecret, long verifiedAt) {
+            this.secretHash = secretHash;
+            this.encryptedSecret = encryptedSecret;
+            this.verifiedAt = verifiedAt;
+        }
+    }
+}
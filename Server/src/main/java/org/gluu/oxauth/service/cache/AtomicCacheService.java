@@ -0,0 +1,81 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.cache;
+
+import net.spy.memcached.MemcachedClient;
+import org.apache.commons.lang.SerializationUtils;
+import org.gluu.service.CacheService;
+import org.gluu.service.cache.CacheProvider;
+import org.slf4j.Logger;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.Serializable;
+
+/**
+ * Atomic cache operations which CacheService does not expose.
+ * <p>
+ * Add is atomic across nodes with memcached (add) and standalone redis (setnx). Other providers (in-memory, native
+ * persistence, redis cluster/sharded/sentinel) fall back to get and put which is atomic only within this node.
+ */
+@ApplicationScoped
+public class AtomicCacheService {
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private CacheService cacheService;
+
+    @Inject
+    private CacheProvider cacheProvider;
+
+    /**
+     * Puts value only if key is not in cache yet.
+     *
+     * @return true if value was put, false if key is already in cache
+     */
+    public boolean add(int expirationInSeconds, String key, Serializable value) {
+        final MemcachedClient memcachedClient = CacheProviderDelegates.memcachedClient(cacheProvider);
+        if (memcachedClient != null) {
+            try {
+                return Boolean.TRUE.equals(memcachedClient.add(key, expirationInSeconds, value).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (Exception e) {
+                log.error("Failed to add object to memcached, key: " + key, e);
+                return false;
+            }
+        }
+
+        final JedisPool jedisPool = CacheProviderDelegates.jedisPool(cacheProvider);
+        if (jedisPool != null) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                final byte[] rawKey = key.getBytes();
+                if (!Long.valueOf(1).equals(jedis.setnx(rawKey, SerializationUtils.serialize(value)))) {
+                    return false;
+                }
+                jedis.expire(rawKey, expirationInSeconds);
+                return true;
+            } catch (Exception e) {
+                log.error("Failed to add object to redis, key: " + key, e);
+                return false;
+            }
+        }
+
+        synchronized (this) {
+            if (cacheService.get(key) != null) {
+                return false;
+            }
+            cacheService.put(expirationInSeconds, key, value);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.util.ServerUtil;
+import net.spy.memcached.MemcachedClient;
+import org.apache.commons.lang.SerializationUtils;
+import org.gluu.service.CacheService;
+import org.gluu.service.cache.CacheProvider;
+import org.slf4j.Logger;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk reads from cache and bulk writes.
+ * <p>
+ * Gets use multi-get of provider where it exists: memcached getBulk and mget of standalone redis, one round trip for
+ * all keys. Other providers (in-memory, native persistence, redis cluster/sharded/sentinel) and failed multi-get fall
+ * back to single gets issued at once on bounded thread pool, so each key still costs own request (own pooled redis
+ * connection, own LDAP/Couchbase lookup with native persistence), only waiting for them overlaps. When pool queue is
+ * full the get is executed by calling thread. Removals are batched the same way, see {@link #removeAll(Collection)}.
+ * Writes (e.g. all tokens of one token response) are issued on the same pool.
+ */
+@ApplicationScoped
+public class BulkCacheService {
+
+    private static final int QUEUE_SIZE = 1000;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private CacheService cacheService;
+
+    @Inject
+    private CacheProvider cacheProvider;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private volatile ThreadPoolExecutor executor;
+
+    /**
+     * @param keys cache keys
+     * @return map of key to cached object, keys which are not in cache are absent in map
+     */
+    public Map<String, Object> getAll(Collection<String> keys) {
+        final Set<String> uniqueKeys = new LinkedHashSet<>();
+        if (keys != null) {
+            for (String key : keys) {
+                if (StringUtils.isNotBlank(key)) {
+                    uniqueKeys.add(key);
+                }
+            }
+        }
+
+        final Map<String, Object> result = new HashMap<>();
+        if (uniqueKeys.size() <= 1) {
+            for (String key : uniqueKeys) {
+                putIfNotNull(result, key, get(key));
+            }
+            return result;
+        }
+
+        final Map<String, Object> multiGetResult = multiGet(uniqueKeys);
+        if (multiGetResult != null) {
+            log.trace("Multi-get of {} keys from cache, found: {}", uniqueKeys.size(), multiGetResult.size());
+            return multiGetResult;
+        }
+
+        final Map<String, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        for (String key : uniqueKeys) {
+            futures.put(key, CompletableFuture.supplyAsync(() -> get(key), getExecutor()));
+        }
+        for (Map.Entry<String, CompletableFuture<Object>> entry : futures.entrySet()) {
+            putIfNotNull(result, entry.getKey(), entry.getValue().join());
+        }
+        log.trace("Bulk get of {} keys from cache, found: {}", uniqueKeys.size(), result.size());
+        return result;
+    }
+
+    /**
+     * Removes keys and waits until all removals are done. Failure of one removal does not stop others.
+     * <p>
+     * Standalone redis removes all keys by one del, memcached deletes are issued asynchronously and awaited together.
+     * Other providers are not batched on cache side: single removes are issued at once on the pool, each one is own
+     * request (own LDAP/Couchbase delete with native persistence).
+     *
+     * @param keys cache keys
+     * @return number of keys which failed to be removed
+     */
+    public int removeAll(Collection<String> keys) {
+        final Set<String> uniqueKeys = new LinkedHashSet<>();
+        if (keys != null) {
+            for (String key : keys) {
+                if (StringUtils.isNotBlank(key)) {
+                    uniqueKeys.add(key);
+                }
+            }
+        }
+
+        if (uniqueKeys.size() <= 1) {
+            int failed = 0;
+            for (String key : uniqueKeys) {
+                failed += remove(key) ? 0 : 1;
+            }
+            return failed;
+        }
+
+        final Integer multiRemoveFailed = multiRemove(uniqueKeys);
+        if (multiRemoveFailed != null) {
+            log.trace("Multi-remove of {} keys from cache, failed: {}", uniqueKeys.size(), multiRemoveFailed);
+            return multiRemoveFailed;
+        }
+
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (String key : uniqueKeys) {
+            futures.add(CompletableFuture.supplyAsync(() -> remove(key), getExecutor()));
+        }
+        int failed = 0;
+        for (CompletableFuture<Boolean> future : futures) {
+            failed += future.join() ? 0 : 1;
+        }
+        log.trace("Bulk remove of {} keys from cache, failed: {}", uniqueKeys.size(), failed);
+        return failed;
+    }
+
+    /**
+     * Executes writes concurrently and waits until all of them are done.
+     *
+     * @param writes writes to execute
+     * @throws RuntimeException first failure of writes
+     */
+    public void executeAll(Collection<Runnable> writes) {
+        if (writes == null || writes.isEmpty()) {
+            return;
+        }
+        if (writes.size() == 1) {
+            writes.iterator().next().run();
+            return;
+        }
+
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Runnable write : writes) {
+            futures.add(CompletableFuture.runAsync(write, getExecutor()));
+        }
+
+        RuntimeException failure = null;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return found objects or null if provider has no multi-get or it failed
+     */
+    private Map<String, Object> multiGet(Set<String> keys) {
+        try {
+            final MemcachedClient memcachedClient = CacheProviderDelegates.memcachedClient(cacheProvider);
+            if (memcachedClient != null) {
+                final Map<String, Object> result = new HashMap<>();
+                for (Map.Entry<String, Object> entry : memcachedClient.getBulk(keys).entrySet()) {
+                    putIfNotNull(result, entry.getKey(), entry.getValue());
+                }
+                return result;
+            }
+
+            final JedisPool jedisPool = CacheProviderDelegates.jedisPool(cacheProvider);
+            if (jedisPool != null) {
+                final List<String> orderedKeys = new ArrayList<>(keys);
+                final byte[][] rawKeys = new byte[orderedKeys.size()][];
+                for (int i = 0; i < rawKeys.length; i++) {
+                    rawKeys[i] = orderedKeys.get(i).getBytes();
+                }
+
+                final List<byte[]> values;
+                try (Jedis jedis = jedisPool.getResource()) {
+                    values = jedis.mget(rawKeys);
+                }
+                final Map<String, Object> result = new HashMap<>();
+                for (int i = 0; i < rawKeys.length; i++) {
+                    final byte[] value = values.get(i);
+                    if (value != null) {
+                        putIfNotNull(result, orderedKeys.get(i), SerializationUtils.deserialize(value));
+                    }
+                }
+                return result;
+            }
+        } catch (Exception e) {
+            log.error("Failed to get objects from cache by multi-get, falling back to single gets, keys: " + keys, e);
+        }
+        return null;
+    }
+
+    /**
+     * @return number of keys which failed to be removed or null if provider has no multi-remove
+     */
+    private Integer multiRemove(Set<String> keys) {
+        final MemcachedClient memcachedClient = CacheProviderDelegates.memcachedClient(cacheProvider);
+        if (memcachedClient != null) {
+            final Map<String, Future<Boolean>> futures = new LinkedHashMap<>();
+            int failed = 0;
+            for (String key : keys) {
+                try {
+                    futures.put(key, memcachedClient.delete(key));
+                } catch (Exception e) {
+                    log.error("Failed to remove object from memcached, key: " + key, e);
+                    failed++;
+                }
+            }
+            for (Map.Entry<String, Future<Boolean>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get(); // false only if key is not in cache
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed++;
+                } catch (Exception e) {
+                    log.error("Failed to remove object from memcached, key: " + entry.getKey(), e);
+                    failed++;
+                }
+            }
+            return failed;
+        }
+
+        final JedisPool jedisPool = CacheProviderDelegates.jedisPool(cacheProvider);
+        if (jedisPool != null) {
+            final byte[][] rawKeys = new byte[keys.size()][];
+            int i = 0;
+            for (String key : keys) {
+                rawKeys[i++] = key.getBytes();
+            }
+            try (Jedis jedis = jedisPool.getResource()) {
+                jedis.del(rawKeys);
+                return 0;
+            } catch (Exception e) {
+                log.error("Failed to remove objects from redis, keys: " + keys, e);
+                return keys.size();
+            }
+        }
+        return null;
+    }
+
+    private Object get(String key) {
+        try {
+            return cacheService.get(key);
+        } catch (Exception e) {
+            log.error("Failed to get object from cache, key: " + key, e);
+            return null;
+        }
+    }
+
+    private boolean remove(String key) {
+        try {
+            cacheService.remove(key);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to remove object from cache, key: " + key, e);
+            return false;
+        }
+    }
+
+    private static void putIfNotNull(Map<String, Object> result, String key, Object value) {
+        if (value != null) {
+            result.put(key, value);
+        }
+    }
+
+    private ThreadPoolExecutor getExecutor() {
+        if (executor != null) {
+            return executor;
+        }
+        synchronized (this) {
+            if (executor == null) {
+                final int poolSize = appConfiguration.getCacheBulkGetThreadPoolSize();
+                ThreadPoolExecutor newExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(QUEUE_SIZE), ServerUtil.daemonThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+                newExecutor.allowCoreThreadTimeOut(true);
+                executor = newExecutor;
+            }
+            return executor;
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport which delivers cache invalidation events to all oxAuth nodes.
+ */
+public interface CacheInvalidationChannel {
+
+    /**
+     * @param listener receives events which has to be applied to node-local caches
+     */
+    void start(Consumer<CacheInvalidationEvent> listener);
+
+    void publish(CacheInvalidationEvent event);
+
+    /**
+     * Called periodically by timer. Channels which are not push based flush published events and poll peers here.
+     */
+    void process();
+
+    void stop();
+}
@@ -0,0 +1,34 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.cache;
+
+import org.apache.commons.lang.StringUtils;
+
+public enum CacheInvalidationChannelType {
+
+    LOOPBACK("loopback"),
+    CACHE_PROVIDER("cache_provider");
+
+    private final String value;
+
+    CacheInvalidationChannelType(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static CacheInvalidationChannelType fromString(String value) {
+        for (CacheInvalidationChannelType type : values()) {
+            if (StringUtils.equalsIgnoreCase(type.value, value) || StringUtils.equalsIgnoreCase(type.name(), value)) {
+                return type;
+            }
+        }
+        return LOOPBACK;
+    }
+}
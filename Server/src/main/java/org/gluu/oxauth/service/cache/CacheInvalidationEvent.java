@@ -0,0 +1,78 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.cache;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Request to evict key from node-local caches. If key is null then whole region has to be evicted.
+ */
+public class CacheInvalidationEvent implements Serializable {
+
+    private static final long serialVersionUID = -2372014873262513624L;
+
+    private CacheRegion region;
+    private String key;
+
+    public CacheInvalidationEvent() {
+    }
+
+    public CacheInvalidationEvent(CacheRegion region, String key) {
+        this.region = region;
+        this.key = key;
+    }
+
+    public static CacheInvalidationEvent all(CacheRegion region) {
+        return new CacheInvalidationEvent(region, null);
+    }
+
+    public CacheRegion getRegion() {
+        return region;
+    }
+
+    public void setRegion(CacheRegion region) {
+        this.region = region;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public boolean isAll() {
+        return key == null;
+    }
+
+    public boolean is(CacheRegion region) {
+        return this.region == region;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CacheInvalidationEvent that = (CacheInvalidationEvent) o;
+        return region == that.region && Objects.equals(key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(region, key);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheInvalidationEvent{" +
+                "region=" + region +
+                ", key='" + key + '\'' +
+                '}';
+    }
+}
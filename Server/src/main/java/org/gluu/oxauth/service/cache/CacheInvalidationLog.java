@@ -0,0 +1,115 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded log of invalidation events published by one node. Written only by owning node, read by peers.
+ * Carries id of owning node, so peers can tell which node holds the slot the log is stored in.
+ * <p>
+ * For each region the log remembers sequence of the last event dropped because of size limit, so peer which missed
+ * events has to evict only regions which were actually truncated (e.g. token churn does not evict clients).
+ */
+public class CacheInvalidationLog implements Serializable {
+
+    private static final long serialVersionUID = 4407335853373447180L;
+
+    private String nodeId;
+    private long lastSequence;
+    private LinkedList<CacheInvalidationEvent> events = new LinkedList<>();
+    private EnumMap<CacheRegion, Long> truncatedSequences = new EnumMap<>(CacheRegion.class);
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+
+    public LinkedList<CacheInvalidationEvent> getEvents() {
+        return events;
+    }
+
+    public void setEvents(LinkedList<CacheInvalidationEvent> events) {
+        this.events = events;
+    }
+
+    public EnumMap<CacheRegion, Long> getTruncatedSequences() {
+        return truncatedSequences;
+    }
+
+    public void setTruncatedSequences(EnumMap<CacheRegion, Long> truncatedSequences) {
+        this.truncatedSequences = truncatedSequences;
+    }
+
+    public long getFirstSequence() {
+        return lastSequence - events.size() + 1;
+    }
+
+    public void append(CacheInvalidationEvent event, int maxSize) {
+        events.addLast(event);
+        lastSequence++;
+        while (events.size() > maxSize) {
+            final long sequence = getFirstSequence();
+            truncatedSequences.put(events.removeFirst().getRegion(), sequence);
+        }
+    }
+
+    /**
+     * @return regions which lost events with sequence greater then given sequence
+     */
+    public Set<CacheRegion> getRegionsTruncatedAfter(long sequence) {
+        if (truncatedSequences == null) { // written by previous version
+            return EnumSet.allOf(CacheRegion.class);
+        }
+
+        final Set<CacheRegion> regions = EnumSet.noneOf(CacheRegion.class);
+        for (Map.Entry<CacheRegion, Long> entry : truncatedSequences.entrySet()) {
+            if (entry.getValue() > sequence) {
+                regions.add(entry.getKey());
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * @return events with sequence greater then given sequence
+     */
+    public List<CacheInvalidationEvent> getEventsAfter(long sequence) {
+        final long skip = Math.max(0, sequence - getFirstSequence() + 1);
+        if (skip >= events.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(events.subList((int) skip, events.size()));
+    }
+
+    @Override
+    public String toString() {
+        return "CacheInvalidationLog{" +
+                "nodeId='" + nodeId + '\'' +
+                ", lastSequence=" + lastSequence +
+                ", size=" + events.size() +
+                '}';
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.cache;
+
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.service.cdi.event.CacheInvalidationPollEvent;
+import org.gluu.service.CacheService;
+import org.gluu.service.LocalCacheService;
+import org.gluu.service.cdi.async.Asynchronous;
+import org.gluu.service.cdi.event.Scheduled;
+import org.gluu.service.timer.event.TimerEvent;
+import org.gluu.service.timer.schedule.TimerSchedule;
+import org.slf4j.Logger;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes invalidation of node-local cached data to all nodes. Received events are fired as CDI
+ * {@link CacheInvalidationEvent} so node-local caches can observe them and evict keys.
+ */
+@ApplicationScoped
+public class CacheInvalidationService {
+
+    private static final int DEFAULT_INTERVAL_IN_SECONDS = 5;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private Event<TimerEvent> timerEvent;
+
+    @Inject
+    private Event<CacheInvalidationEvent> invalidationEvent;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private CacheService cacheService;
+
+    @Inject
+    private LocalCacheService localCacheService;
+
+    @Inject
+    private BulkCacheService bulkCacheService;
+
+    private final AtomicBoolean isActive = new AtomicBoolean(false);
+
+    private volatile CacheInvalidationChannel channel;
+    private volatile CacheInvalidationChannelType channelType;
+
+    @Asynchronous
+    public void initTimer() {
+        log.info("Initializing Cache Invalidation Timer");
+
+        getChannel();
+
+        int interval = appConfiguration.getCacheInvalidationIntervalInSeconds();
+        if (interval <= 0) {
+            interval = DEFAULT_INTERVAL_IN_SECONDS;
+        }
+        timerEvent.fire(new TimerEvent(new TimerSchedule(interval, interval), new CacheInvalidationPollEvent(), Scheduled.Literal.INSTANCE));
+
+        log.info("Initialized Cache Invalidation Timer");
+    }
+
+    @Asynchronous
+    public void process(@Observes @Scheduled CacheInvalidationPollEvent event) {
+        if (!this.isActive.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            getChannel().process();
+        } catch (Exception ex) {
+            log.error("Exception happened while processing cache invalidation channel", ex);
+        } finally {
+            this.isActive.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        final CacheInvalidationChannel current = channel;
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    public void publish(CacheRegion region, String key) {
+        if (key == null) {
+            return;
+        }
+
+        try {
+            getChannel().publish(new CacheInvalidationEvent(region, key));
+        } catch (Exception e) {
+            log.error("Failed to publish cache invalidation event, region: " + region + ", key: " + key, e);
+        }
+    }
+
+    public void publishAll(CacheRegion region) {
+        try {
+            getChannel().publish(CacheInvalidationEvent.all(region));
+        } catch (Exception e) {
+            log.error("Failed to publish cache invalidation event, region: " + region, e);
+        }
+    }
+
+    /**
+     * Session is cached in node-local cache by SessionIdService which is request scoped, thus it is evicted here.
+     */
+    public void onSessionInvalidation(@Observes CacheInvalidationEvent event) {
+        if (event.is(CacheRegion.SESSION) && !event.isAll()) {
+            localCacheService.remove(event.getKey());
+        }
+    }
+
+    private CacheInvalidationChannel getChannel() {
+        final CacheInvalidationChannelType type = CacheInvalidationChannelType.fromString(appConfiguration.getCacheInvalidationChannelType());
+        if (channel != null && channelType == type) {
+            return channel;
+        }
+
+        synchronized (this) {
+            if (channel != null && channelType == type) {
+                return channel;
+            }
+
+            if (channel != null) {
+                channel.stop();
+            }
+
+            final CacheInvalidationChannel newChannel = createChannel(type);
+            newChannel.start(this::deliver);
+
+            channelType = type;
+            channel = newChannel;
+            log.debug("Created cache invalidation channel: {}", type);
+            return newChannel;
+        }
+    }
+
+    private CacheInvalidationChannel createChannel(CacheInvalidationChannelType type) {
+        if (type == CacheInvalidationChannelType.CACHE_PROVIDER) {
+            return new CacheProviderInvalidationChannel(cacheService, bulkCacheService);
+        }
+        return new LoopbackCacheInvalidationChannel();
+    }
+
+    private void deliver(CacheInvalidationEvent event) {
+        log.trace("Applying {}", event);
+        try {
+            invalidationEvent.fire(event);
+        } catch (Exception e) {
+            log.error("Failed to apply cache invalidation event " + event, e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.cache;
+
+import net.spy.memcached.MemcachedClient;
+import org.gluu.service.cache.AbstractRedisProvider;
+import org.gluu.service.cache.CacheProvider;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * Native clients of configured cache provider, used for operations which CacheService does not expose (multi-key
+ * get and remove, atomic add). Values are stored by providers as they do it themselves: memcached client serializes
+ * objects, redis providers store java serialized bytes under key bytes.
+ */
+final class CacheProviderDelegates {
+
+    private CacheProviderDelegates() {
+    }
+
+    /**
+     * @return memcached client or null if provider is not memcached
+     */
+    static MemcachedClient memcachedClient(CacheProvider<?> cacheProvider) {
+        final Object delegate = cacheProvider != null ? cacheProvider.getDelegate() : null;
+        return delegate instanceof MemcachedClient ? (MemcachedClient) delegate : null;
+    }
+
+    /**
+     * @return pool of standalone redis or null if provider is not redis or redis is not standalone (cluster, sharded,
+     * sentinel)
+     */
+    static JedisPool jedisPool(CacheProvider<?> cacheProvider) {
+        final Object delegate = cacheProvider != null ? cacheProvider.getDelegate() : null;
+        if (!(delegate instanceof AbstractRedisProvider)) {
+            return null;
+        }
+        final Object redisDelegate = ((AbstractRedisProvider) delegate).getDelegate();
+        return redisDelegate instanceof JedisPool ? (JedisPool) redisDelegate : null;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.cache;
+
+import org.gluu.service.CacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Channel based on configured cache provider (memcached, redis, native persistence).
+ * <p>
+ * Each node appends its events to own bounded log. Log is stored in one of {@link #MAX_NODES} slot keys with
+ * deterministic names, so peers discover nodes by reading all slots and there is no shared key which is read, modified
+ * and written back by several nodes. Slot is written only by its owner and expires if owner stops refreshing it.
+ * <p>
+ * Two nodes may claim the same free slot at the same time. Node which finds its slot taken by other node claims
+ * another slot on next poll and writes its whole log there, peers track logs by node id thus they continue from
+ * last seen sequence. If peer log was truncated before it was read (gap in sequence) only regions which lost events
+ * are evicted. Node seen for the first time is not a gap: events retained in its log are applied and tracking starts
+ * from its current sequence.
+ * <p>
+ * Events published between two flushes are de-duplicated, so repeated invalidation of hot key takes one log entry.
+ */
+public class CacheProviderInvalidationChannel implements CacheInvalidationChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheProviderInvalidationChannel.class);
+
+    public static final String NODE_KEY_PREFIX = "cache_invalidation_node_";
+    public static final int MAX_NODES = 32;
+
+    private static final List<String> SLOT_KEYS;
+
+    static {
+        final List<String> keys = new ArrayList<>(MAX_NODES);
+        for (int i = 0; i < MAX_NODES; i++) {
+            keys.add(NODE_KEY_PREFIX + i);
+        }
+        SLOT_KEYS = Collections.unmodifiableList(keys);
+    }
+
+    private static final int MAX_LOG_SIZE = 1000;
+    private static final int NODE_EXPIRATION_IN_SECONDS = 600; // 10 minutes
+    private static final long NODE_HEARTBEAT_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final CacheService cacheService;
+    private final BulkCacheService bulkCacheService;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Queue<CacheInvalidationEvent> pending = new ConcurrentLinkedQueue<>();
+    private final Map<String, Peer> peers = new HashMap<>();
+    private final CacheInvalidationLog ownLog = new CacheInvalidationLog();
+
+    private volatile Consumer<CacheInvalidationEvent> listener;
+    private int slot = -1;
+    private long lastWrite;
+
+    public CacheProviderInvalidationChannel(CacheService cacheService, BulkCacheService bulkCacheService) {
+        this.cacheService = cacheService;
+        this.bulkCacheService = bulkCacheService;
+        this.ownLog.setNodeId(nodeId);
+    }
+
+    @Override
+    public synchronized void start(Consumer<CacheInvalidationEvent> listener) {
+        this.listener = listener;
+        claimSlot(readSlots());
+    }
+
+    @Override
+    public void publish(CacheInvalidationEvent event) {
+        pending.add(event);
+    }
+
+    @Override
+    public synchronized void process() {
+        try {
+            final Map<String, Object> slots = readSlots();
+            checkSlot(slots);
+            flush();
+            heartbeat();
+            poll(slots);
+        } catch (Exception e) {
+            log.error("Failed to process cache invalidation events", e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        listener = null;
+        try {
+            flush();
+            if (slot >= 0 && isOwn(cacheService.get(SLOT_KEYS.get(slot)))) {
+                cacheService.remove(SLOT_KEYS.get(slot));
+            }
+            slot = -1;
+        } catch (Exception e) {
+            log.error("Failed to unregister node from cache invalidation channel", e);
+        }
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final LinkedHashSet<CacheInvalidationEvent> batch = new LinkedHashSet<>();
+        CacheInvalidationEvent event;
+        while ((event = pending.poll()) != null) {
+            batch.add(event);
+        }
+        for (CacheInvalidationEvent e : batch) {
+            ownLog.append(e, MAX_LOG_SIZE);
+        }
+        write();
+        log.trace("Flushed {} cache invalidation events, log: {}", batch.size(), ownLog);
+    }
+
+    private void heartbeat() {
+        if (System.currentTimeMillis() - lastWrite >= NODE_HEARTBEAT_INTERVAL) {
+            write();
+        }
+    }
+
+    private void write() {
+        if (slot < 0) {
+            return; // log is written as a whole once slot is claimed
+        }
+        cacheService.put(NODE_EXPIRATION_IN_SECONDS, SLOT_KEYS.get(slot), ownLog);
+        lastWrite = System.currentTimeMillis();
+    }
+
+    private void checkSlot(Map<String, Object> slots) {
+        if (slot >= 0) {
+            final Object current = slots.get(SLOT_KEYS.get(slot));
+            if (current == null) {
+                write(); // expired, e.g. cache was restarted
+                return;
+            }
+            if (isOwn(current)) {
+                return;
+            }
+            log.debug("Slot {} of cache invalidation channel is taken by node {}, claiming another one.", slot, ((CacheInvalidationLog) current).getNodeId());
+        }
+        claimSlot(slots);
+    }
+
+    private void claimSlot(Map<String, Object> slots) {
+        final int offset = ThreadLocalRandom.current().nextInt(MAX_NODES);
+        for (int i = 0; i < MAX_NODES; i++) {
+            final int candidate = (offset + i) % MAX_NODES;
+            final Object current = slots.get(SLOT_KEYS.get(candidate));
+            if (current == null || isOwn(current)) {
+                slot = candidate;
+                write();
+                log.debug("Node {} claimed slot {} of cache invalidation channel.", nodeId, slot);
+                return;
+            }
+        }
+
+        slot = -1;
+        log.warn("There is no free slot in cache invalidation channel (max nodes: {}), invalidations of this node are not delivered to peers.", MAX_NODES);
+    }
+
+    private void poll(Map<String, Object> slots) {
+        final Consumer<CacheInvalidationEvent> l = listener;
+        if (l == null) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        for (Object o : slots.values()) {
+            if (!(o instanceof CacheInvalidationLog) || isOwn(o)) {
+                continue;
+            }
+
+            final CacheInvalidationLog peerLog = (CacheInvalidationLog) o;
+            if (peerLog.getNodeId() == null) {
+                continue;
+            }
+
+            Peer peer = peers.get(peerLog.getNodeId());
+            if (peer == null) {
+                peer = new Peer();
+                peers.put(peerLog.getNodeId(), peer);
+            } else if (peerLog.getFirstSequence() > peer.lastSequence + 1) {
+                final Set<CacheRegion> regions = peerLog.getRegionsTruncatedAfter(peer.lastSequence);
+                log.debug("Missed cache invalidation events from node {}, evicting regions: {}", peerLog.getNodeId(), regions);
+                for (CacheRegion region : regions) {
+                    l.accept(CacheInvalidationEvent.all(region));
+                }
+            }
+            peer.seenAt = now;
+            if (peerLog.getLastSequence() <= peer.lastSequence) {
+                continue;
+            }
+
+            for (CacheInvalidationEvent event : peerLog.getEventsAfter(peer.lastSequence)) {
+                l.accept(event);
+            }
+            peer.lastSequence = peerLog.getLastSequence();
+        }
+
+        final long peerTimeout = TimeUnit.SECONDS.toMillis(NODE_EXPIRATION_IN_SECONDS);
+        for (Iterator<Peer> it = peers.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().seenAt > peerTimeout) {
+                it.remove();
+            }
+        }
+    }
+
+    private Map<String, Object> readSlots() {
+        return bulkCacheService.getAll(SLOT_KEYS);
+    }
+
+    private boolean isOwn(Object slotValue) {
+        return slotValue instanceof CacheInvalidationLog && nodeId.equals(((CacheInvalidationLog) slotValue).getNodeId());
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    private static class Peer {
+        private long lastSequence;
+        private long seenAt;
+    }
+}
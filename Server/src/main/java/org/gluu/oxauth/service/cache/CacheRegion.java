@@ -0,0 +1,21 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.cache;
+
+/**
+ * Groups of node-local cached data which can be invalidated cluster-wide.
+ */
+public enum CacheRegion {
+
+    CLIENT,
+    TOKEN,
+    SESSION,
+    SECTOR_IDENTIFIER,
+    DISCOVERY,
+    SCOPE,
+    USER
+}
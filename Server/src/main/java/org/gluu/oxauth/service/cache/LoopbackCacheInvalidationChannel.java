@@ -0,0 +1,40 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * In-JVM channel. Delivers events immediately to current node only (single node deployment).
+ */
+public class LoopbackCacheInvalidationChannel implements CacheInvalidationChannel {
+
+    private volatile Consumer<CacheInvalidationEvent> listener;
+
+    @Override
+    public void start(Consumer<CacheInvalidationEvent> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void publish(CacheInvalidationEvent event) {
+        final Consumer<CacheInvalidationEvent> l = listener;
+        if (l != null) {
+            l.accept(event);
+        }
+    }
+
+    @Override
+    public void process() {
+        // nothing to do, events are delivered on publish
+    }
+
+    @Override
+    public void stop() {
+        listener = null;
+    }
+}
@@ -0,0 +1,13 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.cdi.event;
+
+/**
+ * Timer event which triggers flushing and polling of cache invalidation channel.
+ */
+public class CacheInvalidationPollEvent {
+}
@@ -0,0 +1,230 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.ciba;
+
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.service.MetricService;
+import org.gluu.oxauth.service.net.FetchStats;
+import org.gluu.oxauth.util.ServerUtil;
+import org.slf4j.Logger;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes CIBA ping/push callbacks on bounded thread pool.
+ * <p>
+ * Each client has own lane with at most backchannelCallbackMaxConcurrencyPerClient callbacks in flight, the rest
+ * waits in the lane, so one slow client notification endpoint can't occupy whole pool. Pool task is a lane worker
+ * which runs callbacks of its lane one after another until the lane is empty. At most backchannelCallbackQueueSize
+ * callbacks may be waiting or in flight (permit is released when callback finishes). When the limit is reached
+ * dispatching (job) thread waits for free space at most backchannelCallbackQueueTimeoutInSeconds, which slows down
+ * draining of expired requests (back-pressure), after that callback is skipped and counted as failed. Pool queue holds
+ * lane workers only, thus it is bounded by the same limit. Callbacks are never executed by dispatching thread.
+ * <p>
+ * Statistics are published by {@link MetricService} as gauges ciba_callback.*
+ */
+@ApplicationScoped
+public class CibaCallbackDispatcher {
+
+    public static final String STATS_METRIC_NAME = "ciba_callback";
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private MetricService metricService;
+
+    private final ConcurrentMap<String, ClientLane> lanes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final FetchStats stats = new FetchStats();
+
+    private volatile ThreadPoolExecutor executor;
+    private volatile Semaphore capacity;
+
+    /**
+     * @return false if callback is skipped because there was no free space within backchannelCallbackQueueTimeoutInSeconds
+     */
+    public boolean dispatch(String clientId, Runnable callback) {
+        final int timeout = appConfiguration.getBackchannelCallbackQueueTimeoutInSeconds();
+        try {
+            if (!getCapacity().tryAcquire(timeout, TimeUnit.SECONDS)) {
+                stats.record(0, false);
+                log.warn("There is no free space in CIBA callback queue for {} seconds, callback of client {} is skipped.", timeout, clientId);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.record(0, false);
+            log.error("Interrupted while waiting for free space in CIBA callback queue, callback is skipped.");
+            return false;
+        }
+
+        final ClientLane lane = lanes.computeIfAbsent(clientId != null ? clientId : "", k -> new ClientLane());
+        waiting.incrementAndGet();
+        lane.pending.add(callback);
+        drain(lane);
+        return true;
+    }
+
+    private void drain(ClientLane lane) {
+        final int maxConcurrency = appConfiguration.getBackchannelCallbackMaxConcurrencyPerClient();
+        while (!lane.pending.isEmpty()) {
+            final int active = lane.active.get();
+            if (active >= maxConcurrency) {
+                return; // completion of in-flight callback drains the lane
+            }
+            if (!lane.active.compareAndSet(active, active + 1)) {
+                continue;
+            }
+
+            final Runnable callback = poll(lane);
+            if (callback == null) {
+                lane.active.decrementAndGet();
+                continue;
+            }
+
+            try {
+                getExecutor().execute(() -> work(lane, callback));
+            } catch (RejectedExecutionException e) {
+                lane.active.decrementAndGet();
+                getCapacity().release();
+                stats.record(0, false);
+                log.error("CIBA callback is rejected, dispatcher is shut down.");
+            }
+        }
+    }
+
+    /**
+     * Runs callbacks of lane until it is empty. New worker is submitted (not called) for callback which arrives
+     * after lane permit is released, so stack does not grow with number of callbacks.
+     */
+    private void work(ClientLane lane, Runnable first) {
+        Runnable callback = first;
+        while (callback != null) {
+            run(callback);
+            callback = poll(lane);
+        }
+        lane.active.decrementAndGet();
+        drain(lane);
+    }
+
+    private Runnable poll(ClientLane lane) {
+        final Runnable callback = lane.pending.poll();
+        if (callback != null) {
+            waiting.decrementAndGet();
+        }
+        return callback;
+    }
+
+    private void run(Runnable callback) {
+        final long started = System.nanoTime();
+        boolean success = false;
+        try {
+            callback.run();
+            success = true;
+        } catch (Exception e) {
+            log.error("Failed to execute CIBA callback.", e);
+        } finally {
+            stats.record(System.nanoTime() - started, success);
+            getCapacity().release();
+        }
+    }
+
+    private ThreadPoolExecutor getExecutor() {
+        if (executor != null) {
+            return executor;
+        }
+        synchronized (this) {
+            if (executor == null) {
+                final int poolSize = appConfiguration.getBackchannelCallbackThreadPoolSize();
+                // tasks are lane workers, each holds at least one permit of capacity, thus queue never overflows
+                ThreadPoolExecutor newExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(appConfiguration.getBackchannelCallbackQueueSize()), ServerUtil.daemonThreadFactory());
+                newExecutor.allowCoreThreadTimeOut(true);
+                executor = newExecutor;
+            }
+            return executor;
+        }
+    }
+
+    private Semaphore getCapacity() {
+        if (capacity != null) {
+            return capacity;
+        }
+        synchronized (this) {
+            if (capacity == null) {
+                capacity = new Semaphore(appConfiguration.getBackchannelCallbackQueueSize());
+                metricService.registerFetchStats(STATS_METRIC_NAME, stats);
+            }
+            return capacity;
+        }
+    }
+
+    /**
+     * @return callbacks waiting in client lanes and in pool queue
+     */
+    public int getQueueDepth() {
+        final ThreadPoolExecutor current = executor;
+        return waiting.get() + (current != null ? current.getQueue().size() : 0);
+    }
+
+    public int getActiveCount() {
+        final ThreadPoolExecutor current = executor;
+        return current != null ? current.getActiveCount() : 0;
+    }
+
+    /**
+     * @return callbacks which failed or were skipped
+     */
+    public long getFailedCount() {
+        return stats.getErrorCount();
+    }
+
+    /**
+     * @return callback statistics (fetch count is number of dispatched callbacks, skipped callbacks are errors)
+     */
+    public FetchStats getStats() {
+        return stats;
+    }
+
+    public void logStats() {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        log.debug("CIBA callbacks - queue depth: {}, active: {}, callbacks: {}, failed: {}, avg latency: {}ms, max latency: {}ms",
+                getQueueDepth(), getActiveCount(), stats.getFetchCount(), stats.getErrorCount(), stats.getAverageLatencyMillis(), stats.getMaxLatencyMillis());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        metricService.removeFetchStats(STATS_METRIC_NAME);
+    }
+
+    private static class ClientLane {
+        private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger active = new AtomicInteger();
+    }
+}
@@ -6,6 +6,8 @@
 
 package org.gluu.oxauth.service.ciba;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
 import org.apache.commons.lang.time.DateUtils;
 import org.gluu.oxauth.model.common.CibaRequestCacheControl;
 import org.gluu.oxauth.model.common.CibaRequestStatus;
@@ -14,15 +16,22 @@ import org.gluu.oxauth.model.config.StaticConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.ldap.CIBARequest;
 import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.service.cache.BulkCacheService;
 import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.persist.model.base.CustomAttribute;
+import org.gluu.persist.model.base.CustomEntry;
 import org.gluu.search.filter.Filter;
 import org.gluu.service.CacheService;
 import org.slf4j.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service used to access to the database for CibaRequest ObjectClass.
@@ -33,6 +42,9 @@ import java.util.List;
 @ApplicationScoped
 public class CibaRequestService {
 
+    private static final int BATCH_SIZE = 100;
+    private static final String[] CIBA_REQUEST_OBJECT_CLASSES = new String[]{"cibaRequest"};
+
     @Inject
     private Logger log;
 
@@ -48,6 +60,9 @@ public class CibaRequestService {
     @Inject
     private CacheService cacheService;
 
+    @Inject
+    private BulkCacheService bulkCacheService;
+
     private String cibaBaseDn() {
         return staticConfiguration.getBaseDn().getCiba();  // ou=ciba,o=gluu
     }
@@ -118,6 +133,55 @@ public class CibaRequestService {
         }
     }
 
+    /**
+     * Change the status field in database for a list of requests. Persistence layer has no batch modify, so there is
+     * one write per request, but only status attribute is written instead of the whole entry.
+     * @param cibaRequests Entries containing information of the CIBA requests.
+     * @param authorizationStatus New status.
+     */
+    public void updateStatus(List<CIBARequest> cibaRequests, CibaRequestStatus authorizationStatus) {
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        for (CIBARequest cibaRequest : cibaRequests) {
+            try {
+                cibaRequest.setStatus(authorizationStatus.getValue());
+
+                CustomEntry customEntry = new CustomEntry();
+                customEntry.setDn(cibaRequest.getDn());
+                customEntry.setCustomObjectClasses(CIBA_REQUEST_OBJECT_CLASSES);
+                customEntry.getCustomAttributes().add(new CustomAttribute("oxStatus", authorizationStatus.getValue()));
+
+                entryManager.merge(customEntry);
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+            }
+        }
+        log.debug("Updated status of {} CIBA requests to {}, takes: {}ms", cibaRequests.size(), authorizationStatus, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Removes CibaRequest objects from the database in batches of 100 requests, each batch is removed by one
+     * filter matching authReqId of its requests.
+     * @param cibaRequests Objects to be removed.
+     */
+    public void removeCibaRequests(List<CIBARequest> cibaRequests) {
+        for (List<CIBARequest> batch : Lists.partition(cibaRequests, BATCH_SIZE)) {
+            final Stopwatch stopwatch = Stopwatch.createStarted();
+            try {
+                final List<Filter> filters = new ArrayList<>();
+                for (CIBARequest cibaRequest : batch) {
+                    filters.add(Filter.createEqualityFilter("authReqId", cibaRequest.getAuthReqId()));
+                }
+                final Filter filter = Filter.createORFilter(filters.toArray(new Filter[0]));
+
+                int removed = entryManager.remove(this.cibaBaseDn(), CIBARequest.class, filter, batch.size());
+                log.debug("Removed batch of {} CIBA requests (requested: {}), takes: {}ms", removed, batch.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            } catch (Exception e) {
+                log.error("Failed to remove batch of CIBA requests by filter, falling back to removal one by one.", e);
+                batch.forEach(this::removeCibaRequest);
+            }
+        }
+    }
+
     /**
      * Removes a CibaRequest object from the database.
      * @param cibaRequest Object to be removed.
@@ -186,6 +250,38 @@ public class CibaRequestService {
         return cachedObject instanceof CibaRequestCacheControl ? (CibaRequestCacheControl) cachedObject : null;
     }
 
+    /**
+     * Get CibaRequestCacheControl objects from Cache service with bulk get. Misses are retried once with one more
+     * bulk get of missed keys.
+     * @param authReqIds Identifiers of the objects to be gotten.
+     * @return found objects by authReqId
+     */
+    public Map<String, CibaRequestCacheControl> getCibaRequests(List<String> authReqIds) {
+        final Map<String, CibaRequestCacheControl> result = new HashMap<>();
+        final List<String> missed = collectCibaRequests(bulkCacheService.getAll(authReqIds), authReqIds, result);
+
+        // retry one time : sometimes during high load cache client may be not fast enough
+        if (!missed.isEmpty()) {
+            for (String authReqId : collectCibaRequests(bulkCacheService.getAll(missed), missed, result)) {
+                log.trace("Failed to fetch CIBA request from cache, authReqId: {}", authReqId);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> collectCibaRequests(Map<String, Object> cached, List<String> authReqIds, Map<String, CibaRequestCacheControl> result) {
+        final List<String> missed = new ArrayList<>();
+        for (String authReqId : authReqIds) {
+            final Object cachedObject = cached.get(authReqId);
+            if (cachedObject instanceof CibaRequestCacheControl) {
+                result.put(authReqId, (CibaRequestCacheControl) cachedObject);
+            } else {
+                missed.add(authReqId);
+            }
+        }
+        return missed;
+    }
+
     /**
      * Removes from cache a request.
      * @param cacheKey Object to be removed from Cache.
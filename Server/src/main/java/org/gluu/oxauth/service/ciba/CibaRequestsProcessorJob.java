@@ -14,7 +14,6 @@ import org.gluu.oxauth.model.common.CibaRequestCacheControl;
 import org.gluu.oxauth.model.common.CibaRequestStatus;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.ldap.CIBARequest;
-import org.gluu.oxauth.util.ServerUtil;
 import org.gluu.service.cdi.async.Asynchronous;
 import org.gluu.service.cdi.event.CibaRequestsProcessorEvent;
 import org.gluu.service.cdi.event.Scheduled;
@@ -27,9 +26,9 @@ import javax.enterprise.event.Event;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * Job responsible to process all expired CIBA requests and update their status.
@@ -60,12 +59,13 @@ public class CibaRequestsProcessorJob {
     @Inject
     private CibaRequestService cibaRequestService;
 
+    @Inject
+    private CibaCallbackDispatcher cibaCallbackDispatcher;
+
     private long lastFinishedTime;
 
     private AtomicBoolean isActive;
 
-    private ExecutorService executorService;
-
     /**
      * Method invoked from the appInitializer to start processing every some time.
      */
@@ -79,7 +79,6 @@ public class CibaRequestsProcessorJob {
                 new CibaRequestsProcessorEvent(), Scheduled.Literal.INSTANCE));
 
         this.lastFinishedTime = System.currentTimeMillis();
-        this.executorService = Executors.newCachedThreadPool(ServerUtil.daemonThreadFactory());
     }
 
     @Asynchronous
@@ -120,7 +119,8 @@ public class CibaRequestsProcessorJob {
     }
 
     /**
-     * Main process that process CIBA requests in cache.
+     * Main process that process CIBA requests in cache. Works in stages over whole chunk: status transition,
+     * fetch from cache, dispatch of callbacks (bounded, see {@link CibaCallbackDispatcher}) and removal.
      */
     public void processImpl() {
         try {
@@ -129,18 +129,26 @@ public class CibaRequestsProcessorJob {
 
             List<CIBARequest> expiredRequests = cibaRequestService.loadExpiredByStatus(
                     CibaRequestStatus.PENDING, chunkSize);
-            expiredRequests.forEach(cibaRequest -> cibaRequestService.updateStatus(cibaRequest,
-                    CibaRequestStatus.IN_PROCESS));
+            if (expiredRequests == null || expiredRequests.isEmpty()) {
+                return;
+            }
+
+            cibaRequestService.updateStatus(expiredRequests, CibaRequestStatus.IN_PROCESS);
+
+            final List<String> authReqIds = expiredRequests.stream().map(CIBARequest::getAuthReqId).collect(Collectors.toList());
+            final Map<String, CibaRequestCacheControl> cibaRequests = cibaRequestService.getCibaRequests(authReqIds);
 
             for (CIBARequest expiredRequest : expiredRequests) {
-                CibaRequestCacheControl cibaRequest = cibaRequestService.getCibaRequest(expiredRequest.getAuthReqId());
+                CibaRequestCacheControl cibaRequest = cibaRequests.get(expiredRequest.getAuthReqId());
                 if (cibaRequest != null) {
-                    executorService.execute(() ->
+                    cibaCallbackDispatcher.dispatch(expiredRequest.getClientId(), () ->
                         processExpiredRequest(cibaRequest, expiredRequest.getAuthReqId())
                     );
                 }
-                cibaRequestService.removeCibaRequest(expiredRequest);
             }
+
+            cibaRequestService.removeCibaRequests(expiredRequests);
+            cibaCallbackDispatcher.logStats();
         } catch (Exception e) {
             log.error("Failed to process CIBA request from cache.", e);
         }
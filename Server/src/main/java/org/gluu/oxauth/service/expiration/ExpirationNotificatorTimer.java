@@ -1,15 +1,10 @@
 package org.gluu.oxauth.service.expiration;
 
-import net.jodah.expiringmap.ExpirationListener;
-import net.jodah.expiringmap.ExpirationPolicy;
-import net.jodah.expiringmap.ExpiringMap;
 import org.gluu.oxauth.model.common.SessionId;
 import org.gluu.oxauth.model.config.StaticConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.service.SessionIdService;
 import org.gluu.oxauth.service.cdi.event.ExpirationEvent;
-import org.gluu.oxauth.service.external.ExternalApplicationSessionService;
-import org.gluu.oxauth.service.external.session.SessionEvent;
-import org.gluu.oxauth.service.external.session.SessionEventType;
 import org.gluu.persist.PersistenceEntryManager;
 import org.gluu.search.filter.Filter;
 import org.gluu.service.cdi.async.Asynchronous;
@@ -26,17 +21,22 @@ import javax.inject.Named;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * Fires session GONE events when sessions expire.
+ * <p>
+ * Expired sessions are taken each second from {@link SessionExpirationIndex} which is populated when session is
+ * persisted or updated. Periodic search by expiration (every expirationNotificatorIntervalInSeconds) only reconciles
+ * the index with sessions which were written before restart or which did not fit into index.
+ *
  * @author Yuriy Zabrovarnyy
  */
 @ApplicationScoped
 @Named
-public class ExpirationNotificatorTimer implements ExpirationListener<ExpId, Object> {
+public class ExpirationNotificatorTimer {
 
-    private static final int DEFAULT_INTERVAL = 600; // 10 min
+    private static final int TICK_INTERVAL = 1; // 1 sec
 
     @Inject
     private Logger log;
@@ -54,12 +54,10 @@ public class ExpirationNotificatorTimer implements ExpirationListener<ExpId, Obj
     private AppConfiguration appConfiguration;
 
     @Inject
-    private ExternalApplicationSessionService externalApplicationSessionService;
+    private SessionExpirationIndex sessionExpirationIndex;
 
-    private ExpiringMap<ExpId, Object> expiringMap = ExpiringMap.builder()
-            .expirationPolicy(ExpirationPolicy.CREATED)
-            .variableExpiration()
-            .build();
+    @Inject
+    private SessionIdService sessionIdService;
 
     private AtomicBoolean isActive;
 
@@ -69,16 +67,9 @@ public class ExpirationNotificatorTimer implements ExpirationListener<ExpId, Obj
         log.debug("Initializing ExpirationNotificatorTimer");
         this.isActive = new AtomicBoolean(false);
 
-        expiringMap = ExpiringMap.builder()
-                .expirationPolicy(ExpirationPolicy.CREATED)
-                .maxSize(appConfiguration.getExpirationNotificatorMapSizeLimit())
-                .variableExpiration()
-                .build();
-        expiringMap.addExpirationListener(this);
-
-        timerEvent.fire(new TimerEvent(new TimerSchedule(DEFAULT_INTERVAL, DEFAULT_INTERVAL), new ExpirationEvent(), Scheduled.Literal.INSTANCE));
+        timerEvent.fire(new TimerEvent(new TimerSchedule(TICK_INTERVAL, TICK_INTERVAL), new ExpirationEvent(), Scheduled.Literal.INSTANCE));
 
-        this.lastFinishedTime = System.currentTimeMillis();
+        this.lastFinishedTime = 0; // reconcile on first run
     }
 
     @Asynchronous
@@ -96,20 +87,41 @@ public class ExpirationNotificatorTimer implements ExpirationListener<ExpId, Obj
         }
 
         try {
+            processExpired();
+
             if (!allowToRun()) {
-                log.trace("Not allowed to run.");
                 return;
             }
-            fillMap();
+            reconcile();
             this.lastFinishedTime = System.currentTimeMillis();
         } catch (Exception ex) {
-            log.error("Exception happened while trying to fill expiringMap update", ex);
+            log.error("Exception happened while trying to process expired sessions", ex);
         } finally {
             this.isActive.set(false);
         }
     }
 
-    private void fillMap() {
+    private void processExpired() {
+        final long now = System.currentTimeMillis();
+        final List<String> expired = sessionExpirationIndex.pollExpired(now);
+        for (String sessionDn : expired) {
+            final SessionId session = sessionIdService.getSessionByDn(sessionDn, true);
+            if (session == null) {
+                continue; // already removed
+            }
+            if (session.getExpirationDate() != null && session.getExpirationDate().getTime() > now) {
+                // prolonged by other node which indexed it with new expiration
+                log.trace("Session is not expired anymore: {}", sessionDn);
+                continue;
+            }
+            remove(session);
+        }
+        if (!expired.isEmpty()) {
+            log.trace("Processed {} expired sessions", expired.size());
+        }
+    }
+
+    private void reconcile() {
         Calendar future = Calendar.getInstance();
         future.add(Calendar.SECOND, appConfiguration.getExpirationNotificatorIntervalInSeconds());
 
@@ -134,26 +146,18 @@ public class ExpirationNotificatorTimer implements ExpirationListener<ExpId, Obj
                 remove(session);
                 continue;
             }
-            expiringMap.put(new ExpId(session.getId(), ExpType.SESSION), session, duration, TimeUnit.MILLISECONDS);
-        }
-    }
-
-    @Override
-    public void expired(ExpId key, Object value) {
-        if (key.getType() == ExpType.SESSION && value instanceof SessionId) {
-            externalApplicationSessionService.externalEvent(new SessionEvent(SessionEventType.GONE, (SessionId) value));
+            sessionExpirationIndex.schedule(session.getDn(), session.getExpirationDate());
         }
     }
 
     private boolean allowToRun() {
         int interval = appConfiguration.getExpirationNotificatorIntervalInSeconds();
         if (interval < 0) {
-            log.info("ExpirationNotificator Timer is disabled.");
-            log.warn("ExpirationNotificator Timer Interval (expirationNotificatorIntervalInSeconds in oxauth configuration) is negative which turns OFF internal clean up by the server. Please set it to positive value if you wish internal clean up timer run.");
+            log.trace("ExpirationNotificator reconciliation is disabled.");
             return false;
         }
 
-        long timerInterval = interval * 1000;
+        long timerInterval = interval * 1000L;
 
         long timeDiffrence = System.currentTimeMillis() - this.lastFinishedTime;
 
@@ -161,13 +165,6 @@ public class ExpirationNotificatorTimer implements ExpirationListener<ExpId, Obj
     }
 
     public boolean remove(SessionId sessionId) {
-        try {
-            persistenceEntryManager.remove(sessionId.getDn());
-            externalApplicationSessionService.externalEvent(new SessionEvent(SessionEventType.GONE, sessionId));
-            return true;
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            return false;
-        }
+        return sessionIdService.remove(sessionId);
     }
 }
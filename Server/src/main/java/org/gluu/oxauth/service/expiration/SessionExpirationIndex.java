@@ -0,0 +1,112 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.expiration;
+
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index of session expirations bucketed by expiration second.
+ * <p>
+ * Sessions are added when they are persisted or updated by this node, thus expired sessions are taken from head
+ * buckets without searching persistence. Session is kept in one bucket only, rescheduling moves it. Index size is
+ * limited by expirationNotificatorMapSizeLimit.
+ */
+@ApplicationScoped
+public class SessionExpirationIndex {
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private final TreeMap<Long, Set<String>> buckets = new TreeMap<>();
+    private final Map<String, Long> scheduled = new HashMap<>();
+
+    public synchronized void schedule(String sessionDn, Date expirationDate) {
+        if (sessionDn == null || expirationDate == null) {
+            return;
+        }
+
+        final long second = TimeUnit.MILLISECONDS.toSeconds(expirationDate.getTime());
+        final Long previous = scheduled.get(sessionDn);
+        if (previous != null && previous == second) {
+            return;
+        }
+        if (previous == null && scheduled.size() >= appConfiguration.getExpirationNotificatorMapSizeLimit()) {
+            log.trace("Session expiration index is full, session is left to reconciliation scan: {}", sessionDn);
+            return;
+        }
+
+        if (previous != null) {
+            removeFromBucket(previous, sessionDn);
+        }
+        scheduled.put(sessionDn, second);
+        buckets.computeIfAbsent(second, k -> new HashSet<>()).add(sessionDn);
+    }
+
+    public synchronized void unschedule(String sessionDn) {
+        final Long second = scheduled.remove(sessionDn);
+        if (second != null) {
+            removeFromBucket(second, sessionDn);
+        }
+    }
+
+    /**
+     * Removes sessions which expire at or before given time from index.
+     *
+     * @return DNs of expired sessions
+     */
+    public synchronized List<String> pollExpired(long now) {
+        final NavigableMap<Long, Set<String>> expired = buckets.headMap(TimeUnit.MILLISECONDS.toSeconds(now), true);
+        if (expired.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        final List<String> result = new ArrayList<>();
+        for (Set<String> sessionDns : expired.values()) {
+            for (String sessionDn : sessionDns) {
+                scheduled.remove(sessionDn);
+                result.add(sessionDn);
+            }
+        }
+        expired.clear();
+        return result;
+    }
+
+    public synchronized boolean contains(String sessionDn) {
+        return scheduled.containsKey(sessionDn);
+    }
+
+    public synchronized int size() {
+        return scheduled.size();
+    }
+
+    private void removeFromBucket(long second, String sessionDn) {
+        final Set<String> bucket = buckets.get(second);
+        if (bucket != null) {
+            bucket.remove(sessionDn);
+            if (bucket.isEmpty()) {
+                buckets.remove(second);
+            }
+        }
+    }
+}
@@ -41,15 +41,15 @@ public class ExternalIntrospectionService extends ExternalScriptService {
             return customScriptConfigurations;
         }
 
-        if (context.getGrantOfIntrospectionToken() != null && context.getGrantOfIntrospectionToken().getClient() != null) {
-            final List<CustomScriptConfiguration> scripts = getCustomScriptConfigurationsByDns(context.getGrantOfIntrospectionToken().getClient().getAttributes().getIntrospectionScripts());
+        if (context.getGrantOfIntrospectionTokenClient() != null) {
+            final List<CustomScriptConfiguration> scripts = getCustomScriptConfigurationsByDns(context.getGrantOfIntrospectionTokenClient().getAttributes().getIntrospectionScripts());
             if (!scripts.isEmpty()) {
                 return scripts;
             }
         }
 
-        if (context.getTokenGrant() != null && context.getTokenGrant().getClient() != null) { // fallback to authorization grant
-            final List<CustomScriptConfiguration> scripts = getCustomScriptConfigurationsByDns(context.getTokenGrant().getClient().getAttributes().getIntrospectionScripts());
+        if (context.getTokenGrantClient() != null) { // fallback to authorization grant
+            final List<CustomScriptConfiguration> scripts = getCustomScriptConfigurationsByDns(context.getTokenGrantClient().getAttributes().getIntrospectionScripts());
             if (!scripts.isEmpty()) {
                 return scripts;
             }
@@ -2,9 +2,11 @@ package org.gluu.oxauth.service.external.context;
 
 import org.gluu.model.custom.script.conf.CustomScriptConfiguration;
 import org.gluu.oxauth.model.common.AuthorizationGrant;
+import org.gluu.oxauth.model.common.LazyAuthorizationGrant;
 import org.gluu.oxauth.model.common.User;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.jwt.Jwt;
+import org.gluu.oxauth.model.registration.Client;
 import org.gluu.oxauth.service.AttributeService;
 
 import javax.servlet.http.HttpServletRequest;
@@ -15,16 +17,16 @@ import javax.servlet.http.HttpServletResponse;
  */
 public class ExternalIntrospectionContext extends ExternalScriptContext {
 
-    private final AuthorizationGrant tokenGrant;
+    private final LazyAuthorizationGrant tokenGrant;
     private final AppConfiguration appConfiguration;
     private final AttributeService attributeService;
 
     private CustomScriptConfiguration script;
     private Jwt accessTokenAsJwt;
     private boolean tranferIntrospectionPropertiesIntoJwtClaims = true;
-    private AuthorizationGrant grantOfIntrospectionToken;
+    private LazyAuthorizationGrant grantOfIntrospectionToken;
 
-    public ExternalIntrospectionContext(AuthorizationGrant tokenGrant, HttpServletRequest httpRequest, HttpServletResponse httpResponse,
+    public ExternalIntrospectionContext(LazyAuthorizationGrant tokenGrant, HttpServletRequest httpRequest, HttpServletResponse httpResponse,
                                         AppConfiguration appConfiguration, AttributeService attributeService) {
         super(httpRequest, httpResponse);
         this.tokenGrant = tokenGrant;
@@ -32,8 +34,15 @@ public class ExternalIntrospectionContext extends ExternalScriptContext {
         this.attributeService = attributeService;
     }
 
+    /**
+     * @return grant of token used to authorize introspection call (reconstructed on first access)
+     */
     public AuthorizationGrant getTokenGrant() {
-        return tokenGrant;
+        return tokenGrant != null ? tokenGrant.getGrant() : null;
+    }
+
+    public Client getTokenGrantClient() {
+        return tokenGrant != null ? tokenGrant.getClient() : null;
     }
 
     public AppConfiguration getAppConfiguration() {
@@ -68,15 +77,27 @@ public class ExternalIntrospectionContext extends ExternalScriptContext {
         this.tranferIntrospectionPropertiesIntoJwtClaims = tranferIntrospectionPropertiesIntoJwtClaims;
     }
 
+    /**
+     * @return grant of introspected token (reconstructed on first access)
+     */
     public AuthorizationGrant getGrantOfIntrospectionToken() {
-        return grantOfIntrospectionToken;
+        return grantOfIntrospectionToken != null ? grantOfIntrospectionToken.getGrant() : null;
+    }
+
+    public Client getGrantOfIntrospectionTokenClient() {
+        return grantOfIntrospectionToken != null ? grantOfIntrospectionToken.getClient() : null;
     }
 
     public void setGrantOfIntrospectionToken(AuthorizationGrant grantOfIntrospectionToken) {
+        this.grantOfIntrospectionToken = LazyAuthorizationGrant.of(grantOfIntrospectionToken);
+    }
+
+    public void setLazyGrantOfIntrospectionToken(LazyAuthorizationGrant grantOfIntrospectionToken) {
         this.grantOfIntrospectionToken = grantOfIntrospectionToken;
     }
 
     public User getUser() {
-        return grantOfIntrospectionToken != null ? grantOfIntrospectionToken.getUser() : null;
+        final AuthorizationGrant grant = getGrantOfIntrospectionToken();
+        return grant != null ? grant.getUser() : null;
     }
 }
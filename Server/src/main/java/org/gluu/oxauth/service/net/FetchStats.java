@@ -0,0 +1,47 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.net;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count, errors and latency of fetches of (calls to) remote resource.
+ */
+public class FetchStats {
+    private final LongAdder fetches = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public void record(long latencyNanos, boolean success) {
+        fetches.increment();
+        if (!success) {
+            errors.increment();
+        }
+        totalLatencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    public long getFetchCount() {
+        return fetches.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    public long getAverageLatencyMillis() {
+        final long count = fetches.sum();
+        return count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.sum() / count) : 0;
+    }
+
+    public long getMaxLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+    }
+}
@@ -11,12 +11,21 @@ import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -29,8 +38,10 @@ import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
@@ -38,15 +49,24 @@ import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.ssl.AllowAllHostnameVerifier;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.conn.ssl.TrustStrategy;
+import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.gluu.net.SslDefaultHttpClient;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.net.HttpServiceResponse;
+import org.gluu.oxauth.util.ServerUtil;
 import org.gluu.util.StringHelper;
 import org.gluu.util.Util;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
 import org.slf4j.Logger;
 /**
  * Provides operations with http requests
@@ -62,28 +82,46 @@ public class HttpService implements Serializable {
 	@Inject
 	private Logger log;
 
+	@Inject
+	private AppConfiguration appConfiguration;
+
 	private Base64 base64;
-	
+
+	private transient volatile SchemeRegistry trustAllSchemeRegistry;
+	private transient volatile SharedHttpClientConnectionManager pooledConnectionManager;
+	private transient volatile CloseableHttpClient pooledHttpClient;
+	private transient volatile ThreadPoolExecutor asyncExecutor;
+
 	@PostConstruct
 	public void init() {
 		this.base64 = new Base64();
 	}
 
+	@PreDestroy
+	public void destroy() {
+		if (asyncExecutor != null) {
+			asyncExecutor.shutdownNow();
+		}
+		if (pooledHttpClient != null) {
+			try {
+				pooledHttpClient.close();
+			} catch (IOException ex) {
+				log.error("Failed to close pooled http client", ex);
+			}
+		}
+		if (pooledConnectionManager != null) {
+			pooledConnectionManager.destroy();
+		}
+	}
+
+	/**
+	 * Returns client which trusts all certificates. Each client has own connection pool (callers, e.g. custom scripts,
+	 * don't always consume responses and DefaultHttpClient has no connection request timeout), only socket factories
+	 * are shared.
+	 */
 	public HttpClient getHttpsClientTrustAll() {
 	    try {
-	        SSLSocketFactory sf = new SSLSocketFactory(new TrustStrategy(){
-	            @Override
-	            public boolean isTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-	                return true;
-	            }
-	        }, new AllowAllHostnameVerifier());
-
-	        PlainSocketFactory psf = PlainSocketFactory.getSocketFactory();
-
-	        SchemeRegistry registry = new SchemeRegistry();
-	        registry.register(new Scheme("http", 80, psf));
-	        registry.register(new Scheme("https", 443, sf));
-	        ClientConnectionManager ccm = new PoolingClientConnectionManager(registry);
+	        ClientConnectionManager ccm = new PoolingClientConnectionManager(getTrustAllSchemeRegistry());
 	        return new DefaultHttpClient(ccm);
 	    } catch (Exception ex) {
 	    	log.error("Failed to create TrustAll https client", ex);
@@ -91,6 +129,78 @@ public class HttpService implements Serializable {
 	    }
 	}
 
+	private SchemeRegistry getTrustAllSchemeRegistry() throws GeneralSecurityException {
+		if (trustAllSchemeRegistry != null) {
+			return trustAllSchemeRegistry;
+		}
+
+		synchronized (this) {
+			if (trustAllSchemeRegistry == null) {
+		        SSLSocketFactory sf = new SSLSocketFactory(new TrustStrategy(){
+		            @Override
+		            public boolean isTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+		                return true;
+		            }
+		        }, new AllowAllHostnameVerifier());
+
+		        PlainSocketFactory psf = PlainSocketFactory.getSocketFactory();
+
+		        SchemeRegistry registry = new SchemeRegistry();
+		        registry.register(new Scheme("http", 80, psf));
+		        registry.register(new Scheme("https", 443, sf));
+
+		        trustAllSchemeRegistry = registry;
+			}
+			return trustAllSchemeRegistry;
+		}
+	}
+
+	/**
+	 * Returns client shared by all callers. Connections are pooled per route and kept alive between requests,
+	 * connect/read timeouts are set from configuration (httpClient* properties). Redirects are not followed,
+	 * as with JAX-RS clients this client replaces (e.g. request_uri must not be redirected to other host).
+	 * <p>
+	 * Response should be consumed (consume/getResponseContent) or connection released
+	 * (HttpServiceResponse.closeConnection) to return connection back to pool. Client must not be closed by caller.
+	 */
+	public HttpClient getPooledHttpClient() {
+		if (pooledHttpClient != null) {
+			return pooledHttpClient;
+		}
+
+		synchronized (this) {
+			if (pooledHttpClient == null) {
+				final int connectTimeout = appConfiguration.getHttpClientConnectTimeoutInMillis();
+				final long keepAliveMillis = TimeUnit.SECONDS.toMillis(appConfiguration.getHttpClientKeepAliveInSeconds());
+
+				SharedHttpClientConnectionManager connectionManager = new SharedHttpClientConnectionManager();
+				connectionManager.setMaxTotal(appConfiguration.getHttpClientMaxConnections());
+				connectionManager.setDefaultMaxPerRoute(appConfiguration.getHttpClientMaxConnectionsPerRoute());
+
+				RequestConfig requestConfig = RequestConfig.custom()
+						.setConnectTimeout(connectTimeout)
+						.setConnectionRequestTimeout(connectTimeout)
+						.setSocketTimeout(appConfiguration.getHttpClientSocketTimeoutInMillis())
+						.build();
+
+				pooledConnectionManager = connectionManager;
+				pooledHttpClient = HttpClients.custom()
+						.setConnectionManager(connectionManager)
+						.setDefaultRequestConfig(requestConfig)
+						.disableRedirectHandling()
+						.setKeepAliveStrategy((response, context) -> {
+							// honor Keep-Alive header of server but don't keep idle connection longer than configured
+							long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+							return keepAlive > 0 ? Math.min(keepAlive, keepAliveMillis) : keepAliveMillis;
+						})
+						.evictExpiredConnections()
+						.evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+						.build();
+			}
+			return pooledHttpClient;
+		}
+	}
+
 	public HttpClient getHttpsClient() {
 		HttpClient httpClient = new SslDefaultHttpClient();
 
@@ -112,20 +222,8 @@ public class HttpService implements Serializable {
 	}
 	
 	public HttpServiceResponse executePost(HttpClient httpClient, String uri, String authData, Map<String, String> headers, String postData, ContentType contentType) {
-        HttpPost httpPost = new HttpPost(uri);
-        if (StringHelper.isNotEmpty(authData)) {
-        	httpPost.setHeader("Authorization", "Basic " + authData);
-        }
-        
-        if (headers != null) {
-        	for (Entry<String, String> headerEntry : headers.entrySet()) {
-            	httpPost.setHeader(headerEntry.getKey(), headerEntry.getValue());
-        	}
-        }
+        HttpPost httpPost = createPost(uri, authData, headers, postData, contentType);
 
-        StringEntity stringEntity = new StringEntity(postData, contentType);
-		httpPost.setEntity(stringEntity);
-		
         try {
         	HttpResponse httpResponse = httpClient.execute(httpPost);
 
@@ -145,6 +243,120 @@ public class HttpService implements Serializable {
         return executePost(httpClient, uri, authData, null, postData, contentType);
 	}
 
+	/**
+	 * Executes post request with pooled client on bounded thread pool, so calling thread is not blocked.
+	 * Response entity is buffered and connection is returned to pool before future completes.
+	 * Future completes exceptionally if request fails or pool queue is full.
+	 */
+	public CompletableFuture<HttpServiceResponse> executePostAsync(String uri, String authData, Map<String, String> headers, String postData, ContentType contentType) {
+		return executeAsync(createPost(uri, authData, headers, postData, contentType));
+	}
+
+	/**
+	 * Same as {@link #executePostAsync(String, String, Map, String, ContentType)} but connect and read are limited by
+	 * given timeout instead of httpClient* configuration.
+	 */
+	public CompletableFuture<HttpServiceResponse> executePostAsync(String uri, String authData, Map<String, String> headers, String postData, ContentType contentType, int timeoutInMillis) {
+		HttpPost httpPost = createPost(uri, authData, headers, postData, contentType);
+		httpPost.setConfig(RequestConfig.custom()
+				.setConnectTimeout(timeoutInMillis)
+				.setConnectionRequestTimeout(timeoutInMillis)
+				.setSocketTimeout(timeoutInMillis)
+				.build());
+
+		return executeAsync(httpPost);
+	}
+
+	/**
+	 * Returns RESTEasy engine backed by pooled client, used by oxAuth client API (e.g. CIBA callbacks) to reuse
+	 * connections. Closing engine does not close pooled client because its connection manager ignores shutdown.
+	 */
+	public ClientHttpEngine getPooledClientEngine() {
+		return new ApacheHttpClient43Engine(getPooledHttpClient());
+	}
+
+	/**
+	 * Executes get request with pooled client on bounded thread pool, so calling thread is not blocked.
+	 *
+	 * @see #executePostAsync(String, String, Map, String, ContentType)
+	 */
+	public CompletableFuture<HttpServiceResponse> executeGetAsync(String requestUri, Map<String, String> headers) {
+		return executeAsync(createGet(requestUri, headers));
+	}
+
+	private CompletableFuture<HttpServiceResponse> executeAsync(HttpRequestBase httpRequest) {
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				try {
+					HttpResponse httpResponse = getPooledHttpClient().execute(httpRequest);
+
+					HttpEntity entity = httpResponse.getEntity();
+					if (entity != null) {
+						httpResponse.setEntity(new BufferedHttpEntity(entity));
+					}
+
+					return new HttpServiceResponse(httpRequest, httpResponse);
+				} catch (IOException ex) {
+					throw new CompletionException(ex);
+				} finally {
+					httpRequest.releaseConnection();
+				}
+			}, getAsyncExecutor());
+		} catch (RejectedExecutionException ex) {
+			log.warn("Failed to schedule {} request to '{}', async http queue is full", httpRequest.getMethod(), httpRequest.getURI());
+
+			CompletableFuture<HttpServiceResponse> result = new CompletableFuture<>();
+			result.completeExceptionally(ex);
+			return result;
+		}
+	}
+
+	private ThreadPoolExecutor getAsyncExecutor() {
+		if (asyncExecutor != null) {
+			return asyncExecutor;
+		}
+
+		synchronized (this) {
+			if (asyncExecutor == null) {
+				final int poolSize = appConfiguration.getHttpClientAsyncThreadPoolSize();
+				ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+						new ArrayBlockingQueue<>(appConfiguration.getHttpClientAsyncQueueSize()), ServerUtil.daemonThreadFactory());
+				executor.allowCoreThreadTimeOut(true);
+				asyncExecutor = executor;
+			}
+			return asyncExecutor;
+		}
+	}
+
+	private HttpPost createPost(String uri, String authData, Map<String, String> headers, String postData, ContentType contentType) {
+        HttpPost httpPost = new HttpPost(uri);
+        if (StringHelper.isNotEmpty(authData)) {
+        	httpPost.setHeader("Authorization", "Basic " + authData);
+        }
+
+        setHeaders(httpPost, headers);
+
+        StringEntity stringEntity = new StringEntity(postData, contentType);
+		httpPost.setEntity(stringEntity);
+
+		return httpPost;
+	}
+
+	private HttpGet createGet(String requestUri, Map<String, String> headers) {
+		HttpGet httpGet = new HttpGet(requestUri);
+		setHeaders(httpGet, headers);
+
+		return httpGet;
+	}
+
+	private void setHeaders(HttpRequestBase httpRequest, Map<String, String> headers) {
+        if (headers != null) {
+        	for (Entry<String, String> headerEntry : headers.entrySet()) {
+        		httpRequest.setHeader(headerEntry.getKey(), headerEntry.getValue());
+        	}
+        }
+	}
+
 	public String encodeBase64(String value) {
 		try {
 			return new String(base64.encode((value).getBytes(Util.UTF8)), Util.UTF8);
@@ -166,13 +378,7 @@ public class HttpService implements Serializable {
 	}
 
 	public HttpServiceResponse executeGet(HttpClient httpClient, String requestUri, Map<String, String> headers) {
-		HttpGet httpGet = new HttpGet(requestUri);
-        
-        if (headers != null) {
-        	for (Entry<String, String> headerEntry : headers.entrySet()) {
-        		httpGet.setHeader(headerEntry.getKey(), headerEntry.getValue());
-        	}
-        }
+		HttpGet httpGet = createGet(requestUri, headers);
 
 		try {
 			HttpResponse httpResponse = httpClient.execute(httpGet);
@@ -189,6 +395,23 @@ public class HttpService implements Serializable {
 		return executeGet(httpClient, requestUri, null);
 	}
 
+	/**
+	 * Executes get request with pooled client, connection is returned to pool before method returns.
+	 *
+	 * @return response body (UTF-8) if server returned 200, null otherwise
+	 * @throws IOException if request fails
+	 */
+	public String executeGetContent(String requestUri) throws IOException {
+		HttpGet httpGet = createGet(requestUri, null);
+		try {
+			HttpResponse httpResponse = getPooledHttpClient().execute(httpGet);
+
+			return convertEntityToString(getResponseContent(httpResponse), StandardCharsets.UTF_8);
+		} finally {
+			httpGet.releaseConnection();
+		}
+	}
+
 	public byte[] getResponseContent(HttpResponse httpResponse) throws IOException {
         if ((httpResponse == null) || (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_OK)) {
         	return null;
@@ -281,4 +504,19 @@ public class HttpService implements Serializable {
     	return redirectUrl.toLowerCase();
     }
 
+	/**
+	 * Pool of shared pooled client, caller's close/shutdown is ignored.
+	 */
+	private static class SharedHttpClientConnectionManager extends PoolingHttpClientConnectionManager {
+
+		@Override
+		public void shutdown() {
+			// shared between callers, closed on bean destroy
+		}
+
+		void destroy() {
+			super.shutdown();
+		}
+	}
+
 }
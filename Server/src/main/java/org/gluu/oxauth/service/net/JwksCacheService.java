@@ -0,0 +1,286 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.net;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.util.EntityUtils;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.net.HttpServiceResponse;
+import org.gluu.oxauth.service.MetricService;
+import org.gluu.oxauth.model.util.JwtUtil;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.gluu.oxauth.model.jwk.JWKParameter.JSON_WEB_KEY_SET;
+import static org.gluu.oxauth.model.jwk.JWKParameter.KEY_ID;
+
+/**
+ * Caches JSON Web Key Sets fetched from client jwks_uri.
+ * <p>
+ * Lifetime of entry is taken from Cache-Control max-age of response (capped by jwksCacheMaxLifetimeInSeconds,
+ * jwksCacheDefaultLifetimeInSeconds if not present). Entry is refreshed in background when 80% of lifetime passed,
+ * concurrent fetches of the same uri share one request. If refresh fails, expired keys are served for at most
+ * jwksCacheStaleIfErrorInSeconds. Unknown kid forces refetch, at most once per jwksCacheMinRefetchIntervalInSeconds.
+ * Failed first fetch is not repeated within the same interval, so dead jwks_uri is not called on every request.
+ * <p>
+ * Entry (and its gauges) which is not used for jwksCacheMaxLifetimeInSeconds + jwksCacheStaleIfErrorInSeconds is
+ * evicted, so uris which clients stopped using (e.g. after jwks_uri change) are not kept forever.
+ */
+@ApplicationScoped
+public class JwksCacheService {
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age\\s*=\\s*\"?(\\d+)\"?");
+    private static final String STATS_METRIC_PREFIX = "jwks_uri.";
+    private static final Map<String, String> HEADERS = Collections.singletonMap(HttpHeaders.ACCEPT, "application/json");
+    private static final long EVICTION_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private HttpService httpService;
+
+    @Inject
+    private MetricService metricService;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<JSONObject>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong lastEvictionAt = new AtomicLong(System.currentTimeMillis());
+
+    public JSONObject getJSONWebKeys(String jwksUri) {
+        return getJSONWebKeys(jwksUri, null);
+    }
+
+    /**
+     * @param jwksUri jwks_uri of client
+     * @param keyId   kid which is expected in key set, if it is missing keys are refetched (blank - no check)
+     * @return json web keys or null if keys can't be fetched
+     */
+    public JSONObject getJSONWebKeys(String jwksUri, String keyId) {
+        if (StringUtils.isBlank(jwksUri)) {
+            return null;
+        }
+        if (!appConfiguration.getJwksCacheEnabled()) {
+            return JwtUtil.getJSONWebKeys(jwksUri);
+        }
+
+        final long now = System.currentTimeMillis();
+        evictIdleEntries(now);
+
+        final long minRefetchInterval = TimeUnit.SECONDS.toMillis(appConfiguration.getJwksCacheMinRefetchIntervalInSeconds());
+        final Entry entry = entries.computeIfAbsent(jwksUri, this::newEntry);
+        entry.accessedAt = now;
+        final JSONObject cached = entry.jwks;
+
+        if (cached == null) {
+            if (now - entry.failedAt < minRefetchInterval && !inFlight.containsKey(jwksUri)) {
+                log.trace("Last fetch of jwks failed recently, not fetching again, jwks_uri: {}", jwksUri);
+                return null;
+            }
+            return fetch(jwksUri, entry).join();
+        }
+
+        if (now >= entry.expiresAt) {
+            final boolean staleAllowed = now < entry.expiresAt + TimeUnit.SECONDS.toMillis(appConfiguration.getJwksCacheStaleIfErrorInSeconds());
+            if (staleAllowed && now - entry.failedAt < minRefetchInterval) {
+                return cached; // last refresh failed recently, don't block caller on another attempt
+            }
+
+            final JSONObject fetched = fetch(jwksUri, entry).join();
+            if (fetched != null) {
+                return fetched;
+            }
+            if (staleAllowed) {
+                log.warn("Failed to refresh jwks, serving stale keys, jwks_uri: {}", jwksUri);
+                return cached;
+            }
+            return null;
+        }
+
+        if (StringUtils.isNotBlank(keyId) && !containsKeyId(cached, keyId)) {
+            if (now - entry.fetchedAt >= minRefetchInterval && now - entry.failedAt >= minRefetchInterval) {
+                log.debug("Key {} is not found in cached jwks, refetching jwks_uri: {}", keyId, jwksUri);
+                final JSONObject fetched = fetch(jwksUri, entry).join();
+                return fetched != null ? fetched : cached;
+            }
+            return cached;
+        }
+
+        if (now >= entry.refreshAt && now - entry.failedAt >= minRefetchInterval) {
+            fetch(jwksUri, entry); // refresh ahead, current keys are still valid
+        }
+        return cached;
+    }
+
+    private CompletableFuture<JSONObject> fetch(String jwksUri, Entry entry) {
+        final CompletableFuture<JSONObject> existing = inFlight.get(jwksUri);
+        if (existing != null) {
+            return existing;
+        }
+
+        final CompletableFuture<JSONObject> created = new CompletableFuture<>();
+        final CompletableFuture<JSONObject> raced = inFlight.putIfAbsent(jwksUri, created);
+        if (raced != null) {
+            return raced;
+        }
+
+        final long started = System.nanoTime();
+        httpService.executeGetAsync(jwksUri, HEADERS).whenComplete((response, error) -> {
+            JSONObject jwks = null;
+            try {
+                jwks = error == null ? onResponse(jwksUri, entry, response) : null;
+                if (error != null) {
+                    log.error("Failed to fetch jwks, jwks_uri: " + jwksUri, error);
+                }
+            } catch (Exception e) {
+                log.error("Failed to fetch jwks, jwks_uri: " + jwksUri, e);
+            } finally {
+                final long latency = System.nanoTime() - started;
+                entry.stats.record(latency, jwks != null);
+                if (jwks == null) {
+                    entry.failedAt = System.currentTimeMillis();
+                }
+                log.debug("Fetched jwks in {}ms, success: {}, jwks_uri: {}", TimeUnit.NANOSECONDS.toMillis(latency), jwks != null, jwksUri);
+                inFlight.remove(jwksUri, created);
+                created.complete(jwks);
+            }
+        });
+        return created;
+    }
+
+    private JSONObject onResponse(String jwksUri, Entry entry, HttpServiceResponse serviceResponse) throws Exception {
+        final HttpResponse response = serviceResponse.getHttpResponse();
+        final int status = response.getStatusLine().getStatusCode();
+        if (status != HttpStatus.SC_OK || response.getEntity() == null) {
+            log.error("Failed to fetch jwks, status: {}, jwks_uri: {}", status, jwksUri);
+            return null;
+        }
+
+        final JSONObject jwks = JwtUtil.fromJson(EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+        final long lifetime = getLifetimeMillis(response.getFirstHeader(HttpHeaders.CACHE_CONTROL));
+        final long now = System.currentTimeMillis();
+
+        entry.jwks = jwks;
+        entry.fetchedAt = now;
+        entry.expiresAt = now + lifetime;
+        entry.refreshAt = now + lifetime * 8 / 10;
+
+        log.trace("Cached jwks for {}ms, jwks_uri: {}", lifetime, jwksUri);
+        return jwks;
+    }
+
+    private long getLifetimeMillis(Header cacheControl) {
+        final long maxLifetime = TimeUnit.SECONDS.toMillis(appConfiguration.getJwksCacheMaxLifetimeInSeconds());
+        if (cacheControl == null || StringUtils.isBlank(cacheControl.getValue())) {
+            return Math.min(TimeUnit.SECONDS.toMillis(appConfiguration.getJwksCacheDefaultLifetimeInSeconds()), maxLifetime);
+        }
+
+        final String value = cacheControl.getValue().toLowerCase();
+        if (value.contains("no-store") || value.contains("no-cache")) {
+            return 0;
+        }
+
+        final Matcher matcher = MAX_AGE.matcher(value);
+        if (matcher.find()) {
+            try {
+                return Math.min(TimeUnit.SECONDS.toMillis(Long.parseLong(matcher.group(1))), maxLifetime);
+            } catch (NumberFormatException e) {
+                log.trace("Failed to parse max-age of {}", value);
+            }
+        }
+        return Math.min(TimeUnit.SECONDS.toMillis(appConfiguration.getJwksCacheDefaultLifetimeInSeconds()), maxLifetime);
+    }
+
+    private static boolean containsKeyId(JSONObject jwks, String keyId) {
+        final JSONArray keys = jwks.optJSONArray(JSON_WEB_KEY_SET);
+        if (keys == null) {
+            return false;
+        }
+        for (int i = 0; i < keys.length(); i++) {
+            final JSONObject key = keys.optJSONObject(i);
+            if (key != null && keyId.equals(key.optString(KEY_ID))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void evict(String jwksUri) {
+        if (jwksUri != null) {
+            entries.computeIfPresent(jwksUri, (uri, entry) -> remove(uri));
+        }
+    }
+
+    void evictIdleEntries(long now) {
+        final long last = lastEvictionAt.get();
+        if (now - last < EVICTION_INTERVAL || !lastEvictionAt.compareAndSet(last, now)) {
+            return;
+        }
+
+        final long idleTimeout = TimeUnit.SECONDS.toMillis(appConfiguration.getJwksCacheMaxLifetimeInSeconds() + appConfiguration.getJwksCacheStaleIfErrorInSeconds());
+        for (String jwksUri : entries.keySet()) {
+            // checked under lock of the key, so gauges of entry re-created meanwhile are not removed
+            entries.computeIfPresent(jwksUri, (uri, entry) -> now - entry.accessedAt > idleTimeout ? remove(uri) : entry);
+        }
+    }
+
+    private Entry remove(String jwksUri) {
+        metricService.removeFetchStats(STATS_METRIC_PREFIX + jwksUri);
+        log.trace("Evicted jwks cache entry, jwks_uri: {}", jwksUri);
+        return null;
+    }
+
+    private Entry newEntry(String jwksUri) {
+        final Entry entry = new Entry();
+        entry.accessedAt = System.currentTimeMillis();
+        metricService.registerFetchStats(STATS_METRIC_PREFIX + jwksUri, entry.stats);
+        return entry;
+    }
+
+    /**
+     * @return fetch statistics per jwks_uri, also published by {@link MetricService} as gauges jwks_uri.&lt;uri&gt;.*
+     */
+    public Map<String, FetchStats> getStats() {
+        final Map<String, FetchStats> result = new HashMap<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            result.put(e.getKey(), e.getValue().stats);
+        }
+        return result;
+    }
+
+    private static class Entry {
+        private volatile JSONObject jwks;
+        private volatile long fetchedAt;
+        private volatile long expiresAt;
+        private volatile long refreshAt;
+        private volatile long failedAt;
+        private volatile long accessedAt;
+        private final FetchStats stats = new FetchStats();
+    }
+}
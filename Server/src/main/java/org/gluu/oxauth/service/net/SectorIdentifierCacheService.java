@@ -0,0 +1,217 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.net;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.util.EntityUtils;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.net.HttpServiceResponse;
+import org.gluu.oxauth.service.MetricService;
+import org.gluu.oxauth.service.cache.CacheInvalidationEvent;
+import org.gluu.oxauth.service.cache.CacheInvalidationService;
+import org.gluu.oxauth.service.cache.CacheRegion;
+import org.json.JSONArray;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches redirect uris fetched from client sector_identifier_uri.
+ * <p>
+ * Entry lives sectorIdentifierCacheLifetimeInMinutes and is refreshed in background when 80% of lifetime passed,
+ * concurrent fetches of the same uri share one request. Expired entry is served while refresh is in flight or failing
+ * (at most for one more lifetime), so only the first resolution of uri waits for remote host.
+ */
+@ApplicationScoped
+public class SectorIdentifierCacheService {
+
+    public static final int DEFAULT_LIFETIME_IN_MINUTES = 1440; // 1 day
+
+    private static final String STATS_METRIC_PREFIX = "sector_identifier_uri.";
+    private static final Map<String, String> HEADERS = Collections.singletonMap(HttpHeaders.ACCEPT, "application/json");
+    private static final long MIN_REFETCH_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private HttpService httpService;
+
+    @Inject
+    private MetricService metricService;
+
+    @Inject
+    private CacheInvalidationService cacheInvalidationService;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<List<String>>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param sectorIdentifierUri sector_identifier_uri of client
+     * @return redirect uris or empty list if they can't be fetched
+     */
+    public List<String> getRedirectUris(String sectorIdentifierUri) {
+        if (StringUtils.isBlank(sectorIdentifierUri)) {
+            return Collections.emptyList();
+        }
+
+        final long now = System.currentTimeMillis();
+        final Entry entry = entries.computeIfAbsent(sectorIdentifierUri, this::newEntry);
+        final List<String> cached = entry.redirectUris;
+
+        if (cached == null || now >= entry.expiresAt + getLifetimeMillis()) {
+            final List<String> fetched = fetch(sectorIdentifierUri, entry).join();
+            return fetched != null ? fetched : Collections.emptyList();
+        }
+
+        if (now >= entry.refreshAt && now - entry.failedAt >= MIN_REFETCH_INTERVAL) {
+            fetch(sectorIdentifierUri, entry); // refresh ahead or after expiration, cached uris are served meanwhile
+        }
+        if (now >= entry.expiresAt) {
+            log.trace("Serving stale sector redirect uris, sector_identifier_uri: {}", sectorIdentifierUri);
+        }
+        return cached;
+    }
+
+    private CompletableFuture<List<String>> fetch(String sectorIdentifierUri, Entry entry) {
+        final CompletableFuture<List<String>> existing = inFlight.get(sectorIdentifierUri);
+        if (existing != null) {
+            return existing;
+        }
+
+        final CompletableFuture<List<String>> created = new CompletableFuture<>();
+        final CompletableFuture<List<String>> raced = inFlight.putIfAbsent(sectorIdentifierUri, created);
+        if (raced != null) {
+            return raced;
+        }
+
+        final long started = System.nanoTime();
+        httpService.executeGetAsync(sectorIdentifierUri, HEADERS).whenComplete((response, error) -> {
+            List<String> redirectUris = null;
+            try {
+                redirectUris = error == null ? onResponse(sectorIdentifierUri, entry, response) : null;
+                if (error != null) {
+                    log.error("Failed to fetch sector_identifier_uri: " + sectorIdentifierUri, error);
+                }
+            } catch (Exception e) {
+                log.error("Failed to fetch sector_identifier_uri: " + sectorIdentifierUri, e);
+            } finally {
+                final long latency = System.nanoTime() - started;
+                entry.stats.record(latency, redirectUris != null);
+                if (redirectUris == null) {
+                    entry.failedAt = System.currentTimeMillis();
+                }
+                log.debug("Fetched sector redirect uris in {}ms, success: {}, sector_identifier_uri: {}", TimeUnit.NANOSECONDS.toMillis(latency), redirectUris != null, sectorIdentifierUri);
+                inFlight.remove(sectorIdentifierUri, created);
+                created.complete(redirectUris);
+            }
+        });
+        return created;
+    }
+
+    private List<String> onResponse(String sectorIdentifierUri, Entry entry, HttpServiceResponse serviceResponse) throws Exception {
+        final HttpResponse response = serviceResponse.getHttpResponse();
+        final int status = response.getStatusLine().getStatusCode();
+        if (status != HttpStatus.SC_OK || response.getEntity() == null) {
+            log.error("Failed to fetch sector redirect uris, status: {}, sector_identifier_uri: {}", status, sectorIdentifierUri);
+            return null;
+        }
+
+        final JSONArray array = new JSONArray(EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+        final List<String> redirectUris = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            redirectUris.add(array.getString(i));
+        }
+
+        final long lifetime = getLifetimeMillis();
+        final long now = System.currentTimeMillis();
+
+        entry.redirectUris = Collections.unmodifiableList(redirectUris);
+        entry.expiresAt = now + lifetime;
+        entry.refreshAt = now + lifetime * 8 / 10;
+        return entry.redirectUris;
+    }
+
+    private long getLifetimeMillis() {
+        int lifetime = appConfiguration.getSectorIdentifierCacheLifetimeInMinutes();
+        if (lifetime <= 0) {
+            lifetime = DEFAULT_LIFETIME_IN_MINUTES;
+        }
+        return TimeUnit.MINUTES.toMillis(lifetime);
+    }
+
+    public void onCacheInvalidation(@Observes CacheInvalidationEvent event) {
+        if (!event.is(CacheRegion.SECTOR_IDENTIFIER)) {
+            return;
+        }
+        if (event.isAll()) {
+            entries.keySet().forEach(this::evict);
+        } else {
+            evict(event.getKey());
+        }
+    }
+
+    /**
+     * Evicts redirect uris of sector_identifier_uri on this node and on peers, e.g. when client stops using it.
+     */
+    public void invalidate(String sectorIdentifierUri) {
+        if (StringUtils.isBlank(sectorIdentifierUri)) {
+            return;
+        }
+        evict(sectorIdentifierUri);
+        cacheInvalidationService.publish(CacheRegion.SECTOR_IDENTIFIER, sectorIdentifierUri);
+    }
+
+    public void evict(String sectorIdentifierUri) {
+        if (sectorIdentifierUri != null && entries.remove(sectorIdentifierUri) != null) {
+            metricService.removeFetchStats(STATS_METRIC_PREFIX + sectorIdentifierUri);
+        }
+    }
+
+    private Entry newEntry(String sectorIdentifierUri) {
+        final Entry entry = new Entry();
+        metricService.registerFetchStats(STATS_METRIC_PREFIX + sectorIdentifierUri, entry.stats);
+        return entry;
+    }
+
+    /**
+     * @return fetch statistics per sector_identifier_uri, also published by {@link MetricService} as gauges sector_identifier_uri.&lt;uri&gt;.*
+     */
+    public Map<String, FetchStats> getStats() {
+        final Map<String, FetchStats> result = new HashMap<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            result.put(e.getKey(), e.getValue().stats);
+        }
+        return result;
+    }
+
+    private static class Entry {
+        private volatile List<String> redirectUris;
+        private volatile long expiresAt;
+        private volatile long refreshAt;
+        private volatile long failedAt;
+        private final FetchStats stats = new FetchStats();
+    }
+}
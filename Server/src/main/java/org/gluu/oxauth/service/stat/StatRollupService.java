@@ -0,0 +1,174 @@
+package org.gluu.oxauth.service.stat;
+
+import net.agkn.hll.HLL;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.stat.Stat;
+import org.gluu.oxauth.model.stat.StatEntry;
+import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.persist.exception.EntryPersistenceException;
+import org.gluu.search.filter.Filter;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains monthly rollup entry (jansId=_rollup,ou=yyyyMM,ou=stat,o=gluu) which holds token counters summed over
+ * all nodes and union of user HLL of all nodes, so statistic of closed month is read from single entry.
+ * <p>
+ * Nodes don't write rollup. It is built on read, only for closed month and always from all per node entries of the
+ * month, so concurrent builds on different nodes write same content and can't lose counts of each other. Rollup
+ * updated before month was closed (e.g. merged by nodes during the month) is not trusted and is rebuilt.
+ */
+@ApplicationScoped
+public class StatRollupService {
+
+    public static final String ROLLUP_ID = "_rollup";
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final long MIN_CLOSE_GRACE_PERIOD = TimeUnit.HOURS.toMillis(1);
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private PersistenceEntryManager entryManager;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    public String getRollupDn(String monthlyDn) {
+        return String.format("jansId=%s,%s", ROLLUP_ID, monthlyDn);
+    }
+
+    /**
+     * @return rollup entry of closed month (built from per node entries if it does not exist yet) or null if month is
+     * not closed or has no per node entries
+     */
+    public StatEntry findOrBuild(String monthlyDn, String month, long now) {
+        final long closedAt = getClosedAt(month);
+        if (now < closedAt) {
+            return null;
+        }
+
+        final String dn = getRollupDn(monthlyDn);
+        final StatEntry existing = find(dn);
+        if (existing != null && existing.getStat().getLastUpdatedAt() >= closedAt) {
+            return existing;
+        }
+
+        final List<StatEntry> entries = entryManager.findEntries(monthlyDn, StatEntry.class, Filter.createPresenceFilter("jansId"));
+        final StatEntry rollup = build(dn, month, entries, now);
+        if (rollup == null) {
+            return null;
+        }
+
+        if (existing != null) {
+            entryManager.merge(rollup);
+            log.trace("Rebuilt stat rollup entry: {}", dn);
+            return rollup;
+        }
+        try {
+            entryManager.persist(rollup);
+            log.trace("Created stat rollup entry: {}", dn);
+        } catch (EntryPersistenceException e) {
+            // built by another node in the meantime from the same per node entries
+            log.trace("Stat rollup entry is already created: {}", dn);
+        }
+        return rollup;
+    }
+
+    /**
+     * Month is closed when it is over and nodes had time to write their last update of it.
+     */
+    long getClosedAt(String month) {
+        final long monthEnd = YearMonth.parse(month, MONTH_FORMAT).plusMonths(1).atDay(1)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        final long timerInterval = TimeUnit.SECONDS.toMillis(Math.max(appConfiguration.getStatTimerIntervalInSeconds(), 0));
+        return monthEnd + Math.max(MIN_CLOSE_GRACE_PERIOD, 2 * timerInterval);
+    }
+
+    private StatEntry build(String dn, String month, List<StatEntry> entries, long now) {
+        if (entries == null) {
+            return null;
+        }
+
+        HLL hll = null;
+        final StatEntry rollup = new StatEntry();
+        rollup.setDn(dn);
+        rollup.setId(ROLLUP_ID);
+
+        final Stat stat = rollup.getStat();
+        for (StatEntry entry : entries) {
+            if (ROLLUP_ID.equals(entry.getId())) {
+                continue;
+            }
+
+            stat.getTokenCountPerNode().put(entry.getId(), entry.getStat().getTokenCountPerGrantType());
+            try {
+                final HLL nodeHll = decodeHll(entry);
+                if (hll == null) {
+                    hll = nodeHll;
+                } else {
+                    hll.union(nodeHll);
+                }
+            } catch (Exception e) {
+                log.error("Failed to decode HLL data, entry dn: " + entry.getDn(), e);
+            }
+        }
+        if (hll == null) {
+            return null;
+        }
+
+        rollup.setUserHllData(Base64.getEncoder().encodeToString(hll.toBytes()));
+        stat.setMonth(month);
+        stat.setTokenCountPerGrantType(sum(stat.getTokenCountPerNode()));
+        stat.setLastUpdatedAt(now);
+        log.trace("Built stat rollup entry from {} node entries, dn: {}", stat.getTokenCountPerNode().size(), dn);
+        return rollup;
+    }
+
+    /**
+     * @return rollup entry of month or null if it does not exist
+     */
+    public StatEntry find(String dn) {
+        try {
+            return entryManager.find(StatEntry.class, dn);
+        } catch (EntryPersistenceException e) {
+            return null;
+        }
+    }
+
+    public HLL decodeHll(StatEntry entry) {
+        return HLL.fromBytes(Base64.getDecoder().decode(entry.getUserHllData()));
+    }
+
+    static Map<String, Map<String, Long>> sum(Map<String, Map<String, Map<String, Long>>> tokenCountPerNode) {
+        Map<String, Map<String, Long>> result = new HashMap<>();
+        for (Map<String, Map<String, Long>> nodeCounters : tokenCountPerNode.values()) {
+            if (nodeCounters == null) {
+                continue;
+            }
+            for (Map.Entry<String, Map<String, Long>> grantEntry : nodeCounters.entrySet()) {
+                if (grantEntry.getValue() == null) {
+                    continue;
+                }
+                final Map<String, Long> tokenMap = result.computeIfAbsent(grantEntry.getKey(), k -> new HashMap<>());
+                for (Map.Entry<String, Long> tokenEntry : grantEntry.getValue().entrySet()) {
+                    if (tokenEntry.getValue() != null) {
+                        tokenMap.merge(tokenEntry.getKey(), tokenEntry.getValue(), Long::sum);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
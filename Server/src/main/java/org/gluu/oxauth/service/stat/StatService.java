@@ -2,6 +2,7 @@ package org.gluu.oxauth.service.stat;
 
 import net.agkn.hll.HLL;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.time.FastDateFormat;
 import org.gluu.net.InetAddressUtility;
 import org.gluu.oxauth.model.common.GrantType;
 import org.gluu.oxauth.model.config.StaticConfiguration;
@@ -15,13 +16,14 @@ import org.slf4j.Logger;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import java.text.SimpleDateFormat;
 import java.util.Base64;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Yuriy Zabrovarnyy
@@ -30,9 +32,10 @@ import java.util.concurrent.ConcurrentMap;
 public class StatService {
 
     // January - 202001, December - 202012
-    private static final SimpleDateFormat PERIOD_DATE_FORMAT = new SimpleDateFormat("yyyyMM");
+    private static final FastDateFormat PERIOD_DATE_FORMAT = FastDateFormat.getInstance("yyyyMM"); // thread-safe, used on token hot path
     private static final int regwidth = 5;
     private static final int log2m = 15;
+    private static final int HLL_STRIPES = stripesCount();
 
     public static final String ACCESS_TOKEN_KEY = "access_token";
     public static final String ID_TOKEN_KEY = "id_token";
@@ -51,8 +54,9 @@ public class StatService {
     private String nodeId;
     private String monthlyDn;
     private StatEntry currentEntry;
-    private HLL hll;
-    private ConcurrentMap<String, Map<String, Long>> tokenCounters;
+    private HLL hll; // merged from stripes only by updateStat
+    private volatile HLL[] hllStripes;
+    private volatile ConcurrentMap<String, ConcurrentMap<String, LongAdder>> tokenCounters;
 
     private boolean initialized = false;
 
@@ -101,12 +105,10 @@ public class StatService {
         setupCurrentEntry(now);
 
         final Stat stat = currentEntry.getStat();
-        stat.setTokenCountPerGrantType(tokenCounters);
+        stat.setTokenCountPerGrantType(snapshotTokenCounters());
         stat.setLastUpdatedAt(now.getTime());
 
-        synchronized (hll) {
-            currentEntry.setUserHllData(Base64.getEncoder().encodeToString(hll.toBytes()));
-        }
+        currentEntry.setUserHllData(Base64.getEncoder().encodeToString(mergeHllStripes().toBytes()));
         entryManager.merge(currentEntry);
 
         log.trace("Finished updateStat.");
@@ -128,7 +130,8 @@ public class StatService {
             StatEntry entryFromPersistence = entryManager.find(StatEntry.class, dn);
             if (entryFromPersistence != null && month.equals(entryFromPersistence.getStat().getMonth())) {
                 hll = HLL.fromBytes(Base64.getDecoder().decode(entryFromPersistence.getUserHllData()));
-                tokenCounters = new ConcurrentHashMap<>(entryFromPersistence.getStat().getTokenCountPerGrantType());
+                hllStripes = newHllStripes();
+                tokenCounters = toTokenCounters(entryFromPersistence.getStat().getTokenCountPerGrantType());
                 currentEntry = entryFromPersistence;
                 log.trace("Stat entry loaded.");
                 return;
@@ -140,6 +143,7 @@ public class StatService {
         if (currentEntry == null) {
             log.trace("Creating stat entry ...");
             hll = newHll();
+            hllStripes = newHllStripes();
             tokenCounters = new ConcurrentHashMap<>();
 
             currentEntry = new StatEntry();
@@ -156,6 +160,64 @@ public class StatService {
         return new HLL(log2m, regwidth);
     }
 
+    private static int stripesCount() {
+        int count = 1;
+        while (count < Runtime.getRuntime().availableProcessors() * 2) {
+            count <<= 1;
+        }
+        return count;
+    }
+
+    private HLL[] newHllStripes() {
+        HLL[] stripes = new HLL[HLL_STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = newHll();
+        }
+        return stripes;
+    }
+
+    /**
+     * Unions all stripes into base HLL. HLL union is idempotent, so stripes are not reset after merge.
+     */
+    private HLL mergeHllStripes() {
+        for (HLL stripe : hllStripes) {
+            synchronized (stripe) {
+                hll.union(stripe);
+            }
+        }
+        return hll;
+    }
+
+    private static ConcurrentMap<String, ConcurrentMap<String, LongAdder>> toTokenCounters(Map<String, Map<String, Long>> source) {
+        ConcurrentMap<String, ConcurrentMap<String, LongAdder>> result = new ConcurrentHashMap<>();
+        for (Map.Entry<String, Map<String, Long>> grantEntry : source.entrySet()) {
+            ConcurrentMap<String, LongAdder> tokenMap = new ConcurrentHashMap<>();
+            if (grantEntry.getValue() != null) {
+                for (Map.Entry<String, Long> tokenEntry : grantEntry.getValue().entrySet()) {
+                    LongAdder adder = new LongAdder();
+                    if (tokenEntry.getValue() != null) {
+                        adder.add(tokenEntry.getValue());
+                    }
+                    tokenMap.put(tokenEntry.getKey(), adder);
+                }
+            }
+            result.put(grantEntry.getKey(), tokenMap);
+        }
+        return result;
+    }
+
+    private Map<String, Map<String, Long>> snapshotTokenCounters() {
+        Map<String, Map<String, Long>> result = new HashMap<>();
+        for (Map.Entry<String, ConcurrentMap<String, LongAdder>> grantEntry : tokenCounters.entrySet()) {
+            Map<String, Long> tokenMap = new HashMap<>();
+            for (Map.Entry<String, LongAdder> tokenEntry : grantEntry.getValue().entrySet()) {
+                tokenMap.put(tokenEntry.getKey(), tokenEntry.getValue().sum());
+            }
+            result.put(grantEntry.getKey(), tokenMap);
+        }
+        return result;
+    }
+
     private void initNodeId() {
         if (StringUtils.isNotBlank(nodeId)) {
             return;
@@ -230,8 +292,10 @@ public class StatService {
         final int hash = id.hashCode();
         try {
             setupCurrentEntry();
-            synchronized (hll) {
-                hll.addRaw(hash);
+            final HLL[] stripes = hllStripes;
+            final HLL stripe = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+            synchronized (stripe) {
+                stripe.addRaw(hash);
             }
         } catch (Exception e) {
             log.error("Failed to report active user, id: " + id + ", hash: " + hash, e);
@@ -263,21 +327,21 @@ public class StatService {
         if (grantType == null || tokenKey == null) {
             return;
         }
-        if (tokenCounters == null) {
+        final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> counters = tokenCounters;
+        if (counters == null) {
             log.error("Stat service is not initialized.");
             return;
         }
 
-        Map<String, Long> tokenMap = tokenCounters.computeIfAbsent(grantType.getValue(), k -> new ConcurrentHashMap<>());
-
-        Long counter = tokenMap.get(tokenKey);
+        ConcurrentMap<String, LongAdder> tokenMap = counters.get(grantType.getValue());
+        if (tokenMap == null) {
+            tokenMap = counters.computeIfAbsent(grantType.getValue(), k -> new ConcurrentHashMap<>());
+        }
 
+        LongAdder counter = tokenMap.get(tokenKey);
         if (counter == null) {
-            counter = 1L;
-        } else {
-            counter++;
+            counter = tokenMap.computeIfAbsent(tokenKey, k -> new LongAdder());
         }
-
-        tokenMap.put(tokenKey, counter);
+        counter.increment();
     }
 }
\ No newline at end of file
@@ -0,0 +1,428 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.token;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Striped;
+import org.gluu.oxauth.model.common.TokenIndex;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.service.cache.AtomicCacheService;
+import org.gluu.oxauth.service.cache.BulkCacheService;
+import org.gluu.oxauth.service.cdi.event.AuthConfigurationEvent;
+import org.gluu.service.CacheService;
+import org.gluu.service.cdi.async.Asynchronous;
+import org.gluu.service.cdi.event.Scheduled;
+import org.slf4j.Logger;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Index of cached tokens per owner (client or session) which replaces read-modify-write of single
+ * ClientTokens/SessionTokens blob.
+ * <p>
+ * Token hashes are appended to segments keyed by owner, expiration time bucket, node and sequence
+ * (&lt;owner&gt;_&lt;bucketEnd&gt;_&lt;nodeId&gt;_&lt;seq&gt;). Open segment is kept in node memory and written only by
+ * own node under node-local lock, so append writes at most {@link #SEGMENT_MAX_ENTRIES} entries without reading
+ * cache, appends are not lost, and segment expires in cache together with tokens of its bucket. Full segment
+ * (or segment dropped from node memory) is followed by new one.
+ * <p>
+ * Segments are listed in per node heads with deterministic keys (&lt;owner&gt;_index_&lt;slot&gt;), so there is no key
+ * which is modified by several nodes. Node claims slot by atomic add of tkn_idx_node_&lt;slot&gt; and refreshes it by
+ * timer while it runs. Claimed slots are listed in single registry key (tkn_idx_slots) with time until which their
+ * heads may hold segments, so readers read registry and heads of listed slots only. Registry is updated under
+ * short lock taken by atomic add, thus concurrent updates are not lost; it is written when slot is claimed, when its
+ * time runs low and when head gets segment of later bucket. Node started later may take over slot of stopped node
+ * and its head, segments of stopped node stay listed there until they expire.
+ */
+@ApplicationScoped
+public class TokenIndexService {
+
+    public static final int MAX_NODES = 256;
+    public static final int SEGMENT_MAX_ENTRIES = 64;
+
+    private static final String CLIENT_PREFIX = "tkn_idx_client_";
+    private static final String SESSION_PREFIX = "tkn_idx_session_";
+    private static final String NODE_KEY_PREFIX = "tkn_idx_node_";
+    private static final String REGISTRY_KEY = "tkn_idx_slots";
+    private static final String REGISTRY_LOCK_KEY = "tkn_idx_slots_lock";
+    private static final int REGISTRY_LOCK_EXPIRATION_IN_SECONDS = 5;
+    private static final int REGISTRY_LOCK_ATTEMPTS = 10;
+    private static final long REGISTRY_LOCK_RETRY_MILLIS = 20;
+    private static final int HEAD_WRITE_ATTEMPTS = 3;
+    private static final int NODE_EXPIRATION_IN_SECONDS = 600; // 10 minutes
+    private static final long NODE_EXPIRATION = TimeUnit.SECONDS.toMillis(NODE_EXPIRATION_IN_SECONDS);
+    private static final long NODE_CHECK_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final int OPEN_SEGMENTS_MAX_SIZE = 10000;
+    private static final int OPEN_SEGMENTS_IDLE_IN_MINUTES = 10;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private CacheService cacheService;
+
+    @Inject
+    private BulkCacheService bulkCacheService;
+
+    @Inject
+    private AtomicCacheService atomicCacheService;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Striped<Lock> locks = Striped.lock(64);
+    private final AtomicLong segmentSequence = new AtomicLong();
+    private final Cache<String, Segment> openSegments = CacheBuilder.newBuilder()
+            .maximumSize(OPEN_SEGMENTS_MAX_SIZE)
+            .expireAfterAccess(OPEN_SEGMENTS_IDLE_IN_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    private int slot = -1;
+    private long slotCheckedAt;
+    private volatile long registeredUntil; // time until which registry lists slot of this node
+
+    public static String clientKey(String clientId) {
+        return CLIENT_PREFIX + clientId;
+    }
+
+    public static String sessionKey(String sessionDn) {
+        return SESSION_PREFIX + sessionDn;
+    }
+
+    public static String headKey(String ownerKey, int slot) {
+        return ownerKey + "_index_" + slot;
+    }
+
+    /**
+     * Appends token hash to index of owner.
+     *
+     * @param ownerKey            key of owner, see {@link #clientKey(String)} and {@link #sessionKey(String)}
+     * @param tokenHash           hash of token
+     * @param expirationInSeconds lifetime of token
+     */
+    public void add(String ownerKey, String tokenHash, int expirationInSeconds) {
+        addAll(ownerKey, Collections.singletonMap(tokenHash, expirationInSeconds));
+    }
+
+    /**
+     * Appends token hashes to index of owner with one write per time bucket, head is written only if it does not list
+     * segment yet.
+     *
+     * @param ownerKey    key of owner, see {@link #clientKey(String)} and {@link #sessionKey(String)}
+     * @param expirations map of token hash to lifetime of token in seconds
+     */
+    public void addAll(String ownerKey, Map<String, Integer> expirations) {
+        if (expirations == null || expirations.isEmpty()) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        final long bucketSize = appConfiguration.getTokenIndexBucketSizeInSeconds() * 1000L;
+
+        final Map<Long, Map<String, Long>> buckets = new TreeMap<>();
+        for (Map.Entry<String, Integer> entry : expirations.entrySet()) {
+            final long expiresAt = now + entry.getValue() * 1000L;
+            final long bucketEnd = (expiresAt / bucketSize + 1) * bucketSize;
+            buckets.computeIfAbsent(bucketEnd, k -> new HashMap<>()).put(entry.getKey(), expiresAt);
+        }
+
+        final Map<String, Long> segments = new HashMap<>();
+        for (Map.Entry<Long, Map<String, Long>> bucket : buckets.entrySet()) {
+            final long bucketEnd = bucket.getKey();
+            final String bucketKey = ownerKey + "_" + (bucketEnd / 1000);
+
+            final Lock bucketLock = locks.get(bucketKey);
+            bucketLock.lock();
+            try {
+                Segment segment = openSegments.getIfPresent(bucketKey);
+                if (segment == null || segment.index.getEntries().size() >= SEGMENT_MAX_ENTRIES) {
+                    segment = new Segment(bucketKey + "_" + nodeId + "_" + segmentSequence.incrementAndGet());
+                    openSegments.put(bucketKey, segment);
+                }
+                for (Map.Entry<String, Long> token : bucket.getValue().entrySet()) {
+                    segment.index.put(token.getKey(), token.getValue());
+                }
+                cacheService.put(expirationInSeconds(bucketEnd, now), segment.key, segment.index.copy()); // in-memory cache provider keeps reference
+                segments.put(segment.key, bucketEnd);
+            } finally {
+                bucketLock.unlock();
+            }
+        }
+
+        register(ownerKey, segments, now);
+    }
+
+    private void register(String ownerKey, Map<String, Long> segments, long now) {
+        final int currentSlot = getSlot(now);
+        if (currentSlot < 0) {
+            log.error("Token index slot is not claimed, segments are not registered: {}", segments.keySet());
+            return;
+        }
+
+        final long maxBucketEnd = Collections.max(segments.values());
+        if (maxBucketEnd > registeredUntil) {
+            ensureRegistered(currentSlot, maxBucketEnd, now);
+        }
+
+        final String headKey = headKey(ownerKey, currentSlot);
+        final Lock headLock = locks.get(headKey);
+        headLock.lock();
+        try {
+            for (int i = 0; i < HEAD_WRITE_ATTEMPTS; i++) {
+                final TokenIndex cached = get(headKey);
+                if (cached != null && containsAll(cached, segments.keySet())) {
+                    return;
+                }
+                final TokenIndex head = cached != null ? cached.copy() : new TokenIndex();
+                head.prune(now);
+                for (Map.Entry<String, Long> segment : segments.entrySet()) {
+                    head.put(segment.getKey(), segment.getValue());
+                }
+                cacheService.put(expirationInSeconds(head.getMaxExpiration(), now), headKey, head);
+            }
+            log.debug("Failed to verify registration of token index segments {}, they will be registered on next append.", segments.keySet());
+        } finally {
+            headLock.unlock();
+        }
+    }
+
+    private static boolean containsAll(TokenIndex index, Set<String> keys) {
+        for (String key : keys) {
+            if (!index.contains(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param ownerKey key of owner, see {@link #clientKey(String)} and {@link #sessionKey(String)}
+     * @return hashes of not expired tokens of owner
+     */
+    public Set<String> getTokenHashes(String ownerKey) {
+        final long now = System.currentTimeMillis();
+
+        final TokenIndex registry = get(REGISTRY_KEY);
+        if (registry == null) {
+            return new HashSet<>();
+        }
+        final List<String> headKeys = new ArrayList<>();
+        for (String registeredSlot : registry.getActiveKeys(now)) {
+            headKeys.add(headKey(ownerKey, Integer.parseInt(registeredSlot)));
+        }
+
+        final Set<String> segmentKeys = new HashSet<>();
+        for (Object head : bulkCacheService.getAll(headKeys).values()) {
+            if (head instanceof TokenIndex) {
+                segmentKeys.addAll(((TokenIndex) head).getActiveKeys(now));
+            }
+        }
+
+        final Set<String> result = new HashSet<>();
+        if (segmentKeys.isEmpty()) {
+            return result;
+        }
+
+        for (Object segment : bulkCacheService.getAll(segmentKeys).values()) {
+            if (segment instanceof TokenIndex) {
+                result.addAll(((TokenIndex) segment).getActiveKeys(now));
+            }
+        }
+        return result;
+    }
+
+    @Asynchronous
+    public void refreshSlotTimerEvent(@Observes @Scheduled AuthConfigurationEvent authConfigurationEvent) {
+        try {
+            refreshSlot(System.currentTimeMillis());
+        } catch (Exception e) {
+            log.error("Failed to refresh token index slot.", e);
+        }
+    }
+
+    /**
+     * Refreshes slot of node which claimed it, so slot of node which does not issue tokens for a while is not taken
+     * by other node.
+     */
+    synchronized void refreshSlot(long now) {
+        if (slot >= 0) {
+            getSlot(now);
+        }
+    }
+
+    /**
+     * @return slot of this node or -1 if there is no free slot, slot is refreshed in cache and reclaimed if it was
+     * taken by other node
+     */
+    private synchronized int getSlot(long now) {
+        if (slotCheckedAt > 0 && now - slotCheckedAt < NODE_CHECK_INTERVAL) {
+            return slot; // node without free slot does not scan slots again on every append
+        }
+        slotCheckedAt = now;
+
+        if (slot >= 0) {
+            final Object current = cacheService.get(nodeKey(slot));
+            if (nodeId.equals(current)) {
+                cacheService.put(NODE_EXPIRATION_IN_SECONDS, nodeKey(slot), nodeId);
+                ensureRegistered(slot, now + NODE_EXPIRATION, now);
+                return slot;
+            }
+            if (current == null && atomicCacheService.add(NODE_EXPIRATION_IN_SECONDS, nodeKey(slot), nodeId)) {
+                ensureRegistered(slot, now + NODE_EXPIRATION, now);
+                return slot;
+            }
+            log.debug("Token index slot {} is taken by node {}, claiming another one.", slot, current);
+            slot = -1;
+            registeredUntil = 0;
+        }
+
+        claimSlot(now);
+        return slot;
+    }
+
+    /**
+     * Tries slots which are not in registry first, so usually the first add succeeds. Listed slots are tried after
+     * them because slot of stopped node stays listed while its head may hold segments.
+     */
+    private void claimSlot(long now) {
+        final TokenIndex registry = get(REGISTRY_KEY);
+        final Set<String> listed = registry != null ? registry.getActiveKeys(now) : Collections.<String>emptySet();
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int candidate = 0; candidate < MAX_NODES; candidate++) {
+                if (listed.contains(String.valueOf(candidate)) != (pass == 1)) {
+                    continue;
+                }
+                if (atomicCacheService.add(NODE_EXPIRATION_IN_SECONDS, nodeKey(candidate), nodeId)) {
+                    slot = candidate;
+                    log.debug("Node {} claimed token index slot {}.", nodeId, slot);
+                    ensureRegistered(slot, now + NODE_EXPIRATION, now);
+                    return;
+                }
+            }
+        }
+        log.error("There is no free token index slot (max nodes: {}), tokens of this node are not indexed.", MAX_NODES);
+    }
+
+    /**
+     * Makes sure registry lists slot at least until given time. Registry is written only if it does not, under lock.
+     */
+    private synchronized void ensureRegistered(int registeredSlot, long minExpiresAt, long now) {
+        final String key = String.valueOf(registeredSlot);
+        final TokenIndex cached = get(REGISTRY_KEY);
+        final Long listedUntil = cached != null ? cached.getEntries().get(key) : null;
+        if (listedUntil != null && listedUntil >= minExpiresAt) {
+            registeredUntil = listedUntil;
+            return;
+        }
+
+        final long expiresAt = Math.max(minExpiresAt, now + 2 * NODE_EXPIRATION);
+        final boolean locked = lockRegistry();
+        try {
+            final TokenIndex current = locked ? get(REGISTRY_KEY) : cached;
+            final TokenIndex registry = current != null ? current.copy() : new TokenIndex();
+            registry.prune(now);
+            registry.put(key, expiresAt);
+            cacheService.put(expirationInSeconds(registry.getMaxExpiration(), now), REGISTRY_KEY, registry);
+            registeredUntil = expiresAt;
+        } finally {
+            if (locked) {
+                unlockRegistry();
+            }
+        }
+    }
+
+    private boolean lockRegistry() {
+        for (int i = 0; i < REGISTRY_LOCK_ATTEMPTS; i++) {
+            if (atomicCacheService.add(REGISTRY_LOCK_EXPIRATION_IN_SECONDS, REGISTRY_LOCK_KEY, nodeId)) {
+                return true;
+            }
+            try {
+                Thread.sleep(REGISTRY_LOCK_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        // lock is released by its expiration if holder died, registry is verified again on next slot check
+        log.debug("Failed to lock token index registry, it is updated without lock.");
+        return false;
+    }
+
+    private void unlockRegistry() {
+        try {
+            if (nodeId.equals(cacheService.get(REGISTRY_LOCK_KEY))) {
+                cacheService.remove(REGISTRY_LOCK_KEY);
+            }
+        } catch (Exception e) {
+            log.error("Failed to unlock token index registry.", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (slot < 0) {
+            return;
+        }
+        try {
+            if (nodeId.equals(cacheService.get(nodeKey(slot)))) {
+                cacheService.remove(nodeKey(slot));
+            }
+        } catch (Exception e) {
+            log.error("Failed to release token index slot.", e);
+        }
+        slot = -1;
+    }
+
+    private static String nodeKey(int slot) {
+        return NODE_KEY_PREFIX + slot;
+    }
+
+    private TokenIndex get(String key) {
+        final Object o = cacheService.get(key);
+        return o instanceof TokenIndex ? (TokenIndex) o : null;
+    }
+
+    private static int expirationInSeconds(long expiresAt, long now) {
+        return (int) Math.max(1, (expiresAt - now) / 1000 + 1);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public synchronized int getSlot() {
+        return slot;
+    }
+
+    private static class Segment {
+
+        private final String key;
+        private final TokenIndex index = new TokenIndex();
+
+        private Segment(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.token;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.apache.commons.lang.SerializationUtils;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.ldap.TokenLdap;
+import org.gluu.oxauth.service.cache.CacheInvalidationEvent;
+import org.gluu.oxauth.service.cache.CacheRegion;
+import org.gluu.oxauth.service.cdi.event.AuthConfigurationEvent;
+import org.gluu.service.cdi.async.Asynchronous;
+import org.gluu.service.cdi.event.Scheduled;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded node-local cache of token entries keyed by token hash. Sits in front of
+ * CacheService/PersistenceEntryManager so hot tokens are loaded once per node instead of once per request.
+ * Entry lifetime is capped by token expiration date. Callers get their own copy of the token, so changes made
+ * by one request are not visible to others until the token is merged.
+ */
+@ApplicationScoped
+public class TokenNearCache {
+
+    public static final int DEFAULT_SIZE = 10000;
+    public static final int DEFAULT_LIFETIME_IN_SECONDS = 30;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private volatile Cache<String, Entry> cache = newCache(DEFAULT_SIZE, DEFAULT_LIFETIME_IN_SECONDS);
+
+    private int currentSize = DEFAULT_SIZE;
+    private int currentLifetime = DEFAULT_LIFETIME_IN_SECONDS;
+
+    private static Cache<String, Entry> newCache(int size, int lifetimeInSeconds) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(lifetimeInSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @Asynchronous
+    public void reloadConfigurationTimerEvent(@Observes @Scheduled AuthConfigurationEvent authConfigurationEvent) {
+        if (!isEnabled()) {
+            cache.invalidateAll();
+            return;
+        }
+
+        final int size = appConfiguration.getTokenNearCacheSize();
+        final int lifetime = appConfiguration.getTokenNearCacheLifetimeInSeconds();
+        if (currentSize != size || currentLifetime != lifetime) {
+            currentSize = size;
+            currentLifetime = lifetime;
+            cache = newCache(size, lifetime);
+            log.trace("Re-created token near cache, size: {}, lifetime: {}", size, lifetime);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Token near cache stats: {}", getStats());
+        }
+    }
+
+    public void onCacheInvalidation(@Observes CacheInvalidationEvent event) {
+        if (!event.is(CacheRegion.TOKEN)) {
+            return;
+        }
+
+        if (event.isAll()) {
+            invalidateAll();
+        } else {
+            invalidate(event.getKey());
+        }
+    }
+
+    public boolean isEnabled() {
+        return appConfiguration.getTokenNearCacheEnabled();
+    }
+
+    public TokenLdap get(String tokenHash) {
+        if (!isEnabled() || StringUtils.isBlank(tokenHash)) {
+            return null;
+        }
+
+        final Entry entry = cache.getIfPresent(tokenHash);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            cache.invalidate(tokenHash);
+            return null;
+        }
+        return (TokenLdap) SerializationUtils.clone(entry.token);
+    }
+
+    public void put(String tokenHash, TokenLdap token) {
+        if (!isEnabled() || StringUtils.isBlank(tokenHash) || token == null) {
+            return;
+        }
+
+        final long expiresAt = token.getExpirationDate() != null ? token.getExpirationDate().getTime() : Long.MAX_VALUE;
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        cache.put(tokenHash, new Entry((TokenLdap) SerializationUtils.clone(token), expiresAt));
+    }
+
+    public void invalidate(String tokenHash) {
+        if (StringUtils.isNotBlank(tokenHash)) {
+            cache.invalidate(tokenHash);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return hit, miss and eviction counters of the near cache
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static class Entry {
+
+        private final TokenLdap token;
+        private final long expiresAt;
+
+        private Entry(TokenLdap token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return expiresAt <= System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.service.token;
+
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.model.ldap.TokenLdap;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit of work which collects tokens created while one request is handled, so they are written together at the end
+ * of request instead of one write per token.
+ * <p>
+ * Batch is bound to current thread. When there is no active batch tokens are written immediately, thus code running
+ * outside of request (timers, CIBA, scripts) is not affected.
+ */
+@ApplicationScoped
+public class TokenWriteBatch {
+
+    private static final ThreadLocal<List<TokenLdap>> PENDING = new ThreadLocal<>();
+
+    public void begin() {
+        if (PENDING.get() == null) {
+            PENDING.set(new ArrayList<>());
+        }
+    }
+
+    public boolean isActive() {
+        return PENDING.get() != null;
+    }
+
+    /**
+     * @return true if token is added to active batch, false if there is no active batch and token has to be written
+     * immediately
+     */
+    public boolean add(TokenLdap token) {
+        final List<TokenLdap> pending = PENDING.get();
+        if (pending == null) {
+            return false;
+        }
+        pending.add(token);
+        return true;
+    }
+
+    /**
+     * @return tokens of grant which are not written yet
+     */
+    public List<TokenLdap> getPending(String grantId) {
+        final List<TokenLdap> pending = PENDING.get();
+        if (pending == null || StringUtils.isBlank(grantId)) {
+            return Collections.emptyList();
+        }
+
+        final List<TokenLdap> result = new ArrayList<>();
+        for (TokenLdap token : pending) {
+            if (grantId.equals(token.getGrantId())) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ends batch of current thread.
+     *
+     * @return tokens which were collected by batch
+     */
+    public List<TokenLdap> end() {
+        final List<TokenLdap> pending = PENDING.get();
+        PENDING.remove();
+        return pending != null ? pending : Collections.emptyList();
+    }
+}
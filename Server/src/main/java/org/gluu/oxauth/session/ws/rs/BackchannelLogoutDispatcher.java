@@ -0,0 +1,250 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.session.ws.rs;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicNameValuePair;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.net.HttpServiceResponse;
+import org.gluu.oxauth.service.MetricService;
+import org.gluu.oxauth.service.net.FetchStats;
+import org.gluu.oxauth.service.net.HttpService;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers logout tokens to backchannel_logout_uri of RPs.
+ * <p>
+ * Requests are sent with shared async http pool of {@link HttpService}, each request is limited by
+ * backchannelLogoutTimeoutInSeconds. Each RP host has own lane with at most backchannelLogoutMaxConcurrencyPerHost
+ * requests in flight, the rest waits in the lane, so one slow RP can't occupy whole pool. When
+ * backchannelLogoutQueueSize deliveries are waiting, new delivery fails immediately instead of growing the queue.
+ * <p>
+ * Lane is drained by one thread at a time, completion of call (also the one completed on calling thread) only signals
+ * the lane, so draining never recurses. Lane without waiting and in-flight calls is removed. Delivery is added and idle
+ * lane is removed under lock of map entry, so host never has two lanes with calls in flight. Statistics per client are
+ * published by {@link MetricService} as gauges backchannel_logout.&lt;clientId&gt;.*
+ */
+@ApplicationScoped
+public class BackchannelLogoutDispatcher {
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private HttpService httpService;
+
+    @Inject
+    private MetricService metricService;
+
+    private final ConcurrentMap<String, HostLane> lanes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, FetchStats> stats = new ConcurrentHashMap<>();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * @param clientId             client id of RP, used for metrics
+     * @param backchannelLogoutUri backchannel_logout_uri of RP
+     * @param logoutToken          signed logout token
+     * @return future completed with true if RP acknowledged logout, false otherwise
+     */
+    public CompletableFuture<Boolean> dispatch(String clientId, String backchannelLogoutUri, String logoutToken) {
+        final Delivery delivery = new Delivery(clientId != null ? clientId : "", backchannelLogoutUri, logoutToken);
+        if (waiting.incrementAndGet() > appConfiguration.getBackchannelLogoutQueueSize()) {
+            waiting.decrementAndGet();
+            log.warn("Backchannel logout queue is full, skipped call of backchannel_logout_uri: {}", backchannelLogoutUri);
+            getStats(delivery.clientId).record(0, false);
+            delivery.result.complete(false);
+            return delivery.result;
+        }
+
+        // added under lock of map entry, so idle lane can't be removed in the meantime (see drain)
+        final HostLane lane = lanes.compute(host(backchannelLogoutUri), (host, existing) -> {
+            final HostLane target = existing != null ? existing : new HostLane(host);
+            target.pending.add(delivery);
+            return target;
+        });
+        drain(lane);
+        return delivery.result;
+    }
+
+    /**
+     * Waits until deliveries are completed but not longer than backchannelLogoutTimeoutInSeconds, deliveries which
+     * are not completed in time go on in background.
+     */
+    public void await(Collection<CompletableFuture<Boolean>> deliveries) {
+        if (deliveries == null || deliveries.isEmpty()) {
+            return;
+        }
+
+        final int timeout = appConfiguration.getBackchannelLogoutTimeoutInSeconds();
+        try {
+            CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).get(timeout, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.debug("Not all backchannel logout calls are finished in {} seconds, they are finished in background.", timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Failed to wait for backchannel logout calls.", e);
+        }
+    }
+
+    private void drain(HostLane lane) {
+        if (lane.signals.getAndIncrement() != 0) {
+            return; // thread which drains the lane picks up the signal
+        }
+
+        int missed = 1;
+        do {
+            sendPending(lane);
+            if (isIdle(lane)) {
+                lanes.computeIfPresent(lane.host, (host, current) -> current == lane && isIdle(lane) ? null : current);
+            }
+            missed = lane.signals.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private static boolean isIdle(HostLane lane) {
+        return lane.pending.isEmpty() && lane.active.get() == 0;
+    }
+
+    private void sendPending(HostLane lane) {
+        final int maxConcurrency = appConfiguration.getBackchannelLogoutMaxConcurrencyPerHost();
+        while (lane.active.get() < maxConcurrency) {
+            final Delivery delivery = lane.pending.poll();
+            if (delivery == null) {
+                return;
+            }
+            waiting.decrementAndGet();
+            lane.active.incrementAndGet();
+
+            send(delivery).whenComplete((result, error) -> {
+                lane.active.decrementAndGet();
+                drain(lane);
+            });
+        }
+    }
+
+    private CompletableFuture<Void> send(Delivery delivery) {
+        final int timeoutInMillis = (int) TimeUnit.SECONDS.toMillis(appConfiguration.getBackchannelLogoutTimeoutInSeconds());
+        final String body = URLEncodedUtils.format(Collections.singletonList(new BasicNameValuePair("logout_token", delivery.logoutToken)), StandardCharsets.UTF_8);
+        final long started = System.nanoTime();
+
+        log.debug("Calling RP with backchannel, backchannel_logout_uri: {}", delivery.backchannelLogoutUri);
+        CompletableFuture<HttpServiceResponse> request;
+        try {
+            request = httpService.executePostAsync(delivery.backchannelLogoutUri, null, null, body, ContentType.APPLICATION_FORM_URLENCODED, timeoutInMillis);
+        } catch (Exception e) {
+            request = new CompletableFuture<>();
+            request.completeExceptionally(e);
+        }
+
+        return request.handle((response, error) -> {
+            boolean success = false;
+            if (error != null) {
+                log.error("Failed to call backchannel_logout_uri: " + delivery.backchannelLogoutUri + ", message: " + error.getMessage());
+            } else {
+                final HttpResponse httpResponse = response != null ? response.getHttpResponse() : null;
+                final int status = httpResponse != null ? httpResponse.getStatusLine().getStatusCode() : -1;
+                success = status >= 200 && status < 300;
+                log.debug("Backchannel RP response, status: {}, backchannel_logout_uri: {}", status, delivery.backchannelLogoutUri);
+            }
+
+            getStats(delivery.clientId).record(System.nanoTime() - started, success);
+            delivery.result.complete(success);
+            return null;
+        });
+    }
+
+    private FetchStats getStats(String clientId) {
+        return stats.computeIfAbsent(clientId, k -> {
+            final FetchStats clientStats = new FetchStats();
+            metricService.registerFetchStats("backchannel_logout." + k, clientStats);
+            return clientStats;
+        });
+    }
+
+    private static String host(String uri) {
+        try {
+            final URI parsed = new URI(uri);
+            return parsed.getHost() + ":" + parsed.getPort();
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    /**
+     * @return delivery statistics per client id (fetch count is number of calls, error count is number of failed calls)
+     */
+    public Map<String, FetchStats> getStats() {
+        return new HashMap<>(stats);
+    }
+
+    /**
+     * @return deliveries waiting in host lanes
+     */
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    public void logStats() {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        for (Map.Entry<String, FetchStats> entry : stats.entrySet()) {
+            final FetchStats clientStats = entry.getValue();
+            log.debug("Backchannel logout - client: {}, calls: {}, failed: {}, avg latency: {}ms, max latency: {}ms",
+                    entry.getKey(), clientStats.getFetchCount(), clientStats.getErrorCount(), clientStats.getAverageLatencyMillis(), clientStats.getMaxLatencyMillis());
+        }
+    }
+
+    private static class HostLane {
+        private final String host;
+        private final Queue<Delivery> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger signals = new AtomicInteger();
+
+        private HostLane(String host) {
+            this.host = host;
+        }
+    }
+
+    private static class Delivery {
+        private final String clientId;
+        private final String backchannelLogoutUri;
+        private final String logoutToken;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private Delivery(String clientId, String backchannelLogoutUri, String logoutToken) {
+            this.clientId = clientId;
+            this.backchannelLogoutUri = backchannelLogoutUri;
+            this.logoutToken = logoutToken;
+        }
+    }
+}
@@ -49,10 +49,11 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Javier Rojas Blum
@@ -105,6 +106,9 @@ public class EndSessionRestWebServiceImpl implements EndSessionRestWebService {
     @Inject
     private LogoutTokenFactory logoutTokenFactory;
 
+    @Inject
+    private BackchannelLogoutDispatcher backchannelLogoutDispatcher;
+
     @Override
     public Response requestEndSession(String idTokenHint, String postLogoutRedirectUri, String state, String sessionId, String sid,
                                       HttpServletRequest httpRequest, HttpServletResponse httpResponse, SecurityContext sec) {
@@ -202,7 +206,7 @@ public class EndSessionRestWebServiceImpl implements EndSessionRestWebService {
         }
     }
 
-    private void backChannel(Map<String, Client> backchannelUris, AuthorizationGrant grant, SessionId session) throws InterruptedException {
+    private void backChannel(Map<String, Client> backchannelUris, AuthorizationGrant grant, SessionId session) {
         if (backchannelUris.isEmpty()) {
             return;
         }
@@ -214,17 +218,34 @@ public class EndSessionRestWebServiceImpl implements EndSessionRestWebService {
             user = sessionIdService.getUser(session);
         }
 
-        final ExecutorService executorService = EndSessionUtils.getExecutorService();
-        for (final Map.Entry<String, Client> entry : backchannelUris.entrySet()) {
-            final JsonWebResponse logoutToken = logoutTokenFactory.createLogoutToken(entry.getValue(), session.getOutsideSid(), user);
+        // sign logout tokens before first call, token is created once per client even if it has several uris
+        final Map<String, String> logoutTokens = Maps.newHashMap();
+        for (Client client : backchannelUris.values()) {
+            if (logoutTokens.containsKey(client.getClientId())) {
+                continue;
+            }
+            final JsonWebResponse logoutToken = logoutTokenFactory.createLogoutToken(client, session.getOutsideSid(), user);
             if (logoutToken == null) {
-                log.error("Failed to create logout_token for client: " + entry.getValue().getClientId());
-                return;
+                log.error("Failed to create logout_token for client: " + client.getClientId());
+                continue;
             }
-            executorService.execute(() -> EndSessionUtils.callRpWithBackchannelUri(entry.getKey(), logoutToken.toString()));
+            logoutTokens.put(client.getClientId(), logoutToken.toString());
+        }
+
+        final List<CompletableFuture<Boolean>> deliveries = new ArrayList<>();
+        for (final Map.Entry<String, Client> entry : backchannelUris.entrySet()) {
+            final String clientId = entry.getValue().getClientId();
+            final String logoutToken = logoutTokens.get(clientId);
+            if (logoutToken != null) {
+                deliveries.add(backchannelLogoutDispatcher.dispatch(clientId, entry.getKey(), logoutToken));
+            }
+        }
+
+        if (appConfiguration.getBackchannelLogoutAsync()) {
+            log.trace("Backchannel calls are dispatched.");
+            return;
         }
-        executorService.shutdown();
-        executorService.awaitTermination(30, TimeUnit.SECONDS);
+        backchannelLogoutDispatcher.await(deliveries);
         log.trace("Finished backchannel calls.");
     }
 
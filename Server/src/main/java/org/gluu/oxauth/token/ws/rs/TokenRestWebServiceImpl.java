@@ -18,6 +18,7 @@ import org.gluu.oxauth.model.config.Constants;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.crypto.binding.TokenBindingMessage;
 import org.gluu.oxauth.model.error.ErrorResponseFactory;
+import org.gluu.oxauth.model.gluu.GluuErrorResponseType;
 import org.gluu.oxauth.model.registration.Client;
 import org.gluu.oxauth.model.session.SessionClient;
 import org.gluu.oxauth.model.token.JsonWebResponse;
@@ -31,6 +32,7 @@ import org.gluu.oxauth.service.external.ExternalResourceOwnerPasswordCredentials
 import org.gluu.oxauth.service.external.ExternalUpdateTokenService;
 import org.gluu.oxauth.service.external.context.ExternalResourceOwnerPasswordCredentialsContext;
 import org.gluu.oxauth.service.external.context.ExternalUpdateTokenContext;
+import org.gluu.oxauth.service.token.TokenWriteBatch;
 import org.gluu.oxauth.uma.service.UmaTokenService;
 import org.gluu.oxauth.util.ServerUtil;
 import org.gluu.persist.exception.AuthenticationException;
@@ -113,6 +115,9 @@ public class TokenRestWebServiceImpl implements TokenRestWebService {
     @Inject
     private ExternalUpdateTokenService externalUpdateTokenService;
 
+    @Inject
+    private TokenWriteBatch tokenWriteBatch;
+
     @Override
     public Response requestAccessToken(String grantType, String code,
                                        String redirectUri, String username, String password, String scope,
@@ -121,6 +126,34 @@ public class TokenRestWebServiceImpl implements TokenRestWebService {
                                        String ticket, String claimToken, String claimTokenFormat, String pctCode,
                                        String rptCode, String authReqId, String deviceCode,
                                        HttpServletRequest request, HttpServletResponse response, SecurityContext sec) {
+        tokenWriteBatch.begin(); // tokens created for response are written together before response is returned
+        try {
+            final Response result = processAccessTokenRequest(grantType, code, redirectUri, username, password, scope, assertion, refreshToken,
+                    clientId, clientSecret, codeVerifier, ticket, claimToken, claimTokenFormat, pctCode, rptCode, authReqId, deviceCode,
+                    request, response, sec);
+            try {
+                grantService.persistAll(tokenWriteBatch.end());
+            } catch (Exception e) {
+                log.error("Failed to persist tokens: " + e.getMessage(), e);
+                return Response.status(500).type(MediaType.APPLICATION_JSON_TYPE)
+                        .entity(errorResponseFactory.errorAsJson(GluuErrorResponseType.SERVER_ERROR, "Failed to persist tokens."))
+                        .cacheControl(ServerUtil.cacheControl(true, false))
+                        .header("Pragma", "no-cache")
+                        .build();
+            }
+            return result;
+        } finally {
+            tokenWriteBatch.end(); // tokens of failed request are discarded
+        }
+    }
+
+    private Response processAccessTokenRequest(String grantType, String code,
+                                       String redirectUri, String username, String password, String scope,
+                                       String assertion, String refreshToken,
+                                       String clientId, String clientSecret, String codeVerifier,
+                                       String ticket, String claimToken, String claimTokenFormat, String pctCode,
+                                       String rptCode, String authReqId, String deviceCode,
+                                       HttpServletRequest request, HttpServletResponse response, SecurityContext sec) {
         log.debug(
                 "Attempting to request access token: grantType = {}, code = {}, redirectUri = {}, username = {}, refreshToken = {}, " +
                         "clientId = {}, ExtraParams = {}, isSecure = {}, codeVerifier = {}, ticket = {}",
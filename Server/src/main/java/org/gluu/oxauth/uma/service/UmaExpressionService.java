@@ -2,7 +2,7 @@ package org.gluu.oxauth.uma.service;
 
 import com.google.common.collect.Lists;
 import org.gluu.oxauth.model.error.ErrorResponseFactory;
-import org.gluu.oxauth.model.uma.JsonLogic;
+import org.gluu.oxauth.model.uma.JsonLogicEvaluator;
 import org.gluu.oxauth.model.uma.JsonLogicNode;
 import org.gluu.oxauth.model.uma.JsonLogicNodeParser;
 import org.gluu.oxauth.model.uma.UmaErrorResponseType;
@@ -93,9 +93,9 @@ public class UmaExpressionService {
                     String rule = node.getRule().toString();
                     final boolean result;
                     if (evaluatedResults.isEmpty()) {
-                        result = JsonLogic.apply(rule);
+                        result = JsonLogicEvaluator.apply(rule);
                     } else {
-                        result = JsonLogic.apply(rule, Util.asJsonSilently(evaluatedResults));
+                        result = JsonLogicEvaluator.apply(rule, evaluatedResults);
                     }
 
                     log.trace("JsonLogic evaluation result: " + result + ", rule: " + rule + ", data:" + Util.asJsonSilently(evaluatedResults));
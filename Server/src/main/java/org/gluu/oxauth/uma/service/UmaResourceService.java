@@ -13,6 +13,8 @@ import org.gluu.oxauth.model.config.StaticConfiguration;
 import org.gluu.oxauth.model.error.ErrorResponseFactory;
 import org.gluu.oxauth.model.uma.UmaErrorResponseType;
 import org.gluu.oxauth.model.uma.persistence.UmaResource;
+import org.gluu.oxauth.service.BulkEntryService;
+import org.gluu.oxauth.service.cache.BulkCacheService;
 import org.gluu.persist.PersistenceEntryManager;
 import org.gluu.persist.model.base.SimpleBranch;
 import org.gluu.search.filter.Filter;
@@ -23,9 +25,11 @@ import org.slf4j.Logger;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -55,6 +59,12 @@ public class UmaResourceService {
     @Inject
     private CacheService cacheService;
 
+    @Inject
+    private BulkCacheService bulkCacheService;
+
+    @Inject
+    private BulkEntryService bulkEntryService;
+
     public void addBranch() {
         SimpleBranch branch = new SimpleBranch();
         branch.setOrganizationalUnitName("resources");
@@ -141,15 +151,44 @@ public class UmaResourceService {
         return Collections.emptyList();
     }
 
+    /**
+     * Loads resources with one bulk read from cache and one persistence request for resources which are not cached.
+     *
+     * @throws javax.ws.rs.WebApplicationException with 404 status if any resource is not found
+     */
     public Set<UmaResource> getResources(Set<String> ids) {
         Set<UmaResource> result = new HashSet<UmaResource>();
-        if (ids != null) {
-            for (String id : ids) {
-                UmaResource resource = getResourceById(id);
+        if (ids == null || ids.isEmpty()) {
+            return result;
+        }
+        prepareBranch();
+
+        final List<String> dns = new ArrayList<>();
+        for (String id : ids) {
+            dns.add(getDnForResource(id));
+        }
+
+        final Map<String, Object> cached = bulkCacheService.getAll(dns);
+        final List<String> notCachedDns = new ArrayList<>();
+        for (String dn : dns) {
+            final Object resource = cached.get(dn);
+            if (resource instanceof UmaResource) {
+                result.add((UmaResource) resource);
+            } else {
+                notCachedDns.add(dn);
+            }
+        }
+
+        if (!notCachedDns.isEmpty()) {
+            final Map<String, UmaResource> loaded = bulkEntryService.findByDns(UmaResource.class, notCachedDns, UmaResource::getDn);
+            for (String dn : notCachedDns) {
+                final UmaResource resource = loaded.get(dn);
                 if (resource != null) {
+                    cacheService.put(RESOURCE_CACHE_EXPIRATION_IN_SECONDS, dn, resource);
                     result.add(resource);
                 } else {
-                    log.error("Failed to find resource by id: " + id);
+                    log.error("Failed to find resource set with dn: " + dn);
+                    throw errorResponseFactory.createWebApplicationException(Response.Status.NOT_FOUND, UmaErrorResponseType.NOT_FOUND, "Failed to find resource set with dn: " + dn);
                 }
             }
         }
@@ -20,6 +20,7 @@ import org.gluu.oxauth.model.registration.Client;
 import org.gluu.oxauth.model.token.JwtSigner;
 import org.gluu.oxauth.model.uma.persistence.UmaPermission;
 import org.gluu.oxauth.model.util.JwtUtil;
+import org.gluu.oxauth.service.BulkEntryService;
 import org.gluu.oxauth.service.ClientService;
 import org.gluu.oxauth.service.external.ExternalUmaRptClaimsService;
 import org.gluu.oxauth.service.external.context.ExternalUmaRptClaimsContext;
@@ -86,6 +87,9 @@ public class UmaRptService {
     @Inject
     private StatService statService;
 
+    @Inject
+    private BulkEntryService bulkEntryService;
+
     private boolean containsBranch = false;
 
     public String createDn(String tokenCode) {
@@ -176,8 +180,9 @@ public class UmaRptService {
         try {
             if (p_rpt != null && p_rpt.getPermissions() != null) {
                 final List<String> permissionDns = p_rpt.getPermissions();
+                final Map<String, UmaPermission> permissions = bulkEntryService.findByDns(UmaPermission.class, permissionDns, UmaPermission::getDn);
                 for (String permissionDn : permissionDns) {
-                    final UmaPermission permissionObject = ldapEntryManager.find(UmaPermission.class, permissionDn);
+                    final UmaPermission permissionObject = permissions.get(permissionDn);
                     if (permissionObject != null) {
                         result.add(permissionObject);
                     }
@@ -35,11 +35,11 @@ import org.gluu.oxauth.model.registration.Client;
 import org.gluu.oxauth.model.token.JsonWebResponse;
 import org.gluu.oxauth.model.userinfo.UserInfoErrorResponseType;
 import org.gluu.oxauth.model.userinfo.UserInfoParamsValidator;
-import org.gluu.oxauth.model.util.JwtUtil;
 import org.gluu.oxauth.model.util.Util;
 import org.gluu.oxauth.service.*;
 import org.gluu.oxauth.service.external.ExternalDynamicScopeService;
 import org.gluu.oxauth.service.external.context.DynamicScopeExternalContext;
+import org.gluu.oxauth.service.net.JwksCacheService;
 import org.gluu.oxauth.service.token.TokenService;
 import org.gluu.oxauth.util.ServerUtil;
 import org.gluu.persist.exception.EntryPersistenceException;
@@ -77,6 +77,9 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
     @Inject
     private AuthorizationGrantList authorizationGrantList;
 
+    @Inject
+    private JwksCacheService jwksCacheService;
+
     @Inject
     private ClientService clientService;
 
@@ -163,7 +166,7 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
 
             User currentUser = authorizationGrant.getUser();
             try {
-                currentUser = userService.getUserByDn(authorizationGrant.getUserDn());
+                currentUser = userService.getUserByDn(authorizationGrant.getUserDn(), getRequiredAttributes(authorizationGrant));
             } catch (EntryPersistenceException ex) {
                 log.warn("Failed to reload user entry: '{}'", authorizationGrant.getUserDn());
             }
@@ -269,7 +272,7 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
         // Encryption
         if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA_OAEP
                 || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA1_5) {
-            JSONObject jsonWebKeys = JwtUtil.getJSONWebKeys(authorizationGrant.getClient().getJwksUri());
+            JSONObject jsonWebKeys = jwksCacheService.getJSONWebKeys(authorizationGrant.getClient().getJwksUri());
             String keyId = new ServerCryptoProvider(cryptoProvider).getKeyId(JSONWebKeySet.fromJSONObject(jsonWebKeys),
                     Algorithm.fromString(keyEncryptionAlgorithm.getName()),
                     Use.ENCRYPTION);
@@ -295,6 +298,28 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
         return jwe.toString();
     }
 
+    /**
+     * Returns user attributes read by scope claims of grant, null if all attributes are needed
+     * (claims are requested individually via claims parameter or request object).
+     */
+    private Set<String> getRequiredAttributes(AuthorizationGrant authorizationGrant) {
+        if (authorizationGrant.getClaims() != null
+                || (authorizationGrant.getJwtAuthorizationRequest() != null
+                && authorizationGrant.getJwtAuthorizationRequest().getUserInfoMember() != null)) {
+            return null;
+        }
+
+        Set<String> attributes = new HashSet<>();
+        for (String scopeName : authorizationGrant.getScopes()) {
+            Scope scope = scopeService.getScopeById(scopeName);
+            if (scope != null && scope.getScopeType() != org.gluu.oxauth.model.common.ScopeType.DYNAMIC
+                    && scope.getOxAuthClaims() != null) {
+                attributes.addAll(scopeService.getClaimsPlan(scope).getAttributeNames());
+            }
+        }
+        return attributes;
+    }
+
     /**
      * Builds a JSon String with the response parameters.
      */
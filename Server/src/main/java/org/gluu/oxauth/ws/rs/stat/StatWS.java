@@ -12,6 +12,7 @@ import org.gluu.oxauth.model.error.ErrorResponseFactory;
 import org.gluu.oxauth.model.stat.StatEntry;
 import org.gluu.oxauth.model.token.TokenErrorResponseType;
 import org.gluu.oxauth.security.Identity;
+import org.gluu.oxauth.service.stat.StatRollupService;
 import org.gluu.oxauth.service.stat.StatService;
 import org.gluu.oxauth.service.token.TokenService;
 import org.gluu.oxauth.util.ServerUtil;
@@ -36,8 +37,13 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides server with basic statistic.
@@ -52,6 +58,7 @@ import java.util.Map;
 public class StatWS {
 
     private static final int DEFAULT_WS_INTERVAL_LIMIT_IN_SECONDS = 60;
+    private static final int MAX_CACHED_RESPONSES = 100;
 
     @Inject
     private Logger log;
@@ -68,6 +75,9 @@ public class StatWS {
     @Inject
     private StatService statService;
 
+    @Inject
+    private StatRollupService statRollupService;
+
     @Inject
     private AppConfiguration appConfiguration;
 
@@ -76,6 +86,8 @@ public class StatWS {
 
     private long lastProcessedAt;
 
+    private final ConcurrentMap<String, CachedResponse> responseCache = new ConcurrentHashMap<>();
+
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public Response statGet(@HeaderParam("Authorization") String authorization, @QueryParam("month") String month, @QueryParam("format") String format) {
@@ -93,17 +105,24 @@ public class StatWS {
 
         validateAuthorization(authorization);
         final List<String> months = validateMonth(month);
+        final String cacheKey = new TreeSet<>(months).toString();
 
-        if (!allowToRun()) {
-            log.trace("Interval request limit exceeded. Request is rejected. Current interval limit: " + appConfiguration.getStatWebServiceIntervalLimitInSeconds() + " (or 60 seconds if not set).");
-            throw errorResponseFactory.createWebApplicationException(Response.Status.FORBIDDEN, TokenErrorResponseType.ACCESS_DENIED, "Interval request limit exceeded.");
-        }
+        StatResponse statResponse = getCachedResponse(cacheKey);
+        if (statResponse == null) {
+            if (!allowToRun()) {
+                log.trace("Interval request limit exceeded. Request is rejected. Current interval limit: " + appConfiguration.getStatWebServiceIntervalLimitInSeconds() + " (or 60 seconds if not set).");
+                throw errorResponseFactory.createWebApplicationException(Response.Status.FORBIDDEN, TokenErrorResponseType.ACCESS_DENIED, "Interval request limit exceeded.");
+            }
 
-        lastProcessedAt = System.currentTimeMillis();
+            lastProcessedAt = System.currentTimeMillis();
+        }
 
         try {
             log.trace("Recognized months: " + months);
-            final StatResponse statResponse = buildResponse(months);
+            if (statResponse == null) {
+                statResponse = buildResponse(months);
+                putCachedResponse(cacheKey, statResponse);
+            }
 
             final String responseAsStr;
             if ("openmetrics".equalsIgnoreCase(format)) {
@@ -135,12 +154,46 @@ public class StatWS {
         return response;
     }
 
+    /**
+     * Response is cached by set of months, cached response is served without interval limit check
+     * because it does not touch persistence.
+     */
+    private StatResponse getCachedResponse(String key) {
+        final CachedResponse cached = responseCache.get(key);
+        if (cached != null && System.currentTimeMillis() < cached.expiresAt) {
+            log.trace("Stat response is served from cache, months: {}", key);
+            return cached.response;
+        }
+        return null;
+    }
+
+    private void putCachedResponse(String key, StatResponse response) {
+        final int lifetime = appConfiguration.getStatResponseCacheLifetimeInSeconds();
+        if (lifetime <= 0) {
+            return;
+        }
+        if (responseCache.size() >= MAX_CACHED_RESPONSES) {
+            responseCache.clear();
+        }
+        responseCache.put(key, new CachedResponse(response, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(lifetime)));
+    }
+
     private StatResponseItem buildItem(String month) {
         try {
             String monthlyDn = String.format("ou=%s,%s", month, statService.getBaseDn());
 
-            final List<StatEntry> entries = entryManager.findEntries(monthlyDn, StatEntry.class, Filter.createPresenceFilter("jansId"));
-            if (entries == null || entries.isEmpty()) {
+            if (appConfiguration.getStatRollupEnabled()) {
+                final StatEntry rollup = statRollupService.findOrBuild(monthlyDn, month, System.currentTimeMillis());
+                if (rollup != null) {
+                    log.trace("Stat is read from rollup entry, month: {}", month);
+                    return buildItemFromRollup(rollup);
+                }
+            }
+
+            final List<StatEntry> found = entryManager.findEntries(monthlyDn, StatEntry.class, Filter.createPresenceFilter("jansId"));
+            final List<StatEntry> entries = found != null ? new ArrayList<>(found) : new ArrayList<>();
+            entries.removeIf(entry -> StatRollupService.ROLLUP_ID.equals(entry.getId()));
+            if (entries.isEmpty()) {
                 log.trace("Can't find stat entries for month: " + monthlyDn);
                 return null;
             }
@@ -157,6 +210,17 @@ public class StatWS {
         }
     }
 
+    private StatResponseItem buildItemFromRollup(StatEntry rollup) {
+        final StatResponseItem responseItem = new StatResponseItem();
+        responseItem.setMonthlyActiveUsers(decodeHll(rollup).cardinality());
+        for (Map.Entry<String, Map<String, Long>> en : rollup.getStat().getTokenCountPerGrantType().entrySet()) {
+            if (en.getValue() != null) {
+                responseItem.getTokenCountPerGrantType().put(en.getKey(), new HashMap<>(en.getValue()));
+            }
+        }
+        return responseItem;
+    }
+
     private void unionTokenMapIntoResponseItem(List<StatEntry> entries, StatResponseItem responseItem) {
         for (StatEntry entry : entries) {
             for (Map.Entry<String, Map<String, Long>> en : entry.getStat().getTokenCountPerGrantType().entrySet()) {
@@ -337,4 +401,14 @@ public class StatWS {
         Long v = map.get(key);
         return v != null ? v : 0;
     }
+
+    private static class CachedResponse {
+        private final StatResponse response;
+        private final long expiresAt;
+
+        CachedResponse(StatResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
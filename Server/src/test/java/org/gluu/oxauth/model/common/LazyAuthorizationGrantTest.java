@@ -0,0 +1,83 @@
+package org.gluu.oxauth.model.common;
+
+import org.gluu.oxauth.model.ldap.TokenLdap;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.util.TokenHashUtil;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class LazyAuthorizationGrantTest {
+
+    @Test
+    public void getAccessToken_shouldBeBuiltFromTokenEntryWithoutLoadingGrant() {
+        final AtomicInteger loads = new AtomicInteger();
+        final LazyAuthorizationGrant grant = new LazyAuthorizationGrant(token("token", 60), client(), t -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        final AbstractToken accessToken = grant.getAccessToken("token");
+
+        assertNotNull(accessToken);
+        assertTrue(accessToken.isValid());
+        assertNull(grant.getAccessToken("other"));
+        assertEquals(grant.getScopesAsString(), "openid profile");
+        assertEquals(grant.getClientId(), "clientId");
+        assertEquals(grant.getUserId(), "admin");
+        assertEquals(grant.getAcrValues(), "basic");
+        assertFalse(grant.isGrantLoaded());
+        assertEquals(loads.get(), 0);
+    }
+
+    @Test
+    public void getAccessToken_whenExpired_shouldNotBeValid() {
+        final LazyAuthorizationGrant grant = new LazyAuthorizationGrant(token("token", -1), client(), t -> null);
+
+        assertFalse(grant.getAccessToken("token").isValid());
+    }
+
+    @Test
+    public void getGrant_shouldLoadGrantOnlyOnce() {
+        final AtomicInteger loads = new AtomicInteger();
+        final LazyAuthorizationGrant grant = new LazyAuthorizationGrant(token("token", 60), client(), t -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        grant.getGrant();
+        grant.getGrant();
+
+        assertTrue(grant.isGrantLoaded());
+        assertEquals(loads.get(), 1);
+        assertNull(grant.getAccessToken("token")); // loaded grant is source of truth
+    }
+
+    @Test
+    public void of_whenGrantIsNull_shouldReturnNull() {
+        assertNull(LazyAuthorizationGrant.of(null));
+    }
+
+    private static TokenLdap token(String code, int lifetimeInSeconds) {
+        final Date now = new Date();
+
+        TokenLdap token = new TokenLdap();
+        token.setTokenCode(TokenHashUtil.hash(code));
+        token.setCreationDate(now);
+        token.setExpirationDate(new Date(now.getTime() + lifetimeInSeconds * 1000L));
+        token.setGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS.getParamName());
+        token.setScope("openid profile");
+        token.setUserId("admin");
+        token.setAuthMode("basic");
+        return token;
+    }
+
+    private static Client client() {
+        Client client = new Client();
+        client.setClientId("clientId");
+        return client;
+    }
+}
@@ -0,0 +1,93 @@
+package org.gluu.oxauth.service;
+
+import org.gluu.oxauth.model.uma.persistence.UmaPermission;
+import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.persist.exception.EntryPersistenceException;
+import org.gluu.search.filter.Filter;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class BulkEntryServiceTest {
+
+    private static final String BRANCH = "ou=uma_permission,inum=client1,ou=clients,o=gluu";
+    private static final String DN_1 = "oxTicket=t1," + BRANCH;
+    private static final String DN_2 = "oxTicket=t2," + BRANCH;
+    private static final String DN_3 = "oxTicket=t3," + BRANCH;
+
+    @InjectMocks
+    private BulkEntryService bulkEntryService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private PersistenceEntryManager ldapEntryManager;
+
+    @Test
+    public void findByDns_shouldLoadEntriesOfSameBranchWithSingleRequest() {
+        when(ldapEntryManager.findEntries(eq(BRANCH), eq(UmaPermission.class), any(Filter.class)))
+                .thenReturn(Arrays.asList(permission(DN_1), permission(DN_3), permission("oxTicket=t1,ou=nested," + BRANCH)));
+
+        final Map<String, UmaPermission> result = bulkEntryService.findByDns(UmaPermission.class, Arrays.asList(DN_1, DN_2, DN_3), UmaPermission::getDn);
+
+        assertEquals(result.size(), 2);
+        assertEquals(result.get(DN_1).getDn(), DN_1);
+        assertEquals(result.get(DN_3).getDn(), DN_3);
+        assertFalse(result.containsKey(DN_2));
+        verify(ldapEntryManager, times(1)).findEntries(eq(BRANCH), eq(UmaPermission.class), any(Filter.class));
+        verify(ldapEntryManager, never()).find(eq(UmaPermission.class), anyString());
+    }
+
+    @Test
+    public void findByDns_whenSearchFails_shouldFallbackToFindOneByOne() {
+        when(ldapEntryManager.findEntries(eq(BRANCH), eq(UmaPermission.class), any(Filter.class))).thenThrow(EntryPersistenceException.class);
+        when(ldapEntryManager.find(UmaPermission.class, DN_1)).thenReturn(permission(DN_1));
+        when(ldapEntryManager.find(UmaPermission.class, DN_2)).thenThrow(EntryPersistenceException.class);
+
+        final Map<String, UmaPermission> result = bulkEntryService.findByDns(UmaPermission.class, Arrays.asList(DN_1, DN_2), UmaPermission::getDn);
+
+        assertEquals(result.size(), 1);
+        assertNotNull(result.get(DN_1));
+    }
+
+    @Test
+    public void findByDns_withEmptyDns_shouldNotQueryPersistence() {
+        assertTrue(bulkEntryService.findByDns(UmaPermission.class, Collections.emptyList(), UmaPermission::getDn).isEmpty());
+        verifyNoInteractions(ldapEntryManager);
+    }
+
+    @Test
+    public void groupByParentAndRdnAttribute_shouldGroupByBranch() {
+        final String other = "oxTicket=t4,ou=uma_permission,inum=client2,ou=clients,o=gluu";
+        final Map<String, Set<String>> groups = BulkEntryService.groupByParentAndRdnAttribute(Arrays.asList(DN_1, DN_2, other));
+
+        assertEquals(groups.size(), 2);
+        final List<Set<String>> values = new ArrayList<>(groups.values());
+        assertEquals(values.get(0).size(), 2);
+        assertTrue(values.get(1).contains(other));
+    }
+
+    private static UmaPermission permission(String dn) {
+        final UmaPermission permission = new UmaPermission();
+        permission.setDn(dn);
+        return permission;
+    }
+}
@@ -0,0 +1,126 @@
+package org.gluu.oxauth.service;
+
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.configuration.ClientAuthenticationFilter;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.persist.exception.operation.SearchException;
+import org.gluu.persist.ldap.impl.LdapFilterConverter;
+import org.gluu.search.filter.Filter;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Listeners(MockitoTestNGListener.class)
+public class ClientFilterServiceTest {
+
+    private static final String BASE_DN = "ou=clients,o=gluu";
+    private static final String CLIENT_DN = "inum=client1,ou=clients,o=gluu";
+
+    @InjectMocks
+    private ClientFilterService clientFilterService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private LdapFilterConverter ldapFilterConverter;
+
+    @Mock
+    private PersistenceEntryManager ldapEntryManager;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Test
+    public void buildFilter_shouldFillEachOccurrenceOfParameter() {
+        init("(&(myCustomAttr1={0})(|(myCustomAttr2={1})(myCustomAttr3={0})))");
+
+        final Map<String, String> values = new HashMap<>();
+        values.put("mycustomattr1", "a");
+        values.put("mycustomattr2", "b");
+
+        assertEquals(BaseAuthFilterService.buildFilter(clientFilterService.getFilterWithParameters().get(0), values),
+                "(&(myCustomAttr1=a)(|(myCustomAttr2=b)(myCustomAttr3=a)))");
+    }
+
+    @Test
+    public void buildFilter_whenValueIsMissing_shouldKeepParameterIndex() {
+        init("(&(myCustomAttr1={0})(myCustomAttr2={1}))");
+
+        assertEquals(BaseAuthFilterService.buildFilter(clientFilterService.getFilterWithParameters().get(0), Collections.singletonMap("mycustomattr1", "a")),
+                "(&(myCustomAttr1=a)(myCustomAttr2={1}))");
+    }
+
+    @Test
+    public void processAuthenticationFilters_whenSameParametersAreUsedAgain_shouldSearchOnce() throws SearchException {
+        init("myCustomAttr1={0}");
+        final Filter filter = Filter.createEqualityFilter("myCustomAttr1", "a");
+        when(ldapFilterConverter.convertRawLdapFilterToFilter("myCustomAttr1=a")).thenReturn(filter);
+        when(ldapEntryManager.findEntries(eq(BASE_DN), eq(Client.class), any(Filter.class), any(String[].class))).thenReturn(Collections.singletonList(client()));
+
+        assertEquals(clientFilterService.processAuthenticationFilters(Collections.singletonMap("myCustomAttr1", new String[]{"a"})), CLIENT_DN);
+        assertEquals(clientFilterService.processAuthenticationFilters(Collections.singletonMap("MYCUSTOMATTR1", "a")), CLIENT_DN);
+
+        verify(ldapEntryManager, times(1)).findEntries(eq(BASE_DN), eq(Client.class), any(Filter.class), any(String[].class));
+    }
+
+    @Test
+    public void processAuthenticationFilters_whenConfigurationIsReloaded_shouldSearchAgain() throws SearchException {
+        init("myCustomAttr1={0}");
+        final Filter filter = Filter.createEqualityFilter("myCustomAttr1", "a");
+        when(ldapFilterConverter.convertRawLdapFilterToFilter("myCustomAttr1=a")).thenReturn(filter);
+        when(ldapEntryManager.findEntries(eq(BASE_DN), eq(Client.class), any(Filter.class), any(String[].class)))
+                .thenReturn(Collections.singletonList(client()))
+                .thenReturn(Collections.emptyList());
+
+        assertEquals(clientFilterService.processAuthenticationFilters(Collections.singletonMap("myCustomAttr1", "a")), CLIENT_DN);
+        clientFilterService.updateConfiguration(appConfiguration);
+        assertNull(clientFilterService.processAuthenticationFilters(Collections.singletonMap("myCustomAttr1", "a")));
+    }
+
+    @Test
+    public void updateConfiguration_whenFiltersAreDisabled_shouldReplaceWholeState() throws SearchException {
+        init("myCustomAttr1={0}");
+        when(appConfiguration.getClientAuthenticationFiltersEnabled()).thenReturn(false);
+
+        clientFilterService.updateConfiguration(appConfiguration);
+
+        assertFalse(clientFilterService.isEnabled());
+        assertTrue(clientFilterService.getFilterWithParameters().isEmpty());
+        assertNull(clientFilterService.processAuthenticationFilters(Collections.singletonMap("myCustomAttr1", "a")));
+        verifyNoInteractions(ldapEntryManager);
+    }
+
+    private void init(String filter) {
+        final ClientAuthenticationFilter authenticationFilter = new ClientAuthenticationFilter();
+        authenticationFilter.setFilter(filter);
+        authenticationFilter.setBaseDn(BASE_DN);
+
+        when(appConfiguration.getClientAuthenticationFilters()).thenReturn(Collections.singletonList(authenticationFilter));
+        when(appConfiguration.getClientAuthenticationFiltersEnabled()).thenReturn(true);
+        when(appConfiguration.getAuthenticationFilterCacheLifetimeInSeconds()).thenReturn(60);
+        clientFilterService.init();
+    }
+
+    private static Client client() {
+        final Client client = new Client();
+        client.setDn(CLIENT_DN);
+        return client;
+    }
+}
@@ -0,0 +1,96 @@
+package org.gluu.oxauth.service;
+
+import org.gluu.oxauth.model.authorize.JwtAuthorizationRequest;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.crypto.AbstractCryptoProvider;
+import org.gluu.oxauth.model.exception.InvalidJwtException;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.service.cache.CacheInvalidationEvent;
+import org.gluu.oxauth.service.cache.CacheRegion;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertSame;
+
+@Listeners(MockitoTestNGListener.class)
+public class JwtAuthorizationRequestCacheTest {
+
+    // not well formed, so it fails if it is parsed instead of taken from cache
+    private static final String ENCODED_JWT = "request-object";
+
+    @InjectMocks
+    private JwtAuthorizationRequestCache jwtAuthorizationRequestCache;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private AbstractCryptoProvider cryptoProvider;
+
+    @Test
+    public void get_whenRequestObjectWasValidatedForClient_shouldReturnCachedRequestObject() throws InvalidJwtException {
+        enableCache();
+        final Client client = client("inum=client1,ou=clients,o=gluu");
+        final JwtAuthorizationRequest request = request();
+
+        jwtAuthorizationRequestCache.put(request, client);
+
+        assertSame(jwtAuthorizationRequestCache.get(ENCODED_JWT, client), request);
+        assertSame(jwtAuthorizationRequestCache.get(ENCODED_JWT, client), request);
+    }
+
+    @Test(expectedExceptions = InvalidJwtException.class)
+    public void get_whenRequestObjectWasValidatedForOtherClient_shouldParseRequestObject() throws InvalidJwtException {
+        enableCache();
+        jwtAuthorizationRequestCache.put(request(), client("inum=client1,ou=clients,o=gluu"));
+
+        jwtAuthorizationRequestCache.get(ENCODED_JWT, client("inum=client2,ou=clients,o=gluu"));
+    }
+
+    @Test(expectedExceptions = InvalidJwtException.class)
+    public void get_whenClientIsInvalidated_shouldParseRequestObject() throws InvalidJwtException {
+        enableCache();
+        final Client client = client("inum=client1,ou=clients,o=gluu");
+        jwtAuthorizationRequestCache.put(request(), client);
+
+        jwtAuthorizationRequestCache.onCacheInvalidation(new CacheInvalidationEvent(CacheRegion.CLIENT, client.getDn()));
+
+        jwtAuthorizationRequestCache.get(ENCODED_JWT, client);
+    }
+
+    @Test(expectedExceptions = InvalidJwtException.class)
+    public void get_whenCacheIsDisabled_shouldParseRequestObject() throws InvalidJwtException {
+        when(appConfiguration.getRequestObjectCacheEnabled()).thenReturn(false);
+        final Client client = client("inum=client1,ou=clients,o=gluu");
+        jwtAuthorizationRequestCache.put(request(), client);
+
+        jwtAuthorizationRequestCache.get(ENCODED_JWT, client);
+    }
+
+    private void enableCache() {
+        when(appConfiguration.getRequestObjectCacheEnabled()).thenReturn(true);
+        lenient().when(appConfiguration.getRequestObjectCacheLifetimeInSeconds()).thenReturn(3600);
+    }
+
+    private static JwtAuthorizationRequest request() {
+        final JwtAuthorizationRequest request = mock(JwtAuthorizationRequest.class);
+        when(request.getEncodedJwt()).thenReturn(ENCODED_JWT);
+        return request;
+    }
+
+    private static Client client(String dn) {
+        final Client client = new Client();
+        client.setDn(dn);
+        return client;
+    }
+}
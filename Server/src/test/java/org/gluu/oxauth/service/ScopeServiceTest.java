@@ -228,6 +228,32 @@ public class ScopeServiceTest {
         verifyNoMoreInteractions(attributeService);
     }
 
+    @Test
+    public void getClaims_SameScopeTwice_AttributesResolvedOnce() throws Exception {
+        final String userId = UUID.randomUUID().toString();
+        final Date createdAndUpdatedAt = new Date();
+
+        User user = buildRegularUser(userId, createdAndUpdatedAt, createdAndUpdatedAt);
+
+        Scope scope = new Scope();
+        scope.setDn("inum=10B2,ou=scopes,o=gluu");
+        scope.setOxAuthClaims(Lists.newArrayList("uid", "updatedAt", "createdAt", "emailVerified", "lastLogon", "metadata"));
+
+        mockRegularGluuAttributesMapping();
+        when(ldapEntryManager.decodeTime(anyString(), anyString())).thenReturn(createdAndUpdatedAt);
+
+        Map<String, Object> first = scopeService.getClaims(user, scope);
+        Map<String, Object> second = scopeService.getClaims(user, scope);
+
+        assertEquals(second, first);
+        assertEquals(second.size(), 6);
+        assertEquals(scopeService.getClaimsPlan(scope).getAttributeNames().size(), 6);
+
+        verify(attributeService, times(6)).getAttributeByDn(anyString());
+        verifyNoMoreInteractions(log);
+        verifyNoMoreInteractions(attributeService);
+    }
+
     private void mockRegularGluuAttributesMapping() {
         GluuAttribute attributeUid = new GluuAttribute();
         attributeUid.setName("uid");
@@ -0,0 +1,114 @@
+package org.gluu.oxauth.service;
+
+import org.gluu.oxauth.model.common.SessionId;
+import org.gluu.oxauth.model.common.SessionIdState;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.service.cdi.event.SessionWriteBehindFlushEvent;
+import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.service.CacheService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.intThat;
+import static org.mockito.Mockito.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class SessionWriteBehindServiceTest {
+
+    @InjectMocks
+    private SessionWriteBehindService sessionWriteBehindService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private PersistenceEntryManager persistenceEntryManager;
+
+    @Mock
+    private CacheService cacheService;
+
+    @AfterMethod
+    public void tearDown() {
+        sessionWriteBehindService.destroy();
+    }
+
+    @Test
+    public void flush_whenCachedSessionUnchanged_shouldWriteLastUsedAtWithRemainingLifetime() {
+        enableWithCache();
+        final SessionId remembered = session(SessionIdState.UNAUTHENTICATED, 1000);
+        sessionWriteBehindService.remember(remembered);
+
+        final SessionId cached = session(SessionIdState.UNAUTHENTICATED, 1000);
+        when(cacheService.get("dn")).thenReturn(cached);
+
+        remembered.setLastUsedAt(new Date(2000));
+        sessionWriteBehindService.deferLastUsedAt(remembered);
+        sessionWriteBehindService.flush();
+
+        verify(cacheService).put(intThat(ttl -> ttl > 0 && ttl <= 600), eq("dn"), eq(cached));
+    }
+
+    @Test
+    public void flush_whenCachedSessionChangedByOtherNode_shouldNotOverwriteIt() {
+        enableWithCache();
+        final SessionId remembered = session(SessionIdState.UNAUTHENTICATED, 1000);
+        sessionWriteBehindService.remember(remembered);
+
+        when(cacheService.get("dn")).thenReturn(session(SessionIdState.AUTHENTICATED, 1000));
+
+        remembered.setLastUsedAt(new Date(2000));
+        sessionWriteBehindService.deferLastUsedAt(remembered);
+        sessionWriteBehindService.flush();
+
+        verify(cacheService, never()).put(anyInt(), anyString(), any());
+    }
+
+    @Test
+    public void process_whenWindowElapsed_shouldFlushOnlyOncePerWindow() {
+        enableWithCache();
+        when(appConfiguration.getSessionIdWriteBehindWindowInMillis()).thenReturn(60000);
+        final SessionId remembered = session(SessionIdState.UNAUTHENTICATED, 1000);
+        sessionWriteBehindService.remember(remembered);
+        when(cacheService.get("dn")).thenReturn(session(SessionIdState.UNAUTHENTICATED, 1000));
+
+        remembered.setLastUsedAt(new Date(2000));
+        sessionWriteBehindService.deferLastUsedAt(remembered);
+        sessionWriteBehindService.process(new SessionWriteBehindFlushEvent());
+        remembered.setLastUsedAt(new Date(3000));
+        sessionWriteBehindService.deferLastUsedAt(remembered);
+        sessionWriteBehindService.process(new SessionWriteBehindFlushEvent());
+
+        verify(cacheService, times(1)).put(anyInt(), eq("dn"), any());
+    }
+
+    private void enableWithCache() {
+        when(appConfiguration.getSessionIdWriteBehindEnabled()).thenReturn(true);
+        when(appConfiguration.getSessionIdPersistInCache()).thenReturn(true);
+    }
+
+    private static SessionId session(SessionIdState state, long lastUsedAt) {
+        final SessionId sessionId = new SessionId();
+        sessionId.setDn("dn");
+        sessionId.setId("id");
+        sessionId.setState(state);
+        sessionId.setSessionAttributes(new HashMap<>());
+        sessionId.setLastUsedAt(new Date(lastUsedAt));
+        sessionId.setExpirationDate(new Date(System.currentTimeMillis() + 600 * 1000L));
+        return sessionId;
+    }
+}
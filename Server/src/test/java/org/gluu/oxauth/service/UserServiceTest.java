@@ -0,0 +1,113 @@
+package org.gluu.oxauth.service;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxauth.model.common.User;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.service.cache.CacheInvalidationService;
+import org.gluu.oxauth.service.cache.CacheRegion;
+import org.gluu.persist.PersistenceEntryManager;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class UserServiceTest {
+
+    private static final String DN = "inum=1234,ou=people,o=gluu";
+
+    @InjectMocks
+    private UserService userService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private PersistenceEntryManager persistenceEntryManager;
+
+    @Mock
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Test
+    public void getUserByDn_sameProjectionTwice_shouldLoadOnce() {
+        enableCache();
+        when(persistenceEntryManager.find(eq(DN), eq(User.class), eq("inum"), eq("mail"), eq("uid"))).thenReturn(user());
+
+        final User first = userService.getUserByDn(DN, Lists.newArrayList("mail"));
+        final User second = userService.getUserByDn(DN, Lists.newArrayList("mail"));
+
+        assertEquals(second.getUserId(), "admin");
+        assertNotSame(second, first);
+        verify(persistenceEntryManager, times(1)).find(eq(DN), eq(User.class), eq("inum"), eq("mail"), eq("uid"));
+    }
+
+    @Test
+    public void getUserByDn_differentProjection_shouldBeCachedSeparately() {
+        enableCache();
+        when(persistenceEntryManager.find(eq(DN), eq(User.class), eq("inum"), eq("mail"), eq("uid"))).thenReturn(user());
+        when(persistenceEntryManager.find(eq(DN), eq(User.class), eq("inum"), eq("mail"), eq("phoneNumber"), eq("uid"))).thenReturn(user());
+
+        userService.getUserByDn(DN, Lists.newArrayList("mail"));
+        userService.getUserByDn(DN, Lists.newArrayList("phoneNumber", "mail"));
+        userService.getUserByDn(DN, Lists.newArrayList("mail", "phoneNumber"));
+
+        verify(persistenceEntryManager, times(1)).find(eq(DN), eq(User.class), eq("inum"), eq("mail"), eq("uid"));
+        verify(persistenceEntryManager, times(1)).find(eq(DN), eq(User.class), eq("inum"), eq("mail"), eq("phoneNumber"), eq("uid"));
+    }
+
+    @Test
+    public void updateUser_shouldEvictCachedUser() {
+        enableCache();
+        final User user = user();
+        when(persistenceEntryManager.find(eq(DN), eq(User.class), eq("inum"), eq("mail"), eq("uid"))).thenReturn(user);
+        lenient().when(persistenceEntryManager.find(eq(DN), eq(User.class))).thenReturn(user);
+
+        userService.getUserByDn(DN, Lists.newArrayList("mail"));
+        userService.updateUser(user);
+        userService.getUserByDn(DN, Lists.newArrayList("mail"));
+
+        verify(persistenceEntryManager, times(2)).find(eq(DN), eq(User.class), eq("inum"), eq("mail"), eq("uid"));
+        verify(cacheInvalidationService).publish(CacheRegion.USER, DN);
+    }
+
+    @Test
+    public void getUserByDn_whenCacheIsFull_shouldCacheNewUser() {
+        enableCache();
+        when(appConfiguration.getUserCacheMaxEntries()).thenReturn(1);
+        userService.reloadUserCacheTimerEvent(null);
+        final String otherDn = "inum=5678,ou=people,o=gluu";
+        final User other = user();
+        other.setDn(otherDn);
+        when(persistenceEntryManager.find(eq(DN), eq(User.class), eq("inum"), eq("mail"), eq("uid"))).thenReturn(user());
+        when(persistenceEntryManager.find(eq(otherDn), eq(User.class), eq("inum"), eq("mail"), eq("uid"))).thenReturn(other);
+
+        userService.getUserByDn(DN, Lists.newArrayList("mail"));
+        userService.getUserByDn(otherDn, Lists.newArrayList("mail"));
+        userService.getUserByDn(otherDn, Lists.newArrayList("mail"));
+
+        verify(persistenceEntryManager, times(1)).find(eq(otherDn), eq(User.class), eq("inum"), eq("mail"), eq("uid"));
+    }
+
+    private void enableCache() {
+        when(appConfiguration.getUserCacheEnabled()).thenReturn(true);
+        lenient().when(appConfiguration.getUserCacheMaxEntries()).thenReturn(100);
+        lenient().when(appConfiguration.getUserCacheLifetimeInSeconds()).thenReturn(60);
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setDn(DN);
+        user.setUserId("admin");
+        user.setAttribute("mail", "admin@example.com", false);
+        return user;
+    }
+}
@@ -0,0 +1,84 @@
+package org.gluu.oxauth.service;
+
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.service.cache.CacheInvalidationEvent;
+import org.gluu.oxauth.service.cache.CacheRegion;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Listeners(MockitoTestNGListener.class)
+public class VerifiedClientSecretCacheTest {
+
+    private static final String CLIENT_DN = "inum=client1,ou=clients,o=gluu";
+
+    @InjectMocks
+    private VerifiedClientSecretCache verifiedClientSecretCache;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Test
+    public void isVerified_whenSecretWasVerified_shouldMatchOnlySameSecret() {
+        enableCache();
+        final Client client = client("encrypted1");
+
+        verifiedClientSecretCache.put(client, "secret");
+
+        assertTrue(verifiedClientSecretCache.isVerified(client, "secret"));
+        assertFalse(verifiedClientSecretCache.isVerified(client, "secret2"));
+        assertFalse(verifiedClientSecretCache.isVerified(client, null));
+    }
+
+    @Test
+    public void isVerified_whenStoredSecretIsChanged_shouldNotMatch() {
+        enableCache();
+        verifiedClientSecretCache.put(client("encrypted1"), "secret");
+
+        assertFalse(verifiedClientSecretCache.isVerified(client("encrypted2"), "secret"));
+    }
+
+    @Test
+    public void isVerified_whenClientIsInvalidated_shouldNotMatch() {
+        enableCache();
+        final Client client = client("encrypted1");
+        verifiedClientSecretCache.put(client, "secret");
+
+        verifiedClientSecretCache.onCacheInvalidation(new CacheInvalidationEvent(CacheRegion.CLIENT, CLIENT_DN));
+
+        assertFalse(verifiedClientSecretCache.isVerified(client, "secret"));
+    }
+
+    @Test
+    public void isVerified_whenCacheIsDisabled_shouldNotMatch() {
+        when(appConfiguration.getClientSecretCacheEnabled()).thenReturn(false);
+        final Client client = client("encrypted1");
+        verifiedClientSecretCache.put(client, "secret");
+
+        assertFalse(verifiedClientSecretCache.isVerified(client, "secret"));
+    }
+
+    private void enableCache() {
+        when(appConfiguration.getClientSecretCacheEnabled()).thenReturn(true);
+        lenient().when(appConfiguration.getClientSecretCacheLifetimeInSeconds()).thenReturn(3600);
+    }
+
+    private static Client client(String encryptedSecret) {
+        final Client client = new Client();
+        client.setDn(CLIENT_DN);
+        client.setClientSecret(encryptedSecret);
+        return client;
+    }
+}
@@ -0,0 +1,132 @@
+package org.gluu.oxauth.service.cache;
+
+import net.spy.memcached.MemcachedClient;
+import net.spy.memcached.internal.OperationFuture;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.service.CacheService;
+import org.gluu.service.cache.CacheProvider;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class BulkCacheServiceTest {
+
+    @InjectMocks
+    private BulkCacheService bulkCacheService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private CacheService cacheService;
+
+    @Mock
+    private CacheProvider cacheProvider;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @AfterMethod
+    public void tearDown() {
+        bulkCacheService.destroy();
+    }
+
+    @Test
+    public void getAll_shouldReturnOnlyFoundKeys() {
+        when(appConfiguration.getCacheBulkGetThreadPoolSize()).thenReturn(4);
+        when(cacheService.get("k1")).thenReturn("v1");
+        when(cacheService.get("k2")).thenReturn(null);
+        when(cacheService.get("k3")).thenThrow(new IllegalStateException("connection reset"));
+
+        final Map<String, Object> result = bulkCacheService.getAll(Arrays.asList("k1", "k2", "k3", "k1", null));
+
+        assertEquals(result.size(), 1);
+        assertEquals(result.get("k1"), "v1");
+        verify(cacheService, times(1)).get("k1");
+    }
+
+    @Test
+    public void getAll_withSingleKey_shouldGetInCallingThread() {
+        when(cacheService.get("k1")).thenReturn("v1");
+
+        assertEquals(bulkCacheService.getAll(Arrays.asList("k1")).get("k1"), "v1");
+        verifyNoInteractions(appConfiguration);
+    }
+
+    @Test
+    public void getAll_withMemcached_shouldUseMultiGet() {
+        final MemcachedClient memcachedClient = mock(MemcachedClient.class);
+        final Map<String, Object> found = new HashMap<>();
+        found.put("k1", "v1");
+        when(cacheProvider.getDelegate()).thenReturn(memcachedClient);
+        when(memcachedClient.getBulk(anyCollection())).thenReturn(found);
+
+        final Map<String, Object> result = bulkCacheService.getAll(Arrays.asList("k1", "k2"));
+
+        assertEquals(result, found);
+        verify(memcachedClient).getBulk(anyCollection());
+        verifyNoInteractions(cacheService, appConfiguration);
+    }
+
+    @Test
+    public void executeAll_shouldRunAllWritesAndRethrowFailure() {
+        when(appConfiguration.getCacheBulkGetThreadPoolSize()).thenReturn(4);
+        final AtomicInteger executed = new AtomicInteger();
+
+        try {
+            bulkCacheService.executeAll(Arrays.asList(
+                    executed::incrementAndGet,
+                    () -> {
+                        throw new IllegalStateException("write failed");
+                    },
+                    executed::incrementAndGet));
+            fail("Failure of write is expected to be rethrown.");
+        } catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), "write failed");
+        }
+        assertEquals(executed.get(), 2);
+    }
+
+    @Test
+    public void removeAll_shouldRemoveAllKeysAndCountFailures() {
+        when(appConfiguration.getCacheBulkGetThreadPoolSize()).thenReturn(4);
+        doThrow(new IllegalStateException("connection reset")).when(cacheService).remove("k2");
+
+        assertEquals(bulkCacheService.removeAll(Arrays.asList("k1", "k2", "k3", "k1", null)), 1);
+
+        verify(cacheService, times(1)).remove("k1");
+        verify(cacheService, times(1)).remove("k3");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void removeAll_withMemcached_shouldAwaitAsyncDeletesAndCountFailures() throws Exception {
+        final MemcachedClient memcachedClient = mock(MemcachedClient.class);
+        final OperationFuture<Boolean> deleted = mock(OperationFuture.class);
+        final OperationFuture<Boolean> failed = mock(OperationFuture.class);
+        when(cacheProvider.getDelegate()).thenReturn(memcachedClient);
+        when(memcachedClient.delete("k1")).thenReturn(deleted);
+        when(memcachedClient.delete("k2")).thenReturn(failed);
+        when(deleted.get()).thenReturn(true);
+        when(failed.get()).thenThrow(new ExecutionException(new IllegalStateException("connection reset")));
+
+        assertEquals(bulkCacheService.removeAll(Arrays.asList("k1", "k2")), 1);
+
+        verifyNoInteractions(cacheService, appConfiguration);
+    }
+}
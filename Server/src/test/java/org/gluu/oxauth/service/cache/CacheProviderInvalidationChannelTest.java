@@ -0,0 +1,161 @@
+package org.gluu.oxauth.service.cache;
+
+import org.gluu.service.CacheService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class CacheProviderInvalidationChannelTest {
+
+    private final Map<String, Object> store = new ConcurrentHashMap<>();
+
+    private CacheService cacheService;
+    private BulkCacheService bulkCacheService;
+
+    @BeforeMethod
+    public void setUp() {
+        store.clear();
+        cacheService = mock(CacheService.class);
+        bulkCacheService = mock(BulkCacheService.class);
+
+        doAnswer(invocation -> store.put(invocation.getArgument(1), invocation.getArgument(2))).when(cacheService).put(anyInt(), anyString(), any());
+        when(cacheService.get(anyString())).thenAnswer(invocation -> store.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> store.remove(invocation.<String>getArgument(0))).when(cacheService).remove(anyString());
+        when(bulkCacheService.getAll(anyCollection())).thenAnswer(invocation -> {
+            final Map<String, Object> result = new HashMap<>();
+            for (String key : invocation.<Collection<String>>getArgument(0)) {
+                if (store.containsKey(key)) {
+                    result.put(key, store.get(key));
+                }
+            }
+            return result;
+        });
+    }
+
+    @Test
+    public void process_whenPeerPublishedEvent_shouldDeliverEvent() {
+        final List<CacheInvalidationEvent> received = new ArrayList<>();
+        final CacheProviderInvalidationChannel publisher = start(new ArrayList<>());
+        final CacheProviderInvalidationChannel receiver = start(received);
+        assertNotEquals(publisher.getSlot(), receiver.getSlot());
+
+        publisher.publish(new CacheInvalidationEvent(CacheRegion.CLIENT, "client1"));
+        publisher.process();
+        receiver.process();
+
+        assertEquals(received.size(), 1);
+        assertEquals(received.get(0).getKey(), "client1");
+    }
+
+    @Test
+    public void process_whenSlotIsOverwrittenByPeer_shouldMoveToOtherSlotWithoutLosingEvents() {
+        final List<CacheInvalidationEvent> received = new ArrayList<>();
+        final CacheProviderInvalidationChannel publisher = start(new ArrayList<>());
+        final CacheProviderInvalidationChannel receiver = start(received);
+
+        publisher.publish(new CacheInvalidationEvent(CacheRegion.CLIENT, "client1"));
+        publisher.process();
+
+        // peer which claimed the same slot at the same time wins the write
+        final int lostSlot = publisher.getSlot();
+        final CacheInvalidationLog peerLog = new CacheInvalidationLog();
+        peerLog.setNodeId("peer");
+        store.put(CacheProviderInvalidationChannel.NODE_KEY_PREFIX + lostSlot, peerLog);
+
+        publisher.process();
+        receiver.process();
+
+        assertNotEquals(publisher.getSlot(), lostSlot);
+        assertEquals(received.size(), 1);
+        assertEquals(received.get(0).getKey(), "client1");
+    }
+
+    @Test
+    public void process_whenPeerSeenFirstTime_shouldApplyRetainedEventsWithoutEvictingRegions() {
+        final List<CacheInvalidationEvent> received = new ArrayList<>();
+        final CacheProviderInvalidationChannel publisher = start(new ArrayList<>());
+
+        for (int i = 0; i < 1500; i++) {
+            publisher.publish(new CacheInvalidationEvent(CacheRegion.TOKEN, "token" + i));
+        }
+        publisher.process();
+
+        start(received).process();
+
+        assertEquals(received.size(), 1000);
+        for (CacheInvalidationEvent event : received) {
+            assertFalse(event.isAll());
+        }
+    }
+
+    @Test
+    public void process_whenPeerLogTruncated_shouldEvictOnlyTruncatedRegions() {
+        final List<CacheInvalidationEvent> received = new ArrayList<>();
+        final CacheProviderInvalidationChannel publisher = start(new ArrayList<>());
+        final CacheProviderInvalidationChannel receiver = start(received);
+
+        publisher.publish(new CacheInvalidationEvent(CacheRegion.CLIENT, "client1"));
+        publisher.process();
+        receiver.process();
+        received.clear();
+
+        for (int i = 0; i < 1500; i++) {
+            publisher.publish(new CacheInvalidationEvent(CacheRegion.TOKEN, "token" + i));
+        }
+        publisher.process();
+        receiver.process();
+
+        int evictedRegions = 0;
+        for (CacheInvalidationEvent event : received) {
+            if (event.isAll()) {
+                assertTrue(event.is(CacheRegion.TOKEN));
+                evictedRegions++;
+            }
+        }
+        assertEquals(evictedRegions, 1);
+    }
+
+    @Test
+    public void process_whenSameEventPublishedTwiceBeforeFlush_shouldDeliverItOnce() {
+        final List<CacheInvalidationEvent> received = new ArrayList<>();
+        final CacheProviderInvalidationChannel publisher = start(new ArrayList<>());
+        final CacheProviderInvalidationChannel receiver = start(received);
+
+        publisher.publish(new CacheInvalidationEvent(CacheRegion.TOKEN, "token1"));
+        publisher.publish(new CacheInvalidationEvent(CacheRegion.TOKEN, "token1"));
+        publisher.process();
+        receiver.process();
+
+        assertEquals(received.size(), 1);
+    }
+
+    @Test
+    public void stop_shouldReleaseSlot() {
+        final CacheProviderInvalidationChannel channel = start(new ArrayList<>());
+        final String slotKey = CacheProviderInvalidationChannel.NODE_KEY_PREFIX + channel.getSlot();
+        assertTrue(store.containsKey(slotKey));
+
+        channel.stop();
+
+        assertFalse(store.containsKey(slotKey));
+    }
+
+    private CacheProviderInvalidationChannel start(List<CacheInvalidationEvent> received) {
+        final CacheProviderInvalidationChannel channel = new CacheProviderInvalidationChannel(cacheService, bulkCacheService);
+        channel.start(received::add);
+        return channel;
+    }
+}
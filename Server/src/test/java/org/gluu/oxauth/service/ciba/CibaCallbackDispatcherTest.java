@@ -0,0 +1,148 @@
+package org.gluu.oxauth.service.ciba;
+
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.service.MetricService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Listeners(MockitoTestNGListener.class)
+public class CibaCallbackDispatcherTest {
+
+    @InjectMocks
+    private CibaCallbackDispatcher dispatcher;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private MetricService metricService;
+
+    @AfterMethod
+    public void tearDown() {
+        dispatcher.destroy();
+    }
+
+    @Test
+    public void dispatch_shouldLimitConcurrencyPerClientAndNotBlockOtherClients() throws Exception {
+        when(appConfiguration.getBackchannelCallbackMaxConcurrencyPerClient()).thenReturn(2);
+        when(appConfiguration.getBackchannelCallbackThreadPoolSize()).thenReturn(8);
+        when(appConfiguration.getBackchannelCallbackQueueSize()).thenReturn(100);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch slowDone = new CountDownLatch(10);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch("slowClient", () -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                    slowDone.countDown();
+                }
+            });
+        }
+
+        final CountDownLatch fastDone = new CountDownLatch(1);
+        dispatcher.dispatch("fastClient", fastDone::countDown);
+
+        assertTrue(fastDone.await(5, TimeUnit.SECONDS));
+        assertEquals(dispatcher.getQueueDepth(), 8);
+
+        release.countDown();
+
+        assertTrue(slowDone.await(5, TimeUnit.SECONDS));
+        assertEquals(maxInFlight.get(), 2);
+    }
+
+    @Test
+    public void dispatch_whenCallbackFails_shouldCountFailureAndContinue() throws Exception {
+        when(appConfiguration.getBackchannelCallbackMaxConcurrencyPerClient()).thenReturn(1);
+        when(appConfiguration.getBackchannelCallbackThreadPoolSize()).thenReturn(2);
+        when(appConfiguration.getBackchannelCallbackQueueSize()).thenReturn(10);
+
+        final CountDownLatch done = new CountDownLatch(1);
+        dispatcher.dispatch("client", () -> {
+            throw new IllegalStateException("callback failed");
+        });
+        dispatcher.dispatch("client", done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(dispatcher.getFailedCount(), 1);
+    }
+
+    @Test
+    public void dispatch_whenPoolIsBusy_shouldNotRunCallbackOnDispatchingThread() throws Exception {
+        when(appConfiguration.getBackchannelCallbackMaxConcurrencyPerClient()).thenReturn(1);
+        when(appConfiguration.getBackchannelCallbackThreadPoolSize()).thenReturn(1);
+        when(appConfiguration.getBackchannelCallbackQueueSize()).thenReturn(100);
+
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final CountDownLatch done = new CountDownLatch(50);
+        for (int i = 0; i < 50; i++) {
+            dispatcher.dispatch("client" + (i % 10), () -> {
+                threads.add(Thread.currentThread());
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(threads.contains(Thread.currentThread()));
+        assertEquals(dispatcher.getQueueDepth(), 0);
+    }
+
+    @Test
+    public void dispatch_whenCapacityIsTakenByRunningCallbacks_shouldSkipAfterTimeout() throws Exception {
+        when(appConfiguration.getBackchannelCallbackMaxConcurrencyPerClient()).thenReturn(1);
+        when(appConfiguration.getBackchannelCallbackThreadPoolSize()).thenReturn(1);
+        when(appConfiguration.getBackchannelCallbackQueueSize()).thenReturn(1);
+        when(appConfiguration.getBackchannelCallbackQueueTimeoutInSeconds()).thenReturn(1);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        assertTrue(dispatcher.dispatch("client", () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // callback left the lane but is still running, so it keeps the permit
+        assertFalse(dispatcher.dispatch("otherClient", () -> {
+        }));
+        assertEquals(dispatcher.getFailedCount(), 1);
+
+        release.countDown();
+        final CountDownLatch done = new CountDownLatch(1);
+        assertTrue(dispatcher.dispatch("otherClient", done::countDown));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        verify(metricService).registerFetchStats(CibaCallbackDispatcher.STATS_METRIC_NAME, dispatcher.getStats());
+    }
+}
@@ -0,0 +1,79 @@
+package org.gluu.oxauth.service.expiration;
+
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class SessionExpirationIndexTest {
+
+    private static final long NOW = 1_600_000_000_000L;
+
+    @InjectMocks
+    private SessionExpirationIndex sessionExpirationIndex;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Test
+    public void pollExpired_shouldReturnOnlyExpiredSessions() {
+        when(appConfiguration.getExpirationNotificatorMapSizeLimit()).thenReturn(100);
+
+        sessionExpirationIndex.schedule("sid1", new Date(NOW - 1000));
+        sessionExpirationIndex.schedule("sid2", new Date(NOW));
+        sessionExpirationIndex.schedule("sid3", new Date(NOW + 5000));
+
+        assertEquals(new HashSet<>(sessionExpirationIndex.pollExpired(NOW)), new HashSet<>(Arrays.asList("sid1", "sid2")));
+        assertTrue(sessionExpirationIndex.pollExpired(NOW).isEmpty());
+        assertEquals(sessionExpirationIndex.size(), 1);
+        assertEquals(sessionExpirationIndex.pollExpired(NOW + 5000), Collections.singletonList("sid3"));
+    }
+
+    @Test
+    public void schedule_whenExpirationChanged_shouldMoveSession() {
+        when(appConfiguration.getExpirationNotificatorMapSizeLimit()).thenReturn(100);
+
+        sessionExpirationIndex.schedule("sid1", new Date(NOW));
+        sessionExpirationIndex.schedule("sid1", new Date(NOW + 60000));
+
+        assertTrue(sessionExpirationIndex.pollExpired(NOW).isEmpty());
+        assertEquals(sessionExpirationIndex.pollExpired(NOW + 60000), Collections.singletonList("sid1"));
+    }
+
+    @Test
+    public void unschedule_shouldRemoveSession() {
+        when(appConfiguration.getExpirationNotificatorMapSizeLimit()).thenReturn(100);
+
+        sessionExpirationIndex.schedule("sid1", new Date(NOW));
+        sessionExpirationIndex.unschedule("sid1");
+
+        assertFalse(sessionExpirationIndex.contains("sid1"));
+        assertTrue(sessionExpirationIndex.pollExpired(NOW).isEmpty());
+    }
+
+    @Test
+    public void schedule_whenIndexIsFull_shouldSkipNewSession() {
+        when(appConfiguration.getExpirationNotificatorMapSizeLimit()).thenReturn(1);
+
+        sessionExpirationIndex.schedule("sid1", new Date(NOW));
+        sessionExpirationIndex.schedule("sid2", new Date(NOW));
+
+        assertEquals(sessionExpirationIndex.size(), 1);
+        assertTrue(sessionExpirationIndex.contains("sid1"));
+    }
+}
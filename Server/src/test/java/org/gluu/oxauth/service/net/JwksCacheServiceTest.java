@@ -0,0 +1,139 @@
+package org.gluu.oxauth.service.net;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.net.HttpServiceResponse;
+import org.gluu.oxauth.service.MetricService;
+import org.json.JSONObject;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class JwksCacheServiceTest {
+
+    private static final String JWKS_URI = "https://client.example.com/jwks";
+
+    @InjectMocks
+    private JwksCacheService jwksCacheService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private HttpService httpService;
+
+    @Mock
+    private MetricService metricService;
+
+    @Test
+    public void getJSONWebKeys_whenCached_shouldNotFetchAgain() {
+        enableCache();
+        when(httpService.executeGetAsync(eq(JWKS_URI), anyMap())).thenReturn(response(200, jwks("kid1"), "max-age=600"));
+
+        final JSONObject first = jwksCacheService.getJSONWebKeys(JWKS_URI, "kid1");
+        final JSONObject second = jwksCacheService.getJSONWebKeys(JWKS_URI, "kid1");
+
+        assertNotNull(first);
+        assertSame(second, first);
+        verify(httpService, times(1)).executeGetAsync(eq(JWKS_URI), anyMap());
+        assertEquals(jwksCacheService.getStats().get(JWKS_URI).getFetchCount(), 1);
+        verify(metricService).registerFetchStats("jwks_uri." + JWKS_URI, jwksCacheService.getStats().get(JWKS_URI));
+    }
+
+    @Test
+    public void getJSONWebKeys_whenKidIsUnknown_shouldRefetchOnce() {
+        enableCache();
+        when(appConfiguration.getJwksCacheMinRefetchIntervalInSeconds()).thenReturn(0);
+        when(httpService.executeGetAsync(eq(JWKS_URI), anyMap()))
+                .thenReturn(response(200, jwks("kid1"), "max-age=600"))
+                .thenReturn(response(200, jwks("kid2"), "max-age=600"));
+
+        jwksCacheService.getJSONWebKeys(JWKS_URI, "kid1");
+        final JSONObject rotated = jwksCacheService.getJSONWebKeys(JWKS_URI, "kid2");
+
+        assertTrue(rotated.toString().contains("kid2"));
+        verify(httpService, times(2)).executeGetAsync(eq(JWKS_URI), anyMap());
+    }
+
+    @Test
+    public void getJSONWebKeys_whenRefreshFails_shouldServeStaleKeys() {
+        enableCache();
+        when(appConfiguration.getJwksCacheStaleIfErrorInSeconds()).thenReturn(600);
+        when(httpService.executeGetAsync(eq(JWKS_URI), anyMap()))
+                .thenReturn(response(200, jwks("kid1"), "no-store"))
+                .thenReturn(response(500, "{}", null));
+
+        final JSONObject first = jwksCacheService.getJSONWebKeys(JWKS_URI);
+        final JSONObject stale = jwksCacheService.getJSONWebKeys(JWKS_URI);
+
+        assertSame(stale, first);
+        assertEquals(jwksCacheService.getStats().get(JWKS_URI).getErrorCount(), 1);
+    }
+
+    @Test
+    public void getJSONWebKeys_whenFirstFetchFailed_shouldNotFetchAgainWithinMinRefetchInterval() {
+        enableCache();
+        when(appConfiguration.getJwksCacheMinRefetchIntervalInSeconds()).thenReturn(60);
+        when(httpService.executeGetAsync(eq(JWKS_URI), anyMap())).thenReturn(response(500, "{}", null));
+
+        assertNull(jwksCacheService.getJSONWebKeys(JWKS_URI));
+        assertNull(jwksCacheService.getJSONWebKeys(JWKS_URI));
+
+        verify(httpService, times(1)).executeGetAsync(eq(JWKS_URI), anyMap());
+    }
+
+    @Test
+    public void evictIdleEntries_shouldRemoveUnusedEntryAndItsGauges() {
+        enableCache();
+        when(httpService.executeGetAsync(eq(JWKS_URI), anyMap())).thenReturn(response(200, jwks("kid1"), "max-age=600"));
+
+        jwksCacheService.getJSONWebKeys(JWKS_URI);
+        jwksCacheService.evictIdleEntries(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(2));
+
+        assertTrue(jwksCacheService.getStats().isEmpty());
+        verify(metricService).removeFetchStats("jwks_uri." + JWKS_URI);
+    }
+
+    @Test
+    public void getJSONWebKeys_whenUriIsBlank_shouldReturnNull() {
+        assertNull(jwksCacheService.getJSONWebKeys(" "));
+        verifyNoInteractions(httpService);
+    }
+
+    private void enableCache() {
+        when(appConfiguration.getJwksCacheEnabled()).thenReturn(true);
+        lenient().when(appConfiguration.getJwksCacheMaxLifetimeInSeconds()).thenReturn(3600);
+        lenient().when(appConfiguration.getJwksCacheDefaultLifetimeInSeconds()).thenReturn(300);
+    }
+
+    private static String jwks(String kid) {
+        return "{\"keys\":[{\"kid\":\"" + kid + "\",\"kty\":\"RSA\"}]}";
+    }
+
+    private static CompletableFuture<HttpServiceResponse> response(int status, String body, String cacheControl) {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, null);
+        response.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+        if (cacheControl != null) {
+            response.setHeader("Cache-Control", cacheControl);
+        }
+        return CompletableFuture.completedFuture(new HttpServiceResponse(null, response));
+    }
+}
@@ -0,0 +1,113 @@
+package org.gluu.oxauth.service.net;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.net.HttpServiceResponse;
+import org.gluu.oxauth.service.MetricService;
+import org.gluu.oxauth.service.cache.CacheInvalidationEvent;
+import org.gluu.oxauth.service.cache.CacheInvalidationService;
+import org.gluu.oxauth.service.cache.CacheRegion;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class SectorIdentifierCacheServiceTest {
+
+    private static final String SECTOR_URI = "https://client.example.com/sector";
+
+    @InjectMocks
+    private SectorIdentifierCacheService sectorIdentifierCacheService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private HttpService httpService;
+
+    @Mock
+    private MetricService metricService;
+
+    @Mock
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Test
+    public void getRedirectUris_whenCached_shouldNotFetchAgain() {
+        when(appConfiguration.getSectorIdentifierCacheLifetimeInMinutes()).thenReturn(60);
+        when(httpService.executeGetAsync(eq(SECTOR_URI), anyMap())).thenReturn(response(200, "[\"https://client.example.com/cb\"]"));
+
+        final List<String> first = sectorIdentifierCacheService.getRedirectUris(SECTOR_URI);
+        final List<String> second = sectorIdentifierCacheService.getRedirectUris(SECTOR_URI);
+
+        assertEquals(first, Arrays.asList("https://client.example.com/cb"));
+        assertSame(second, first);
+        verify(httpService, times(1)).executeGetAsync(eq(SECTOR_URI), anyMap());
+        assertEquals(sectorIdentifierCacheService.getStats().get(SECTOR_URI).getFetchCount(), 1);
+        verify(metricService).registerFetchStats("sector_identifier_uri." + SECTOR_URI, sectorIdentifierCacheService.getStats().get(SECTOR_URI));
+    }
+
+    @Test
+    public void getRedirectUris_whenFetchFails_shouldReturnEmptyListAndCountError() {
+        when(httpService.executeGetAsync(eq(SECTOR_URI), anyMap())).thenReturn(response(500, "{}"));
+
+        assertTrue(sectorIdentifierCacheService.getRedirectUris(SECTOR_URI).isEmpty());
+        assertEquals(sectorIdentifierCacheService.getStats().get(SECTOR_URI).getErrorCount(), 1);
+    }
+
+    @Test
+    public void getRedirectUris_whenInvalidated_shouldFetchAgain() {
+        when(appConfiguration.getSectorIdentifierCacheLifetimeInMinutes()).thenReturn(60);
+        when(httpService.executeGetAsync(eq(SECTOR_URI), anyMap()))
+                .thenReturn(response(200, "[\"https://client.example.com/cb1\"]"))
+                .thenReturn(response(200, "[\"https://client.example.com/cb2\"]"));
+
+        sectorIdentifierCacheService.getRedirectUris(SECTOR_URI);
+        sectorIdentifierCacheService.onCacheInvalidation(new CacheInvalidationEvent(CacheRegion.SECTOR_IDENTIFIER, SECTOR_URI));
+        verify(metricService).removeFetchStats("sector_identifier_uri." + SECTOR_URI);
+
+        assertEquals(sectorIdentifierCacheService.getRedirectUris(SECTOR_URI), Arrays.asList("https://client.example.com/cb2"));
+        verify(httpService, times(2)).executeGetAsync(eq(SECTOR_URI), anyMap());
+    }
+
+    @Test
+    public void invalidate_shouldEvictLocallyAndPublishToPeers() {
+        when(appConfiguration.getSectorIdentifierCacheLifetimeInMinutes()).thenReturn(60);
+        when(httpService.executeGetAsync(eq(SECTOR_URI), anyMap())).thenReturn(response(200, "[\"https://client.example.com/cb\"]"));
+        sectorIdentifierCacheService.getRedirectUris(SECTOR_URI);
+
+        sectorIdentifierCacheService.invalidate(SECTOR_URI);
+
+        assertFalse(sectorIdentifierCacheService.getStats().containsKey(SECTOR_URI));
+        verify(cacheInvalidationService).publish(CacheRegion.SECTOR_IDENTIFIER, SECTOR_URI);
+    }
+
+    @Test
+    public void getRedirectUris_whenUriIsBlank_shouldReturnEmptyList() {
+        assertTrue(sectorIdentifierCacheService.getRedirectUris(" ").isEmpty());
+        verifyNoInteractions(httpService);
+    }
+
+    private static CompletableFuture<HttpServiceResponse> response(int status, String body) {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, null);
+        response.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+        return CompletableFuture.completedFuture(new HttpServiceResponse(null, response));
+    }
+}
@@ -0,0 +1,127 @@
+package org.gluu.oxauth.service.stat;
+
+import net.agkn.hll.HLL;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.stat.StatEntry;
+import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.persist.exception.EntryPersistenceException;
+import org.gluu.search.filter.Filter;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+@Listeners(MockitoTestNGListener.class)
+public class StatRollupServiceTest {
+
+    private static final String MONTHLY_DN = "ou=202110,ou=stat,o=gluu";
+    private static final String ROLLUP_DN = "jansId=_rollup," + MONTHLY_DN;
+    private static final long NOW = System.currentTimeMillis();
+
+    @InjectMocks
+    private StatRollupService statRollupService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private PersistenceEntryManager entryManager;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Test
+    public void findOrBuild_closedMonthWithoutRollup_shouldBuildItFromAllNodeEntries() {
+        when(entryManager.find(StatEntry.class, ROLLUP_DN)).thenThrow(EntryPersistenceException.class);
+        when(entryManager.findEntries(eq(MONTHLY_DN), eq(StatEntry.class), any(Filter.class)))
+                .thenReturn(Arrays.asList(nodeEntry("node1", counters(3), hll(1, 2)), nodeEntry("node2", counters(7), hll(2, 3, 4))));
+
+        final StatEntry rollup = statRollupService.findOrBuild(MONTHLY_DN, "202110", NOW);
+
+        verify(entryManager).persist(rollup);
+        assertEquals(rollup.getId(), StatRollupService.ROLLUP_ID);
+        assertEquals(rollup.getStat().getTokenCountPerGrantType().get("authorization_code").get("access_token"), Long.valueOf(10));
+        assertEquals(statRollupService.decodeHll(rollup).cardinality(), 4);
+    }
+
+    @Test
+    public void findOrBuild_whenRollupUpdatedBeforeMonthClosed_shouldRebuildIt() {
+        final StatEntry stale = nodeEntry(StatRollupService.ROLLUP_ID, counters(3), hll(1, 2));
+        stale.getStat().setLastUpdatedAt(statRollupService.getClosedAt("202110") - 1);
+        when(entryManager.find(StatEntry.class, ROLLUP_DN)).thenReturn(stale);
+        when(entryManager.findEntries(eq(MONTHLY_DN), eq(StatEntry.class), any(Filter.class)))
+                .thenReturn(Arrays.asList(stale, nodeEntry("node1", counters(3), hll(1, 2)), nodeEntry("node2", counters(4), hll(3))));
+
+        final StatEntry rollup = statRollupService.findOrBuild(MONTHLY_DN, "202110", NOW);
+
+        verify(entryManager).merge(rollup);
+        assertEquals(rollup.getStat().getTokenCountPerGrantType().get("authorization_code").get("access_token"), Long.valueOf(7));
+        assertEquals(statRollupService.decodeHll(rollup).cardinality(), 3);
+    }
+
+    @Test
+    public void findOrBuild_whenRollupBuiltAfterMonthClosed_shouldReturnItWithoutScan() {
+        final StatEntry built = nodeEntry(StatRollupService.ROLLUP_ID, counters(3), hll(1));
+        built.getStat().setLastUpdatedAt(statRollupService.getClosedAt("202110"));
+        when(entryManager.find(StatEntry.class, ROLLUP_DN)).thenReturn(built);
+
+        assertSame(statRollupService.findOrBuild(MONTHLY_DN, "202110", NOW), built);
+        verify(entryManager, never()).findEntries(anyString(), eq(StatEntry.class), any(Filter.class));
+    }
+
+    @Test
+    public void findOrBuild_whenMonthNotClosed_shouldReturnNull() {
+        assertNull(statRollupService.findOrBuild(MONTHLY_DN, "202110", statRollupService.getClosedAt("202110") - 1));
+        verifyNoInteractions(entryManager);
+    }
+
+    @Test
+    public void sum_shouldSkipNullCounters() {
+        Map<String, Map<String, Map<String, Long>>> perNode = new HashMap<>();
+        perNode.put("node1", counters(1));
+        perNode.put("node2", null);
+        perNode.put("node3", Collections.singletonMap("implicit", null));
+
+        assertEquals(StatRollupService.sum(perNode), counters(1));
+        verifyNoInteractions(entryManager);
+    }
+
+    private static Map<String, Map<String, Long>> counters(long accessTokens) {
+        Map<String, Map<String, Long>> result = new HashMap<>();
+        result.put("authorization_code", new HashMap<>(Collections.singletonMap("access_token", accessTokens)));
+        return result;
+    }
+
+    private static StatEntry nodeEntry(String nodeId, Map<String, Map<String, Long>> counters, HLL hll) {
+        StatEntry entry = new StatEntry();
+        entry.setId(nodeId);
+        entry.setDn("jansId=" + nodeId + "," + MONTHLY_DN);
+        entry.getStat().setTokenCountPerGrantType(counters);
+        entry.setUserHllData(Base64.getEncoder().encodeToString(hll.toBytes()));
+        return entry;
+    }
+
+    private static HLL hll(int... users) {
+        HLL hll = new HLL(15, 5);
+        for (int user : users) {
+            hll.addRaw(("user" + user).hashCode());
+        }
+        return hll;
+    }
+}
@@ -0,0 +1,282 @@
+package org.gluu.oxauth.service.token;
+
+import org.gluu.oxauth.model.common.TokenIndex;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.service.cache.AtomicCacheService;
+import org.gluu.oxauth.service.cache.BulkCacheService;
+import org.gluu.service.CacheService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class TokenIndexServiceTest {
+
+    private static final String CLIENT_KEY = TokenIndexService.clientKey("client1");
+
+    @InjectMocks
+    private TokenIndexService tokenIndexService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private CacheService cacheService;
+
+    @Mock
+    private BulkCacheService bulkCacheService;
+
+    @Mock
+    private AtomicCacheService atomicCacheService;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    private Map<String, Object> cache;
+    private List<String> bulkReadKeys;
+
+    @BeforeMethod
+    public void setUp() {
+        cache = new ConcurrentHashMap<>();
+        bulkReadKeys = new ArrayList<>();
+    }
+
+    @Test
+    public void add_concurrently_shouldNotLoseTokens() throws Exception {
+        backCacheByMap();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final String hash = "hash" + i;
+                futures.add(executor.submit(() -> tokenIndexService.add(CLIENT_KEY, hash, 300)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final Set<String> hashes = tokenIndexService.getTokenHashes(CLIENT_KEY);
+        assertEquals(hashes.size(), 200);
+        assertTrue(hashes.contains("hash0"));
+        assertTrue(hashes.contains("hash199"));
+    }
+
+    @Test
+    public void add_withDifferentLifetime_shouldShardByTimeBucket() {
+        backCacheByMap();
+
+        tokenIndexService.add(CLIENT_KEY, "short", 60);
+        tokenIndexService.add(CLIENT_KEY, "long", 60 * 60 * 24);
+
+        final TokenIndex head = (TokenIndex) cache.get(TokenIndexService.headKey(CLIENT_KEY, tokenIndexService.getSlot()));
+        assertEquals(head.getEntries().size(), 2);
+        assertEquals(tokenIndexService.getTokenHashes(CLIENT_KEY).size(), 2);
+    }
+
+    @Test
+    public void add_whenHeadIsOverwrittenByAnotherNode_shouldRestoreRegistration() {
+        backCacheByMap();
+
+        tokenIndexService.add(CLIENT_KEY, "hash1", 300);
+        cache.put(TokenIndexService.headKey(CLIENT_KEY, tokenIndexService.getSlot()), new TokenIndex()); // lost update by peer node
+        tokenIndexService.add(CLIENT_KEY, "hash2", 300);
+
+        final Set<String> hashes = tokenIndexService.getTokenHashes(CLIENT_KEY);
+        assertTrue(hashes.contains("hash1"));
+        assertTrue(hashes.contains("hash2"));
+    }
+
+    @Test
+    public void add_fromTwoNodes_shouldKeepTokensOfBothInOwnHeads() throws Exception {
+        backCacheByMap();
+        final TokenIndexService otherNode = newNode();
+
+        tokenIndexService.add(CLIENT_KEY, "hash1", 300);
+        otherNode.add(CLIENT_KEY, "hash2", 300);
+
+        assertNotEquals(otherNode.getSlot(), tokenIndexService.getSlot());
+        final Set<String> hashes = otherNode.getTokenHashes(CLIENT_KEY);
+        assertTrue(hashes.contains("hash1"));
+        assertTrue(hashes.contains("hash2"));
+    }
+
+    @Test
+    public void addAll_shouldWriteShardAndHeadOnce() {
+        backCacheByMap();
+        final Map<String, Integer> expirations = new HashMap<>();
+        expirations.put("hash1", 300);
+        expirations.put("hash2", 300);
+        expirations.put("hash3", 300);
+
+        tokenIndexService.addAll(CLIENT_KEY, expirations);
+
+        verify(cacheService, times(2)).put(anyInt(), startsWith(CLIENT_KEY), any());
+        assertEquals(tokenIndexService.getTokenHashes(CLIENT_KEY), expirations.keySet());
+    }
+
+    @Test
+    public void add_manyTokens_shouldWriteBoundedSegmentsWithoutReadingThem() {
+        backCacheByMap();
+        final List<Integer> writtenSizes = new ArrayList<>();
+        doAnswer(invocation -> {
+            final TokenIndex segment = invocation.getArgument(2);
+            writtenSizes.add(segment.getEntries().size());
+            return cache.put(invocation.getArgument(1), segment);
+        }).when(cacheService).put(anyInt(), startsWith(CLIENT_KEY + "_1"), any());
+
+        for (int i = 0; i < 150; i++) {
+            tokenIndexService.add(CLIENT_KEY, "hash" + i, 300);
+        }
+
+        assertEquals(writtenSizes.size(), 150);
+        assertEquals((int) Collections.max(writtenSizes), TokenIndexService.SEGMENT_MAX_ENTRIES);
+        verify(cacheService, never()).get(startsWith(CLIENT_KEY + "_1"));
+        assertEquals(tokenIndexService.getTokenHashes(CLIENT_KEY).size(), 150);
+    }
+
+    @Test
+    public void add_whenTwoNodesClaimSlotConcurrently_shouldNotDropRegistrations() throws Exception {
+        backCacheByMap();
+        final TokenIndexService otherNode = newNode();
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<?> first = executor.submit(() -> {
+                barrier.await();
+                tokenIndexService.add(CLIENT_KEY, "hash1", 300);
+                return null;
+            });
+            final Future<?> second = executor.submit(() -> {
+                barrier.await();
+                otherNode.add(CLIENT_KEY, "hash2", 300);
+                return null;
+            });
+            first.get();
+            second.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertNotEquals(otherNode.getSlot(), tokenIndexService.getSlot());
+        final TokenIndex registry = (TokenIndex) cache.get("tkn_idx_slots");
+        assertTrue(registry.contains(String.valueOf(tokenIndexService.getSlot())));
+        assertTrue(registry.contains(String.valueOf(otherNode.getSlot())));
+        final Set<String> hashes = tokenIndexService.getTokenHashes(CLIENT_KEY);
+        assertTrue(hashes.contains("hash1"));
+        assertTrue(hashes.contains("hash2"));
+    }
+
+    @Test
+    public void refreshSlot_whenNodeIsIdle_shouldRefreshClaimedSlot() {
+        when(appConfiguration.getTokenIndexBucketSizeInSeconds()).thenReturn(3600);
+        backSingleOperationsByMap();
+        tokenIndexService.add(CLIENT_KEY, "hash1", 300);
+        final String nodeKey = "tkn_idx_node_" + tokenIndexService.getSlot();
+
+        tokenIndexService.refreshSlot(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(2));
+
+        verify(atomicCacheService).add(anyInt(), eq(nodeKey), eq(tokenIndexService.getNodeId()));
+        verify(cacheService).put(anyInt(), eq(nodeKey), eq(tokenIndexService.getNodeId()));
+    }
+
+    @Test
+    public void getTokenHashes_shouldReadHeadsOfRegisteredSlotsAndSkipExpiredEntries() {
+        final TokenIndex shard = new TokenIndex();
+        shard.put("expired", System.currentTimeMillis() - 1000);
+        shard.put("active", System.currentTimeMillis() + 60000);
+        final TokenIndex head = new TokenIndex();
+        head.put("shard1", System.currentTimeMillis() + 60000);
+        head.put("shard2", System.currentTimeMillis() - 1000);
+        final TokenIndex registry = new TokenIndex();
+        registry.put("5", System.currentTimeMillis() + 60000);
+        registry.put("7", System.currentTimeMillis() - 1000);
+        when(cacheService.get(anyString())).thenAnswer(invocation -> cache.get(invocation.getArgument(0)));
+        backBulkReadsByMap();
+        cache.put("tkn_idx_slots", registry);
+        cache.put(TokenIndexService.headKey(CLIENT_KEY, 5), head);
+        cache.put("shard1", shard);
+
+        final Set<String> hashes = tokenIndexService.getTokenHashes(CLIENT_KEY);
+
+        assertEquals(hashes.size(), 1);
+        assertTrue(hashes.contains("active"));
+        assertEquals(bulkReadKeys, Arrays.asList(TokenIndexService.headKey(CLIENT_KEY, 5), "shard1"));
+    }
+
+    private void backCacheByMap() {
+        when(appConfiguration.getTokenIndexBucketSizeInSeconds()).thenReturn(3600);
+        backSingleOperationsByMap();
+        backBulkReadsByMap();
+    }
+
+    private void backSingleOperationsByMap() {
+        when(cacheService.get(anyString())).thenAnswer(invocation -> cache.get(invocation.getArgument(0)));
+        doAnswer(invocation -> cache.put(invocation.getArgument(1), invocation.getArgument(2)))
+                .when(cacheService).put(anyInt(), anyString(), any());
+        doAnswer(invocation -> cache.remove(invocation.<String>getArgument(0)))
+                .when(cacheService).remove(anyString());
+        when(atomicCacheService.add(anyInt(), anyString(), any()))
+                .thenAnswer(invocation -> cache.putIfAbsent(invocation.getArgument(1), invocation.getArgument(2)) == null);
+    }
+
+    private void backBulkReadsByMap() {
+        when(bulkCacheService.getAll(anyCollection())).thenAnswer(invocation -> {
+            final Map<String, Object> result = new HashMap<>();
+            for (String key : invocation.<Collection<String>>getArgument(0)) {
+                bulkReadKeys.add(key);
+                if (cache.containsKey(key)) {
+                    result.put(key, cache.get(key));
+                }
+            }
+            return result;
+        });
+    }
+
+    private TokenIndexService newNode() throws Exception {
+        final TokenIndexService node = new TokenIndexService();
+        inject(node, "log", log);
+        inject(node, "cacheService", cacheService);
+        inject(node, "bulkCacheService", bulkCacheService);
+        inject(node, "atomicCacheService", atomicCacheService);
+        inject(node, "appConfiguration", appConfiguration);
+        return node;
+    }
+
+    private static void inject(Object target, String fieldName, Object value) throws Exception {
+        final Field field = TokenIndexService.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,91 @@
+package org.gluu.oxauth.service.token;
+
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.ldap.TokenLdap;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class TokenNearCacheTest {
+
+    @InjectMocks
+    private TokenNearCache tokenNearCache;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Test
+    public void get_whenDisabled_shouldReturnNull() {
+        when(appConfiguration.getTokenNearCacheEnabled()).thenReturn(false);
+
+        tokenNearCache.put("hash", token(60));
+
+        assertNull(tokenNearCache.get("hash"));
+    }
+
+    @Test
+    public void get_whenPut_shouldReturnTokenAndCountHit() {
+        when(appConfiguration.getTokenNearCacheEnabled()).thenReturn(true);
+
+        final TokenLdap token = token(60);
+        tokenNearCache.put("hash", token);
+
+        assertEquals(tokenNearCache.get("hash").getTokenCode(), token.getTokenCode());
+        assertNull(tokenNearCache.get("unknown"));
+        assertEquals(tokenNearCache.getStats().hitCount(), 1);
+        assertEquals(tokenNearCache.getStats().missCount(), 1);
+    }
+
+    @Test
+    public void get_shouldReturnCopyNotSharedBetweenCallers() {
+        when(appConfiguration.getTokenNearCacheEnabled()).thenReturn(true);
+
+        final TokenLdap token = token(60);
+        tokenNearCache.put("hash", token);
+        token.setScope("changed after put");
+
+        final TokenLdap first = tokenNearCache.get("hash");
+        first.setScope("changed by caller");
+
+        assertNotSame(first, token);
+        assertNull(tokenNearCache.get("hash").getScope());
+    }
+
+    @Test
+    public void get_whenTokenExpired_shouldReturnNull() {
+        when(appConfiguration.getTokenNearCacheEnabled()).thenReturn(true);
+
+        tokenNearCache.put("expired", token(-1));
+
+        assertNull(tokenNearCache.get("expired"));
+    }
+
+    @Test
+    public void get_afterInvalidate_shouldReturnNull() {
+        when(appConfiguration.getTokenNearCacheEnabled()).thenReturn(true);
+
+        tokenNearCache.put("hash", token(60));
+        tokenNearCache.invalidate("hash");
+
+        assertNull(tokenNearCache.get("hash"));
+    }
+
+    private static TokenLdap token(int expiresInSeconds) {
+        TokenLdap token = new TokenLdap();
+        token.setTokenCode("hash");
+        token.setExpirationDate(new Date(System.currentTimeMillis() + expiresInSeconds * 1000L));
+        return token;
+    }
+}
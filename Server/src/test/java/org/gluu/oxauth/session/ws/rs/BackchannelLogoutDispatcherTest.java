@@ -0,0 +1,184 @@
+package org.gluu.oxauth.session.ws.rs;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.net.HttpServiceResponse;
+import org.gluu.oxauth.service.MetricService;
+import org.gluu.oxauth.service.net.FetchStats;
+import org.gluu.oxauth.service.net.HttpService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class BackchannelLogoutDispatcherTest {
+
+    private static final String LOGOUT_URI_1 = "https://rp.example.com/logout1";
+    private static final String LOGOUT_URI_2 = "https://rp.example.com/logout2";
+
+    @InjectMocks
+    private BackchannelLogoutDispatcher backchannelLogoutDispatcher;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private HttpService httpService;
+
+    @Mock
+    private MetricService metricService;
+
+    @Test
+    public void dispatch_whenRpAcknowledges_shouldCompleteWithTrueAndRecordStats() {
+        when(appConfiguration.getBackchannelLogoutQueueSize()).thenReturn(10);
+        when(appConfiguration.getBackchannelLogoutMaxConcurrencyPerHost()).thenReturn(4);
+        when(appConfiguration.getBackchannelLogoutTimeoutInSeconds()).thenReturn(5);
+        when(post(LOGOUT_URI_1)).thenReturn(response(200));
+
+        assertTrue(backchannelLogoutDispatcher.dispatch("client1", LOGOUT_URI_1, "token").join());
+
+        verify(httpService).executePostAsync(eq(LOGOUT_URI_1), isNull(), isNull(), eq("logout_token=token"), any(), eq(5000));
+        final FetchStats stats = backchannelLogoutDispatcher.getStats().get("client1");
+        assertEquals(stats.getFetchCount(), 1);
+        assertEquals(stats.getErrorCount(), 0);
+        verify(metricService).registerFetchStats("backchannel_logout.client1", stats);
+    }
+
+    @Test
+    public void dispatch_whenRpFails_shouldCompleteWithFalse() {
+        when(appConfiguration.getBackchannelLogoutQueueSize()).thenReturn(10);
+        when(appConfiguration.getBackchannelLogoutMaxConcurrencyPerHost()).thenReturn(4);
+        when(appConfiguration.getBackchannelLogoutTimeoutInSeconds()).thenReturn(5);
+        when(post(LOGOUT_URI_1)).thenReturn(response(400));
+
+        assertFalse(backchannelLogoutDispatcher.dispatch("client1", LOGOUT_URI_1, "token").join());
+        assertEquals(backchannelLogoutDispatcher.getStats().get("client1").getErrorCount(), 1);
+    }
+
+    @Test
+    public void dispatch_whenHostConcurrencyIsReached_shouldWaitForInFlightCall() {
+        when(appConfiguration.getBackchannelLogoutQueueSize()).thenReturn(10);
+        when(appConfiguration.getBackchannelLogoutMaxConcurrencyPerHost()).thenReturn(1);
+        when(appConfiguration.getBackchannelLogoutTimeoutInSeconds()).thenReturn(5);
+        final CompletableFuture<HttpServiceResponse> inFlight = new CompletableFuture<>();
+        when(post(LOGOUT_URI_1)).thenReturn(inFlight);
+        when(post(LOGOUT_URI_2)).thenReturn(response(200));
+
+        final CompletableFuture<Boolean> first = backchannelLogoutDispatcher.dispatch("client1", LOGOUT_URI_1, "token1");
+        final CompletableFuture<Boolean> second = backchannelLogoutDispatcher.dispatch("client2", LOGOUT_URI_2, "token2");
+
+        verify(httpService, never()).executePostAsync(eq(LOGOUT_URI_2), any(), any(), anyString(), any(), anyInt());
+        assertEquals(backchannelLogoutDispatcher.getQueueDepth(), 1);
+
+        inFlight.complete(new HttpServiceResponse(null, new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, null)));
+
+        assertTrue(first.join());
+        assertTrue(second.join());
+        assertEquals(backchannelLogoutDispatcher.getQueueDepth(), 0);
+    }
+
+    @Test
+    public void dispatch_whenQueueIsFull_shouldFailImmediately() {
+        when(appConfiguration.getBackchannelLogoutQueueSize()).thenReturn(1);
+        when(appConfiguration.getBackchannelLogoutMaxConcurrencyPerHost()).thenReturn(1);
+        when(appConfiguration.getBackchannelLogoutTimeoutInSeconds()).thenReturn(5);
+        when(post(LOGOUT_URI_1)).thenReturn(new CompletableFuture<>());
+
+        backchannelLogoutDispatcher.dispatch("client1", LOGOUT_URI_1, "token1"); // in flight
+        backchannelLogoutDispatcher.dispatch("client1", LOGOUT_URI_1, "token2"); // waits in lane
+
+        assertFalse(backchannelLogoutDispatcher.dispatch("client1", LOGOUT_URI_1, "token3").join());
+        verify(httpService, times(1)).executePostAsync(anyString(), any(), any(), anyString(), any(), anyInt());
+    }
+
+    @Test
+    public void dispatch_whenCallsFailOnCallingThread_shouldDrainLaneWithoutRecursion() {
+        when(appConfiguration.getBackchannelLogoutQueueSize()).thenReturn(100000);
+        when(appConfiguration.getBackchannelLogoutMaxConcurrencyPerHost()).thenReturn(1);
+        when(appConfiguration.getBackchannelLogoutTimeoutInSeconds()).thenReturn(5);
+        final CompletableFuture<HttpServiceResponse> inFlight = new CompletableFuture<>();
+        final CompletableFuture<HttpServiceResponse> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new RejectedExecutionException("async http queue is full"));
+        when(post(LOGOUT_URI_1)).thenReturn(inFlight).thenReturn(rejected);
+
+        final List<CompletableFuture<Boolean>> deliveries = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            deliveries.add(backchannelLogoutDispatcher.dispatch("client1", LOGOUT_URI_1, "token" + i));
+        }
+        inFlight.completeExceptionally(new RejectedExecutionException("async http queue is full"));
+
+        for (CompletableFuture<Boolean> delivery : deliveries) {
+            assertFalse(delivery.join());
+        }
+        assertEquals(backchannelLogoutDispatcher.getQueueDepth(), 0);
+        assertEquals(backchannelLogoutDispatcher.getStats().get("client1").getErrorCount(), 50000);
+    }
+
+    @Test
+    public void dispatch_concurrentlyWhileLanesBecomeIdle_shouldNotExceedHostConcurrency() throws Exception {
+        when(appConfiguration.getBackchannelLogoutQueueSize()).thenReturn(100000);
+        when(appConfiguration.getBackchannelLogoutMaxConcurrencyPerHost()).thenReturn(1);
+        when(appConfiguration.getBackchannelLogoutTimeoutInSeconds()).thenReturn(5);
+        final ExecutorService rp = Executors.newFixedThreadPool(4);
+        final ExecutorService callers = Executors.newFixedThreadPool(8);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        when(post(LOGOUT_URI_1)).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                inFlight.decrementAndGet();
+                return new HttpServiceResponse(null, new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, null));
+            }, rp);
+        });
+
+        try {
+            final List<Future<CompletableFuture<Boolean>>> deliveries = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                final String token = "token" + i;
+                deliveries.add(callers.submit(() -> backchannelLogoutDispatcher.dispatch("client1", LOGOUT_URI_1, token)));
+            }
+            for (Future<CompletableFuture<Boolean>> delivery : deliveries) {
+                assertTrue(delivery.get().get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+            rp.shutdownNow();
+        }
+
+        assertEquals(maxInFlight.get(), 1);
+        assertEquals(backchannelLogoutDispatcher.getQueueDepth(), 0);
+    }
+
+    private CompletableFuture<HttpServiceResponse> post(String uri) {
+        return httpService.executePostAsync(eq(uri), isNull(), isNull(), anyString(), any(), anyInt());
+    }
+
+    private static CompletableFuture<HttpServiceResponse> response(int status) {
+        return CompletableFuture.completedFuture(new HttpServiceResponse(null, new BasicHttpResponse(HttpVersion.HTTP_1_1, status, null)));
+    }
+}
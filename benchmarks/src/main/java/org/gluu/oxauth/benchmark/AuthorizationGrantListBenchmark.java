@@ -0,0 +1,149 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.benchmark;
+
+import org.gluu.oxauth.model.common.AbstractAuthorizationGrant;
+import org.gluu.oxauth.model.common.AuthorizationCodeGrant;
+import org.gluu.oxauth.model.common.AuthorizationGrant;
+import org.gluu.oxauth.model.common.AuthorizationGrantList;
+import org.gluu.oxauth.model.common.ClientCredentialsGrant;
+import org.gluu.oxauth.model.common.User;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.ldap.TokenLdap;
+import org.gluu.oxauth.model.ldap.TokenType;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.service.ClientService;
+import org.gluu.oxauth.service.GrantService;
+import org.gluu.oxauth.service.UserService;
+import org.gluu.oxauth.service.token.TokenNearCache;
+import org.gluu.oxauth.util.TokenHashUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.inject.Instance;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Token to grant conversion: AuthorizationGrantList.asGrant and lookup of access token through GrantService backed by
+ * in-memory CacheService (with and without token near cache).
+ * <p>
+ * User/client lookups and CDI Instance are Mockito stubs, their (constant) cost is included in numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizationGrantListBenchmark {
+
+    @Param({"client_credentials", "authorization_code"})
+    public String grantType;
+
+    @Param({"false", "true"})
+    public boolean tokenNearCacheEnabled;
+
+    private AuthorizationGrantList authorizationGrantList;
+    private TokenLdap tokenLdap;
+    private String accessToken;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        final AppConfiguration appConfiguration = new AppConfiguration();
+        appConfiguration.setAuthorizationCodeLifetime(60);
+        appConfiguration.setTokenNearCacheEnabled(tokenNearCacheEnabled);
+
+        final User user = new User();
+        user.setUserId("benchmark-user");
+        final Client client = new Client();
+        client.setClientId("benchmark-client");
+
+        final UserService userService = mock(UserService.class);
+        when(userService.getCachedUser(anyString())).thenReturn(user);
+        final ClientService clientService = mock(ClientService.class);
+        when(clientService.getClient(anyString())).thenReturn(client);
+
+        final Instance<AbstractAuthorizationGrant> grantInstance = mock(Instance.class);
+        final Instance<ClientCredentialsGrant> clientCredentialsInstance = mock(Instance.class);
+        when(clientCredentialsInstance.get()).thenAnswer(invocation -> newGrant(new ClientCredentialsGrant(), appConfiguration));
+        final Instance<AuthorizationCodeGrant> authorizationCodeInstance = mock(Instance.class);
+        when(authorizationCodeInstance.get()).thenAnswer(invocation -> newGrant(new AuthorizationCodeGrant(), appConfiguration));
+        when(grantInstance.select(ClientCredentialsGrant.class)).thenReturn(clientCredentialsInstance);
+        when(grantInstance.select(AuthorizationCodeGrant.class)).thenReturn(authorizationCodeInstance);
+
+        final TokenNearCache tokenNearCache = new TokenNearCache();
+        BenchmarkUtil.inject(tokenNearCache, "log", LoggerFactory.getLogger(TokenNearCache.class));
+        BenchmarkUtil.inject(tokenNearCache, "appConfiguration", appConfiguration);
+
+        final InMemoryCacheService cacheService = new InMemoryCacheService();
+
+        final GrantService grantService = new GrantService();
+        BenchmarkUtil.inject(grantService, "log", LoggerFactory.getLogger(GrantService.class));
+        BenchmarkUtil.inject(grantService, "appConfiguration", appConfiguration);
+        BenchmarkUtil.inject(grantService, "cacheService", cacheService);
+        BenchmarkUtil.inject(grantService, "tokenNearCache", tokenNearCache);
+
+        authorizationGrantList = new AuthorizationGrantList();
+        BenchmarkUtil.inject(authorizationGrantList, "log", LoggerFactory.getLogger(AuthorizationGrantList.class));
+        BenchmarkUtil.inject(authorizationGrantList, "appConfiguration", appConfiguration);
+        BenchmarkUtil.inject(authorizationGrantList, "grantInstance", grantInstance);
+        BenchmarkUtil.inject(authorizationGrantList, "userService", userService);
+        BenchmarkUtil.inject(authorizationGrantList, "clientService", clientService);
+        BenchmarkUtil.inject(authorizationGrantList, "grantService", grantService);
+        BenchmarkUtil.inject(authorizationGrantList, "cacheService", cacheService);
+
+        accessToken = UUID.randomUUID().toString();
+
+        final Date now = new Date();
+        tokenLdap = new TokenLdap();
+        tokenLdap.setDn("tknCde=" + TokenHashUtil.hash(accessToken) + ",ou=tokens,o=gluu");
+        tokenLdap.setGrantId(UUID.randomUUID().toString());
+        tokenLdap.setGrantType(grantType);
+        tokenLdap.setTokenCode(TokenHashUtil.hash(accessToken));
+        tokenLdap.setTokenTypeEnum(TokenType.ACCESS_TOKEN);
+        tokenLdap.setUserId(user.getUserId());
+        tokenLdap.setClientId(client.getClientId());
+        tokenLdap.setScope("openid profile email");
+        tokenLdap.setAuthenticationTime(now);
+        tokenLdap.setCreationDate(now);
+        tokenLdap.setExpirationDate(new Date(now.getTime() + TimeUnit.DAYS.toMillis(1)));
+
+        cacheService.put(3600, TokenHashUtil.hash(accessToken), tokenLdap);
+    }
+
+    @Benchmark
+    public AuthorizationGrant asGrant() {
+        return authorizationGrantList.asGrant(tokenLdap);
+    }
+
+    @Benchmark
+    public AuthorizationGrant getAuthorizationGrantByAccessToken() {
+        return authorizationGrantList.getAuthorizationGrantByAccessToken(accessToken);
+    }
+
+    private static <T extends AbstractAuthorizationGrant> T newGrant(T grant, AppConfiguration appConfiguration) {
+        BenchmarkUtil.inject(grant, "appConfiguration", appConfiguration);
+        return grant;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.benchmark;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.gluu.oxauth.model.crypto.OxAuthCryptoProvider;
+import org.gluu.oxauth.model.jwk.Algorithm;
+import org.gluu.oxauth.model.jwk.JSONWebKeySet;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+
+import static org.gluu.oxauth.model.jwk.JWKParameter.JSON_WEB_KEY_SET;
+
+/**
+ * Setup helpers shared by benchmarks.
+ */
+public final class BenchmarkUtil {
+
+    public static final String DN_NAME = "CN=oxAuth Benchmark";
+    public static final String KEY_STORE_SECRET = "benchmark";
+
+    private BenchmarkUtil() {
+    }
+
+    public static void registerBouncyCastle() {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    /**
+     * Creates crypto provider backed by throw-away keystore file. Keys are loaded into memory by provider,
+     * file is deleted on JVM exit.
+     */
+    public static OxAuthCryptoProvider newCryptoProvider() throws Exception {
+        registerBouncyCastle();
+
+        File keyStoreFile = File.createTempFile("oxauth-benchmark", ".jks");
+        if (!keyStoreFile.delete()) { // provider creates keystore only if file does not exist
+            throw new IllegalStateException("Failed to prepare keystore file " + keyStoreFile);
+        }
+        keyStoreFile.deleteOnExit();
+
+        return new OxAuthCryptoProvider(keyStoreFile.getAbsolutePath(), KEY_STORE_SECRET, DN_NAME);
+    }
+
+    /**
+     * Generates key for each algorithm in keystore of given provider and returns corresponding web keys.
+     */
+    public static JSONWebKeySet generateKeys(OxAuthCryptoProvider cryptoProvider, Algorithm... algorithms) throws Exception {
+        final long expiration = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(2);
+
+        JSONArray keys = new JSONArray();
+        for (Algorithm algorithm : algorithms) {
+            keys.put(cryptoProvider.generateKey(algorithm, expiration, algorithm.getUse()));
+        }
+
+        JSONObject jwks = new JSONObject();
+        jwks.put(JSON_WEB_KEY_SET, keys);
+        return JSONWebKeySet.fromJSONObject(jwks);
+    }
+
+    /**
+     * Sets field of CDI bean without container (fields are @Inject private).
+     */
+    public static void inject(Object target, String fieldName, Object value) {
+        Class<?> clazz = target.getClass();
+        while (clazz != null) {
+            try {
+                Field field = clazz.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                clazz = clazz.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("Field " + fieldName + " is not found in " + target.getClass());
+    }
+}
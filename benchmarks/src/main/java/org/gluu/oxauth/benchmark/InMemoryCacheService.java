@@ -0,0 +1,41 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.benchmark;
+
+import org.gluu.service.CacheService;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CacheService stub backed by map, so benchmarks measure oxAuth code rather than cache provider.
+ * Expiration is ignored.
+ */
+public class InMemoryCacheService extends CacheService {
+
+    private final Map<String, Object> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public Object get(String key) {
+        return key != null ? entries.get(key) : null;
+    }
+
+    @Override
+    public void put(int expirationInSeconds, String key, Object object) {
+        entries.put(key, object);
+    }
+
+    @Override
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.benchmark;
+
+import org.gluu.oxauth.model.uma.JsonLogic;
+import org.gluu.oxauth.model.uma.JsonLogicEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UMA scope expression evaluation: native JsonLogic evaluator vs json_logic.js in shared Nashorn engine
+ * (script engine variant requires JDK with Nashorn, i.e. 8 - 14).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JsonLogicBenchmark {
+
+    private static final String RULE = "{\"and\": [{\"or\": [{\"var\": 0}, {\"var\": 1}]}, {\"var\": 2}]}";
+
+    private List<Boolean> data;
+    private String dataJson;
+
+    @Setup
+    public void setUp() {
+        data = Arrays.asList(false, true, true);
+        dataJson = "[false, true, true]";
+    }
+
+    @Benchmark
+    public boolean nativeEvaluator() {
+        return JsonLogicEvaluator.apply(RULE, data);
+    }
+
+    @Benchmark
+    public boolean scriptEngine() throws Exception {
+        return JsonLogic.apply(RULE, dataJson);
+    }
+}
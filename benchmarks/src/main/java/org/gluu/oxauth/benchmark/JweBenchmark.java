@@ -0,0 +1,96 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.benchmark;
+
+import org.gluu.oxauth.model.crypto.encryption.BlockEncryptionAlgorithm;
+import org.gluu.oxauth.model.crypto.encryption.KeyEncryptionAlgorithm;
+import org.gluu.oxauth.model.jwe.Jwe;
+import org.gluu.oxauth.model.jwe.JweDecrypterImpl;
+import org.gluu.oxauth.model.jwe.JweEncrypterImpl;
+import org.gluu.oxauth.model.jwt.JwtType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWE encryption and decryption with JweEncrypterImpl/JweDecrypterImpl (encrypted id_token / userinfo path).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JweBenchmark {
+
+    private static final byte[] SHARED_SYMMETRIC_KEY = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"RSA_OAEP", "RSA1_5", "A128KW"})
+    public String keyEncryptionAlgorithm;
+
+    @Param({"A128GCM", "A128CBC_PLUS_HS256"})
+    public String blockEncryptionAlgorithm;
+
+    private KeyPair keyPair;
+    private String encryptedJwe;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkUtil.registerBouncyCastle();
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+
+        encryptedJwe = encrypt().toString();
+    }
+
+    @Benchmark
+    public Jwe encrypt() throws Exception {
+        final KeyEncryptionAlgorithm keyAlg = KeyEncryptionAlgorithm.valueOf(keyEncryptionAlgorithm);
+        final BlockEncryptionAlgorithm blockAlg = BlockEncryptionAlgorithm.valueOf(blockEncryptionAlgorithm);
+
+        Jwe jwe = new Jwe();
+        jwe.getHeader().setType(JwtType.JWT);
+        jwe.getHeader().setAlgorithm(keyAlg);
+        jwe.getHeader().setEncryptionMethod(blockAlg);
+        jwe.getClaims().setIssuer("https://benchmark.gluu.org");
+        jwe.getClaims().setSubjectIdentifier("benchmark-user");
+        jwe.getClaims().setIssuedAt(new Date());
+
+        JweEncrypterImpl encrypter = isSymmetric() ?
+                new JweEncrypterImpl(keyAlg, blockAlg, SHARED_SYMMETRIC_KEY) :
+                new JweEncrypterImpl(keyAlg, blockAlg, keyPair.getPublic());
+        return encrypter.encrypt(jwe);
+    }
+
+    @Benchmark
+    public Jwe decrypt() throws Exception {
+        JweDecrypterImpl decrypter = isSymmetric() ?
+                new JweDecrypterImpl(SHARED_SYMMETRIC_KEY) :
+                new JweDecrypterImpl(keyPair.getPrivate());
+        return decrypter.decrypt(encryptedJwe);
+    }
+
+    private boolean isSymmetric() {
+        return keyEncryptionAlgorithm.startsWith("A");
+    }
+}
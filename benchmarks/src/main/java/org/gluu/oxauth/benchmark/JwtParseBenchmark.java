@@ -0,0 +1,91 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.benchmark;
+
+import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
+import org.gluu.oxauth.model.jwt.Jwt;
+import org.gluu.oxauth.model.jwt.JwtType;
+import org.gluu.oxauth.model.util.Base64Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT parsing, claim set serialization and base64url coding (no cryptography involved).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtParseBenchmark {
+
+    private Jwt jwt;
+    private String encodedJwt;
+    private byte[] payloadBytes;
+    private String encodedPayload;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwt = new Jwt();
+        jwt.getHeader().setType(JwtType.JWT);
+        jwt.getHeader().setAlgorithm(SignatureAlgorithm.RS256);
+        jwt.getHeader().setKeyId("a5a8b4ec-2c7a-4e5b-9d0e-9f1f0e7c3f1a_sig_rs256");
+        jwt.getClaims().setIssuer("https://benchmark.gluu.org");
+        jwt.getClaims().setAudience("benchmark-client");
+        jwt.getClaims().setSubjectIdentifier("benchmark-user");
+        jwt.getClaims().setIssuedAt(new Date());
+        jwt.getClaims().setExpirationTime(new Date(System.currentTimeMillis() + 3600 * 1000L));
+        jwt.getClaims().setClaim("scope", Arrays.asList("openid", "profile", "email", "address", "phone"));
+        jwt.getClaims().setClaim("acr", "basic");
+        jwt.getClaims().setClaim("email", "benchmark.user@gluu.org");
+        // signature value does not matter for parsing, only its size
+        jwt.setEncodedSignature(Base64Util.base64urlencode(new byte[256]));
+
+        encodedJwt = jwt.toString();
+        payloadBytes = jwt.getClaims().toJsonString().getBytes(StandardCharsets.UTF_8);
+        encodedPayload = Base64Util.base64urlencode(payloadBytes);
+    }
+
+    @Benchmark
+    public Jwt parse() throws Exception {
+        return Jwt.parse(encodedJwt);
+    }
+
+    @Benchmark
+    public String serializeClaims() throws Exception {
+        return jwt.getClaims().toBase64JsonObject();
+    }
+
+    @Benchmark
+    public String signingInput() throws Exception {
+        return jwt.getSigningInput();
+    }
+
+    @Benchmark
+    public String base64urlencode() {
+        return Base64Util.base64urlencode(payloadBytes);
+    }
+
+    @Benchmark
+    public byte[] base64urldecode() {
+        return Base64Util.base64urldecode(encodedPayload);
+    }
+}
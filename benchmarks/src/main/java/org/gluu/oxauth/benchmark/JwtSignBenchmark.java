@@ -0,0 +1,93 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.benchmark;
+
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.crypto.OxAuthCryptoProvider;
+import org.gluu.oxauth.model.crypto.signature.AlgorithmFamily;
+import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
+import org.gluu.oxauth.model.jwk.Algorithm;
+import org.gluu.oxauth.model.jwk.JSONWebKeySet;
+import org.gluu.oxauth.model.jwt.Jwt;
+import org.gluu.oxauth.model.token.JwtSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT signing and verification through JwtSigner and OxAuthCryptoProvider (id_token / JWT access token path).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSignBenchmark {
+
+    private static final String SHARED_SECRET = "f2a9e1c0-benchmark-shared-secret-7c1b";
+
+    @Param({"RS256", "ES256", "PS256", "HS256"})
+    public String algorithm;
+
+    private OxAuthCryptoProvider cryptoProvider;
+    private AppConfiguration appConfiguration;
+    private JSONWebKeySet webKeys;
+    private SignatureAlgorithm signatureAlgorithm;
+
+    private String signingInput;
+    private String signature;
+    private String keyId;
+
+    @Setup
+    public void setUp() throws Exception {
+        signatureAlgorithm = SignatureAlgorithm.fromString(algorithm);
+
+        cryptoProvider = BenchmarkUtil.newCryptoProvider();
+        webKeys = signatureAlgorithm.getFamily() == AlgorithmFamily.HMAC ?
+                new JSONWebKeySet() : BenchmarkUtil.generateKeys(cryptoProvider, Algorithm.fromString(algorithm));
+
+        appConfiguration = new AppConfiguration();
+        appConfiguration.setIssuer("https://benchmark.gluu.org");
+
+        Jwt jwt = signJwt();
+        signingInput = jwt.getSigningInput();
+        signature = jwt.getEncodedSignature();
+        keyId = jwt.getHeader().getKeyId();
+    }
+
+    @Benchmark
+    public Jwt sign() throws Exception {
+        return signJwt();
+    }
+
+    @Benchmark
+    public boolean verify() throws Exception {
+        return cryptoProvider.verifySignature(signingInput, signature, keyId, null, SHARED_SECRET, signatureAlgorithm);
+    }
+
+    private Jwt signJwt() throws Exception {
+        JwtSigner jwtSigner = new JwtSigner(appConfiguration, webKeys, signatureAlgorithm, "benchmark-client", SHARED_SECRET, cryptoProvider);
+        Jwt jwt = jwtSigner.newJwt();
+        jwt.getClaims().setSubjectIdentifier("benchmark-user");
+        jwt.getClaims().setIssuedAt(new Date());
+        jwt.getClaims().setExpirationTime(new Date(System.currentTimeMillis() + 3600 * 1000L));
+        jwt.getClaims().setClaim("scope", "openid profile email");
+        return jwtSigner.sign();
+    }
+}
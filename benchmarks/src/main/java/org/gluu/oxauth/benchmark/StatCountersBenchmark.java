@@ -0,0 +1,121 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.benchmark;
+
+import net.agkn.hll.HLL;
+import org.apache.commons.lang.time.FastDateFormat;
+import org.gluu.oxauth.model.common.GrantType;
+import org.gluu.oxauth.model.stat.StatEntry;
+import org.gluu.oxauth.service.stat.StatService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contended stat reporting: StatService token counters (LongAdder) and striped active user HLL compared with
+ * the previous implementation (boxed Long get/put per report and single HLL guarded by one monitor).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StatCountersBenchmark {
+
+    private StatService statService;
+
+    private ConcurrentMap<String, Map<String, Long>> legacyTokenCounters;
+    private HLL legacyHll;
+
+    private String[] userIds;
+
+    @Setup
+    public void setUp() {
+        statService = new StatService();
+        BenchmarkUtil.inject(statService, "log", LoggerFactory.getLogger(StatService.class));
+        BenchmarkUtil.inject(statService, "tokenCounters", new ConcurrentHashMap<>());
+        BenchmarkUtil.inject(statService, "initialized", true);
+
+        // current month entry is in place, so reporting does not touch persistence
+        final StatEntry currentEntry = new StatEntry();
+        currentEntry.getStat().setMonth(FastDateFormat.getInstance("yyyyMM").format(new Date()));
+        BenchmarkUtil.inject(statService, "currentEntry", currentEntry);
+        BenchmarkUtil.inject(statService, "hll", statService.newHll());
+        BenchmarkUtil.inject(statService, "hllStripes", newHllStripes());
+
+        legacyTokenCounters = new ConcurrentHashMap<>();
+        legacyHll = statService.newHll();
+
+        userIds = new String[1024];
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = "user" + i;
+        }
+    }
+
+    // same stripe count as StatService
+    private HLL[] newHllStripes() {
+        int count = 1;
+        while (count < Runtime.getRuntime().availableProcessors() * 2) {
+            count <<= 1;
+        }
+        final HLL[] stripes = new HLL[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = statService.newHll();
+        }
+        return stripes;
+    }
+
+    @Benchmark
+    public void reportToken() {
+        statService.reportAccessToken(GrantType.CLIENT_CREDENTIALS);
+    }
+
+    @Benchmark
+    public void reportTokenLegacy() {
+        Map<String, Long> tokenMap = legacyTokenCounters.computeIfAbsent(GrantType.CLIENT_CREDENTIALS.getValue(), k -> new ConcurrentHashMap<>());
+
+        Long counter = tokenMap.get(StatService.ACCESS_TOKEN_KEY);
+        if (counter == null) {
+            counter = 1L;
+        } else {
+            counter++;
+        }
+
+        tokenMap.put(StatService.ACCESS_TOKEN_KEY, counter);
+    }
+
+    @Benchmark
+    public void reportActiveUser() {
+        statService.reportActiveUser(userIds[ThreadLocalRandom.current().nextInt(userIds.length)]);
+    }
+
+    @Benchmark
+    public void reportActiveUserLegacy() {
+        final int hash = userIds[ThreadLocalRandom.current().nextInt(userIds.length)].hashCode();
+        synchronized (legacyHll) {
+            legacyHll.addRaw(hash);
+        }
+    }
+}
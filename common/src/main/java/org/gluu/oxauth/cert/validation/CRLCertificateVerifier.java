@@ -13,18 +13,15 @@ import java.math.BigInteger;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.security.NoSuchProviderException;
 import java.security.Principal;
 import java.security.cert.CRLException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509CRL;
-import java.security.cert.X509CRLEntry;
 import java.security.cert.X509Certificate;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BoundedInputStream;
@@ -41,8 +38,6 @@ import org.bouncycastle.asn1.x509.Extension;
 import org.bouncycastle.asn1.x509.GeneralName;
 import org.bouncycastle.asn1.x509.GeneralNames;
 import org.bouncycastle.asn1.x509.X509Extensions;
-import org.bouncycastle.x509.NoSuchParserException;
-import org.bouncycastle.x509.util.StreamParsingException;
 import org.gluu.oxauth.cert.validation.model.ValidationStatus;
 import org.gluu.oxauth.cert.validation.model.ValidationStatus.CertificateValidity;
 import org.gluu.oxauth.cert.validation.model.ValidationStatus.ValidatorSourceType;
@@ -50,11 +45,6 @@ import org.gluu.oxauth.model.util.SecurityProviderUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Preconditions;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-
 /**
  * Certificate verifier based on CRL
  * 
@@ -67,23 +57,22 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 
 	private int maxCrlSize;
 
-	private LoadingCache<String, X509CRL> crlCache;
+	private CrlCache crlCache;
 
 	public CRLCertificateVerifier(final int maxCrlSize) {
+		this(maxCrlSize, CrlCache.DEFAULT_MAX_SIZE, CrlCache.DEFAULT_LIFETIME_IN_SECONDS);
+	}
+
+	/**
+	 * @param maxCrlSize max size of downloaded CRL in bytes
+	 * @param cacheSize max count of cached CRLs
+	 * @param cacheLifetimeInSeconds max lifetime of cached CRL, it is bounded by CRL nextUpdate
+	 */
+	public CRLCertificateVerifier(final int maxCrlSize, final int cacheSize, final int cacheLifetimeInSeconds) {
 		SecurityProviderUtility.installBCProvider(true);
 
 		this.maxCrlSize = maxCrlSize;
-		
-		CacheLoader<String, X509CRL> checkedLoader = new CacheLoader<String, X509CRL>() {
-			public X509CRL load(String crlURL) throws CertificateException, CRLException, NoSuchProviderException, NoSuchParserException, StreamParsingException, MalformedURLException, IOException, ExecutionException {
-				X509CRL result = requestCRL(crlURL);
-				Preconditions.checkNotNull(result);
-
-				return result;
-			}
-		};
-
-		this.crlCache = CacheBuilder.newBuilder().maximumSize(10).expireAfterWrite(60, TimeUnit.MINUTES).build(checkedLoader);
+		this.crlCache = new CrlCache(this::requestCRL, cacheSize, cacheLifetimeInSeconds);
 	}
 
 	@Override
@@ -102,25 +91,26 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 
 			log.debug("CRL's URL for '" + subjectX500Principal + "' is '" + crlURL + "'");
 
-			X509CRL x509crl = getCrl(crlURL);
-			if (!validateCRL(x509crl, certificate, issuer, validationDate)) {
+			CrlCache.Entry crlEntry = getCrl(crlURL);
+			if (!validateCRL(crlEntry, certificate, issuer, validationDate)) {
 				log.error("The CRL is not valid!");
 				status.setValidity(CertificateValidity.INVALID);
 				return status;
 			}
 
-			X509CRLEntry crlEntry = x509crl.getRevokedCertificate(certificate.getSerialNumber());
-			if (crlEntry == null) {
+			X509CRL x509crl = crlEntry.getCrl();
+			Date revocationDate = crlEntry.getRevocationDate(certificate.getSerialNumber());
+			if (revocationDate == null) {
 				log.debug("CRL status is valid for '" + subjectX500Principal + "'");
 				status.setValidity(CertificateValidity.VALID);
-			} else if (crlEntry.getRevocationDate().after(validationDate)) {
+			} else if (revocationDate.after(validationDate)) {
 				log.warn("CRL revocation time after the validation date, the certificate '" + subjectX500Principal + "' was valid at " + validationDate);
 				status.setRevocationObjectIssuingTime(x509crl.getThisUpdate());
 				status.setValidity(CertificateValidity.VALID);
 			} else {
-				log.info("CRL for certificate '" + subjectX500Principal + "' is revoked since " + crlEntry.getRevocationDate());
+				log.info("CRL for certificate '" + subjectX500Principal + "' is revoked since " + revocationDate);
 				status.setRevocationObjectIssuingTime(x509crl.getThisUpdate());
-				status.setRevocationDate(crlEntry.getRevocationDate());
+				status.setRevocationDate(revocationDate);
 				status.setValidity(CertificateValidity.REVOKED);
 			}
 		} catch (Exception ex) {
@@ -130,14 +120,16 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 		return status;
 	}
 
-	private boolean validateCRL(X509CRL x509crl, X509Certificate certificate, X509Certificate issuerCertificate, Date validationDate) {
+	private boolean validateCRL(CrlCache.Entry crlEntry, X509Certificate certificate, X509Certificate issuerCertificate, Date validationDate) {
 		Principal subjectX500Principal = certificate.getSubjectX500Principal();
 
-		if (x509crl == null) {
+		if (crlEntry == null) {
 			log.error("No CRL found for certificate '" + subjectX500Principal + "'");
 			return false;
 		}
 
+		X509CRL x509crl = crlEntry.getCrl();
+
 		if (log.isTraceEnabled()) {
 			try {
 				log.trace("CRL number: " + getCrlNumber(x509crl));
@@ -152,10 +144,7 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 			return false;
 		}
 
-		try {
-			x509crl.verify(issuerCertificate.getPublicKey());
-		} catch (Exception ex) {
-			log.error("The signature verification for CRL cannot be performed", ex);
+		if (!crlCache.verifySignature(crlEntry, issuerCertificate.getPublicKey())) {
 			return false;
 		}
 
@@ -182,17 +171,14 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 
 	}
 
-	private X509CRL getCrl(String url) throws CertificateException, CRLException, NoSuchProviderException, NoSuchParserException, StreamParsingException,
-			MalformedURLException, IOException, ExecutionException {
+	private CrlCache.Entry getCrl(String url) {
 		if (!(url.startsWith("http://") || url.startsWith("https://"))) {
 			log.error("It's possible to download CRL via HTTP and HTTPS only");
 			return null;
 		}
 		
 		String cacheKey = url.toLowerCase();
-		X509CRL crl = crlCache.get(cacheKey);
-
-		return crl;
+		return crlCache.get(cacheKey);
 	}
 
 	public X509CRL requestCRL(String url) throws IOException, MalformedURLException, CertificateException, CRLException {
@@ -292,9 +278,16 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 		return aIn.readObject();
 	}
 
+	/**
+	 * @return CRL cache hit, load and refresh counters
+	 */
+	public Map<String, Long> getStats() {
+		return crlCache.getStats();
+	}
+
 	@Override
 	public void destroy() {
-		crlCache.cleanUp();
+		crlCache.destroy();
 	}
 
 }
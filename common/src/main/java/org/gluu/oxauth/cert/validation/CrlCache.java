@@ -0,0 +1,296 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.cert.validation;
+
+import java.math.BigInteger;
+import java.security.PublicKey;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.Striped;
+
+/**
+ * Bounded cache of CRLs keyed by distribution point URL.
+ *
+ * Entry lifetime is bounded by configured lifetime and by CRL nextUpdate. Entry which was used since it was loaded is
+ * refreshed in background before it expires, so validation does not wait for CRL download. Revoked serial numbers are
+ * indexed on load and CRL signature is verified once per loaded CRL and issuer key.
+ */
+public class CrlCache {
+
+	private static final Logger log = LoggerFactory.getLogger(CrlCache.class);
+
+	public static final int DEFAULT_MAX_SIZE = 10;
+	public static final int DEFAULT_LIFETIME_IN_SECONDS = 3600;
+
+	// CRL which is already past nextUpdate is kept for this time to avoid download on each validation
+	private static final long STALE_LIFETIME_IN_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+	// refresh is started when this part of entry lifetime passed
+	private static final double REFRESH_AT_RATIO = 0.8;
+
+	public interface Loader {
+		X509CRL load(String url) throws Exception;
+	}
+
+	private final Loader loader;
+	private final int maxSize;
+	private final long lifetimeInMillis;
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private final Striped<Lock> loadLocks = Striped.lock(16);
+	private final ScheduledExecutorService refreshExecutor;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder loads = new LongAdder();
+	private final LongAdder loadFailures = new LongAdder();
+	private final LongAdder refreshes = new LongAdder();
+	private final LongAdder refreshFailures = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder signatureVerifications = new LongAdder();
+
+	public CrlCache(Loader loader, int maxSize, int lifetimeInSeconds) {
+		this.loader = loader;
+		this.maxSize = maxSize > 0 ? maxSize : DEFAULT_MAX_SIZE;
+		this.lifetimeInMillis = TimeUnit.SECONDS.toMillis(lifetimeInSeconds > 0 ? lifetimeInSeconds : DEFAULT_LIFETIME_IN_SECONDS);
+		this.refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "crl-cache-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @return not expired entry for CRL URL, CRL is downloaded if it is not in cache
+	 */
+	public Entry get(String url) {
+		Entry entry = entries.get(url);
+		if (entry != null && !entry.isExpired(System.currentTimeMillis())) {
+			hits.increment();
+			entry.markUsed();
+			return entry;
+		}
+
+		misses.increment();
+		Lock lock = loadLocks.get(url);
+		lock.lock();
+		try {
+			entry = entries.get(url);
+			if (entry != null && !entry.isExpired(System.currentTimeMillis())) {
+				entry.markUsed();
+				return entry; // loaded by concurrent request
+			}
+
+			entry = load(url);
+			if (entry != null) {
+				entry.markUsed();
+			}
+			return entry;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Entry load(String url) {
+		loads.increment();
+		X509CRL crl;
+		try {
+			crl = loader.load(url);
+		} catch (Exception ex) {
+			log.error("Failed to load CRL from '" + url + "'", ex);
+			crl = null;
+		}
+		if (crl == null) {
+			loadFailures.increment();
+			return null;
+		}
+
+		long now = System.currentTimeMillis();
+		Entry entry = new Entry(crl, now, expiresAt(crl, now));
+		evictIfFull(url);
+		entries.put(url, entry);
+		scheduleRefresh(url, entry);
+
+		log.debug("Loaded CRL from '{}', revoked certificates: {}, expires at: {}", url, entry.revoked.size(), new Date(entry.expiresAt));
+		return entry;
+	}
+
+	private long expiresAt(X509CRL crl, long now) {
+		long expiresAt = now + lifetimeInMillis;
+		Date nextUpdate = crl.getNextUpdate();
+		if (nextUpdate == null) {
+			return expiresAt;
+		}
+		if (nextUpdate.getTime() <= now) {
+			return now + Math.min(STALE_LIFETIME_IN_MILLIS, lifetimeInMillis);
+		}
+		return Math.min(expiresAt, nextUpdate.getTime());
+	}
+
+	private void evictIfFull(String url) {
+		while (entries.size() >= maxSize && !entries.containsKey(url)) {
+			String eldestUrl = null;
+			long eldestAccess = Long.MAX_VALUE;
+			for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+				if (candidate.getValue().lastAccess < eldestAccess) {
+					eldestAccess = candidate.getValue().lastAccess;
+					eldestUrl = candidate.getKey();
+				}
+			}
+			if (eldestUrl == null || entries.remove(eldestUrl) == null) {
+				return;
+			}
+			evictions.increment();
+		}
+	}
+
+	private void scheduleRefresh(String url, Entry entry) {
+		long delay = (long) ((entry.expiresAt - entry.loadedAt) * REFRESH_AT_RATIO);
+		try {
+			refreshExecutor.schedule(() -> refresh(url, entry), delay, TimeUnit.MILLISECONDS);
+		} catch (Exception ex) {
+			log.trace("Failed to schedule CRL refresh", ex);
+		}
+	}
+
+	private void refresh(String url, Entry entry) {
+		if (entries.get(url) != entry) {
+			return; // evicted or already reloaded
+		}
+		if (!entry.used) {
+			log.trace("CRL from '{}' was not used since load, it is not refreshed", url);
+			return;
+		}
+
+		Lock lock = loadLocks.get(url);
+		lock.lock();
+		try {
+			if (entries.get(url) != entry) {
+				return;
+			}
+			refreshes.increment();
+			if (load(url) == null) {
+				refreshFailures.increment(); // current entry is served until it expires
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Verifies CRL signature, successful verification is remembered in entry.
+	 */
+	public boolean verifySignature(Entry entry, PublicKey issuerKey) {
+		if (issuerKey.equals(entry.verifiedKey)) {
+			return true;
+		}
+
+		signatureVerifications.increment();
+		try {
+			entry.crl.verify(issuerKey);
+			entry.verifiedKey = issuerKey;
+			return true;
+		} catch (Exception ex) {
+			log.error("The signature verification for CRL cannot be performed", ex);
+			return false;
+		}
+	}
+
+	public Map<String, Long> getStats() {
+		Map<String, Long> stats = new LinkedHashMap<String, Long>();
+		stats.put("size", (long) entries.size());
+		stats.put("hits", hits.sum());
+		stats.put("misses", misses.sum());
+		stats.put("loads", loads.sum());
+		stats.put("loadFailures", loadFailures.sum());
+		stats.put("refreshes", refreshes.sum());
+		stats.put("refreshFailures", refreshFailures.sum());
+		stats.put("evictions", evictions.sum());
+		stats.put("signatureVerifications", signatureVerifications.sum());
+		return stats;
+	}
+
+	public void destroy() {
+		refreshExecutor.shutdownNow();
+		entries.clear();
+	}
+
+	public static class Entry {
+
+		private final X509CRL crl;
+		private final Map<BigInteger, Date> revoked;
+		private final long loadedAt;
+		private final long expiresAt;
+
+		private volatile boolean used;
+		private volatile long lastAccess;
+		private volatile PublicKey verifiedKey;
+
+		Entry(X509CRL crl, long loadedAt, long expiresAt) {
+			this.crl = crl;
+			this.loadedAt = loadedAt;
+			this.expiresAt = expiresAt;
+			this.lastAccess = loadedAt;
+			this.revoked = indexRevoked(crl);
+		}
+
+		private static Map<BigInteger, Date> indexRevoked(X509CRL crl) {
+			Map<BigInteger, Date> result = new HashMap<BigInteger, Date>();
+			Set<? extends X509CRLEntry> revokedCertificates = crl.getRevokedCertificates();
+			if (revokedCertificates != null) {
+				for (X509CRLEntry crlEntry : revokedCertificates) {
+					result.put(crlEntry.getSerialNumber(), crlEntry.getRevocationDate());
+				}
+			}
+			return result;
+		}
+
+		boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+
+		void markUsed() {
+			used = true;
+			lastAccess = System.currentTimeMillis();
+		}
+
+		public X509CRL getCrl() {
+			return crl;
+		}
+
+		/**
+		 * @return revocation date of certificate or null if certificate is not revoked by CRL
+		 */
+		public Date getRevocationDate(BigInteger serialNumber) {
+			return revoked.get(serialNumber);
+		}
+
+		public boolean isRevoked(BigInteger serialNumber) {
+			return revoked.containsKey(serialNumber);
+		}
+
+		public long getExpiresAt() {
+			return expiresAt;
+		}
+	}
+}
@@ -17,6 +17,7 @@ import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.bouncycastle.asn1.ASN1InputStream;
@@ -60,8 +61,20 @@ public class OCSPCertificateVerifier implements CertificateVerifier {
 
 	private static final Logger log = LoggerFactory.getLogger(OCSPCertificateVerifier.class);
 
+	private OcspResponseCache responseCache;
+
 	public OCSPCertificateVerifier() {
+		this(OcspResponseCache.DEFAULT_MAX_SIZE, OcspResponseCache.DEFAULT_LIFETIME_IN_SECONDS);
+	}
+
+	/**
+	 * @param cacheSize max count of cached OCSP responses
+	 * @param cacheLifetimeInSeconds max lifetime of cached response, it is bounded by response nextUpdate
+	 */
+	public OCSPCertificateVerifier(final int cacheSize, final int cacheLifetimeInSeconds) {
 		SecurityProviderUtility.installBCProvider(true);
+
+		this.responseCache = new OcspResponseCache(cacheSize, cacheLifetimeInSeconds);
 	}
 
 	@Override
@@ -83,6 +96,13 @@ public class OCSPCertificateVerifier implements CertificateVerifier {
 			DigestCalculator digestCalculator = new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1);
 			CertificateID certificateId = new CertificateID(digestCalculator, new JcaX509CertificateHolder(certificate), certificate.getSerialNumber());
 
+			OcspResponseCache.Entry cachedResponse = responseCache.get(certificateId);
+			if (cachedResponse != null) {
+				log.debug("OCSP response for '" + subjectX500Principal + "' is taken from cache");
+				applyResponse(status, certificate, validationDate, cachedResponse.getSingleResp(), cachedResponse.getProducedAt());
+				return status;
+			}
+
 			// Generate OCSP request
 			OCSPReq ocspReq = generateOCSPRequest(certificateId);
 
@@ -105,31 +125,8 @@ public class OCSPCertificateVerifier implements CertificateVerifier {
 
 				foundResponse = true;
 
-				log.debug("OCSP validationDate: " + validationDate);
-				log.debug("OCSP thisUpdate: " + singleResp.getThisUpdate());
-				log.debug("OCSP nextUpdate: " + singleResp.getNextUpdate());
-
-				status.setRevocationObjectIssuingTime(basicOCSPResp.getProducedAt());
-
-				Object certStatus = singleResp.getCertStatus();
-				if (certStatus == CertificateStatus.GOOD) {
-					log.debug("OCSP status is valid for '" + certificate.getSubjectX500Principal() + "'");
-					status.setValidity(CertificateValidity.VALID);
-				} else {
-					if (singleResp.getCertStatus() instanceof RevokedStatus) {
-						log.warn("OCSP status is revoked for: " + subjectX500Principal);
-						if (validationDate.before(((RevokedStatus) singleResp.getCertStatus()).getRevocationTime())) {
-							log.warn("OCSP revocation time after the validation date, the certificate '" + subjectX500Principal + "' was valid at " + validationDate);
-							status.setValidity(CertificateValidity.VALID);
-						} else {
-							Date revocationDate = ((RevokedStatus) singleResp.getCertStatus()).getRevocationTime();
-							log.info("OCSP for certificate '" + subjectX500Principal + "' is revoked since " + revocationDate);
-							status.setRevocationDate(revocationDate);
-							status.setRevocationObjectIssuingTime(singleResp.getThisUpdate());
-							status.setValidity(CertificateValidity.REVOKED);
-						}
-					}
-				}
+				responseCache.put(certificateId, singleResp, basicOCSPResp.getProducedAt());
+				applyResponse(status, certificate, validationDate, singleResp, basicOCSPResp.getProducedAt());
 			}
 
 			if (!foundResponse) {
@@ -142,6 +139,36 @@ public class OCSPCertificateVerifier implements CertificateVerifier {
 		return status;
 	}
 
+	private void applyResponse(ValidationStatus status, X509Certificate certificate, Date validationDate, SingleResp singleResp, Date producedAt) {
+		Principal subjectX500Principal = certificate.getSubjectX500Principal();
+
+		log.debug("OCSP validationDate: " + validationDate);
+		log.debug("OCSP thisUpdate: " + singleResp.getThisUpdate());
+		log.debug("OCSP nextUpdate: " + singleResp.getNextUpdate());
+
+		status.setRevocationObjectIssuingTime(producedAt);
+
+		Object certStatus = singleResp.getCertStatus();
+		if (certStatus == CertificateStatus.GOOD) {
+			log.debug("OCSP status is valid for '" + certificate.getSubjectX500Principal() + "'");
+			status.setValidity(CertificateValidity.VALID);
+		} else {
+			if (singleResp.getCertStatus() instanceof RevokedStatus) {
+				log.warn("OCSP status is revoked for: " + subjectX500Principal);
+				if (validationDate.before(((RevokedStatus) singleResp.getCertStatus()).getRevocationTime())) {
+					log.warn("OCSP revocation time after the validation date, the certificate '" + subjectX500Principal + "' was valid at " + validationDate);
+					status.setValidity(CertificateValidity.VALID);
+				} else {
+					Date revocationDate = ((RevokedStatus) singleResp.getCertStatus()).getRevocationTime();
+					log.info("OCSP for certificate '" + subjectX500Principal + "' is revoked since " + revocationDate);
+					status.setRevocationDate(revocationDate);
+					status.setRevocationObjectIssuingTime(singleResp.getThisUpdate());
+					status.setValidity(CertificateValidity.REVOKED);
+				}
+			}
+		}
+	}
+
 	private OCSPReq generateOCSPRequest(CertificateID certificateId) throws OCSPException, OperatorCreationException, CertificateEncodingException {
 		OCSPReqBuilder ocspReqGenerator = new OCSPReqBuilder();
 
@@ -237,8 +264,16 @@ public class OCSPCertificateVerifier implements CertificateVerifier {
 		return aIn.readObject();
 	}
 
+	/**
+	 * @return OCSP response cache hit and store counters
+	 */
+	public Map<String, Long> getStats() {
+		return responseCache.getStats();
+	}
+
 	@Override
 	public void destroy() {
+		responseCache.clear();
 	}
 
 }
@@ -0,0 +1,140 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2014, Gluu
+ */
+
+package org.gluu.oxauth.cert.validation;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.SingleResp;
+
+/**
+ * Bounded cache of OCSP single responses keyed by certificate ID.
+ *
+ * Response is cached until its nextUpdate (bounded by configured lifetime). Response without nextUpdate is not cached
+ * because responder has newer status at any time.
+ */
+public class OcspResponseCache {
+
+	public static final int DEFAULT_MAX_SIZE = 1000;
+	public static final int DEFAULT_LIFETIME_IN_SECONDS = 3600;
+
+	private final int maxSize;
+	private final long lifetimeInMillis;
+
+	private final ConcurrentMap<CertificateID, Entry> entries = new ConcurrentHashMap<CertificateID, Entry>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder stores = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public OcspResponseCache(int maxSize, int lifetimeInSeconds) {
+		this.maxSize = maxSize > 0 ? maxSize : DEFAULT_MAX_SIZE;
+		this.lifetimeInMillis = TimeUnit.SECONDS.toMillis(lifetimeInSeconds > 0 ? lifetimeInSeconds : DEFAULT_LIFETIME_IN_SECONDS);
+	}
+
+	/**
+	 * @return cached response or null if there is no response for certificate or it is expired
+	 */
+	public Entry get(CertificateID certificateId) {
+		Entry entry = entries.get(certificateId);
+		if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+			hits.increment();
+			return entry;
+		}
+
+		if (entry != null) {
+			entries.remove(certificateId, entry);
+		}
+		misses.increment();
+		return null;
+	}
+
+	public void put(CertificateID certificateId, SingleResp singleResp, Date producedAt) {
+		Date nextUpdate = singleResp.getNextUpdate();
+		if (nextUpdate == null) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		long expiresAt = Math.min(now + lifetimeInMillis, nextUpdate.getTime());
+		if (expiresAt <= now) {
+			return;
+		}
+
+		if (entries.size() >= maxSize && !entries.containsKey(certificateId)) {
+			evict(now);
+		}
+		entries.put(certificateId, new Entry(singleResp, producedAt, expiresAt));
+		stores.increment();
+	}
+
+	private void evict(long now) {
+		int sizeBefore = entries.size();
+		entries.values().removeIf(entry -> entry.expiresAt <= now);
+		if (entries.size() >= maxSize) {
+			// remove the one which expires first
+			CertificateID first = null;
+			long firstExpiresAt = Long.MAX_VALUE;
+			for (Map.Entry<CertificateID, Entry> candidate : entries.entrySet()) {
+				if (candidate.getValue().expiresAt < firstExpiresAt) {
+					firstExpiresAt = candidate.getValue().expiresAt;
+					first = candidate.getKey();
+				}
+			}
+			if (first != null) {
+				entries.remove(first);
+			}
+		}
+		evictions.add(Math.max(0, sizeBefore - entries.size()));
+	}
+
+	public Map<String, Long> getStats() {
+		Map<String, Long> stats = new LinkedHashMap<String, Long>();
+		stats.put("size", (long) entries.size());
+		stats.put("hits", hits.sum());
+		stats.put("misses", misses.sum());
+		stats.put("stores", stores.sum());
+		stats.put("evictions", evictions.sum());
+		return stats;
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public static class Entry {
+
+		private final SingleResp singleResp;
+		private final Date producedAt;
+		private final long expiresAt;
+
+		Entry(SingleResp singleResp, Date producedAt, long expiresAt) {
+			this.singleResp = singleResp;
+			this.producedAt = producedAt;
+			this.expiresAt = expiresAt;
+		}
+
+		public SingleResp getSingleResp() {
+			return singleResp;
+		}
+
+		public Date getProducedAt() {
+			return producedAt;
+		}
+
+		public long getExpiresAt() {
+			return expiresAt;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package org.gluu.oxauth.model.stat;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.io.Serializable;
@@ -19,6 +20,9 @@ public class Stat implements Serializable {
     private long lastUpdatedAt;
     @JsonProperty("month")
     private String month;
+    @JsonProperty("tokenCountPerNode")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, Map<String, Map<String, Long>>> tokenCountPerNode;
 
     public Map<String, Map<String, Long>>  getTokenCountPerGrantType() {
         if (tokenCountPerGrantType == null) tokenCountPerGrantType = new HashMap<>();
@@ -45,6 +49,18 @@ public class Stat implements Serializable {
         this.month = month;
     }
 
+    /**
+     * Token counters reported by each node, set only in monthly rollup entry.
+     */
+    public Map<String, Map<String, Map<String, Long>>> getTokenCountPerNode() {
+        if (tokenCountPerNode == null) tokenCountPerNode = new HashMap<>();
+        return tokenCountPerNode;
+    }
+
+    public void setTokenCountPerNode(Map<String, Map<String, Map<String, Long>>> tokenCountPerNode) {
+        this.tokenCountPerNode = tokenCountPerNode;
+    }
+
     @Override
     public String toString() {
         return "Stat{" +
@@ -0,0 +1,134 @@
+package org.gluu.oxauth.cert.validation;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CRLConverter;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509CRL;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class CrlCacheTest {
+
+    private static final String URL = "http://ca.example.com/crl";
+
+    private KeyPair caKeyPair;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        caKeyPair = generator.generateKeyPair();
+    }
+
+    @Test
+    public void get_secondTime_shouldBeServedFromCache() throws Exception {
+        final X509CRL crl = createCrl(TimeUnit.HOURS.toMillis(1));
+        final AtomicInteger loads = new AtomicInteger();
+        final CrlCache cache = new CrlCache(url -> {
+            loads.incrementAndGet();
+            return crl;
+        }, 10, 3600);
+        try {
+            assertSame(cache.get(URL).getCrl(), crl);
+            assertSame(cache.get(URL).getCrl(), crl);
+
+            assertEquals(loads.get(), 1);
+            assertEquals(cache.getStats().get("hits").longValue(), 1L);
+            assertEquals(cache.getStats().get("misses").longValue(), 1L);
+        } finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void get_shouldIndexRevokedSerialNumbers() throws Exception {
+        final X509CRL crl = createCrl(TimeUnit.HOURS.toMillis(1));
+        final CrlCache cache = new CrlCache(url -> crl, 10, 3600);
+        try {
+            final CrlCache.Entry entry = cache.get(URL);
+
+            assertTrue(entry.isRevoked(BigInteger.valueOf(2)));
+            assertNotNull(entry.getRevocationDate(BigInteger.valueOf(2)));
+            assertFalse(entry.isRevoked(BigInteger.valueOf(3)));
+            assertNull(entry.getRevocationDate(BigInteger.valueOf(3)));
+        } finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void get_shouldBoundLifetimeByNextUpdate() throws Exception {
+        final long nextUpdateInMillis = TimeUnit.SECONDS.toMillis(30);
+        final X509CRL crl = createCrl(nextUpdateInMillis);
+        final CrlCache cache = new CrlCache(url -> crl, 10, 3600);
+        try {
+            assertTrue(cache.get(URL).getExpiresAt() <= crl.getNextUpdate().getTime());
+        } finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void verifySignature_shouldVerifyOncePerEntryAndKey() throws Exception {
+        final X509CRL crl = createCrl(TimeUnit.HOURS.toMillis(1));
+        final CrlCache cache = new CrlCache(url -> crl, 10, 3600);
+        try {
+            final CrlCache.Entry entry = cache.get(URL);
+
+            assertTrue(cache.verifySignature(entry, caKeyPair.getPublic()));
+            assertTrue(cache.verifySignature(entry, caKeyPair.getPublic()));
+            assertEquals(cache.getStats().get("signatureVerifications").longValue(), 1L);
+
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            assertFalse(cache.verifySignature(entry, generator.generateKeyPair().getPublic()));
+        } finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void get_whenCacheIsFull_shouldEvictLeastRecentlyUsed() throws Exception {
+        final X509CRL crl = createCrl(TimeUnit.HOURS.toMillis(1));
+        final CrlCache cache = new CrlCache(url -> crl, 1, 3600);
+        try {
+            cache.get(URL);
+            cache.get(URL + "2");
+
+            assertEquals(cache.getStats().get("size").longValue(), 1L);
+            assertEquals(cache.getStats().get("evictions").longValue(), 1L);
+        } finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void get_whenLoadFails_shouldReturnNull() {
+        final CrlCache cache = new CrlCache(url -> null, 10, 3600);
+        try {
+            assertNull(cache.get(URL));
+            assertEquals(cache.getStats().get("loadFailures").longValue(), 1L);
+        } finally {
+            cache.destroy();
+        }
+    }
+
+    private X509CRL createCrl(long nextUpdateInMillis) throws Exception {
+        final Date now = new Date();
+        final X509v2CRLBuilder builder = new X509v2CRLBuilder(new X500Name("CN=Test CA"), now);
+        builder.setNextUpdate(new Date(now.getTime() + nextUpdateInMillis));
+        builder.addCRLEntry(BigInteger.valueOf(2), now, CRLReason.keyCompromise);
+        return new JcaX509CRLConverter().getCRL(builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(caKeyPair.getPrivate())));
+    }
+}